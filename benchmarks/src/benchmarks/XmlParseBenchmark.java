@@ -23,6 +23,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.lang.reflect.Constructor;
 import java.util.Arrays;
 import java.util.List;
@@ -123,20 +124,32 @@ public class XmlParseBenchmark extends SimpleBenchmark {
     }
 
     public int timeExpat(int reps) throws Exception {
-        return testXmlPull(expatConstructor, reps);
+        return testXmlPull(expatConstructor, reps, false);
     }
 
     public int timeKxml(int reps) throws Exception {
-        return testXmlPull(kxmlConstructor, reps);
+        return testXmlPull(kxmlConstructor, reps, false);
     }
 
-    private int testXmlPull(Constructor<? extends XmlPullParser> constructor, int reps)
-            throws Exception {
+    /**
+     * Like {@link #timeKxml}, but decodes the input with an InputStreamReader
+     * rather than letting the parser decode the UTF-8 bytes itself.
+     */
+    public int timeKxmlReader(int reps) throws Exception {
+        return testXmlPull(kxmlConstructor, reps, true);
+    }
+
+    private int testXmlPull(Constructor<? extends XmlPullParser> constructor, int reps,
+            boolean useReader) throws Exception {
         int elementCount = 0;
         for (int i = 0; i < reps; i++) {
             inputStream.reset();
             XmlPullParser xmlPullParser = constructor.newInstance();
-            xmlPullParser.setInput(inputStream, "UTF-8");
+            if (useReader) {
+                xmlPullParser.setInput(new InputStreamReader(inputStream, "UTF-8"));
+            } else {
+                xmlPullParser.setInput(inputStream, "UTF-8");
+            }
             int type;
             while ((type = xmlPullParser.next()) != XmlPullParser.END_DOCUMENT) {
                 if (type == XmlPullParser.START_TAG) {
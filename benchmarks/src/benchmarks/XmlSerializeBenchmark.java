@@ -22,8 +22,10 @@ import com.google.caliper.SimpleBenchmark;
 
 import org.xmlpull.v1.*;
 
+import java.io.ByteArrayOutputStream;
 import java.io.CharArrayWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Random;
@@ -42,8 +44,23 @@ public class XmlSerializeBenchmark extends SimpleBenchmark {
     private Constructor<? extends XmlSerializer> kxmlConstructor;
     private Constructor<? extends XmlSerializer> fastConstructor;
 
-    private void serializeRandomXml(Constructor<? extends XmlSerializer> ctor, long seed)
-            throws Exception {
+    /**
+     * Reused between reps so that byte output measures the serializer rather
+     * than the growth of the destination.
+     */
+    private final ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+
+    private enum Output {
+        /** Characters to a CharArrayWriter. */
+        CHARS,
+        /** UTF-8 bytes written by the serializer itself. */
+        UTF8_STREAM,
+        /** UTF-8 bytes encoded by an OutputStreamWriter. */
+        UTF8_STREAM_WRITER
+    }
+
+    private void serializeRandomXml(Constructor<? extends XmlSerializer> ctor, long seed,
+            Output output) throws Exception {
         double contChance = dataset[0];
         double levelUpChance = dataset[1];
         double levelDownChance = dataset[2];
@@ -53,8 +70,14 @@ public class XmlSerializeBenchmark extends SimpleBenchmark {
 
         XmlSerializer serializer = (XmlSerializer) ctor.newInstance();
 
-        CharArrayWriter w = new CharArrayWriter();
-        serializer.setOutput(w);
+        bytesOut.reset();
+        if (output == Output.UTF8_STREAM) {
+            serializer.setOutput(bytesOut, "UTF-8");
+        } else if (output == Output.UTF8_STREAM_WRITER) {
+            serializer.setOutput(new OutputStreamWriter(bytesOut, "UTF-8"));
+        } else {
+            serializer.setOutput(new CharArrayWriter());
+        }
         int level = 0;
         Random r = new Random(seed);
         char[] toWrite = {'a','b','c','d','s','z'};
@@ -97,19 +120,27 @@ public class XmlSerializeBenchmark extends SimpleBenchmark {
         }
     }
 
-    private void internalTimeSerializer(Constructor<? extends XmlSerializer> ctor, int reps)
-            throws Exception {
+    private void internalTimeSerializer(Constructor<? extends XmlSerializer> ctor, int reps,
+            Output output) throws Exception {
         for (int i = 0; i < reps; i++) {
-            serializeRandomXml(ctor, seed);
+            serializeRandomXml(ctor, seed, output);
         }
     }
 
     public void timeKxml(int reps) throws Exception {
-        internalTimeSerializer(kxmlConstructor, reps);
+        internalTimeSerializer(kxmlConstructor, reps, Output.CHARS);
+    }
+
+    public void timeKxmlUtf8Stream(int reps) throws Exception {
+        internalTimeSerializer(kxmlConstructor, reps, Output.UTF8_STREAM);
+    }
+
+    public void timeKxmlUtf8StreamWriter(int reps) throws Exception {
+        internalTimeSerializer(kxmlConstructor, reps, Output.UTF8_STREAM_WRITER);
     }
 
     public void timeFast(int reps) throws Exception {
-        internalTimeSerializer(fastConstructor, reps);
+        internalTimeSerializer(fastConstructor, reps, Output.CHARS);
     }
 
     public static void main(String[] args) {
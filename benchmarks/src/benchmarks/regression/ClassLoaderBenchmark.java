@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmarks.regression;
+
+import com.google.caliper.Param;
+import com.google.caliper.SimpleBenchmark;
+import dalvik.system.PathClassLoader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import libcore.io.Streams;
+
+/**
+ * Looks up classes and resources through a PathClassLoader with a deep
+ * path: {@code depth - 1} copies of this benchmark's own jar followed
+ * by a resource-only jar.
+ */
+public class ClassLoaderBenchmark extends SimpleBenchmark {
+
+    @Param({"4", "50", "200"}) int depth;
+
+    /** The value of {@code libcore.dexpathlist.threads} for new loaders. */
+    @Param({"1", "4"}) int openThreads;
+
+    private static final String DEEP_RESOURCE = "deep/resource.txt";
+
+    private File directory;
+    private String path;
+    private ClassLoader boot;
+    private ClassLoader loader;
+
+    @Override protected void setUp() throws Exception {
+        File jar = null;
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (new File(entry).isFile()) {
+                jar = new File(entry);
+                break;
+            }
+        }
+        if (jar == null) {
+            throw new IllegalStateException("no jar in java.class.path");
+        }
+
+        directory = File.createTempFile("ClassLoaderBenchmark", "");
+        directory.delete();
+        directory.mkdir();
+        StringBuilder path = new StringBuilder();
+        for (int i = 0; i < depth - 1; i++) {
+            File copy = new File(directory, "copy" + i + ".jar");
+            InputStream in = new FileInputStream(jar);
+            OutputStream out = new FileOutputStream(copy);
+            Streams.copy(in, out);
+            in.close();
+            out.close();
+            path.append(copy).append(File.pathSeparator);
+        }
+        File deep = new File(directory, "deep.jar");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(deep));
+        out.putNextEntry(new ZipEntry(DEEP_RESOURCE));
+        out.write("deep".getBytes("UTF-8"));
+        out.closeEntry();
+        out.close();
+        path.append(deep);
+        this.path = path.toString();
+
+        System.setProperty("libcore.dexpathlist.threads", Integer.toString(openThreads));
+
+        // The boot class loader as parent, so lookups reach the path.
+        boot = ClassLoader.getSystemClassLoader().getParent();
+        loader = new PathClassLoader(this.path, boot);
+    }
+
+    @Override protected void tearDown() throws Exception {
+        System.clearProperty("libcore.dexpathlist.threads");
+        for (File file : directory.listFiles()) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    private int loadMissingClass(int reps, String name) {
+        int misses = 0;
+        for (int rep = 0; rep < reps; ++rep) {
+            try {
+                loader.loadClass(name);
+            } catch (ClassNotFoundException expected) {
+                misses++;
+            }
+        }
+        return misses;
+    }
+
+    public int timeLoadClass_missingPackage(int reps) {
+        return loadMissingClass(reps, "missing.Missing");
+    }
+
+    public int timeLoadClass_missingFromPackage(int reps) {
+        return loadMissingClass(reps, "benchmarks.regression.Missing");
+    }
+
+    public int timeGetResource_deep(int reps) {
+        int found = 0;
+        for (int rep = 0; rep < reps; ++rep) {
+            if (loader.getResource(DEEP_RESOURCE) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    public int timeGetResource_missing(int reps) {
+        int found = 0;
+        for (int rep = 0; rep < reps; ++rep) {
+            if (loader.getResource("missing/resource.txt") != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    public int timeGetResources_deep(int reps) throws Exception {
+        int found = 0;
+        for (int rep = 0; rep < reps; ++rep) {
+            if (loader.getResources(DEEP_RESOURCE).hasMoreElements()) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * A new loader's first lookup, which pays for opening the path and
+     * building any index. This is the one to compare across
+     * {@code openThreads}.
+     */
+    public int timeNewLoader_loadClass(int reps) throws Exception {
+        int found = 0;
+        for (int rep = 0; rep < reps; ++rep) {
+            ClassLoader fresh = new PathClassLoader(path, boot);
+            if (fresh.loadClass(ClassLoaderBenchmark.class.getName()) != null) {
+                found++;
+            }
+        }
+        return found;
+    }
+}
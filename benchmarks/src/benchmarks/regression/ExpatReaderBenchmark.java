@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package benchmarks.regression;
+
+import com.google.caliper.Param;
+import com.google.caliper.SimpleBenchmark;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.harmony.xml.ExpatReader;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Parses many small messages with SAX, where the cost of setting up a native
+ * parser for each document matters.
+ */
+public final class ExpatReaderBenchmark extends SimpleBenchmark {
+
+    @Param({"1024"}) int messageBytes;
+
+    private static final int BATCH_SIZE = 100;
+
+    private byte[] message;
+    private final ElementCounter counter = new ElementCounter();
+
+    @Override protected void setUp() throws Exception {
+        StringBuilder xml = new StringBuilder();
+        xml.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<message id=\"42\">\n");
+        for (int i = 0; xml.length() < messageBytes - 20; i++) {
+            xml.append("  <field name=\"f").append(i).append("\">value ").append(i)
+                    .append("</field>\n");
+        }
+        xml.append("</message>\n");
+        message = xml.toString().getBytes("UTF-8");
+    }
+
+    public int timeNewParser(int reps) throws Exception {
+        return parse(reps, false);
+    }
+
+    public int timePooledParser(int reps) throws Exception {
+        return parse(reps, true);
+    }
+
+    private int parse(int reps, boolean pooling) throws Exception {
+        ExpatReader reader = new ExpatReader();
+        reader.setParserPoolingEnabled(pooling);
+        reader.setContentHandler(counter);
+        counter.elementCount = 0;
+        for (int i = 0; i < reps; i++) {
+            reader.parse(new InputSource(new ByteArrayInputStream(message)));
+        }
+        return counter.elementCount;
+    }
+
+    public int timeParseAll(int reps) throws Exception {
+        ExpatReader reader = new ExpatReader();
+        reader.setContentHandler(counter);
+        counter.elementCount = 0;
+        List<InputSource> batch = new ArrayList<InputSource>(BATCH_SIZE);
+        for (int i = 0; i < reps; i += BATCH_SIZE) {
+            batch.clear();
+            for (int j = i; j < Math.min(reps, i + BATCH_SIZE); j++) {
+                batch.add(new InputSource(new ByteArrayInputStream(message)));
+            }
+            reader.parseAll(batch);
+        }
+        return counter.elementCount;
+    }
+
+    static class ElementCounter extends DefaultHandler {
+        int elementCount;
+
+        @Override public void startElement(String uri, String localName, String qName,
+                Attributes attributes) {
+            elementCount++;
+        }
+    }
+}
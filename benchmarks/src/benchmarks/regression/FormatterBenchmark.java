@@ -122,6 +122,69 @@ public class FormatterBenchmark extends SimpleBenchmark {
         }
     }
 
+    public void timeStringFormat_OneInt(int reps) {
+        Integer value = Integer.valueOf(1024); // We're not trying to benchmark boxing here.
+        for (int i = 0; i < reps; i++) {
+            String.format("this is a reasonably short string that has an int %d in it", value);
+        }
+    }
+
+    /**
+     * String.format with a different format string each time, which shouldn't pay
+     * for compiling and caching templates that are never reused.
+     */
+    public void timeStringFormat_UniqueFormats(int reps) {
+        String[] formats = new String[4096];
+        for (int i = 0; i < formats.length; i++) {
+            formats[i] = "unique format " + i + " has an int %d in it";
+        }
+        Integer value = Integer.valueOf(1024); // We're not trying to benchmark boxing here.
+        for (int i = 0; i < reps; i++) {
+            String.format(formats[i & (formats.length - 1)], value);
+        }
+    }
+
+    public void timeFormatter_UniqueFormats(int reps) {
+        String[] formats = new String[4096];
+        for (int i = 0; i < formats.length; i++) {
+            formats[i] = "unique format " + i + " has an int %d in it";
+        }
+        Integer value = Integer.valueOf(1024); // We're not trying to benchmark boxing here.
+        for (int i = 0; i < reps; i++) {
+            new Formatter().format(formats[i & (formats.length - 1)], value);
+        }
+    }
+
+    public void timeTemplate_OneInt(int reps) {
+        Formatter.Template template = Formatter.Template.compile(
+                "this is a reasonably short string that has an int %d in it");
+        Integer value = Integer.valueOf(1024); // We're not trying to benchmark boxing here.
+        for (int i = 0; i < reps; i++) {
+            template.format(value);
+        }
+    }
+
+    public void timeStringFormat_LogLine(int reps) {
+        Integer value = Integer.valueOf(1024); // We're not trying to benchmark boxing here.
+        Float latency = Float.valueOf(10.24f);
+        for (int i = 0; i < reps; i++) {
+            String.format(Locale.US, "request=%s status=%d latency=%.2fms user=%s",
+                    "GET /index.html", value, latency, "alice");
+        }
+    }
+
+    public void timeTemplate_LogLine(int reps) throws Exception {
+        Formatter.Template template = Formatter.Template.compile(
+                "request=%s status=%d latency=%.2fms user=%s");
+        Integer value = Integer.valueOf(1024); // We're not trying to benchmark boxing here.
+        Float latency = Float.valueOf(10.24f);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < reps; i++) {
+            sb.setLength(0);
+            template.formatTo(sb, Locale.US, "GET /index.html", value, latency, "alice");
+        }
+    }
+
     public void timeStringBuilder_OneString(int reps) {
         for (int i = 0; i < reps; i++) {
             StringBuilder sb = new StringBuilder();
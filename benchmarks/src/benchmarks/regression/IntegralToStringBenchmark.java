@@ -19,6 +19,8 @@ package benchmarks.regression;
 import com.google.caliper.Param;
 import com.google.caliper.Runner;
 import com.google.caliper.SimpleBenchmark;
+import java.io.OutputStream;
+import java.io.PrintStream;
 
 public class IntegralToStringBenchmark extends SimpleBenchmark {
 
@@ -169,4 +171,41 @@ public class IntegralToStringBenchmark extends SimpleBenchmark {
             String.format("%d", LARGE);
         }
     }
+
+    public void time_StringBuilderLong_large(int reps) {
+        StringBuilder sb = new StringBuilder();
+        for (int rep = 0; rep < reps; ++rep) {
+            sb.setLength(0);
+            sb.append(LARGE * 1000000000L);
+        }
+    }
+
+    public void time_writeInt_large(int reps) {
+        byte[] bytes = new byte[20];
+        for (int rep = 0; rep < reps; ++rep) {
+            IntegralToString.writeInt(bytes, 0, LARGE);
+        }
+    }
+
+    public void time_writeLong_large(int reps) {
+        byte[] bytes = new byte[20];
+        for (int rep = 0; rep < reps; ++rep) {
+            IntegralToString.writeLong(bytes, 0, LARGE * 1000000000L);
+        }
+    }
+
+    public void time_PrintStream_large(int reps) {
+        PrintStream out = new PrintStream(new NullOutputStream());
+        for (int rep = 0; rep < reps; ++rep) {
+            out.print(LARGE);
+        }
+    }
+
+    static class NullOutputStream extends OutputStream {
+        @Override public void write(int b) {
+        }
+
+        @Override public void write(byte[] b, int off, int len) {
+        }
+    }
 }
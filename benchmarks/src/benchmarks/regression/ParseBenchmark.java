@@ -29,6 +29,7 @@ import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.SAXParserFactory;
 import org.json.JSONArray;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 import org.xml.sax.InputSource;
 import org.xml.sax.helpers.DefaultHandler;
 import org.xmlpull.v1.XmlPullParser;
@@ -62,6 +63,11 @@ public final class ParseBenchmark extends SimpleBenchmark {
                 return new OrgJsonParser();
             }
         },
+        ORG_JSON_LEAN("json") {
+            @Override Parser newParser() {
+                return new OrgJsonLeanParser();
+            }
+        },
         XML_PULL("xml") {
             @Override Parser newParser() {
                 return new GeneralXmlPullParser();
@@ -189,6 +195,12 @@ public final class ParseBenchmark extends SimpleBenchmark {
         }
     }
 
+    private static class OrgJsonLeanParser implements Parser {
+        @Override public void parse(String data) throws Exception {
+            new JSONTokener(data, true).nextValue();
+        }
+    }
+
     private static class GeneralXmlPullParser implements Parser {
         @Override public void parse(String data) throws Exception {
             XmlPullParser xmlParser = android.util.Xml.newPullParser();
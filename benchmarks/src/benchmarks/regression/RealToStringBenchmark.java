@@ -127,4 +127,27 @@ public class RealToStringBenchmark extends SimpleBenchmark {
             String.format("%.2f", LARGE);
         }
     }
+
+    public void timeStringBuilder_reused_medium(int reps) {
+        StringBuilder sb = new StringBuilder();
+        for (int rep = 0; rep < reps; ++rep) {
+            sb.setLength(0);
+            sb.append(MEDIUM);
+        }
+    }
+
+    public void timeWriteFloat_medium(int reps) {
+        byte[] bytes = new byte[32];
+        for (int rep = 0; rep < reps; ++rep) {
+            RealToString.getInstance().writeFloat(bytes, 0, MEDIUM);
+        }
+    }
+
+    public void timeWriteDouble_medium(int reps) {
+        byte[] bytes = new byte[32];
+        double value = MEDIUM;
+        for (int rep = 0; rep < reps; ++rep) {
+            RealToString.getInstance().writeDouble(bytes, 0, value);
+        }
+    }
 }
@@ -30,7 +30,11 @@ public class StringToRealBenchmark extends SimpleBenchmark {
         "1.2",
         "-123.45",
         "-123.45e8",
-        "-123.45e36"
+        "-123.45e36",
+        "0.1",
+        "3.141592653589793",
+        "2.2250738585072014E-308",
+        "4.9E-324"
     }) String string;
 
     public void timeFloat_parseFloat(int reps) {
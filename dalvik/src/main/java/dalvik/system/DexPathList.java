@@ -26,7 +26,16 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.zip.ZipEntry;
 import libcore.io.IoUtils;
 import libcore.io.Libcore;
@@ -51,6 +60,18 @@ import static android.system.OsConstants.S_ISDIR;
     private static final String DEX_SUFFIX = ".dex";
     private static final String zipSeparator = "!/";
 
+    /**
+     * The fewest dex/resource elements worth indexing. Below this,
+     * probing every element costs about as much as building the index.
+     */
+    private static final int MIN_INDEXED_ELEMENTS = 4;
+
+    /**
+     * The most threads used to open dex/resource elements, however
+     * large {@code libcore.dexpathlist.threads} is.
+     */
+    private static final int MAX_OPEN_THREADS = 8;
+
     /** class definition context */
     private final ClassLoader definingContext;
 
@@ -75,6 +96,15 @@ import static android.system.OsConstants.S_ISDIR;
      */
     private final IOException[] dexElementsSuppressedExceptions;
 
+    /**
+     * Indexes of {@link #dexElements} by package name and by resource
+     * directory, built on the first class and resource lookup. Each
+     * remembers the array it indexed, since apps replace dexElements
+     * by reflection.
+     */
+    private volatile ElementIndex classIndex;
+    private volatile ElementIndex resourceIndex;
+
     /**
      * Constructs an instance.
      *
@@ -236,62 +266,167 @@ import static android.system.OsConstants.S_ISDIR;
     private static Element[] makeElements(List<File> files, File optimizedDirectory,
                                           List<IOException> suppressedExceptions,
                                           boolean ignoreDexFiles) {
+        int threads = ignoreDexFiles ? 1 : openThreads(files.size());
+        if (threads > 1) {
+            return makeElementsConcurrently(files, optimizedDirectory, suppressedExceptions,
+                                            threads);
+        }
+
         List<Element> elements = new ArrayList<>();
         /*
          * Open all files and load the (direct or contained) dex files
          * up front.
          */
         for (File file : files) {
-            File zip = null;
-            File dir = new File("");
-            DexFile dex = null;
-            String path = file.getPath();
-            String name = file.getName();
-
-            if (path.contains(zipSeparator)) {
-                String split[] = path.split(zipSeparator, 2);
-                zip = new File(split[0]);
-                dir = new File(split[1]);
-            } else if (file.isDirectory()) {
-                // We support directories for looking up resources and native libraries.
-                // Looking up resources in directories is useful for running libcore tests.
-                elements.add(new Element(file, true, null, null));
-            } else if (file.isFile()) {
-                if (!ignoreDexFiles && name.endsWith(DEX_SUFFIX)) {
-                    // Raw dex file (not inside a zip/jar).
-                    try {
-                        dex = loadDexFile(file, optimizedDirectory);
-                    } catch (IOException ex) {
-                        System.logE("Unable to load dex file: " + file, ex);
+            Element element = makeElement(file, optimizedDirectory, suppressedExceptions,
+                                          ignoreDexFiles);
+            if (element != null) {
+                elements.add(element);
+            }
+        }
+
+        return elements.toArray(new Element[elements.size()]);
+    }
+
+    /**
+     * Returns the number of threads to open {@code fileCount} dex/resource
+     * elements with. Opening a dex file may mean optimizing it, so with
+     * many split dex files it pays to open them concurrently. The
+     * {@code libcore.dexpathlist.threads} property enables this; by
+     * default elements are opened one at a time on the calling thread.
+     */
+    private static int openThreads(int fileCount) {
+        int threads = Integer.getInteger("libcore.dexpathlist.threads", 1);
+        return Math.max(1, Math.min(Math.min(threads, MAX_OPEN_THREADS), fileCount));
+    }
+
+    /**
+     * Makes an element for each file like {@link #makeElements}, but
+     * opens them on a pool of {@code threads} threads, which also open
+     * each zip file ahead of the first resource lookup. The elements
+     * and suppressed exceptions are in the same order as when opened
+     * one at a time.
+     */
+    private static Element[] makeElementsConcurrently(List<File> files,
+            final File optimizedDirectory, List<IOException> suppressedExceptions,
+            int threads) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            private int count;
+            @Override public synchronized Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "DexPathList-" + ++count);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        List<Future<Element>> futures = new ArrayList<>(files.size());
+        List<List<IOException>> suppressedPerFile = new ArrayList<>(files.size());
+        try {
+            for (final File file : files) {
+                final List<IOException> suppressed = new ArrayList<IOException>();
+                suppressedPerFile.add(suppressed);
+                futures.add(executor.submit(new Callable<Element>() {
+                    @Override public Element call() {
+                        Element element = makeElement(file, optimizedDirectory, suppressed,
+                                                      false);
+                        if (element != null) {
+                            element.maybeInit();
+                        }
+                        return element;
                     }
-                } else {
-                    zip = file;
-
-                    if (!ignoreDexFiles) {
-                        try {
-                            dex = loadDexFile(file, optimizedDirectory);
-                        } catch (IOException suppressed) {
-                            /*
-                             * IOException might get thrown "legitimately" by the DexFile constructor if
-                             * the zip file turns out to be resource-only (that is, no classes.dex file
-                             * in it).
-                             * Let dex == null and hang on to the exception to add to the tea-leaves for
-                             * when findClass returns null.
-                             */
-                            suppressedExceptions.add(suppressed);
+                }));
+            }
+
+            List<Element> elements = new ArrayList<>();
+            boolean interrupted = false;
+            for (int i = 0; i < futures.size(); i++) {
+                Element element;
+                while (true) {
+                    try {
+                        element = futures.get(i).get();
+                        break;
+                    } catch (InterruptedException e) {
+                        // Finish opening the path, as we would on the calling thread.
+                        interrupted = true;
+                    } catch (ExecutionException e) {
+                        Throwable cause = e.getCause();
+                        if (cause instanceof RuntimeException) {
+                            throw (RuntimeException) cause;
                         }
+                        if (cause instanceof Error) {
+                            throw (Error) cause;
+                        }
+                        throw new AssertionError(cause);
                     }
                 }
-            } else {
-                System.logW("ClassLoader referenced unknown path: " + file);
+                suppressedExceptions.addAll(suppressedPerFile.get(i));
+                if (element != null) {
+                    elements.add(element);
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
             }
+            return elements.toArray(new Element[elements.size()]);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
-            if ((zip != null) || (dex != null)) {
-                elements.add(new Element(dir, false, zip, dex));
+    /**
+     * Makes the element for one file, or returns null if there is
+     * nothing to load from it.
+     */
+    private static Element makeElement(File file, File optimizedDirectory,
+                                       List<IOException> suppressedExceptions,
+                                       boolean ignoreDexFiles) {
+        File zip = null;
+        File dir = new File("");
+        DexFile dex = null;
+        String path = file.getPath();
+        String name = file.getName();
+
+        if (path.contains(zipSeparator)) {
+            String split[] = path.split(zipSeparator, 2);
+            zip = new File(split[0]);
+            dir = new File(split[1]);
+        } else if (file.isDirectory()) {
+            // We support directories for looking up resources and native libraries.
+            // Looking up resources in directories is useful for running libcore tests.
+            return new Element(file, true, null, null);
+        } else if (file.isFile()) {
+            if (!ignoreDexFiles && name.endsWith(DEX_SUFFIX)) {
+                // Raw dex file (not inside a zip/jar).
+                try {
+                    dex = loadDexFile(file, optimizedDirectory);
+                } catch (IOException ex) {
+                    System.logE("Unable to load dex file: " + file, ex);
+                }
+            } else {
+                zip = file;
+
+                if (!ignoreDexFiles) {
+                    try {
+                        dex = loadDexFile(file, optimizedDirectory);
+                    } catch (IOException suppressed) {
+                        /*
+                         * IOException might get thrown "legitimately" by the DexFile constructor if
+                         * the zip file turns out to be resource-only (that is, no classes.dex file
+                         * in it).
+                         * Let dex == null and hang on to the exception to add to the tea-leaves for
+                         * when findClass returns null.
+                         */
+                        suppressedExceptions.add(suppressed);
+                    }
+                }
             }
+        } else {
+            System.logW("ClassLoader referenced unknown path: " + file);
         }
 
-        return elements.toArray(new Element[elements.size()]);
+        if ((zip != null) || (dex != null)) {
+            return new Element(dir, false, zip, dex);
+        }
+        return null;
     }
 
     /**
@@ -356,11 +491,19 @@ import static android.system.OsConstants.S_ISDIR;
      * found in any of the dex files
      */
     public Class findClass(String name, List<Throwable> suppressed) {
-        for (Element element : dexElements) {
-            DexFile dex = element.dexFile;
-
-            if (dex != null) {
-                Class clazz = dex.loadClassBinaryName(name, definingContext, suppressed);
+        Element[] elements = dexElements;
+        ElementIndex index = getClassIndex(elements);
+        if (index != null) {
+            // Only the elements with classes in the package, still in path order.
+            for (int i : index.candidates(ElementIndex.packageName(name))) {
+                Class clazz = elements[i].loadClass(name, definingContext, suppressed);
+                if (clazz != null) {
+                    return clazz;
+                }
+            }
+        } else {
+            for (Element element : elements) {
+                Class clazz = element.loadClass(name, definingContext, suppressed);
                 if (clazz != null) {
                     return clazz;
                 }
@@ -381,7 +524,19 @@ import static android.system.OsConstants.S_ISDIR;
      * resource is not found in any of the zip/jar files
      */
     public URL findResource(String name) {
-        for (Element element : dexElements) {
+        Element[] elements = dexElements;
+        ElementIndex index = getResourceIndex(elements);
+        if (index != null) {
+            for (int i : index.candidates(ElementIndex.resourceDirectory(name))) {
+                URL url = elements[i].findResource(name);
+                if (url != null) {
+                    return url;
+                }
+            }
+            return null;
+        }
+
+        for (Element element : elements) {
             URL url = element.findResource(name);
             if (url != null) {
                 return url;
@@ -399,7 +554,19 @@ import static android.system.OsConstants.S_ISDIR;
     public Enumeration<URL> findResources(String name) {
         ArrayList<URL> result = new ArrayList<URL>();
 
-        for (Element element : dexElements) {
+        Element[] elements = dexElements;
+        ElementIndex index = getResourceIndex(elements);
+        if (index != null) {
+            for (int i : index.candidates(ElementIndex.resourceDirectory(name))) {
+                URL url = elements[i].findResource(name);
+                if (url != null) {
+                    result.add(url);
+                }
+            }
+            return Collections.enumeration(result);
+        }
+
+        for (Element element : elements) {
             URL url = element.findResource(name);
             if (url != null) {
                 result.add(url);
@@ -409,6 +576,48 @@ import static android.system.OsConstants.S_ISDIR;
         return Collections.enumeration(result);
     }
 
+    /**
+     * Returns the class index of {@code elements}, building it if
+     * necessary, or null if there are too few elements to bother.
+     */
+    private ElementIndex getClassIndex(Element[] elements) {
+        if (elements.length < MIN_INDEXED_ELEMENTS) {
+            return null;
+        }
+        ElementIndex index = classIndex;
+        if (index == null || index.elements != elements) {
+            synchronized (this) {
+                index = classIndex;
+                if (index == null || index.elements != elements) {
+                    index = ElementIndex.forClasses(elements);
+                    classIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the resource index of {@code elements}, building it if
+     * necessary, or null if there are too few elements to bother.
+     */
+    private ElementIndex getResourceIndex(Element[] elements) {
+        if (elements.length < MIN_INDEXED_ELEMENTS) {
+            return null;
+        }
+        ElementIndex index = resourceIndex;
+        if (index == null || index.elements != elements) {
+            synchronized (this) {
+                index = resourceIndex;
+                if (index == null || index.elements != elements) {
+                    index = ElementIndex.forResources(elements);
+                    resourceIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
     /**
      * Finds the named native code library on any of the library
      * directories pointed at by this instance. This will find the
@@ -487,6 +696,17 @@ import static android.system.OsConstants.S_ISDIR;
             }
         }
 
+        /**
+         * Returns the named class if this element's dex file defines it, otherwise null.
+         */
+        public Class loadClass(String name, ClassLoader definingContext,
+                               List<Throwable> suppressed) {
+            if (dexFile == null) {
+                return null;
+            }
+            return dexFile.loadClassBinaryName(name, definingContext, suppressed);
+        }
+
         public String findNativeLibrary(String name) {
             maybeInit();
 
@@ -533,4 +753,163 @@ import static android.system.OsConstants.S_ISDIR;
             return urlHandler.getEntryUrlOrNull(name);
         }
     }
+
+    /**
+     * Maps keys, package names or resource directories, to the indexes
+     * of the dex/resource elements that may contain a class or
+     * resource under that key, in path order. The keys are found by
+     * listing each dex file's classes or each zip file's central
+     * directory. Elements whose contents can't be listed are
+     * candidates for every key, and elements with no classes or
+     * resources at all are candidates for none.
+     */
+    /*package*/ static final class ElementIndex {
+        private static final int[] EMPTY = new int[0];
+
+        /** The array this indexes. */
+        final Element[] elements;
+
+        /**
+         * Candidates for each key. While building, the first int is
+         * the count of element indexes that follow it.
+         */
+        private final Map<String, int[]> candidatesByKey = new HashMap<String, int[]>();
+
+        /** Elements that couldn't be listed, which are candidates for every key. */
+        private int[] unlisted = EMPTY;
+
+        private ElementIndex(Element[] elements) {
+            this.elements = elements;
+        }
+
+        /**
+         * Indexes elements by the packages of the classes in their dex files.
+         */
+        public static ElementIndex forClasses(Element[] elements) {
+            ElementIndex index = new ElementIndex(elements);
+            for (int i = 0; i < elements.length; i++) {
+                DexFile dex = elements[i].dexFile;
+                if (dex == null) {
+                    continue;
+                }
+                try {
+                    for (Enumeration<String> e = dex.entries(); e.hasMoreElements(); ) {
+                        index.add(packageName(e.nextElement().replace('/', '.')), i);
+                    }
+                } catch (RuntimeException e) {
+                    // For example, if the dex file was closed.
+                    index.addUnlisted(i);
+                }
+            }
+            index.finish();
+            return index;
+        }
+
+        /**
+         * Indexes elements by the directories of the entries in their zip files.
+         */
+        public static ElementIndex forResources(Element[] elements) {
+            ElementIndex index = new ElementIndex(elements);
+            for (int i = 0; i < elements.length; i++) {
+                Element element = elements[i];
+                if (element.isDirectory) {
+                    index.addUnlisted(i);
+                    continue;
+                }
+                element.maybeInit();
+                if (element.urlHandler == null) {
+                    continue;
+                }
+                try {
+                    Iterator<ZipEntry> entries = element.urlHandler.entriesOrNull();
+                    if (entries == null) {
+                        index.addUnlisted(i);
+                        continue;
+                    }
+                    while (entries.hasNext()) {
+                        index.add(resourceDirectory(entries.next().getName()), i);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    index.addUnlisted(i);
+                }
+            }
+            index.finish();
+            return index;
+        }
+
+        /**
+         * Returns the package of a binary class name, or "" for the default package.
+         */
+        public static String packageName(String className) {
+            int lastDot = className.lastIndexOf('.');
+            return (lastDot == -1) ? "" : className.substring(0, lastDot);
+        }
+
+        /**
+         * Returns the directory of a resource or zip entry name. A
+         * directory entry like "a/b/" is in directory "a" just like a
+         * lookup of "a/b", which may match it.
+         */
+        public static String resourceDirectory(String name) {
+            int end = name.endsWith("/") ? name.length() - 1 : name.length();
+            int lastSlash = name.lastIndexOf('/', end - 1);
+            return (lastSlash == -1) ? "" : name.substring(0, lastSlash);
+        }
+
+        /**
+         * Returns the indexes of the elements to probe for key, in path order.
+         */
+        public int[] candidates(String key) {
+            int[] candidates = candidatesByKey.get(key);
+            return (candidates != null) ? candidates : unlisted;
+        }
+
+        private void add(String key, int element) {
+            int[] candidates = candidatesByKey.get(key);
+            if (candidates == null) {
+                candidates = new int[4];
+                candidatesByKey.put(key, candidates);
+            } else if (candidates[candidates[0]] == element) {
+                return; // Elements are added in order, so this one is already there.
+            }
+            if (candidates[0] + 1 == candidates.length) {
+                candidates = Arrays.copyOf(candidates, 2 * candidates.length);
+                candidatesByKey.put(key, candidates);
+            }
+            candidates[++candidates[0]] = element;
+        }
+
+        private void addUnlisted(int element) {
+            unlisted = Arrays.copyOf(unlisted, unlisted.length + 1);
+            unlisted[unlisted.length - 1] = element;
+        }
+
+        /**
+         * Trims each key's candidates and merges in the unlisted
+         * elements. An element that failed partway through listing may
+         * be in both, but is only probed once.
+         */
+        private void finish() {
+            for (Map.Entry<String, int[]> entry : candidatesByKey.entrySet()) {
+                int[] listed = entry.getValue();
+                int listedCount = listed[0];
+                int[] merged = new int[listedCount + unlisted.length];
+                int m = 0;
+                int l = 1;
+                int u = 0;
+                while (l <= listedCount || u < unlisted.length) {
+                    if (u == unlisted.length
+                            || (l <= listedCount && listed[l] < unlisted[u])) {
+                        merged[m++] = listed[l++];
+                    } else {
+                        if (l <= listedCount && listed[l] == unlisted[u]) {
+                            l++;
+                        }
+                        merged[m++] = unlisted[u++];
+                    }
+                }
+                entry.setValue((m == merged.length) ? merged : Arrays.copyOf(merged, m));
+            }
+        }
+    }
 }
@@ -34,6 +34,11 @@ import java.util.Map;
  * reader.getVersion();
  * reader.getHprofData();
  * }</pre>
+ *
+ * For files too large to hold as an {@link HprofData}, {@link
+ * #read(Listener)} instead hands thread events, stack traces and
+ * samples to a {@link Listener} as they are read, retaining only the
+ * strings and stack frames needed to resolve later records.
  */
 public final class BinaryHprofReader {
 
@@ -67,6 +72,37 @@ public final class BinaryHprofReader {
     private final Map<Integer, HprofData.StackTrace> idToStackTrace
             = new HashMap<Integer, HprofData.StackTrace>();
 
+    /**
+     * Receives records when reading with {@link #read(Listener)},
+     * otherwise null.
+     */
+    private Listener listener;
+
+    /**
+     * Receives the records of a binary hprof stream in the order they
+     * are read.
+     */
+    public static interface Listener {
+        /**
+         * Called for each thread start and end record.
+         */
+        public void threadEvent(HprofData.ThreadEvent event) throws IOException;
+
+        /**
+         * Called for each stack trace record. The reader does not
+         * retain stack traces, so the listener must remember any it
+         * needs to resolve the ids passed to {@link #cpuSample}.
+         */
+        public void stackTrace(HprofData.StackTrace stackTrace) throws IOException;
+
+        /**
+         * Called for each entry of a CPU samples record. An entry
+         * with a zero sample count is malformed, so reading throws
+         * {@link MalformedHprofException} rather than calling this.
+         */
+        public void cpuSample(int stackTraceId, int count) throws IOException;
+    }
+
     /**
      * Creates a BinaryHprofReader around the specified {@code
      * inputStream}
@@ -113,6 +149,20 @@ public final class BinaryHprofReader {
         parseRecords();
     }
 
+    /**
+     * Read the hprof header and pass the records from the input to
+     * {@code listener} rather than adding them to {@link
+     * #getHprofData}, which will only contain the header and control
+     * settings.
+     */
+    public void read(Listener listener) throws IOException {
+        if (listener == null) {
+            throw new NullPointerException("listener == null");
+        }
+        this.listener = listener;
+        read();
+    }
+
     private void parseHeader() throws IOException {
         if (TRACE) {
             System.out.println("hprofTag=HEADER");
@@ -337,7 +387,7 @@ public final class BinaryHprofReader {
         HprofData.ThreadEvent event
                 = HprofData.ThreadEvent.start(objectId, threadId,
                                               threadName, groupName, parentGroupName);
-        hprofData.addThreadEvent(event);
+        addThreadEvent(event);
     }
 
     private void parseEndThread() throws IOException {
@@ -346,7 +396,15 @@ public final class BinaryHprofReader {
             System.out.println("\tthreadId=" + threadId);
         }
         HprofData.ThreadEvent event = HprofData.ThreadEvent.end(threadId);
-        hprofData.addThreadEvent(event);
+        addThreadEvent(event);
+    }
+
+    private void addThreadEvent(HprofData.ThreadEvent event) throws IOException {
+        if (listener != null) {
+            listener.threadEvent(event);
+        } else {
+            hprofData.addThreadEvent(event);
+        }
     }
 
     private void parseStackFrame() throws IOException {
@@ -403,6 +461,10 @@ public final class BinaryHprofReader {
 
         HprofData.StackTrace stackTrace
                 = new HprofData.StackTrace(stackTraceId, threadId, stackFrames);
+        if (listener != null) {
+            listener.stackTrace(stackTrace);
+            return;
+        }
         if (strict) {
             hprofData.addStackTrace(stackTrace, new int[1]);
         } else {
@@ -448,6 +510,15 @@ public final class BinaryHprofReader {
                 System.out.println("\tcount=" + count);
                 System.out.println("\tstackTraceId=" + stackTraceId);
             }
+            if (listener != null) {
+                if (count == 0) {
+                    throw new MalformedHprofException("Zero sample count for stack trace id "
+                                                      + stackTraceId);
+                }
+                listener.cpuSample(stackTraceId, count);
+                total += count;
+                continue;
+            }
             HprofData.StackTrace stackTrace = idToStackTrace.get(stackTraceId);
             if (stackTrace == null) {
                 throw new MalformedHprofException("Unknown stack trace id " + stackTraceId);
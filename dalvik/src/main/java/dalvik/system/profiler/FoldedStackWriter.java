@@ -0,0 +1,439 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dalvik.system.profiler;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * FoldedStackWriter converts sampling profiler data to the folded
+ * stack format read by flame graph tools, one line per distinct stack
+ * with its frames from the root down separated by semicolons,
+ * followed by a space and the sample count:
+ *
+ * <pre>
+ * java.lang.Thread.run;Worker.loop;Worker.parse 42
+ * </pre>
+ *
+ * It can also summarize the samples of each thread. Both {@link
+ * HprofData} and binary hprof streams can be added, and samples from
+ * several of them are merged. Binary hprof is read with {@link
+ * BinaryHprofReader#read(BinaryHprofReader.Listener)}, so memory use
+ * depends on the number of distinct frames and stacks rather than on
+ * the size of the file.
+ *
+ * Run on device with:
+ * adb shell dalvikvm 'dalvik.system.profiler.FoldedStackWriter' file.hprof
+ */
+public final class FoldedStackWriter {
+
+    /**
+     * Methods that, at the top of a stack, indicate the thread was
+     * waiting rather than running when it was sampled.
+     */
+    private static final Set<String> WAITING_METHODS = new HashSet<String>(Arrays.asList(
+            "java.lang.Object.wait",
+            "java.lang.Thread.parkFor",
+            "java.lang.Thread.parkUntil",
+            "java.lang.Thread.sleep",
+            "java.lang.VMThread.sleep",
+            "libcore.io.Posix.accept",
+            "libcore.io.Posix.poll",
+            "sun.misc.Unsafe.park"));
+
+    /**
+     * Whether each stack is rooted at the name of its thread.
+     */
+    private final boolean threadRoots;
+
+    /**
+     * Totals for each thread, by thread id, in the order first seen.
+     */
+    private final Map<Integer, ThreadTotals> threads = new LinkedHashMap<Integer, ThreadTotals>();
+
+    /**
+     * Cache of each frame's name in folded stacks.
+     */
+    private final Map<StackTraceElement, String> frameNames
+            = new HashMap<StackTraceElement, String>();
+
+    /**
+     * The distinct folded stacks, their indexes and sample counts.
+     */
+    private final List<String> stacks = new ArrayList<String>();
+    private final Map<String, Integer> stackIndexes = new HashMap<String, Integer>();
+    private long[] stackCounts = new long[64];
+
+    /**
+     * The stack traces of the input currently being added, which may
+     * reuse the ids of earlier inputs. Each stack trace id maps to a
+     * slot in the parallel arrays that follow.
+     */
+    private final IntIntMap traceSlots = new IntIntMap();
+    private int[] traceStacks = new int[64];
+    private ThreadTotals[] traceThreads = new ThreadTotals[64];
+    private boolean[] traceWaiting = new boolean[64];
+
+    private final BinaryHprofReader.Listener listener = new BinaryHprofReader.Listener() {
+        public void threadEvent(HprofData.ThreadEvent event) {
+            if (event.type == HprofData.ThreadEventType.START) {
+                thread(event.threadId).name = event.threadName;
+            }
+        }
+
+        public void stackTrace(HprofData.StackTrace stackTrace) {
+            addStackTrace(stackTrace);
+        }
+
+        public void cpuSample(int stackTraceId, int count) throws IOException {
+            int slot = traceSlots.get(stackTraceId);
+            if (slot == -1) {
+                throw new MalformedHprofException("Unknown stack trace id " + stackTraceId);
+            }
+            addSamples(slot, count);
+        }
+    };
+
+    /**
+     * Sample counts for one thread.
+     */
+    private static final class ThreadTotals {
+        final int threadId;
+        String name;
+        long wall;
+        long cpu;
+
+        ThreadTotals(int threadId) {
+            this.threadId = threadId;
+            this.name = "thread-" + threadId;
+        }
+    }
+
+    /**
+     * Creates a FoldedStackWriter with no samples.
+     *
+     * @param threadRoots whether to root each stack at its thread's
+     * name, so that a flame graph shows each thread separately.
+     */
+    public FoldedStackWriter(boolean threadRoots) {
+        this.threadRoots = threadRoots;
+    }
+
+    /**
+     * Writes the folded stacks of the provided data to the specified stream.
+     */
+    public static void write(HprofData data, OutputStream outputStream) throws IOException {
+        FoldedStackWriter writer = new FoldedStackWriter(false);
+        writer.add(data);
+        writer.writeFoldedStacks(outputStream);
+    }
+
+    /**
+     * Adds the samples of the provided data.
+     */
+    public void add(HprofData data) throws IOException {
+        traceSlots.clear();
+        for (HprofData.ThreadEvent event : data.getThreadHistory()) {
+            listener.threadEvent(event);
+        }
+        for (HprofData.Sample sample : data.getSamples()) {
+            addSamples(addStackTrace(sample.stackTrace), sample.count);
+        }
+    }
+
+    /**
+     * Adds the samples of the binary hprof data read from the
+     * provided stream, processing records as they are read.
+     */
+    public void add(InputStream inputStream) throws IOException {
+        traceSlots.clear();
+        BinaryHprofReader reader = new BinaryHprofReader(inputStream);
+        reader.setStrict(false);
+        reader.read(listener);
+    }
+
+    private ThreadTotals thread(int threadId) {
+        ThreadTotals totals = threads.get(threadId);
+        if (totals == null) {
+            totals = new ThreadTotals(threadId);
+            threads.put(threadId, totals);
+        }
+        return totals;
+    }
+
+    /**
+     * Folds the stack trace and returns its slot.
+     */
+    private int addStackTrace(HprofData.StackTrace stackTrace) {
+        ThreadTotals thread = thread(stackTrace.threadId);
+        StackTraceElement[] stackFrames = stackTrace.stackFrames;
+
+        StringBuilder folded = new StringBuilder();
+        if (threadRoots) {
+            folded.append(thread.name.replace(';', '_'));
+        }
+        for (int i = stackFrames.length - 1; i >= 0; i--) {
+            if (folded.length() > 0) {
+                folded.append(';');
+            }
+            folded.append(frameName(stackFrames[i]));
+        }
+        if (folded.length() == 0) {
+            folded.append("<empty>");
+        }
+        String stack = folded.toString();
+        Integer stackIndex = stackIndexes.get(stack);
+        if (stackIndex == null) {
+            stackIndex = stacks.size();
+            stacks.add(stack);
+            stackIndexes.put(stack, stackIndex);
+            if (stackIndex == stackCounts.length) {
+                stackCounts = Arrays.copyOf(stackCounts, 2 * stackIndex);
+            }
+        }
+
+        int slot = traceSlots.get(stackTrace.stackTraceId);
+        if (slot == -1) {
+            slot = traceSlots.size();
+            traceSlots.put(stackTrace.stackTraceId, slot);
+            if (slot == traceStacks.length) {
+                traceStacks = Arrays.copyOf(traceStacks, 2 * slot);
+                traceThreads = Arrays.copyOf(traceThreads, 2 * slot);
+                traceWaiting = Arrays.copyOf(traceWaiting, 2 * slot);
+            }
+        }
+        traceStacks[slot] = stackIndex;
+        traceThreads[slot] = thread;
+        traceWaiting[slot] = stackFrames.length > 0
+                && WAITING_METHODS.contains(frameName(stackFrames[0]));
+        return slot;
+    }
+
+    private String frameName(StackTraceElement stackFrame) {
+        String name = frameNames.get(stackFrame);
+        if (name == null) {
+            name = stackFrame.getClassName() + "." + stackFrame.getMethodName();
+            frameNames.put(stackFrame, name);
+        }
+        return name;
+    }
+
+    private void addSamples(int slot, int count) {
+        stackCounts[traceStacks[slot]] += count;
+        ThreadTotals thread = traceThreads[slot];
+        thread.wall += count;
+        if (!traceWaiting[slot]) {
+            thread.cpu += count;
+        }
+    }
+
+    /**
+     * Writes one line for each distinct stack with samples, sorted by stack.
+     */
+    public void writeFoldedStacks(OutputStream outputStream) throws IOException {
+        PrintWriter out = new PrintWriter(outputStream);
+        Integer[] order = new Integer[stacks.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            public int compare(Integer lhs, Integer rhs) {
+                return stacks.get(lhs).compareTo(stacks.get(rhs));
+            }
+        });
+        for (int i : order) {
+            if (stackCounts[i] != 0) {
+                out.print(stacks.get(i));
+                out.print(' ');
+                out.println(stackCounts[i]);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Writes a line for each thread with its id, its wall and cpu
+     * sample counts, and its name, separated by tabs. The wall count
+     * includes every sample of the thread, while the cpu count
+     * excludes those where the thread was waiting in a method such as
+     * {@code Object.wait} or {@code Thread.sleep}. Multiplying either
+     * by the sampling interval estimates the corresponding time.
+     */
+    public void writeThreadSummary(OutputStream outputStream) throws IOException {
+        PrintWriter out = new PrintWriter(outputStream);
+        out.println("# thread\twall\tcpu\tname");
+        for (ThreadTotals thread : threads.values()) {
+            out.print(thread.threadId);
+            out.print('\t');
+            out.print(thread.wall);
+            out.print('\t');
+            out.print(thread.cpu);
+            out.print('\t');
+            out.println(thread.name);
+        }
+        out.flush();
+    }
+
+    /**
+     * An open-addressed map from int keys to non-negative int values,
+     * which avoids boxing each stack trace id.
+     */
+    private static final class IntIntMap {
+        private int[] keys = new int[128];
+        private int[] values = newValues(128);
+        private int size;
+
+        private static int[] newValues(int capacity) {
+            int[] values = new int[capacity];
+            Arrays.fill(values, -1);
+            return values;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Returns the value for key, or -1 if there is none.
+         */
+        public int get(int key) {
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; values[i] != -1; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Adds a key that {@link #get} did not find.
+         */
+        public void put(int key, int value) {
+            if (2 * (size + 1) > keys.length) {
+                int[] oldKeys = keys;
+                int[] oldValues = values;
+                keys = new int[2 * oldKeys.length];
+                values = newValues(2 * oldKeys.length);
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldValues[i] != -1) {
+                        insert(oldKeys[i], oldValues[i]);
+                    }
+                }
+            }
+            insert(key, value);
+            size++;
+        }
+
+        private void insert(int key, int value) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (values[i] != -1) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        private static int hash(int key) {
+            // Stack trace ids are often sequential, so spread them out.
+            return key * 0x9e3779b9;
+        }
+
+        public void clear() {
+            Arrays.fill(values, -1);
+            size = 0;
+        }
+    }
+
+    /**
+     * Main entry point for FoldedStackWriter command line tool
+     */
+    public static void main(String[] args) {
+        boolean threadRoots = false;
+        boolean threadSummary = false;
+        int i = 0;
+        for (; i < args.length && args[i].startsWith("--"); i++) {
+            if (args[i].equals("--thread-roots")) {
+                threadRoots = true;
+            } else if (args[i].equals("--thread-summary")) {
+                threadSummary = true;
+            } else {
+                usage("unknown option " + args[i]);
+                System.exit(1);
+            }
+        }
+        if (i == args.length) {
+            usage("binary hprof file arguments expected");
+            System.exit(1);
+        }
+
+        FoldedStackWriter writer = new FoldedStackWriter(threadRoots);
+        for (; i < args.length; i++) {
+            try {
+                InputStream inputStream = new BufferedInputStream(new FileInputStream(args[i]));
+                try {
+                    writer.add(inputStream);
+                } finally {
+                    inputStream.close();
+                }
+            } catch (IOException e) {
+                System.out.println("Problem reading binary hprof data from "
+                                   + args[i] + ": " + e.getMessage());
+                System.exit(1);
+            }
+        }
+        try {
+            if (threadSummary) {
+                writer.writeThreadSummary(System.out);
+            } else {
+                writer.writeFoldedStacks(System.out);
+            }
+        } catch (IOException e) {
+            System.out.println("Problem writing folded stacks: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Prints usage error but does not exit.
+     */
+    private static void usage(String error) {
+        System.out.print("ERROR: ");
+        System.out.println(error);
+        System.out.println();
+        System.out.println("usage: FoldedStackWriter [--thread-roots] [--thread-summary] "
+                           + "<binary-hprof-file>...");
+        System.out.println();
+        System.out.println("Merges the samples of binary hprof files and prints them as folded");
+        System.out.println("stacks for flame graph tools, or with --thread-summary, prints the");
+        System.out.println("wall and cpu sample counts of each thread.");
+    }
+}
@@ -16,9 +16,18 @@
 
 package dalvik.system.profiler;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
@@ -53,6 +62,26 @@ import java.util.TimerTask;
  * profiler.shutdown();
  * AsciiHprofWriter.write(profiler.getHprofData(), System.out);
  * }</pre>
+ *
+ * <h3>Continuous Profiling</h3>
+ *
+ * A profiler left running indefinitely with {@link #start(int)}
+ * retains every distinct stack it ever sees. {@link #startContinuous}
+ * instead divides time into windows and keeps only the most recent
+ * ones, optionally handing each completed window to a {@link
+ * WindowListener} such as the one returned by {@link
+ * #newBinaryHprofWindowWriter}. It also measures how much time the
+ * sampler itself spends taking samples and backs off the sampling
+ * rate when that exceeds a budget.
+ *
+ * <pre> {@code
+ * ThreadSet threadSet = SamplingProfiler.newThreadGroupThreadSet(group);
+ * SamplingProfiler profiler = new SamplingProfiler(12, threadSet);
+ * profiler.startContinuous(50, 60 * 1000, 10, 0.01f,
+ *         SamplingProfiler.newBinaryHprofWindowWriter(directory, "app", 3));
+ * // whenever recent behavior is of interest
+ * List<HprofData> windows = profiler.getRecentWindows();
+ * }</pre>
  */
 public final class SamplingProfiler {
 
@@ -113,6 +142,48 @@ public final class SamplingProfiler {
      */
     private final Map<Thread, Integer> threadIds = new HashMap<Thread, Integer>();
 
+    /**
+     * The start events of the threads currently known to the
+     * profiler, by thread id. Each continuous profiling window
+     * begins with these so that it can be read on its own.
+     */
+    private final Map<Integer, HprofData.ThreadEvent> liveThreadStarts
+            = new LinkedHashMap<Integer, HprofData.ThreadEvent>();
+
+    /**
+     * Whether the profiler has been started with {@link
+     * #startContinuous}, null if it has not been started at all.
+     * The two modes can't be mixed because continuous windows do not
+     * contribute to {@link #hprofData}'s thread history.
+     */
+    private Boolean continuousMode;
+
+    /**
+     * Settings for continuous mode, fixed by {@link #startContinuous}.
+     */
+    private int windowMillis;
+    private int windowCount;
+    private float maxOverhead;
+    private WindowListener windowListener;
+
+    /**
+     * The most recent completed windows, oldest first. Guarded by
+     * itself since it is read by any thread while the sampler adds
+     * to it.
+     */
+    private final ArrayDeque<HprofData> recentWindows = new ArrayDeque<HprofData>();
+
+    /**
+     * The interval between samples, raised in continuous mode if
+     * sampling costs more than {@link #maxOverhead}.
+     */
+    private volatile int interval;
+
+    /**
+     * The fraction of the last completed window spent sampling.
+     */
+    private volatile float overhead;
+
     /**
      * Mutable {@code StackTrace} that is used for probing the {@link
      * #stackTraces stackTraces} map without allocating a {@code
@@ -268,19 +339,143 @@ public final class SamplingProfiler {
         }
     }
 
+    /**
+     * Receives each window of samples completed in continuous mode.
+     */
+    public static interface WindowListener {
+        /**
+         * Called on the sampling thread when a window is completed,
+         * either because its time is up or because profiling was
+         * stopped. The window will not be modified further. Sampling
+         * is delayed until this returns, so expensive work such as
+         * I/O should be kept short. Samples missed meanwhile are
+         * dropped and the next window starts once this returns, so a
+         * slow listener receives fewer windows rather than a backlog.
+         */
+        public void windowCompleted(HprofData window);
+    }
+
+    /**
+     * Returns a WindowListener that writes each window in binary hprof
+     * format to a rotating set of files in the specified directory,
+     * named {@code prefix-0.hprof} through {@code prefix-<fileCount -
+     * 1>.hprof}. Each file is written in full under a temporary name
+     * and then renamed, so readers never see a partial window. Write
+     * failures are logged and otherwise ignored.
+     */
+    public static WindowListener newBinaryHprofWindowWriter(File directory, String prefix,
+                                                            int fileCount) {
+        return new BinaryHprofWindowWriter(directory, prefix, fileCount);
+    }
+
+    private static class BinaryHprofWindowWriter implements WindowListener {
+        private final File directory;
+        private final String prefix;
+        private final int fileCount;
+        private int nextFile;
+
+        public BinaryHprofWindowWriter(File directory, String prefix, int fileCount) {
+            if (directory == null) {
+                throw new NullPointerException("directory == null");
+            }
+            if (prefix == null) {
+                throw new NullPointerException("prefix == null");
+            }
+            if (fileCount < 1) {
+                throw new IllegalArgumentException("fileCount < 1");
+            }
+            this.directory = directory;
+            this.prefix = prefix;
+            this.fileCount = fileCount;
+        }
+
+        public void windowCompleted(HprofData window) {
+            File file = new File(directory, prefix + "-" + nextFile + ".hprof");
+            nextFile = (nextFile + 1) % fileCount;
+            File temp = new File(directory, file.getName() + ".tmp");
+            try {
+                OutputStream out = new BufferedOutputStream(new FileOutputStream(temp));
+                try {
+                    BinaryHprofWriter.write(window, out);
+                } finally {
+                    out.close();
+                }
+                if (!temp.renameTo(file)) {
+                    throw new IOException("Couldn't rename " + temp + " to " + file);
+                }
+            } catch (IOException e) {
+                System.logW("SamplingProfiler couldn't write " + file, e);
+                temp.delete();
+            }
+        }
+    }
+
     /**
      * Starts profiler sampling at the specified rate.
      *
      * @param interval The number of milliseconds between samples
      */
     public void start(int interval) {
+        start(interval, false);
+    }
+
+    /**
+     * Starts sampling continuously at the specified rate, retaining
+     * only the samples of the most recent windows of time. Unlike
+     * {@link #start(int)}, samples are not added to {@link
+     * #getHprofData}, and a profiler started this way can only be
+     * restarted in continuous mode.
+     *
+     * @param interval The number of milliseconds between samples
+     *
+     * @param windowMillis The length of each window in milliseconds.
+     * Each window has its own thread history and samples, and
+     * deduplicates only the stacks seen within it.
+     *
+     * @param windowCount The number of completed windows retained
+     * for {@link #getRecentWindows}.
+     *
+     * @param maxOverhead The highest fraction of time the sampler
+     * should spend taking samples, or 0 to always sample at {@code
+     * interval}. When a window exceeds it the interval is doubled,
+     * and when a window comes in under a quarter of it the interval
+     * is halved again, but never below {@code interval}.
+     *
+     * @param listener Notified of each completed window, or null.
+     */
+    public void startContinuous(int interval, int windowMillis, int windowCount,
+                                float maxOverhead, WindowListener listener) {
+        if (windowMillis < 1) {
+            throw new IllegalArgumentException("windowMillis < 1");
+        }
+        if (windowCount < 1) {
+            throw new IllegalArgumentException("windowCount < 1");
+        }
+        if (!(maxOverhead >= 0 && maxOverhead < 1)) {
+            throw new IllegalArgumentException("maxOverhead not in [0, 1): " + maxOverhead);
+        }
+        this.windowMillis = windowMillis;
+        this.windowCount = windowCount;
+        this.maxOverhead = maxOverhead;
+        this.windowListener = listener;
+        start(interval, true);
+    }
+
+    private void start(int interval, boolean continuous) {
         if (interval < 1) {
             throw new IllegalArgumentException("interval < 1");
         }
         if (sampler != null) {
             throw new IllegalStateException("profiling already started");
         }
-        sampler = new Sampler();
+        if (continuousMode != null && continuousMode != continuous) {
+            throw new IllegalStateException(continuous
+                    ? "profiler already used with start(int)"
+                    : "profiler already used with startContinuous");
+        }
+        continuousMode = continuous;
+        this.interval = interval;
+        sampler = new Sampler(interval, continuous);
         hprofData.setStartMillis(System.currentTimeMillis());
         timer.scheduleAtFixedRate(sampler, 0, interval);
     }
@@ -329,6 +524,36 @@ public final class SamplingProfiler {
         return hprofData;
     }
 
+    /**
+     * Returns the completed windows of continuous profiling that are
+     * still retained, oldest first. This may be called from any
+     * thread at any time.
+     */
+    public List<HprofData> getRecentWindows() {
+        synchronized (recentWindows) {
+            return new ArrayList<HprofData>(recentWindows);
+        }
+    }
+
+    /**
+     * Returns the current number of milliseconds between samples.
+     * This is the interval profiling was started with unless
+     * continuous profiling has backed off to stay within its overhead
+     * budget.
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Returns the fraction of the last completed continuous profiling
+     * window that the sampler spent taking samples, or 0 if no window
+     * has been completed.
+     */
+    public float getOverhead() {
+        return overhead;
+    }
+
     /**
      * The Sampler does the real work of the profiler.
      *
@@ -340,17 +565,55 @@ public final class SamplingProfiler {
      * For each thread to be sampled, a stack is collected and used to
      * update the set of collected samples. Stacks are truncated to a
      * maximum depth. There is no way to tell if a stack has been truncated.
+     *
+     * In continuous mode, samples go to the current window rather
+     * than to {@link #hprofData}. The timer keeps running at the base
+     * interval and the Sampler throttles by only sampling on every
+     * {@code stride}-th run, and by skipping runs that are late.
      */
     private class Sampler extends TimerTask {
 
+        /**
+         * The largest stride continuous mode will back off to.
+         */
+        private static final int MAX_STRIDE = 64;
+
         private boolean stop;
         private boolean stopped;
 
         private Thread timerThread;
 
+        private final int baseInterval;
+        private final boolean continuous;
+
+        /**
+         * The current continuous profiling window, its stack traces
+         * and when it started.
+         */
+        private HprofData window;
+        private final StackTraceTable windowStackTraces;
+        private long windowStartNanos;
+        private long windowSampleNanos;
+        private int stride = 1;
+        private int tick;
+
+        public Sampler(int baseInterval, boolean continuous) {
+            this.baseInterval = baseInterval;
+            this.continuous = continuous;
+            if (continuous) {
+                windowStackTraces = new StackTraceTable();
+                openWindow(System.nanoTime());
+            } else {
+                windowStackTraces = null;
+            }
+        }
+
         public void run() {
             synchronized(this) {
                 if (stop) {
+                    if (continuous) {
+                        completeWindow(System.nanoTime());
+                    }
                     cancel();
                     stopped = true;
                     notifyAll();
@@ -362,6 +625,26 @@ public final class SamplingProfiler {
                 timerThread = Thread.currentThread();
             }
 
+            long startNanos = 0;
+            if (continuous) {
+                // The timer runs at a fixed rate, so after a stall it
+                // replays the runs it missed back to back. Skip them
+                // rather than take a burst of samples.
+                if (System.currentTimeMillis() - scheduledExecutionTime() > baseInterval) {
+                    return;
+                }
+                startNanos = System.nanoTime();
+                if (startNanos - windowStartNanos >= windowMillis * 1000000L) {
+                    completeWindow(startNanos);
+                    // Time spent in the listener belongs to neither window.
+                    startNanos = System.nanoTime();
+                    openWindow(startNanos);
+                }
+                if (tick++ % stride != 0) {
+                    return;
+                }
+            }
+
             // process thread creation and death first so that we
             // assign thread ids to any new threads before allocating
             // new stacks for them
@@ -385,6 +668,59 @@ public final class SamplingProfiler {
                 }
                 recordStackTrace(thread, stackFrames);
             }
+
+            if (continuous) {
+                windowSampleNanos += System.nanoTime() - startNanos;
+            }
+        }
+
+        private void openWindow(long nowNanos) {
+            window = new HprofData(new HashMap<HprofData.StackTrace, int[]>());
+            window.setFlags(BinaryHprof.ControlSettings.CPU_SAMPLING.bitmask);
+            window.setDepth(depth);
+            window.setStartMillis(System.currentTimeMillis());
+            for (HprofData.ThreadEvent start : liveThreadStarts.values()) {
+                window.addThreadEvent(start);
+            }
+            windowStackTraces.clear();
+            windowStartNanos = nowNanos;
+            windowSampleNanos = 0;
+        }
+
+        /**
+         * Retains the current window, notifies the listener and
+         * adjusts the sampling rate to the window's overhead.
+         */
+        private void completeWindow(long nowNanos) {
+            long elapsedNanos = nowNanos - windowStartNanos;
+            float windowOverhead = (elapsedNanos > 0)
+                    ? (float) windowSampleNanos / elapsedNanos
+                    : 0;
+            overhead = windowOverhead;
+
+            synchronized (recentWindows) {
+                if (recentWindows.size() == windowCount) {
+                    recentWindows.removeFirst();
+                }
+                recentWindows.addLast(window);
+            }
+            if (windowListener != null) {
+                try {
+                    windowListener.windowCompleted(window);
+                } catch (RuntimeException e) {
+                    // An exception escaping a TimerTask would kill the timer.
+                    System.logW("SamplingProfiler window listener failed", e);
+                }
+            }
+
+            if (maxOverhead > 0) {
+                if (windowOverhead > maxOverhead && stride < MAX_STRIDE) {
+                    stride *= 2;
+                } else if (windowOverhead < maxOverhead / 4 && stride > 1) {
+                    stride /= 2;
+                }
+                interval = baseInterval * stride;
+            }
         }
 
         /**
@@ -396,6 +732,10 @@ public final class SamplingProfiler {
             if (threadId == null) {
                 throw new IllegalArgumentException("Unknown thread " + thread);
             }
+            if (continuous) {
+                recordWindowStackTrace(threadId, stackFrames);
+                return;
+            }
             mutableStackTrace.threadId = threadId;
             mutableStackTrace.stackFrames = stackFrames;
 
@@ -411,6 +751,26 @@ public final class SamplingProfiler {
             countCell[0]++;
         }
 
+        private void recordWindowStackTrace(int threadId, StackTraceElement[] stackFrames) {
+            int hash = StackTraceTable.hash(threadId, stackFrames);
+            int[] countCell = windowStackTraces.get(hash, threadId, stackFrames);
+            if (countCell == null) {
+                countCell = new int[1];
+                HprofData.StackTrace stackTrace = new HprofData.StackTrace(
+                        nextStackTraceId++, threadId, stackFrames.clone());
+                window.addStackTrace(stackTrace, countCell);
+                windowStackTraces.put(hash, stackTrace, countCell);
+            }
+            countCell[0]++;
+        }
+
+        /**
+         * Returns the data that thread events are recorded in.
+         */
+        private HprofData threadHistory() {
+            return continuous ? window : hprofData;
+        }
+
         private void updateThreadHistory(Thread[] oldThreads, Thread[] newThreads) {
             // thread start/stop shouldn't happen too often and
             // these aren't too big, so hopefully this approach
@@ -469,7 +829,8 @@ public final class SamplingProfiler {
             HprofData.ThreadEvent event
                     = HprofData.ThreadEvent.start(nextObjectId++, threadId,
                                                   threadName, groupName, parentGroupName);
-            hprofData.addThreadEvent(event);
+            liveThreadStarts.put(threadId, event);
+            threadHistory().addThreadEvent(event);
         }
 
         /**
@@ -483,8 +844,9 @@ public final class SamplingProfiler {
             if (threadId == null) {
                 throw new IllegalArgumentException("Unknown thread " + thread);
             }
+            liveThreadStarts.remove(threadId);
             HprofData.ThreadEvent event = HprofData.ThreadEvent.end(threadId);
-            hprofData.addThreadEvent(event);
+            threadHistory().addThreadEvent(event);
         }
     }
 }
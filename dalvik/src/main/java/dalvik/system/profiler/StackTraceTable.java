@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package dalvik.system.profiler;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressed table from stack traces to their sample count
+ * cells, used by {@link SamplingProfiler} to deduplicate the samples
+ * of one continuous profiling window.
+ *
+ * Unlike a {@code HashMap<StackTrace, int[]>}, lookups compare the
+ * cached int hashes before comparing any frames, nothing is allocated
+ * for a stack trace that has already been seen, and {@link #clear}
+ * keeps the arrays so that the next window does not grow the table
+ * all over again.
+ */
+final class StackTraceTable {
+
+    private static final int MINIMUM_CAPACITY = 64;
+
+    /** The hash of each slot's stack trace; only meaningful where traces is non-null. */
+    private int[] hashes;
+    private HprofData.StackTrace[] traces;
+    private int[][] countCells;
+    private int size;
+
+    StackTraceTable() {
+        allocate(MINIMUM_CAPACITY);
+    }
+
+    private void allocate(int capacity) {
+        hashes = new int[capacity];
+        traces = new HprofData.StackTrace[capacity];
+        countCells = new int[capacity][];
+    }
+
+    /**
+     * Returns the hash that {@link #get} and {@link #put} expect for
+     * the given stack, the same as {@link HprofData.StackTrace#hashCode}.
+     */
+    static int hash(int threadId, StackTraceElement[] stackFrames) {
+        return 31 * (31 * 17 + threadId) + Arrays.hashCode(stackFrames);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the count cell of the matching stack trace, or null if
+     * there is none.
+     */
+    public int[] get(int hash, int threadId, StackTraceElement[] stackFrames) {
+        int mask = hashes.length - 1;
+        for (int i = hash & mask; traces[i] != null; i = (i + 1) & mask) {
+            HprofData.StackTrace trace = traces[i];
+            if (hashes[i] == hash && trace.threadId == threadId
+                    && Arrays.equals(trace.stackFrames, stackFrames)) {
+                return countCells[i];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds a stack trace that {@link #get} did not find.
+     */
+    public void put(int hash, HprofData.StackTrace stackTrace, int[] countCell) {
+        if (2 * (size + 1) > hashes.length) {
+            resize(2 * hashes.length);
+        }
+        insert(hash, stackTrace, countCell);
+        size++;
+    }
+
+    private void insert(int hash, HprofData.StackTrace stackTrace, int[] countCell) {
+        int mask = hashes.length - 1;
+        int i = hash & mask;
+        while (traces[i] != null) {
+            i = (i + 1) & mask;
+        }
+        hashes[i] = hash;
+        traces[i] = stackTrace;
+        countCells[i] = countCell;
+    }
+
+    private void resize(int capacity) {
+        int[] oldHashes = hashes;
+        HprofData.StackTrace[] oldTraces = traces;
+        int[][] oldCountCells = countCells;
+        allocate(capacity);
+        for (int i = 0; i < oldTraces.length; i++) {
+            if (oldTraces[i] != null) {
+                insert(oldHashes[i], oldTraces[i], oldCountCells[i]);
+            }
+        }
+    }
+
+    /**
+     * Removes every stack trace, keeping the current capacity.
+     */
+    public void clear() {
+        Arrays.fill(traces, null);
+        Arrays.fill(countCells, null);
+        size = 0;
+    }
+}
@@ -23,22 +23,28 @@ import dalvik.system.profiler.HprofData.Sample;
 import dalvik.system.profiler.HprofData.StackTrace;
 import dalvik.system.profiler.HprofData.ThreadEvent;
 import dalvik.system.profiler.HprofData;
+import dalvik.system.profiler.MalformedHprofException;
 import dalvik.system.profiler.SamplingProfiler.ThreadSet;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.math.BigInteger;
 import java.security.KeyPairGenerator;
 import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import javax.crypto.spec.DHParameterSpec;
 import junit.framework.TestCase;
 
@@ -58,6 +64,160 @@ public class SamplingProfilerTest extends TestCase {
         test_HprofData(profiler.getHprofData(), true);
     }
 
+    /**
+     * Profile continuously with short windows, then check that only
+     * the most recent windows are retained and that each stands alone.
+     */
+    public void test_SamplingProfiler_continuous() throws Exception {
+        ThreadSet threadSet = SamplingProfiler.newArrayThreadSet(Thread.currentThread());
+        SamplingProfiler profiler = new SamplingProfiler(12, threadSet);
+        final List<HprofData> completed =
+                Collections.synchronizedList(new ArrayList<HprofData>());
+        final CountDownLatch windowsCompleted = new CountDownLatch(3);
+        profiler.startContinuous(10, 20, 2, 0, new SamplingProfiler.WindowListener() {
+            public void windowCompleted(HprofData window) {
+                completed.add(window);
+                windowsCompleted.countDown();
+            }
+        });
+        workUntil(windowsCompleted);
+        profiler.stop();
+        profiler.shutdown();
+
+        assertEquals(10, profiler.getInterval());
+        assertTrue(profiler.getOverhead() >= 0);
+        // Stopping completes one more window.
+        assertTrue(completed.size() >= 4);
+        List<HprofData> windows = profiler.getRecentWindows();
+        assertEquals(completed.subList(completed.size() - 2, completed.size()), windows);
+        for (HprofData window : windows) {
+            // A window may have no samples if the machine is busy, but is still well formed.
+            test_HprofData(window, true);
+        }
+        assertEquals(0, profiler.getHprofData().getSamples().size());
+    }
+
+    /**
+     * Profile continuously with a listener much slower than a window.
+     * Windows should be throttled to the listener's pace, and the
+     * samples missed while it runs dropped, rather than either piling
+     * up to be delivered or being taken in a burst afterwards.
+     */
+    public void test_SamplingProfiler_continuousSlowListener() throws Exception {
+        final int listenerMillis = 100;
+        ThreadSet threadSet = SamplingProfiler.newArrayThreadSet(Thread.currentThread());
+        SamplingProfiler profiler = new SamplingProfiler(12, threadSet);
+        final List<HprofData> completed =
+                Collections.synchronizedList(new ArrayList<HprofData>());
+        final List<Long> callMillis = Collections.synchronizedList(new ArrayList<Long>());
+        final List<Long> returnMillis = Collections.synchronizedList(new ArrayList<Long>());
+        final CountDownLatch windowsCompleted = new CountDownLatch(4);
+        profiler.startContinuous(1, 10, 2, 0, new SamplingProfiler.WindowListener() {
+            public void windowCompleted(HprofData window) {
+                callMillis.add(System.currentTimeMillis());
+                completed.add(window);
+                windowsCompleted.countDown();
+                try {
+                    Thread.sleep(listenerMillis);
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                returnMillis.add(System.currentTimeMillis());
+            }
+        });
+        workUntil(windowsCompleted);
+        profiler.stop();
+        profiler.shutdown();
+
+        List<HprofData> windows = new ArrayList<HprofData>(completed);
+        // Each window is sampled for its full length after the
+        // listener is done with the last one, allowing for the
+        // stopped window, which may be cut short.
+        for (int i = 1; i < windows.size() - 1; i++) {
+            long sampledMillis = callMillis.get(i) - returnMillis.get(i - 1);
+            assertTrue("window " + i + " sampled for " + sampledMillis + "ms",
+                       sampledMillis >= 10 / 2);
+        }
+        for (HprofData window : windows) {
+            int samples = 0;
+            for (Sample sample : window.getSamples()) {
+                samples += sample.count;
+            }
+            // A 10ms window at a 1ms interval should have about 10
+            // samples, not the hundred the listener's sleep missed.
+            assertTrue("window has " + samples + " samples", samples < listenerMillis / 2);
+        }
+        assertEquals(windows.subList(windows.size() - 2, windows.size()),
+                     profiler.getRecentWindows());
+    }
+
+    /**
+     * Does some work until {@code latch} reaches zero, failing if that
+     * takes unreasonably long.
+     */
+    private void workUntil(CountDownLatch latch) throws Exception {
+        long deadline = System.currentTimeMillis() + 60 * 1000;
+        while (!latch.await(0, TimeUnit.MILLISECONDS)) {
+            assertTrue("timed out", System.currentTimeMillis() < deadline);
+            toBeMeasured(10);
+        }
+    }
+
+    public void test_SamplingProfiler_continuousModeIsExclusive() throws Exception {
+        ThreadSet threadSet = SamplingProfiler.newArrayThreadSet(Thread.currentThread());
+        SamplingProfiler profiler = new SamplingProfiler(12, threadSet);
+        try {
+            profiler.startContinuous(10, 100, 2, 1.0f, null);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        profiler.startContinuous(10, 100, 2, 0.1f, null);
+        profiler.stop();
+        try {
+            profiler.start(10);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        profiler.shutdown();
+    }
+
+    public void test_newBinaryHprofWindowWriter() throws Exception {
+        File directory = File.createTempFile("SamplingProfilerTest", "");
+        assertTrue(directory.delete());
+        assertTrue(directory.mkdir());
+        try {
+            ThreadSet threadSet = SamplingProfiler.newArrayThreadSet(Thread.currentThread());
+            SamplingProfiler profiler = new SamplingProfiler(12, threadSet);
+            final SamplingProfiler.WindowListener writer =
+                    SamplingProfiler.newBinaryHprofWindowWriter(directory, "test", 2);
+            final CountDownLatch windowsCompleted = new CountDownLatch(3);
+            profiler.startContinuous(10, 20, 1, 0, new SamplingProfiler.WindowListener() {
+                public void windowCompleted(HprofData window) {
+                    writer.windowCompleted(window);
+                    windowsCompleted.countDown();
+                }
+            });
+            // Enough windows to wrap around the two files.
+            workUntil(windowsCompleted);
+            profiler.shutdown();
+
+            assertEquals(new HashSet<String>(Arrays.asList("test-0.hprof", "test-1.hprof")),
+                         new HashSet<String>(Arrays.asList(directory.list())));
+            for (File file : directory.listFiles()) {
+                InputStream in = new FileInputStream(file);
+                BinaryHprofReader reader = new BinaryHprofReader(in);
+                reader.read();
+                in.close();
+                assertHprofData(reader.getHprofData(), true);
+            }
+        } finally {
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
     private static final String P_STR =
             "9494fec095f3b85ee286542b3836fc81a5dd0a0349b4c239dd38744d488cf8e3"
             + "1db8bcb7d33b41abb9e5a33cca9144b1cef332c94bf0573bf047a3aca98cdf3b";
@@ -70,8 +230,12 @@ public class SamplingProfilerTest extends TestCase {
     private static final byte[] G = new BigInteger(G_STR,16).toByteArray();
 
     private static void toBeMeasured () throws Exception {
+        toBeMeasured(10000);
+    }
+
+    private static void toBeMeasured(int iterations) throws Exception {
         long start = System.currentTimeMillis();
-        for (int i = 0; i < 10000; i++) {
+        for (int i = 0; i < iterations; i++) {
             BigInteger p = new BigInteger(P);
             BigInteger g = new BigInteger(G);
             KeyPairGenerator gen = KeyPairGenerator.getInstance("DH");
@@ -208,6 +372,74 @@ public class SamplingProfilerTest extends TestCase {
 
     }
 
+    public void test_FoldedStackWriter() throws Exception {
+        Map<StackTrace, int[]> stackTraces = new HashMap<StackTrace, int[]>();
+        HprofData hprofData = new HprofData(stackTraces);
+        hprofData.addThreadEvent(ThreadEvent.start(1, 10, "main", "main", "system"));
+        hprofData.addThreadEvent(ThreadEvent.start(2, 11, "worker", "main", "system"));
+        StackTraceElement run = new StackTraceElement("java.lang.Thread", "run", null, -1);
+        StackTraceElement work = new StackTraceElement("Worker", "work", "Worker.java", 5);
+        StackTraceElement wait = new StackTraceElement("java.lang.Object", "wait", null, -2);
+        hprofData.addStackTrace(new StackTrace(1, 10, new StackTraceElement[] { work, run }),
+                                new int[] { 3 });
+        hprofData.addStackTrace(new StackTrace(2, 11, new StackTraceElement[] { work, run }),
+                                new int[] { 4 });
+        hprofData.addStackTrace(new StackTrace(3, 11, new StackTraceElement[] { wait, run }),
+                                new int[] { 5 });
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FoldedStackWriter.write(hprofData, out);
+        assertEquals("java.lang.Thread.run;Worker.work 7\n"
+                     + "java.lang.Thread.run;java.lang.Object.wait 5\n",
+                     out.toString("UTF-8"));
+
+        // Reading the binary form, twice, merges samples by thread.
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        BinaryHprofWriter.write(hprofData, binary);
+        FoldedStackWriter writer = new FoldedStackWriter(true);
+        writer.add(new ByteArrayInputStream(binary.toByteArray()));
+        writer.add(new ByteArrayInputStream(binary.toByteArray()));
+        out.reset();
+        writer.writeFoldedStacks(out);
+        assertEquals("main;java.lang.Thread.run;Worker.work 6\n"
+                     + "worker;java.lang.Thread.run;Worker.work 8\n"
+                     + "worker;java.lang.Thread.run;java.lang.Object.wait 10\n",
+                     out.toString("UTF-8"));
+        out.reset();
+        writer.writeThreadSummary(out);
+        assertEquals("# thread\twall\tcpu\tname\n"
+                     + "10\t6\t6\tmain\n"
+                     + "11\t18\t8\tworker\n",
+                     out.toString("UTF-8"));
+    }
+
+    public void test_BinaryHprofReader_listenerRejectsZeroCount() throws Exception {
+        Map<StackTrace, int[]> stackTraces = new HashMap<StackTrace, int[]>();
+        HprofData hprofData = new HprofData(stackTraces);
+        hprofData.addThreadEvent(ThreadEvent.start(1, 10, "main", "main", "system"));
+        StackTraceElement run = new StackTraceElement("java.lang.Thread", "run", null, -1);
+        hprofData.addStackTrace(new StackTrace(1, 10, new StackTraceElement[] { run }),
+                                new int[] { 0 });
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        BinaryHprofWriter.write(hprofData, binary);
+
+        final List<Integer> counts = new ArrayList<Integer>();
+        BinaryHprofReader reader
+                = new BinaryHprofReader(new ByteArrayInputStream(binary.toByteArray()));
+        try {
+            reader.read(new BinaryHprofReader.Listener() {
+                public void threadEvent(ThreadEvent event) {}
+                public void stackTrace(StackTrace stackTrace) {}
+                public void cpuSample(int stackTraceId, int count) {
+                    counts.add(count);
+                }
+            });
+            fail();
+        } catch (MalformedHprofException expected) {
+        }
+        assertEquals(Collections.<Integer>emptyList(), counts);
+    }
+
     private void test_HprofData(HprofData hprofData, boolean strict) throws Exception {
         assertHprofData(hprofData, strict);
         test_HprofData_ascii(hprofData);
@@ -29,9 +29,11 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.io.UTFDataFormatException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.AbstractList;
@@ -59,6 +61,12 @@ public final class Dex {
 
     private ByteBuffer data;
     private final TableOfContents tableOfContents = new TableOfContents();
+    /** True until a mapped dex reads its table of contents. */
+    private volatile boolean tableOfContentsPending;
+    /** True for a dex that was read, as opposed to one being written. */
+    private boolean cachesStrings;
+    /** Decoded strings by index. Created on first use if cachesStrings is true. */
+    private String[] stringCache;
     private int nextSectionStart = 0;
     private final StringTable strings = new StringTable();
     private final TypeIndexToDescriptorIndexTable typeIds = new TypeIndexToDescriptorIndexTable();
@@ -78,7 +86,13 @@ public final class Dex {
     private Dex(ByteBuffer data) throws IOException {
         this.data = data;
         this.data.order(ByteOrder.LITTLE_ENDIAN);
-        this.tableOfContents.readFrom(this);
+        readTableOfContents();
+    }
+
+    private Dex(ByteBuffer data, boolean lazy) {
+        this.data = data;
+        this.data.order(ByteOrder.LITTLE_ENDIAN);
+        this.tableOfContentsPending = lazy;
     }
 
     /**
@@ -123,6 +137,39 @@ public final class Dex {
      * to access the buffer after calling this method.
      */
     public static Dex create(ByteBuffer data) throws IOException {
+        return new Dex(dexSection(data));
+    }
+
+    /**
+     * Creates a read-only dex backed by a memory mapping of the {@code .dex}
+     * or {@code .odex} file {@code file}. Nothing is read until it is
+     * needed: the header and map are parsed on first use, and only the
+     * pages that are actually queried are loaded. A malformed file
+     * therefore throws {@link DexException} from that first use rather than
+     * from this method. Writing to the returned dex fails.
+     *
+     * <p>The dex in an archive is compressed, so {@code .jar}, {@code .zip}
+     * and {@code .apk} files are read into memory as by {@link #Dex(File)}.
+     */
+    public static Dex map(File file) throws IOException {
+        if (FileUtils.hasArchiveSuffix(file.getName())) {
+            return new Dex(file);
+        }
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            // The mapping stays valid after the file is closed.
+            ByteBuffer data = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            return new Dex(dexSection(data), true);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Returns {@code data} in little-endian order, or just its dex section
+     * if it is an {@code .odex} file.
+     */
+    private static ByteBuffer dexSection(ByteBuffer data) {
         data.order(ByteOrder.LITTLE_ENDIAN);
 
         // if it's an .odex file, set position and limit to the .dex section
@@ -137,8 +184,7 @@ public final class Dex {
             data.limit(offset + length);
             data = data.slice();
         }
-
-        return new Dex(data);
+        return data;
     }
 
     private void loadFrom(InputStream in) throws IOException {
@@ -153,7 +199,36 @@ public final class Dex {
 
         this.data = ByteBuffer.wrap(bytesOut.toByteArray());
         this.data.order(ByteOrder.LITTLE_ENDIAN);
-        this.tableOfContents.readFrom(this);
+        readTableOfContents();
+    }
+
+    private void readTableOfContents() throws IOException {
+        tableOfContents.readFrom(this);
+        int stringCount = tableOfContents.stringIds.size;
+        if (stringCount < 0 || stringCount > data.capacity() / SizeOf.STRING_ID_ITEM) {
+            throw new DexException("Unexpected string count: " + stringCount);
+        }
+        cachesStrings = true;
+    }
+
+    /**
+     * Returns the table of contents, first reading it if this is a mapped
+     * dex that hasn't needed it yet.
+     */
+    private TableOfContents tableOfContents() {
+        if (tableOfContentsPending) {
+            synchronized (this) {
+                if (tableOfContentsPending) {
+                    try {
+                        readTableOfContents();
+                    } catch (IOException e) {
+                        throw new DexException(e);
+                    }
+                    tableOfContentsPending = false;
+                }
+            }
+        }
+        return tableOfContents;
     }
 
     private static void checkBounds(int index, int length) {
@@ -180,7 +255,7 @@ public final class Dex {
     }
 
     public TableOfContents getTableOfContents() {
-        return tableOfContents;
+        return tableOfContents();
     }
 
     public Section open(int position) {
@@ -334,6 +409,7 @@ public final class Dex {
      * {@code fieldIds().get(fieldDexIndex).getNameIndex();}
      */
     public int nameIndexFromFieldIndex(int fieldIndex) {
+        TableOfContents tableOfContents = tableOfContents();
         checkBounds(fieldIndex, tableOfContents.fieldIds.size);
         int position = tableOfContents.fieldIds.off + (SizeOf.MEMBER_ID_ITEM * fieldIndex);
         position += SizeOf.USHORT;  // declaringClassIndex
@@ -358,6 +434,7 @@ public final class Dex {
     }
 
     public int findClassDefIndexFromTypeIndex(int typeIndex) {
+        TableOfContents tableOfContents = tableOfContents();
         checkBounds(typeIndex, tableOfContents.typeIds.size);
         if (!tableOfContents.classDefs.exists()) {
             return -1;
@@ -375,6 +452,7 @@ public final class Dex {
      * {@code fieldIds().get(fieldDexIndex).getTypeIndex();}
      */
     public int typeIndexFromFieldIndex(int fieldIndex) {
+        TableOfContents tableOfContents = tableOfContents();
         checkBounds(fieldIndex, tableOfContents.fieldIds.size);
         int position = tableOfContents.fieldIds.off + (SizeOf.MEMBER_ID_ITEM * fieldIndex);
         position += SizeOf.USHORT;  // declaringClassIndex
@@ -386,6 +464,7 @@ public final class Dex {
      * {@code methodIds().get(methodIndex).getDeclaringClassIndex();}
      */
     public int declaringClassIndexFromMethodIndex(int methodIndex) {
+        TableOfContents tableOfContents = tableOfContents();
         checkBounds(methodIndex, tableOfContents.methodIds.size);
         int position = tableOfContents.methodIds.off + (SizeOf.MEMBER_ID_ITEM * methodIndex);
         return data.getShort(position) & 0xFFFF;  // declaringClassIndex
@@ -396,6 +475,7 @@ public final class Dex {
      * {@code methodIds().get(methodIndex).getNameIndex();}
      */
     public int nameIndexFromMethodIndex(int methodIndex) {
+        TableOfContents tableOfContents = tableOfContents();
         checkBounds(methodIndex, tableOfContents.methodIds.size);
         int position = tableOfContents.methodIds.off + (SizeOf.MEMBER_ID_ITEM * methodIndex);
         position += SizeOf.USHORT;  // declaringClassIndex
@@ -408,6 +488,7 @@ public final class Dex {
      * {@code readTypeList(protoIds.get(methodIds().get(methodDexIndex).getProtoIndex()).getParametersOffset()).getTypes();}
      */
     public short[] parameterTypeIndicesFromMethodIndex(int methodIndex) {
+        TableOfContents tableOfContents = tableOfContents();
         checkBounds(methodIndex, tableOfContents.methodIds.size);
         int position = tableOfContents.methodIds.off + (SizeOf.MEMBER_ID_ITEM * methodIndex);
         position += SizeOf.USHORT;  // declaringClassIndex
@@ -439,6 +520,7 @@ public final class Dex {
      * {@code protoIds().get(methodIds().get(methodDexIndex).getProtoIndex()).getReturnTypeIndex();}
      */
     public int returnTypeIndexFromMethodIndex(int methodIndex) {
+        TableOfContents tableOfContents = tableOfContents();
         checkBounds(methodIndex, tableOfContents.methodIds.size);
         int position = tableOfContents.methodIds.off + (SizeOf.MEMBER_ID_ITEM * methodIndex);
         position += SizeOf.USHORT;  // declaringClassIndex
@@ -451,9 +533,10 @@ public final class Dex {
 
     /**
      * Look up a descriptor index from a type index. Cheaper than:
-     * {@code open(tableOfContents.typeIds.off + (index * SizeOf.TYPE_ID_ITEM)).readInt();}
+     * {@code open(tableOfContents().typeIds.off + (index * SizeOf.TYPE_ID_ITEM)).readInt();}
      */
     public int descriptorIndexFromTypeIndex(int typeIndex) {
+       TableOfContents tableOfContents = tableOfContents();
        checkBounds(typeIndex, tableOfContents.typeIds.size);
        int position = tableOfContents.typeIds.off + (SizeOf.TYPE_ID_ITEM * typeIndex);
        return data.getInt(position);
@@ -463,6 +546,7 @@ public final class Dex {
      * Look up a type index index from a class def index.
      */
     public int typeIndexFromClassDefIndex(int classDefIndex) {
+        TableOfContents tableOfContents = tableOfContents();
         checkBounds(classDefIndex, tableOfContents.classDefs.size);
         int position = tableOfContents.classDefs.off + (SizeOf.CLASS_DEF_ITEM * classDefIndex);
         return data.getInt(position);
@@ -472,6 +556,7 @@ public final class Dex {
      * Look up an annotation directory offset from a class def index.
      */
     public int annotationDirectoryOffsetFromClassDefIndex(int classDefIndex) {
+        TableOfContents tableOfContents = tableOfContents();
         checkBounds(classDefIndex, tableOfContents.classDefs.size);
         int position = tableOfContents.classDefs.off + (SizeOf.CLASS_DEF_ITEM * classDefIndex);
         position += SizeOf.UINT;  // type
@@ -487,6 +572,7 @@ public final class Dex {
      * {@code ...getClassDef(classDefIndex).getInterfaces();}
      */
     public short[] interfaceTypeIndicesFromClassDefIndex(int classDefIndex) {
+        TableOfContents tableOfContents = tableOfContents();
         checkBounds(classDefIndex, tableOfContents.classDefs.size);
         int position = tableOfContents.classDefs.off + (SizeOf.CLASS_DEF_ITEM * classDefIndex);
         position += SizeOf.UINT;  // type
@@ -889,12 +975,25 @@ public final class Dex {
 
     private final class StringTable extends AbstractList<String> implements RandomAccess {
         @Override public String get(int index) {
-            checkBounds(index, tableOfContents.stringIds.size);
-            return open(tableOfContents.stringIds.off + (index * SizeOf.STRING_ID_ITEM))
-                    .readString();
+            checkBounds(index, tableOfContents().stringIds.size);
+            // Racing threads may both decode a string, or even create the cache,
+            // but either copy will do.
+            String[] cache = stringCache;
+            if (cache == null && cachesStrings) {
+                cache = stringCache = new String[tableOfContents.stringIds.size];
+            }
+            String result = cache != null ? cache[index] : null;
+            if (result == null) {
+                result = open(tableOfContents.stringIds.off + (index * SizeOf.STRING_ID_ITEM))
+                        .readString();
+                if (cache != null) {
+                    cache[index] = result;
+                }
+            }
+            return result;
         }
         @Override public int size() {
-            return tableOfContents.stringIds.size;
+            return tableOfContents().stringIds.size;
         }
     }
 
@@ -904,7 +1003,7 @@ public final class Dex {
             return descriptorIndexFromTypeIndex(index);
         }
         @Override public int size() {
-            return tableOfContents.typeIds.size;
+            return tableOfContents().typeIds.size;
         }
     }
 
@@ -914,50 +1013,54 @@ public final class Dex {
             return strings.get(descriptorIndexFromTypeIndex(index));
         }
         @Override public int size() {
-            return tableOfContents.typeIds.size;
+            return tableOfContents().typeIds.size;
         }
     }
 
     private final class ProtoIdTable extends AbstractList<ProtoId> implements RandomAccess {
         @Override public ProtoId get(int index) {
+            TableOfContents tableOfContents = tableOfContents();
             checkBounds(index, tableOfContents.protoIds.size);
             return open(tableOfContents.protoIds.off + (SizeOf.PROTO_ID_ITEM * index))
                     .readProtoId();
         }
         @Override public int size() {
-            return tableOfContents.protoIds.size;
+            return tableOfContents().protoIds.size;
         }
     }
 
     private final class FieldIdTable extends AbstractList<FieldId> implements RandomAccess {
         @Override public FieldId get(int index) {
+            TableOfContents tableOfContents = tableOfContents();
             checkBounds(index, tableOfContents.fieldIds.size);
             return open(tableOfContents.fieldIds.off + (SizeOf.MEMBER_ID_ITEM * index))
                     .readFieldId();
         }
         @Override public int size() {
-            return tableOfContents.fieldIds.size;
+            return tableOfContents().fieldIds.size;
         }
     }
 
     private final class MethodIdTable extends AbstractList<MethodId> implements RandomAccess {
         @Override public MethodId get(int index) {
+            TableOfContents tableOfContents = tableOfContents();
             checkBounds(index, tableOfContents.methodIds.size);
             return open(tableOfContents.methodIds.off + (SizeOf.MEMBER_ID_ITEM * index))
                     .readMethodId();
         }
         @Override public int size() {
-            return tableOfContents.methodIds.size;
+            return tableOfContents().methodIds.size;
         }
     }
 
     private final class ClassDefIterator implements Iterator<ClassDef> {
-        private final Dex.Section in = open(tableOfContents.classDefs.off);
+        private final TableOfContents.Section classDefs = tableOfContents().classDefs;
+        private final Dex.Section in = open(classDefs.off);
         private int count = 0;
 
         @Override
         public boolean hasNext() {
-            return count < tableOfContents.classDefs.size;
+            return count < classDefs.size;
         }
         @Override
         public ClassDef next() {
@@ -975,7 +1078,7 @@ public final class Dex {
 
     private final class ClassDefIterable implements Iterable<ClassDef> {
         public Iterator<ClassDef> iterator() {
-            return !tableOfContents.classDefs.exists()
+            return !tableOfContents().classDefs.exists()
                ? Collections.<ClassDef>emptySet().iterator()
                : new ClassDefIterator();
         }
@@ -0,0 +1,190 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.dex;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ReadOnlyBufferException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import junit.framework.TestCase;
+
+public final class DexTest extends TestCase {
+
+    private static final int ODEX_HEADER_SIZE = 40;
+    private static final int MAP_OFFSET_OFFSET = 52;
+    private static final int STRING_IDS_SIZE_OFFSET = 56;
+
+    private File tmpDir;
+    private byte[] dexBytes;
+
+    @Override protected void setUp() throws Exception {
+        tmpDir = File.createTempFile("DexTest", null);
+        assertTrue(tmpDir.delete());
+        assertTrue(tmpDir.mkdir());
+        dexBytes = readResource("test.dex");
+    }
+
+    @Override protected void tearDown() throws Exception {
+        for (File file : tmpDir.listFiles()) {
+            file.delete();
+        }
+        tmpDir.delete();
+    }
+
+    public void testMapDex() throws Exception {
+        File file = write("test.dex", dexBytes);
+        assertSameContents(new Dex(file), Dex.map(file));
+    }
+
+    public void testMapOdex() throws Exception {
+        ByteBuffer odex = ByteBuffer.allocate(ODEX_HEADER_SIZE + dexBytes.length + 16);
+        odex.order(ByteOrder.LITTLE_ENDIAN);
+        odex.put(new byte[] { 'd', 'e', 'y', '\n', '0', '3', '6', '\0' });
+        odex.putInt(ODEX_HEADER_SIZE);
+        odex.putInt(dexBytes.length);
+        odex.position(ODEX_HEADER_SIZE);
+        odex.put(dexBytes);
+        File file = write("test.odex", odex.array());
+
+        Dex mapped = Dex.map(file);
+        assertSameContents(new Dex(dexBytes), mapped);
+        assertEquals(dexBytes.length, mapped.getLength());
+    }
+
+    public void testMapArchive() throws Exception {
+        File file = new File(tmpDir, "test.jar");
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+        out.putNextEntry(new ZipEntry(DexFormat.DEX_IN_JAR_NAME));
+        out.write(dexBytes);
+        out.closeEntry();
+        out.close();
+        assertSameContents(new Dex(file), Dex.map(file));
+    }
+
+    public void testMalformedMappedDexThrowsOnFirstUse() throws Exception {
+        byte[] bytes = dexBytes.clone();
+        bytes[0] = 'x';
+        File file = write("malformed.dex", bytes);
+
+        Dex mapped = Dex.map(file);
+        try {
+            mapped.strings().size();
+            fail();
+        } catch (DexException expected) {
+        }
+    }
+
+    public void testBadStringCountThrowsDexException() throws Exception {
+        for (int stringCount : new int[] { -1, dexBytes.length, Integer.MAX_VALUE }) {
+            try {
+                new Dex(withStringCount(dexBytes, stringCount));
+                fail();
+            } catch (DexException expected) {
+            }
+            Dex mapped = Dex.map(write("bad.dex", withStringCount(dexBytes, stringCount)));
+            try {
+                mapped.strings().size();
+                fail();
+            } catch (DexException expected) {
+            }
+        }
+    }
+
+    public void testWritingMappedDexFails() throws Exception {
+        Dex mapped = Dex.map(write("test.dex", dexBytes));
+        try {
+            mapped.open(0).writeInt(0);
+            fail();
+        } catch (ReadOnlyBufferException expected) {
+        }
+    }
+
+    public void testDexBeingWrittenDoesNotCacheStrings() throws Exception {
+        Dex dex = new Dex(64);
+        TableOfContents tableOfContents = dex.getTableOfContents();
+        tableOfContents.stringIds.off = 0;
+        tableOfContents.stringIds.size = 1;
+        dex.open(0).writeInt(4);
+
+        dex.open(4).writeStringData("a");
+        assertEquals("a", dex.strings().get(0));
+        dex.open(4).writeStringData("b");
+        assertEquals("b", dex.strings().get(0));
+    }
+
+    /**
+     * Returns a copy of {@code bytes} with the string count in both the header and the map
+     * set to {@code stringCount}.
+     */
+    private static byte[] withStringCount(byte[] bytes, int stringCount) {
+        ByteBuffer result = ByteBuffer.wrap(bytes.clone()).order(ByteOrder.LITTLE_ENDIAN);
+        result.putInt(STRING_IDS_SIZE_OFFSET, stringCount);
+        short stringIdsType = new TableOfContents().stringIds.type;
+        int mapOffset = result.getInt(MAP_OFFSET_OFFSET);
+        for (int i = 0, count = result.getInt(mapOffset); i < count; i++) {
+            int item = mapOffset + 4 + i * SizeOf.MAP_ITEM;
+            if (result.getShort(item) == stringIdsType) {
+                result.putInt(item + 4, stringCount);
+            }
+        }
+        return result.array();
+    }
+
+    private static void assertSameContents(Dex expected, Dex actual) {
+        assertEquals(expected.strings(), actual.strings());
+        assertEquals(expected.typeNames(), actual.typeNames());
+        assertEquals(classDefs(expected), classDefs(actual));
+    }
+
+    private static List<String> classDefs(Dex dex) {
+        List<String> result = new ArrayList<String>();
+        for (ClassDef classDef : dex.classDefs()) {
+            result.add(classDef.toString());
+        }
+        return result;
+    }
+
+    private File write(String name, byte[] bytes) throws IOException {
+        File file = new File(tmpDir, name);
+        OutputStream out = new FileOutputStream(file);
+        out.write(bytes);
+        out.close();
+        return file;
+    }
+
+    private byte[] readResource(String name) throws IOException {
+        InputStream in = getClass().getResourceAsStream(name);
+        assertNotNull(name, in);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int count;
+        while ((count = in.read(buffer)) != -1) {
+            out.write(buffer, 0, count);
+        }
+        in.close();
+        return out.toByteArray();
+    }
+}
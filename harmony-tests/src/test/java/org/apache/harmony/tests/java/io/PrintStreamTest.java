@@ -462,6 +462,22 @@ public class PrintStreamTest extends junit.framework.TestCase {
         assertTrue("Newline not written", (c = isr.read()) == '\r' || c == '\n');
     }
 
+    /**
+     * java.io.PrintStream#print(int), print(long), print(double) and
+     * println(float) with an encoding that isn't ASCII-compatible.
+     */
+    public void test_printNumbers_UTF16() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PrintStream os = new PrintStream(out, false, "UTF-16BE");
+        os.print(-12);
+        os.print(34L);
+        os.print(1.5);
+        os.println(2.5f);
+        os.flush();
+        assertEquals("-12341.52.5" + System.lineSeparator(),
+                new String(out.toByteArray(), "UTF-16BE"));
+    }
+
     /**
      * java.io.PrintStream#println(long)
      */
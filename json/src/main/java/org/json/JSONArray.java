@@ -57,6 +57,14 @@ public class JSONArray {
         values = new ArrayList<Object>();
     }
 
+    /**
+     * Creates a {@code JSONArray} with no values and room for {@code size}
+     * values.
+     */
+    JSONArray(int size) {
+        values = new ArrayList<Object>(size);
+    }
+
     /**
      * Creates a new {@code JSONArray} by copying all values from the given
      * collection.
@@ -114,6 +114,17 @@ public class JSONObject {
         nameValuePairs = new LinkedHashMap<String, Object>();
     }
 
+    /**
+     * Creates a {@code JSONObject} with no name/value mappings, sized to hold
+     * {@code size} mappings without rehashing.
+     */
+    JSONObject(int size) {
+        // HashMap resizes once it is three quarters full
+        nameValuePairs = size == 0
+                ? new LinkedHashMap<String, Object>()
+                : new LinkedHashMap<String, Object>(size + (size + 2) / 3);
+    }
+
     /**
      * Creates a new {@code JSONObject} by copying all name/value mappings from
      * the given map.
@@ -0,0 +1,811 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+// Note: this class was written without inspecting the non-free org.json sourcecode.
+
+/**
+ * Reads JSON (<a href="http://www.ietf.org/rfc/rfc4627.txt">RFC 4627</a>)
+ * encoded values from a stream, one token at a time. Unlike {@link
+ * JSONTokener}, which needs the whole document in a String and returns it as
+ * a tree, this reader pulls characters from a {@link Reader} only as they are
+ * needed, so arbitrarily large documents can be processed in constant memory.
+ * Example usage, which materializes one record of a large array at a time:
+ * <pre>
+ * JSONStreamReader reader = new JSONStreamReader(new InputStreamReader(in, "UTF-8"));
+ * reader.beginArray();
+ * while (reader.hasNext()) {
+ *     JSONObject record = (JSONObject) reader.nextValue();
+ *     ...
+ * }
+ * reader.endArray();
+ * reader.close();</pre>
+ *
+ * <p>This reader accepts exactly the same lenient syntax as {@link
+ * JSONTokener}, including comments, unquoted and single quoted strings,
+ * hexadecimal and octal integers, {@code ;} separators, {@code =} and
+ * {@code =>} name separators and omitted array elements. Literal values are
+ * converted the same way, so numbers are read as an Integer, Long or Double,
+ * in that order of preference.
+ *
+ * <p>Like {@link JSONTokener#nextValue}, this reader accepts any number of
+ * top level values one after the other. {@link #peek} returns {@link
+ * Token#END_DOCUMENT} once the input is exhausted.
+ *
+ * <p>Instances of this class are not thread safe. Although this class is
+ * nonfinal, it was not designed for inheritance and should not be subclassed.
+ */
+public class JSONStreamReader implements Closeable {
+
+    /**
+     * The kinds of token returned by {@link #peek}.
+     */
+    public enum Token {
+        /** The opening bracket of an array, consumed by {@link #beginArray}. */
+        BEGIN_ARRAY,
+        /** The closing bracket of an array, consumed by {@link #endArray}. */
+        END_ARRAY,
+        /** The opening brace of an object, consumed by {@link #beginObject}. */
+        BEGIN_OBJECT,
+        /** The closing brace of an object, consumed by {@link #endObject}. */
+        END_OBJECT,
+        /** A property name, consumed by {@link #nextName}. */
+        NAME,
+        /** A quoted or unquoted string value. */
+        STRING,
+        /** An Integer, Long or Double value. */
+        NUMBER,
+        /** A {@code true} or {@code false} value. */
+        BOOLEAN,
+        /** A {@code null} value, or an omitted array element. */
+        NULL,
+        /** The end of the input. */
+        END_DOCUMENT,
+    }
+
+    /**
+     * Lexical scoping elements within this reader, necessary to expect the
+     * appropriate separator characters (ie. commas and colons).
+     */
+    private enum Scope {
+
+        /** An array whose first element hasn't been read. */
+        EMPTY_ARRAY,
+
+        /**
+         * An array whose most recent element is a value. The next character
+         * must be a separator or a closing bracket.
+         */
+        NONEMPTY_ARRAY,
+
+        /**
+         * An array whose most recent element is a separator. A closing
+         * bracket now means an omitted null element.
+         */
+        ARRAY_AFTER_SEPARATOR,
+
+        /** An object whose first name hasn't been read. */
+        EMPTY_OBJECT,
+
+        /** An object whose most recent element is a name. */
+        DANGLING_NAME,
+
+        /** An object whose most recent element is a value. */
+        NONEMPTY_OBJECT,
+    }
+
+    private final Reader in;
+
+    /**
+     * Characters read from {@link #in} but not yet consumed, from {@link #pos}
+     * up to {@link #limit}. Tokens are never longer than a few characters
+     * except for strings and literals, which are copied out as they are
+     * scanned, so this buffer never grows.
+     */
+    private final char[] buffer = new char[1024];
+    private int pos;
+    private int limit;
+
+    /** The number of characters discarded from the front of the buffer. */
+    private long discarded;
+
+    private Scope[] stack = new Scope[32];
+    private int stackSize;
+
+    /** The token returned by the last call to {@link #peek}, if unconsumed. */
+    private Token token;
+
+    /**
+     * The name of the last {@link Token#NAME}, or the value of the last
+     * string, number, boolean or null token.
+     */
+    private Object value;
+
+    /**
+     * @param in the JSON encoded input. An initial byte order mark (BOM) is
+     *     skipped.
+     */
+    public JSONStreamReader(Reader in) {
+        if (in == null) {
+            throw new NullPointerException("in == null");
+        }
+        this.in = in;
+    }
+
+    /**
+     * Returns the type of the next token without consuming it.
+     *
+     * @throws JSONException if the input is malformed.
+     */
+    public Token peek() throws JSONException, IOException {
+        if (token != null) {
+            return token;
+        }
+
+        if (stackSize == 0) {
+            // consume an optional byte order mark (BOM) if it exists
+            if (discarded == 0 && pos == 0 && fill(1) && buffer[0] == '\ufeff') {
+                pos++;
+            }
+            if (nextCleanInternal() == -1) {
+                return token = Token.END_DOCUMENT;
+            }
+            pos--;
+            return token = readValue();
+        }
+
+        switch (stack[stackSize - 1]) {
+            case EMPTY_ARRAY:
+            case ARRAY_AFTER_SEPARATOR:
+                return token = readArrayElement();
+
+            case NONEMPTY_ARRAY:
+                switch (nextCleanInternal()) {
+                    case ']':
+                        return token = Token.END_ARRAY;
+                    case ',':
+                    case ';':
+                        stack[stackSize - 1] = Scope.ARRAY_AFTER_SEPARATOR;
+                        return token = readArrayElement();
+                    default:
+                        throw syntaxError("Unterminated array");
+                }
+
+            case EMPTY_OBJECT:
+                int first = nextCleanInternal();
+                if (first == '}') {
+                    return token = Token.END_OBJECT;
+                } else if (first != -1) {
+                    pos--;
+                }
+                return token = readName();
+
+            case NONEMPTY_OBJECT:
+                switch (nextCleanInternal()) {
+                    case '}':
+                        return token = Token.END_OBJECT;
+                    case ';':
+                    case ',':
+                        return token = readName();
+                    default:
+                        throw syntaxError("Unterminated object");
+                }
+
+            case DANGLING_NAME:
+                /*
+                 * Expect the name/value separator to be either a colon ':',
+                 * an equals sign '=', or an arrow "=>", as JSONTokener does.
+                 */
+                int separator = nextCleanInternal();
+                if (separator != ':' && separator != '=') {
+                    throw syntaxError("Expected ':' after " + value);
+                }
+                if (fill(1) && buffer[pos] == '>') {
+                    pos++;
+                }
+                stack[stackSize - 1] = Scope.NONEMPTY_OBJECT;
+                return token = readValue();
+
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    /**
+     * Returns true if the current array or object has another element.
+     */
+    public boolean hasNext() throws JSONException, IOException {
+        Token next = peek();
+        return next != Token.END_ARRAY
+                && next != Token.END_OBJECT
+                && next != Token.END_DOCUMENT;
+    }
+
+    /**
+     * Consumes the opening bracket of an array.
+     *
+     * @throws JSONException if the next token is not {@link Token#BEGIN_ARRAY}.
+     */
+    public void beginArray() throws JSONException, IOException {
+        consume(Token.BEGIN_ARRAY);
+        push(Scope.EMPTY_ARRAY);
+    }
+
+    /**
+     * Consumes the closing bracket of the current array.
+     *
+     * @throws JSONException if the next token is not {@link Token#END_ARRAY}.
+     */
+    public void endArray() throws JSONException, IOException {
+        consume(Token.END_ARRAY);
+        stackSize--;
+    }
+
+    /**
+     * Consumes the opening brace of an object.
+     *
+     * @throws JSONException if the next token is not {@link
+     *     Token#BEGIN_OBJECT}.
+     */
+    public void beginObject() throws JSONException, IOException {
+        consume(Token.BEGIN_OBJECT);
+        push(Scope.EMPTY_OBJECT);
+    }
+
+    /**
+     * Consumes the closing brace of the current object.
+     *
+     * @throws JSONException if the next token is not {@link Token#END_OBJECT}.
+     */
+    public void endObject() throws JSONException, IOException {
+        consume(Token.END_OBJECT);
+        stackSize--;
+    }
+
+    /**
+     * Returns and consumes the next property name.
+     *
+     * @throws JSONException if the next token is not {@link Token#NAME}.
+     */
+    public String nextName() throws JSONException, IOException {
+        consume(Token.NAME);
+        return (String) value;
+    }
+
+    /**
+     * Returns and consumes the next value, coercing it to a String if
+     * necessary in the same way as {@link JSONObject#getString}.
+     *
+     * @throws JSONException if the next token is not a string, number,
+     *     boolean or null.
+     */
+    public String nextString() throws JSONException, IOException {
+        return JSON.toString(nextLiteral());
+    }
+
+    /**
+     * Returns and consumes the next value if it is a boolean or can be
+     * coerced to a boolean.
+     *
+     * @throws JSONException if the next token is not a boolean or cannot be
+     *     coerced to a boolean.
+     */
+    public boolean nextBoolean() throws JSONException, IOException {
+        Object literal = nextLiteral();
+        Boolean result = JSON.toBoolean(literal);
+        if (result == null) {
+            throw JSON.typeMismatch(literal, "boolean");
+        }
+        return result;
+    }
+
+    /**
+     * Returns and consumes the next value if it is a number or can be coerced
+     * to a number.
+     *
+     * @throws JSONException if the next token is not a number or cannot be
+     *     coerced to a number.
+     */
+    public double nextDouble() throws JSONException, IOException {
+        Object literal = nextLiteral();
+        Double result = JSON.toDouble(literal);
+        if (result == null) {
+            throw JSON.typeMismatch(literal, "double");
+        }
+        return result;
+    }
+
+    /**
+     * Returns and consumes the next value if it is a number or can be coerced
+     * to a number.
+     *
+     * @throws JSONException if the next token is not a number or cannot be
+     *     coerced to a number.
+     */
+    public int nextInt() throws JSONException, IOException {
+        Object literal = nextLiteral();
+        Integer result = JSON.toInteger(literal);
+        if (result == null) {
+            throw JSON.typeMismatch(literal, "int");
+        }
+        return result;
+    }
+
+    /**
+     * Returns and consumes the next value if it is a number or can be coerced
+     * to a number.
+     *
+     * @throws JSONException if the next token is not a number or cannot be
+     *     coerced to a number.
+     */
+    public long nextLong() throws JSONException, IOException {
+        Object literal = nextLiteral();
+        Long result = JSON.toLong(literal);
+        if (result == null) {
+            throw JSON.typeMismatch(literal, "long");
+        }
+        return result;
+    }
+
+    /**
+     * Consumes the next value, which must be a {@code null} literal or an
+     * omitted array element.
+     *
+     * @throws JSONException if the next token is not {@link Token#NULL}.
+     */
+    public void nextNull() throws JSONException, IOException {
+        consume(Token.NULL);
+    }
+
+    /**
+     * Returns and consumes the next value, reading arrays and objects in full.
+     * This is useful to materialize one element of a large document at a time.
+     *
+     * @return a {@link JSONObject}, {@link JSONArray}, String, Boolean,
+     *     Integer, Long, Double or {@link JSONObject#NULL}. Omitted array
+     *     elements are returned as null, as they are by {@link JSONTokener}.
+     * @throws JSONException if the input is malformed or the next token is
+     *     not the start of a value.
+     */
+    public Object nextValue() throws JSONException, IOException {
+        switch (peek()) {
+            case BEGIN_OBJECT:
+                beginObject();
+                JSONObject object = new JSONObject();
+                while (hasNext()) {
+                    String name = nextName();
+                    object.put(name, nextValue());
+                }
+                endObject();
+                return object;
+
+            case BEGIN_ARRAY:
+                beginArray();
+                JSONArray array = new JSONArray();
+                while (hasNext()) {
+                    array.put(nextValue());
+                }
+                endArray();
+                return array;
+
+            default:
+                return nextLiteral();
+        }
+    }
+
+    /**
+     * Consumes the next value without materializing it. If the next token is
+     * a property name, both the name and its value are skipped.
+     *
+     * @throws JSONException if the input is malformed or the next token is
+     *     not a name or the start of a value.
+     */
+    public void skipValue() throws JSONException, IOException {
+        if (peek() == Token.NAME) {
+            token = null;
+        }
+        int depth = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_ARRAY:
+                    beginArray();
+                    depth++;
+                    break;
+                case BEGIN_OBJECT:
+                    beginObject();
+                    depth++;
+                    break;
+                case END_ARRAY:
+                    if (depth == 0) {
+                        throw syntaxError("Expected a value but was " + token);
+                    }
+                    endArray();
+                    depth--;
+                    break;
+                case END_OBJECT:
+                    if (depth == 0) {
+                        throw syntaxError("Expected a value but was " + token);
+                    }
+                    endObject();
+                    depth--;
+                    break;
+                case END_DOCUMENT:
+                    throw syntaxError("End of input");
+                default:
+                    token = null;
+                    break;
+            }
+        } while (depth > 0);
+    }
+
+    /**
+     * Closes the underlying reader.
+     */
+    @Override public void close() throws IOException {
+        token = null;
+        stackSize = 0;
+        in.close();
+    }
+
+    /**
+     * Returns an exception containing the given message plus the current
+     * position.
+     */
+    public JSONException syntaxError(String message) {
+        return new JSONException(message + this);
+    }
+
+    /**
+     * Returns the current position. Unlike {@link JSONTokener#toString} this
+     * doesn't include the input, which isn't retained.
+     */
+    @Override public String toString() {
+        return " at character " + (discarded + pos);
+    }
+
+    private void consume(Token expected) throws JSONException, IOException {
+        if (peek() != expected) {
+            throw syntaxError("Expected " + expected + " but was " + token);
+        }
+        token = null;
+    }
+
+    private Object nextLiteral() throws JSONException, IOException {
+        switch (peek()) {
+            case STRING:
+            case NUMBER:
+            case BOOLEAN:
+            case NULL:
+                token = null;
+                return value;
+            default:
+                throw syntaxError("Expected a value but was " + token);
+        }
+    }
+
+    private void push(Scope scope) {
+        if (stackSize == stack.length) {
+            stack = Arrays.copyOf(stack, stackSize * 2);
+        }
+        stack[stackSize++] = scope;
+    }
+
+    /**
+     * Reads the start of the next value: a bracket, a brace, or a complete
+     * string or literal.
+     */
+    private Token readValue() throws JSONException, IOException {
+        int c = nextCleanInternal();
+        switch (c) {
+            case -1:
+                throw syntaxError("End of input");
+
+            case '{':
+                return Token.BEGIN_OBJECT;
+
+            case '[':
+                return Token.BEGIN_ARRAY;
+
+            case '\'':
+            case '"':
+                value = nextString((char) c);
+                return Token.STRING;
+
+            default:
+                pos--;
+                Object literal = readLiteral();
+                value = literal;
+                if (literal == JSONObject.NULL) {
+                    return Token.NULL;
+                } else if (literal instanceof Boolean) {
+                    return Token.BOOLEAN;
+                } else if (literal instanceof Number) {
+                    return Token.NUMBER;
+                } else {
+                    return Token.STRING;
+                }
+        }
+    }
+
+    /**
+     * Reads the next element of the current array. Note that "[]" has no
+     * elements, but "[,]" has two null elements, as it does for JSONTokener.
+     */
+    private Token readArrayElement() throws JSONException, IOException {
+        Scope scope = stack[stackSize - 1];
+        switch (nextCleanInternal()) {
+            case -1:
+                throw syntaxError("Unterminated array");
+
+            case ']':
+                if (scope == Scope.ARRAY_AFTER_SEPARATOR) {
+                    /* to cover input that ends with ",]". */
+                    pos--;
+                    stack[stackSize - 1] = Scope.NONEMPTY_ARRAY;
+                    value = null;
+                    return Token.NULL;
+                }
+                return Token.END_ARRAY;
+
+            case ',':
+            case ';':
+                /* A separator without a value first means "null". */
+                stack[stackSize - 1] = Scope.ARRAY_AFTER_SEPARATOR;
+                value = null;
+                return Token.NULL;
+
+            default:
+                pos--;
+                stack[stackSize - 1] = Scope.NONEMPTY_ARRAY;
+                return readValue();
+        }
+    }
+
+    private Token readName() throws JSONException, IOException {
+        Object name;
+        int c = nextCleanInternal();
+        switch (c) {
+            case -1:
+                throw syntaxError("End of input");
+
+            case '{':
+            case '[':
+                throw syntaxError("Names must be strings, but found '" + (char) c + "'");
+
+            case '\'':
+            case '"':
+                name = nextString((char) c);
+                break;
+
+            default:
+                pos--;
+                name = readLiteral();
+                if (!(name instanceof String)) {
+                    throw syntaxError("Names must be strings, but " + name
+                            + " is of type " + name.getClass().getName());
+                }
+        }
+        value = name;
+        stack[stackSize - 1] = Scope.DANGLING_NAME;
+        return Token.NAME;
+    }
+
+    /**
+     * Ensures that at least {@code minimum} unconsumed characters are
+     * buffered, returning false if the input is exhausted first. The most
+     * recently consumed character is retained so that it may be unread with
+     * {@code pos--}.
+     */
+    private boolean fill(int minimum) throws IOException {
+        if (limit - pos >= minimum) {
+            return true;
+        }
+
+        int start = pos > 0 ? pos - 1 : 0;
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, limit - start);
+            discarded += start;
+            limit -= start;
+            pos -= start;
+        }
+
+        while (limit - pos < minimum) {
+            int count = in.read(buffer, limit, buffer.length - limit);
+            if (count == -1) {
+                return false;
+            }
+            limit += count;
+        }
+        return true;
+    }
+
+    private int nextCleanInternal() throws JSONException, IOException {
+        while (pos < limit || fill(1)) {
+            int c = buffer[pos++];
+            switch (c) {
+                case '\t':
+                case ' ':
+                case '\n':
+                case '\r':
+                    continue;
+
+                case '/':
+                    if (!fill(1)) {
+                        return c;
+                    }
+
+                    char peek = buffer[pos];
+                    switch (peek) {
+                        case '*':
+                            // skip a /* c-style comment */
+                            pos++;
+                            skipPastEndOfComment();
+                            continue;
+
+                        case '/':
+                            // skip a // end-of-line comment
+                            pos++;
+                            skipToEndOfLine();
+                            continue;
+
+                        default:
+                            return c;
+                    }
+
+                case '#':
+                    // skip a # hash end-of-line comment, as JSONTokener does
+                    skipToEndOfLine();
+                    continue;
+
+                default:
+                    return c;
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * Advances the position until after the next newline character. If the
+     * line is terminated by "\r\n", the '\n' must be consumed as whitespace by
+     * the caller.
+     */
+    private void skipToEndOfLine() throws IOException {
+        while (pos < limit || fill(1)) {
+            char c = buffer[pos++];
+            if (c == '\r' || c == '\n') {
+                break;
+            }
+        }
+    }
+
+    private void skipPastEndOfComment() throws JSONException, IOException {
+        while (fill(2)) {
+            if (buffer[pos] == '*' && buffer[pos + 1] == '/') {
+                pos += 2;
+                return;
+            }
+            pos++;
+        }
+        throw syntaxError("Unterminated comment");
+    }
+
+    /**
+     * Returns the string up to but not including {@code quote}, unescaping any
+     * character escape sequences encountered along the way. The opening quote
+     * should have already been read. This consumes the closing quote.
+     */
+    private String nextString(char quote) throws JSONException, IOException {
+        StringBuilder builder = null;
+        while (true) {
+            /* the index of the first character not yet appended to the builder. */
+            int start = pos;
+            while (pos < limit) {
+                char c = buffer[pos++];
+                if (c == quote) {
+                    if (builder == null) {
+                        return new String(buffer, start, pos - 1 - start);
+                    }
+                    builder.append(buffer, start, pos - 1 - start);
+                    return builder.toString();
+                }
+
+                if (c == '\\') {
+                    if (builder == null) {
+                        builder = new StringBuilder();
+                    }
+                    builder.append(buffer, start, pos - 1 - start);
+                    builder.append(readEscapeCharacter());
+                    start = pos;
+                }
+            }
+
+            if (builder == null) {
+                builder = new StringBuilder();
+            }
+            builder.append(buffer, start, pos - start);
+            if (!fill(1)) {
+                throw syntaxError("Unterminated string");
+            }
+        }
+    }
+
+    private char readEscapeCharacter() throws JSONException, IOException {
+        if (!fill(1)) {
+            throw syntaxError("Unterminated escape sequence");
+        }
+        char escaped = buffer[pos++];
+        if (escaped != 'u') {
+            return JSONTokener.unescape(escaped);
+        }
+
+        if (!fill(4)) {
+            throw syntaxError("Unterminated escape sequence");
+        }
+        String hex = new String(buffer, pos, 4);
+        pos += 4;
+        try {
+            return (char) Integer.parseInt(hex, 16);
+        } catch (NumberFormatException nfe) {
+            throw syntaxError("Invalid escape sequence: " + hex);
+        }
+    }
+
+    /**
+     * Reads a null, boolean, numeric or unquoted string literal value,
+     * converting it as {@link JSONTokener} does.
+     */
+    private Object readLiteral() throws JSONException, IOException {
+        StringBuilder builder = null;
+        String literal = null;
+        while (literal == null) {
+            int start = pos;
+            while (pos < limit) {
+                char c = buffer[pos];
+                if (c == '\r' || c == '\n'
+                        || JSONTokener.LITERAL_TERMINATORS.indexOf(c) != -1) {
+                    break;
+                }
+                pos++;
+            }
+
+            if (pos < limit) {
+                literal = builder == null
+                        ? new String(buffer, start, pos - start)
+                        : builder.append(buffer, start, pos - start).toString();
+            } else {
+                if (builder == null) {
+                    builder = new StringBuilder();
+                }
+                builder.append(buffer, start, pos - start);
+                if (!fill(1)) {
+                    literal = builder.toString();
+                }
+            }
+        }
+
+        if (literal.length() == 0) {
+            throw syntaxError("Expected literal value");
+        }
+        return JSONTokener.parseLiteral(literal);
+    }
+}
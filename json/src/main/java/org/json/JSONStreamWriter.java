@@ -0,0 +1,385 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.json;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.json.JSONStringer.Scope;
+
+// Note: this class was written without inspecting the non-free org.json sourcecode.
+
+/**
+ * Encodes JSON to a stream. This has the same API and produces exactly the
+ * same output as {@link JSONStringer}, but rather than accumulating the
+ * whole document in memory it passes the output on to a {@link Writer} in
+ * chunks as it is produced. For example:<pre>
+ * JSONStreamWriter writer = new JSONStreamWriter(new OutputStreamWriter(out, "UTF-8"));
+ * writer.array();
+ * for (Record record : records) {
+ *     writer.object()
+ *             .key("id").value(record.id)
+ *             .key("name").value(record.name)
+ *             .endObject();
+ * }
+ * writer.endArray();
+ * writer.close();</pre>
+ *
+ * <p>Writers only encode well-formed JSON strings, following the same rules
+ * as {@link JSONStringer}. Calls that would result in a malformed JSON string
+ * will fail with a {@link JSONException}. Output is only guaranteed to have
+ * reached the underlying writer after {@link #flush} or {@link #close}.
+ *
+ * <p>Each writer may be used to encode a single top level value. Instances of
+ * this class are not thread safe. Although this class is nonfinal, it was not
+ * designed for inheritance and should not be subclassed.
+ */
+public class JSONStreamWriter implements Closeable, Flushable {
+
+    /**
+     * The number of buffered characters above which output is passed on to
+     * the underlying writer.
+     */
+    private static final int FLUSH_THRESHOLD = 8192;
+
+    private final Writer out;
+
+    /** Output that hasn't been passed on to {@link #out} yet. */
+    private final StringBuilder buffer = new StringBuilder();
+
+    /** Scratch space to copy {@link #buffer} to {@link #out} with. */
+    private final char[] chars = new char[FLUSH_THRESHOLD];
+
+    /** Lexical scoping elements, as used by {@link JSONStringer}. */
+    private final List<Scope> stack = new ArrayList<Scope>();
+
+    /**
+     * A string containing a full set of spaces for a single level of
+     * indentation, or null for no pretty printing.
+     */
+    private final String indent;
+
+    /** True once the top-level array or object has been opened. */
+    private boolean hasRoot;
+
+    /**
+     * @param out the destination of the encoded JSON.
+     */
+    public JSONStreamWriter(Writer out) {
+        if (out == null) {
+            throw new NullPointerException("out == null");
+        }
+        this.out = out;
+        this.indent = null;
+    }
+
+    /**
+     * @param out the destination of the encoded JSON.
+     * @param indentSpaces the number of spaces to indent for each level of
+     *     nesting, formatting the output like {@link JSONObject#toString(int)}.
+     */
+    public JSONStreamWriter(Writer out, int indentSpaces) {
+        if (out == null) {
+            throw new NullPointerException("out == null");
+        }
+        this.out = out;
+        char[] indentChars = new char[indentSpaces];
+        Arrays.fill(indentChars, ' ');
+        this.indent = new String(indentChars);
+    }
+
+    /**
+     * Begins encoding a new array. Each call to this method must be paired with
+     * a call to {@link #endArray}.
+     *
+     * @return this writer.
+     */
+    public JSONStreamWriter array() throws JSONException, IOException {
+        return open(Scope.EMPTY_ARRAY, "[");
+    }
+
+    /**
+     * Ends encoding the current array.
+     *
+     * @return this writer.
+     */
+    public JSONStreamWriter endArray() throws JSONException, IOException {
+        return close(Scope.EMPTY_ARRAY, Scope.NONEMPTY_ARRAY, "]");
+    }
+
+    /**
+     * Begins encoding a new object. Each call to this method must be paired
+     * with a call to {@link #endObject}.
+     *
+     * @return this writer.
+     */
+    public JSONStreamWriter object() throws JSONException, IOException {
+        return open(Scope.EMPTY_OBJECT, "{");
+    }
+
+    /**
+     * Ends encoding the current object.
+     *
+     * @return this writer.
+     */
+    public JSONStreamWriter endObject() throws JSONException, IOException {
+        return close(Scope.EMPTY_OBJECT, Scope.NONEMPTY_OBJECT, "}");
+    }
+
+    private JSONStreamWriter open(Scope empty, String openBracket)
+            throws JSONException, IOException {
+        if (stack.isEmpty() && hasRoot) {
+            throw new JSONException("Nesting problem: multiple top-level roots");
+        }
+        hasRoot = true;
+        beforeValue();
+        stack.add(empty);
+        buffer.append(openBracket);
+        flushIfFull();
+        return this;
+    }
+
+    private JSONStreamWriter close(Scope empty, Scope nonempty, String closeBracket)
+            throws JSONException, IOException {
+        Scope context = peek();
+        if (context != nonempty && context != empty) {
+            throw new JSONException("Nesting problem");
+        }
+
+        stack.remove(stack.size() - 1);
+        if (context == nonempty) {
+            newline();
+        }
+        buffer.append(closeBracket);
+        flushIfFull();
+        return this;
+    }
+
+    private Scope peek() throws JSONException {
+        if (stack.isEmpty()) {
+            throw new JSONException("Nesting problem");
+        }
+        return stack.get(stack.size() - 1);
+    }
+
+    private void replaceTop(Scope topOfStack) {
+        stack.set(stack.size() - 1, topOfStack);
+    }
+
+    /**
+     * Encodes {@code value}. Arrays and objects are encoded element by element.
+     *
+     * @param value a {@link JSONObject}, {@link JSONArray}, String, Boolean,
+     *     Integer, Long, Double or null. May not be {@link Double#isNaN() NaNs}
+     *     or {@link Double#isInfinite() infinities}.
+     * @return this writer.
+     */
+    public JSONStreamWriter value(Object value) throws JSONException, IOException {
+        if (stack.isEmpty()) {
+            throw new JSONException("Nesting problem");
+        }
+
+        if (value instanceof JSONArray) {
+            JSONArray array = (JSONArray) value;
+            array();
+            for (int i = 0, length = array.length(); i < length; i++) {
+                value(array.opt(i));
+            }
+            return endArray();
+
+        } else if (value instanceof JSONObject) {
+            JSONObject object = (JSONObject) value;
+            object();
+            for (Iterator<String> it = object.keys(); it.hasNext(); ) {
+                String name = it.next();
+                key(name).value(object.opt(name));
+            }
+            return endObject();
+        }
+
+        beforeValue();
+
+        if (value == null
+                || value instanceof Boolean
+                || value == JSONObject.NULL) {
+            buffer.append(value);
+
+        } else if (value instanceof Number) {
+            buffer.append(JSONObject.numberToString((Number) value));
+
+        } else {
+            JSONStringer.string(buffer, value.toString());
+        }
+
+        flushIfFull();
+        return this;
+    }
+
+    /**
+     * Encodes {@code value} to this writer.
+     *
+     * @return this writer.
+     */
+    public JSONStreamWriter value(boolean value) throws JSONException, IOException {
+        if (stack.isEmpty()) {
+            throw new JSONException("Nesting problem");
+        }
+        beforeValue();
+        buffer.append(value);
+        flushIfFull();
+        return this;
+    }
+
+    /**
+     * Encodes {@code value} to this writer.
+     *
+     * @param value a finite value. May not be {@link Double#isNaN() NaNs} or
+     *     {@link Double#isInfinite() infinities}.
+     * @return this writer.
+     */
+    public JSONStreamWriter value(double value) throws JSONException, IOException {
+        if (stack.isEmpty()) {
+            throw new JSONException("Nesting problem");
+        }
+        beforeValue();
+        buffer.append(JSONObject.numberToString(value));
+        flushIfFull();
+        return this;
+    }
+
+    /**
+     * Encodes {@code value} to this writer.
+     *
+     * @return this writer.
+     */
+    public JSONStreamWriter value(long value) throws JSONException, IOException {
+        if (stack.isEmpty()) {
+            throw new JSONException("Nesting problem");
+        }
+        beforeValue();
+        buffer.append(value);
+        flushIfFull();
+        return this;
+    }
+
+    /**
+     * Encodes the key (property name) to this writer.
+     *
+     * @param name the name of the forthcoming value. May not be null.
+     * @return this writer.
+     */
+    public JSONStreamWriter key(String name) throws JSONException, IOException {
+        if (name == null) {
+            throw new JSONException("Names must be non-null");
+        }
+        beforeKey();
+        JSONStringer.string(buffer, name);
+        flushIfFull();
+        return this;
+    }
+
+    private void newline() {
+        if (indent == null) {
+            return;
+        }
+
+        buffer.append("\n");
+        for (int i = 0; i < stack.size(); i++) {
+            buffer.append(indent);
+        }
+    }
+
+    /**
+     * Inserts any necessary separators and whitespace before a name. Also
+     * adjusts the stack to expect the key's value.
+     */
+    private void beforeKey() throws JSONException {
+        Scope context = peek();
+        if (context == Scope.NONEMPTY_OBJECT) { // first in object
+            buffer.append(',');
+        } else if (context != Scope.EMPTY_OBJECT) { // not in an object!
+            throw new JSONException("Nesting problem");
+        }
+        newline();
+        replaceTop(Scope.DANGLING_KEY);
+    }
+
+    /**
+     * Inserts any necessary separators and whitespace before a literal value,
+     * inline array, or inline object. Also adjusts the stack to expect either a
+     * closing bracket or another element.
+     */
+    private void beforeValue() throws JSONException {
+        if (stack.isEmpty()) {
+            return;
+        }
+
+        Scope context = peek();
+        if (context == Scope.EMPTY_ARRAY) { // first in array
+            replaceTop(Scope.NONEMPTY_ARRAY);
+            newline();
+        } else if (context == Scope.NONEMPTY_ARRAY) { // another in array
+            buffer.append(',');
+            newline();
+        } else if (context == Scope.DANGLING_KEY) { // value for key
+            buffer.append(indent == null ? ":" : ": ");
+            replaceTop(Scope.NONEMPTY_OBJECT);
+        } else {
+            throw new JSONException("Nesting problem");
+        }
+    }
+
+    private void flushIfFull() throws IOException {
+        if (buffer.length() >= FLUSH_THRESHOLD) {
+            writeBuffer();
+        }
+    }
+
+    private void writeBuffer() throws IOException {
+        for (int start = 0, length = buffer.length(); start < length; ) {
+            int count = Math.min(chars.length, length - start);
+            buffer.getChars(start, start + count, chars, 0);
+            out.write(chars, 0, count);
+            start += count;
+        }
+        buffer.setLength(0);
+    }
+
+    /**
+     * Writes any buffered output to the underlying writer and flushes it.
+     */
+    @Override public void flush() throws IOException {
+        writeBuffer();
+        out.flush();
+    }
+
+    /**
+     * Writes any buffered output to the underlying writer and closes it. If
+     * invoked with unterminated arrays or unclosed objects, the output is
+     * incomplete.
+     */
+    @Override public void close() throws IOException {
+        writeBuffer();
+        out.close();
+    }
+}
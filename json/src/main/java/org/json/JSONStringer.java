@@ -300,6 +300,14 @@ public class JSONStringer {
     }
 
     private void string(String value) {
+        string(out, value);
+    }
+
+    /**
+     * Appends {@code value} to {@code out} as a quoted and escaped JSON
+     * string.
+     */
+    static void string(StringBuilder out, String value) {
         out.append("\"");
         for (int i = 0, length = value.length(); i < length; i++) {
             char c = value.charAt(i);
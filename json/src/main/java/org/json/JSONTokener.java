@@ -16,6 +16,10 @@
 
 package org.json;
 
+import java.util.ArrayList;
+import java.util.List;
+import libcore.internal.StringPool;
+
 // Note: this class was written without inspecting the non-free org.json sourcecode.
 
 /**
@@ -61,6 +65,22 @@ package org.json;
  */
 public class JSONTokener {
 
+    /**
+     * Characters that terminate an unquoted literal, in addition to the
+     * newline characters '\r' and '\n'.
+     */
+    static final String LITERAL_TERMINATORS = "{}[]/\\:,=;# \t\f";
+
+    /**
+     * Powers of ten that are exactly representable as doubles. Multiplying or
+     * dividing a double of at most 15 digits by one of these is correctly
+     * rounded.
+     */
+    private static final double[] EXACT_POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+    };
+
     /** The input JSON. */
     private final String in;
 
@@ -70,17 +90,51 @@ public class JSONTokener {
      */
     private int pos;
 
+    /** True if this tokener was created in lean mode. */
+    private final boolean lean;
+
+    /** Object names seen so far. Only used in lean mode, created lazily. */
+    private StringPool names;
+
+    /**
+     * Lists that collect the values of the arrays and objects being read
+     * before they are copied into exactly sized storage, indexed by depth.
+     * Only used in lean mode, created lazily.
+     */
+    private List<ArrayList<Object>> scratch;
+
+    /** The number of lists in {@link #scratch} currently in use. */
+    private int depth;
+
     /**
      * @param in JSON encoded string. Null is not permitted and will yield a
      *     tokener that throws {@code NullPointerExceptions} when methods are
      *     called.
      */
     public JSONTokener(String in) {
+        this(in, false);
+    }
+
+    /**
+     * @param in JSON encoded string. Null is not permitted and will yield a
+     *     tokener that throws {@code NullPointerExceptions} when methods are
+     *     called.
+     * @param lean true to parse with fewer allocations. In lean mode object
+     *     names are shared through a {@link StringPool}, numbers are parsed
+     *     directly from the input rather than from a copy, and arrays and
+     *     objects are allocated with exactly the capacity they need. The
+     *     values read are equal to those read in the default mode, but equal
+     *     names may be the same instance. A lean tokener keeps its scratch
+     *     space between calls to {@link #nextValue}, which makes it best
+     *     suited to large documents.
+     */
+    public JSONTokener(String in, boolean lean) {
         // consume an optional byte order mark (BOM) if it exists
         if (in != null && in.startsWith("\ufeff")) {
             in = in.substring(1);
         }
         this.in = in;
+        this.lean = lean;
     }
 
     /**
@@ -97,10 +151,10 @@ public class JSONTokener {
                 throw syntaxError("End of input");
 
             case '{':
-                return readObject();
+                return lean ? readObjectPresized() : readObject();
 
             case '[':
-                return readArray();
+                return lean ? readArrayPresized() : readArray();
 
             case '\'':
             case '"':
@@ -108,7 +162,7 @@ public class JSONTokener {
 
             default:
                 pos--;
-                return readLiteral();
+                return lean ? readLiteralInPlace() : readLiteral();
         }
     }
 
@@ -228,6 +282,27 @@ public class JSONTokener {
         throw syntaxError("Unterminated string");
     }
 
+    /**
+     * Like {@link #nextString}, but returns a pooled string for names that
+     * are free of escape sequences.
+     */
+    private String nextPooledString(char quote) throws JSONException {
+        for (int i = pos; i < in.length(); i++) {
+            char c = in.charAt(i);
+            if (c == quote) {
+                if (names == null) {
+                    names = new StringPool();
+                }
+                String result = names.get(in, pos, i - pos);
+                pos = i + 1;
+                return result;
+            } else if (c == '\\') {
+                break;
+            }
+        }
+        return nextString(quote);
+    }
+
     /**
      * Unescapes the character identified by the character or characters that
      * immediately follow a backslash. The backslash '\' should have already
@@ -249,6 +324,19 @@ public class JSONTokener {
                     throw syntaxError("Invalid escape sequence: " + hex);
                 }
 
+            default:
+                return unescape(escaped);
+        }
+    }
+
+    /**
+     * Returns the character identified by the two-character escape sequence
+     * made of a backslash and {@code escaped}. Unicode escapes "u000A" are
+     * not handled here, as they need more input. Unrecognized escapes yield
+     * the escaped character itself.
+     */
+    static char unescape(char escaped) {
+        switch (escaped) {
             case 't':
                 return '\t';
 
@@ -278,11 +366,149 @@ public class JSONTokener {
      * preference.
      */
     private Object readLiteral() throws JSONException {
-        String literal = nextToInternal("{}[]/\\:,=;# \t\f");
+        String literal = nextToInternal(LITERAL_TERMINATORS);
 
         if (literal.length() == 0) {
             throw syntaxError("Expected literal value");
-        } else if ("null".equalsIgnoreCase(literal)) {
+        }
+        return parseLiteral(literal);
+    }
+
+    /**
+     * Like {@link #readLiteral}, but avoids copying the literal out of the
+     * input for the common cases of null, booleans and decimal numbers.
+     */
+    private Object readLiteralInPlace() throws JSONException {
+        int start = pos;
+        for (; pos < in.length(); pos++) {
+            char c = in.charAt(pos);
+            if (c == '\r' || c == '\n' || LITERAL_TERMINATORS.indexOf(c) != -1) {
+                break;
+            }
+        }
+
+        int length = pos - start;
+        if (length == 0) {
+            throw syntaxError("Expected literal value");
+        } else if (length == 4 && in.regionMatches(true, start, "null", 0, 4)) {
+            return JSONObject.NULL;
+        } else if (length == 4 && in.regionMatches(true, start, "true", 0, 4)) {
+            return Boolean.TRUE;
+        } else if (length == 5 && in.regionMatches(true, start, "false", 0, 5)) {
+            return Boolean.FALSE;
+        }
+
+        Number number = parseDecimal(in, start, pos);
+        return number != null ? number : parseLiteral(in.substring(start, pos));
+    }
+
+    /**
+     * Returns the number in {@code s} between {@code start} and {@code end},
+     * or null if it isn't a decimal number that can be parsed both quickly and
+     * exactly. In that case the caller should fall back to
+     * {@link #parseLiteral}, which returns the same value for all numbers
+     * accepted here.
+     */
+    private static Number parseDecimal(String s, int start, int end) {
+        int i = start;
+        boolean negative = s.charAt(i) == '-';
+        if (negative) {
+            i++;
+        }
+
+        long mantissa = 0;
+        int integerStart = i;
+        for (; i < end && isDigit(s.charAt(i)); i++) {
+            mantissa = mantissa * 10 + (s.charAt(i) - '0');
+            if (i - integerStart == 18) {
+                return null; // may overflow
+            }
+        }
+        int integerDigits = i - integerStart;
+        if (integerDigits == 0) {
+            return null;
+        }
+
+        if (i == end) {
+            if (!negative && integerDigits > 1 && s.charAt(integerStart) == '0') {
+                return null; // octal
+            }
+            long longValue = negative ? -mantissa : mantissa;
+            if (longValue <= Integer.MAX_VALUE && longValue >= Integer.MIN_VALUE) {
+                return (int) longValue;
+            } else {
+                return longValue;
+            }
+        }
+
+        /*
+         * Doubles are only handled if both the digits and the power of ten are
+         * exact, which makes a single multiplication or division correctly
+         * rounded. Everything else is left to Double.valueOf().
+         */
+        int digits = integerDigits;
+        int exponent = 0;
+        if (s.charAt(i) == '.') {
+            int fractionStart = ++i;
+            for (; i < end && isDigit(s.charAt(i)); i++) {
+                mantissa = mantissa * 10 + (s.charAt(i) - '0');
+                if (++digits > 15) {
+                    return null;
+                }
+            }
+            if (i == fractionStart) {
+                return null;
+            }
+            exponent = fractionStart - i;
+        }
+
+        if (i < end && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (s.charAt(i) == '+' || s.charAt(i) == '-')) {
+                negativeExponent = s.charAt(i) == '-';
+                i++;
+            }
+            int exponentStart = i;
+            int explicitExponent = 0;
+            for (; i < end && isDigit(s.charAt(i)); i++) {
+                if (i - exponentStart == 3) {
+                    return null;
+                }
+                explicitExponent = explicitExponent * 10 + (s.charAt(i) - '0');
+            }
+            if (i == exponentStart) {
+                return null;
+            }
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+
+        if (i != end || digits > 15) {
+            return null;
+        }
+
+        double doubleValue;
+        if (exponent >= 0 && exponent < EXACT_POWERS_OF_TEN.length) {
+            doubleValue = mantissa * EXACT_POWERS_OF_TEN[exponent];
+        } else if (exponent < 0 && -exponent < EXACT_POWERS_OF_TEN.length) {
+            doubleValue = mantissa / EXACT_POWERS_OF_TEN[-exponent];
+        } else {
+            return null;
+        }
+        return negative ? -doubleValue : doubleValue;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Returns the value of the non-empty unquoted {@code literal}:
+     * {@link JSONObject#NULL}, a Boolean, an Integer, Long or Double, or
+     * failing all of those the literal itself as a String.
+     */
+    static Object parseLiteral(String literal) {
+        if ("null".equalsIgnoreCase(literal)) {
             return JSONObject.NULL;
         } else if ("true".equalsIgnoreCase(literal)) {
             return Boolean.TRUE;
@@ -441,6 +667,155 @@ public class JSONTokener {
         }
     }
 
+    /**
+     * Like {@link #readObject}, but collects the object's names and values
+     * before allocating it so that it can be sized exactly. Names are pooled.
+     */
+    private JSONObject readObjectPresized() throws JSONException {
+        /* Peek to see if this is the empty object. */
+        int first = nextCleanInternal();
+        if (first == '}') {
+            return new JSONObject(0);
+        } else if (first != -1) {
+            pos--;
+        }
+
+        /* alternating names and values. */
+        List<Object> namesAndValues = pushScratch();
+        try {
+            while (true) {
+                Object name = readName();
+                if (!(name instanceof String)) {
+                    if (name == null) {
+                        throw syntaxError("Names cannot be null");
+                    } else {
+                        throw syntaxError("Names must be strings, but " + name
+                                + " is of type " + name.getClass().getName());
+                    }
+                }
+
+                int separator = nextCleanInternal();
+                if (separator != ':' && separator != '=') {
+                    throw syntaxError("Expected ':' after " + name);
+                }
+                if (pos < in.length() && in.charAt(pos) == '>') {
+                    pos++;
+                }
+
+                Object value = nextValue();
+                if (value instanceof Number) {
+                    // fail at the same point as JSONObject.put() would
+                    JSON.checkDouble(((Number) value).doubleValue());
+                }
+                namesAndValues.add(name);
+                namesAndValues.add(value);
+
+                switch (nextCleanInternal()) {
+                    case '}':
+                        JSONObject result = new JSONObject(namesAndValues.size() / 2);
+                        for (int i = 0; i < namesAndValues.size(); i += 2) {
+                            result.put((String) namesAndValues.get(i), namesAndValues.get(i + 1));
+                        }
+                        return result;
+                    case ';':
+                    case ',':
+                        continue;
+                    default:
+                        throw syntaxError("Unterminated object");
+                }
+            }
+        } finally {
+            popScratch();
+        }
+    }
+
+    /**
+     * Returns the next object name, pooling it if it is quoted.
+     */
+    private Object readName() throws JSONException {
+        int c = nextCleanInternal();
+        if (c == '"' || c == '\'') {
+            return nextPooledString((char) c);
+        } else if (c != -1) {
+            pos--;
+        }
+        return nextValue();
+    }
+
+    /**
+     * Like {@link #readArray}, but collects the array's values before
+     * allocating it so that it can be sized exactly.
+     */
+    private JSONArray readArrayPresized() throws JSONException {
+        List<Object> values = pushScratch();
+        try {
+            /* to cover input that ends with ",]". */
+            boolean hasTrailingSeparator = false;
+
+            while (true) {
+                switch (nextCleanInternal()) {
+                    case -1:
+                        throw syntaxError("Unterminated array");
+                    case ']':
+                        if (hasTrailingSeparator) {
+                            values.add(null);
+                        }
+                        return toJSONArray(values);
+                    case ',':
+                    case ';':
+                        /* A separator without a value first means "null". */
+                        values.add(null);
+                        hasTrailingSeparator = true;
+                        continue;
+                    default:
+                        pos--;
+                }
+
+                values.add(nextValue());
+
+                switch (nextCleanInternal()) {
+                    case ']':
+                        return toJSONArray(values);
+                    case ',':
+                    case ';':
+                        hasTrailingSeparator = true;
+                        continue;
+                    default:
+                        throw syntaxError("Unterminated array");
+                }
+            }
+        } finally {
+            popScratch();
+        }
+    }
+
+    private static JSONArray toJSONArray(List<Object> values) {
+        JSONArray result = new JSONArray(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            result.put(values.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Returns an empty list for the values of the array or object at the
+     * current depth. Each call must be paired with a call to
+     * {@link #popScratch}.
+     */
+    private List<Object> pushScratch() {
+        if (scratch == null) {
+            scratch = new ArrayList<ArrayList<Object>>();
+        }
+        if (depth == scratch.size()) {
+            scratch.add(new ArrayList<Object>());
+        }
+        return scratch.get(depth++);
+    }
+
+    private void popScratch() {
+        scratch.get(--depth).clear();
+    }
+
     /**
      * Returns an exception containing the given message plus the current
      * position and the entire input string.
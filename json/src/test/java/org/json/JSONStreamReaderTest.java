@@ -0,0 +1,227 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.json;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import junit.framework.TestCase;
+import org.json.JSONStreamReader.Token;
+
+public class JSONStreamReaderTest extends TestCase {
+
+    /** Inputs that both JSONTokener and JSONStreamReader must agree on. */
+    private static final String[] INPUTS = {
+        "true", "False", "NULL", "abc", "'abc'", "\"foo\\nbar\"", "\"foo\\u0020bar\"",
+        "'\\\"{}[]/\\\\:,=;#'", "9223372036854775807", "-2147483648", "-0", "1.0",
+        "1e100", "012", "0xFF", "0x7FFFFFFFFFFFFFFF", "\ufeff5",
+        "  // foo bar \r\n baz", "  # foo bar \r baz", "  /* foo bar \n baz */ 5 // quux",
+        "[]", "[5,6,true]", "[5,6,[]]", "[5;6;7]", "[5  , 6 \t; \r\n 7\n]", "[5,6,7,]",
+        "[,]", "[5,,,,5]", "[,5]", "[,,,5]", "{}", "{\"foo\": 5}", "{foo: 5}",
+        "{\"foo\"= 5; \"bar\"= \"baz\"}", "{\"foo\"=> {}; \"bar\"=> []}",
+        "{\"foo\":\n\t{\t \"foo\":[5,\r6]}}", "{'a':{'b':[1,{'c':null}]},d:[[],[[]]]}",
+        // malformed
+        "", "[", "[,", "[true,,", "{", "{\"foo\"", "{\"foo\":", "{\"foo\":bar,",
+        "{:}", "{\"key\":}", "{\"key\":true:}", "{null:true}", "{0xFF:true}", "{[]:1}",
+        "\"abc", "'abc\\", "\"\\u12\"", "\"\\uxxxx\"", "/* abc", "[1 2]", "{a:1 b:2}",
+        "{\"a\" 1}", "/", "[NaN]",
+    };
+
+    public void testMatchesTokener() throws Exception {
+        for (String input : INPUTS) {
+            String expected = parseWithTokener(input);
+            assertEquals(input, expected, parseWithReader(new StringReader(input)));
+            assertEquals(input, expected, parseWithReader(new TrickleReader(input)));
+        }
+    }
+
+    public void testLongValuesSpanningBufferRefills() throws Exception {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 500; i++) {
+            json.append("\"string\\t").append(i).append("\\u0041 with escapes\", ");
+            json.append("/* a comment ").append(i).append(" */ unquoted").append(i).append(", ");
+            json.append(i * 1000003L).append(", ");
+        }
+        StringBuilder longString = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            longString.append((char) ('a' + i % 26));
+        }
+        json.append('"').append(longString).append("\", ").append(longString).append(']');
+
+        String expected = parseWithTokener(json.toString());
+        assertEquals(expected, parseWithReader(new StringReader(json.toString())));
+        assertEquals(expected, parseWithReader(new TrickleReader(json.toString())));
+    }
+
+    public void testTokens() throws Exception {
+        JSONStreamReader reader = new JSONStreamReader(
+                new StringReader("{\"a\": [1, 2.5, 'x', true, null, 0x10], \"b\": {}}"));
+        assertEquals(Token.BEGIN_OBJECT, reader.peek());
+        reader.beginObject();
+        assertEquals(Token.NAME, reader.peek());
+        assertEquals("a", reader.nextName());
+        reader.beginArray();
+        assertEquals(Token.NUMBER, reader.peek());
+        assertEquals(1, reader.nextInt());
+        assertEquals(2.5, reader.nextDouble());
+        assertEquals(Token.STRING, reader.peek());
+        assertEquals("x", reader.nextString());
+        assertEquals(Token.BOOLEAN, reader.peek());
+        assertTrue(reader.nextBoolean());
+        assertEquals(Token.NULL, reader.peek());
+        reader.nextNull();
+        assertEquals(16L, reader.nextLong());
+        assertFalse(reader.hasNext());
+        reader.endArray();
+        assertEquals("b", reader.nextName());
+        reader.beginObject();
+        assertFalse(reader.hasNext());
+        reader.endObject();
+        assertFalse(reader.hasNext());
+        reader.endObject();
+        assertEquals(Token.END_DOCUMENT, reader.peek());
+        assertFalse(reader.hasNext());
+    }
+
+    public void testCoercion() throws Exception {
+        JSONStreamReader reader = new JSONStreamReader(
+                new StringReader("['5', \"true\", 5, 6.7, '8.9']"));
+        reader.beginArray();
+        assertEquals(5, reader.nextInt());
+        assertTrue(reader.nextBoolean());
+        assertEquals("5", reader.nextString());
+        assertEquals(6, reader.nextInt());
+        assertEquals(8.9, reader.nextDouble());
+        reader.endArray();
+    }
+
+    public void testTypeMismatch() throws Exception {
+        JSONStreamReader reader = new JSONStreamReader(new StringReader("['abc', [1]]"));
+        reader.beginArray();
+        try {
+            reader.nextInt();
+            fail();
+        } catch (JSONException expected) {
+        }
+        try {
+            reader.nextString();
+            fail();
+        } catch (JSONException expected) {
+        }
+        try {
+            reader.endArray();
+            fail();
+        } catch (JSONException expected) {
+        }
+        reader.beginArray();
+        assertEquals(1, reader.nextInt());
+        reader.endArray();
+        reader.endArray();
+    }
+
+    public void testOmittedArrayElements() throws Exception {
+        JSONStreamReader reader = new JSONStreamReader(new StringReader("[,1,]"));
+        reader.beginArray();
+        assertEquals(Token.NULL, reader.peek());
+        reader.nextNull();
+        assertEquals(1, reader.nextInt());
+        assertEquals(Token.NULL, reader.peek());
+        assertNull(reader.nextValue());
+        reader.endArray();
+    }
+
+    public void testSkipValue() throws Exception {
+        JSONStreamReader reader = new JSONStreamReader(new StringReader(
+                "{\"a\": {\"b\": [1, {\"c\": [2]}]}, \"d\": 'e', \"f\": 3}"));
+        reader.beginObject();
+        assertEquals("a", reader.nextName());
+        reader.skipValue();
+        reader.skipValue();
+        assertEquals("f", reader.nextName());
+        assertEquals(3, reader.nextInt());
+        reader.endObject();
+        assertEquals(Token.END_DOCUMENT, reader.peek());
+    }
+
+    public void testMultipleTopLevelValues() throws Exception {
+        JSONStreamReader reader = new JSONStreamReader(
+                new StringReader("{\"a\":1}\n{\"a\":2}\n[3]"));
+        assertEquals("{\"a\":1}", reader.nextValue().toString());
+        assertEquals("{\"a\":2}", reader.nextValue().toString());
+        assertEquals("[3]", reader.nextValue().toString());
+        assertEquals(Token.END_DOCUMENT, reader.peek());
+        try {
+            reader.nextValue();
+            fail();
+        } catch (JSONException expected) {
+        }
+    }
+
+    public void testSyntaxErrorIncludesPosition() throws Exception {
+        JSONStreamReader reader = new JSONStreamReader(new StringReader("[1, 2 3]"));
+        reader.beginArray();
+        reader.nextInt();
+        reader.nextInt();
+        try {
+            reader.peek();
+            fail();
+        } catch (JSONException expected) {
+            assertEquals("Unterminated array at character 7", expected.getMessage());
+        }
+    }
+
+    public void testClose() throws Exception {
+        final boolean[] closed = new boolean[1];
+        Reader in = new StringReader("[]") {
+            @Override public void close() {
+                closed[0] = true;
+            }
+        };
+        new JSONStreamReader(in).close();
+        assertTrue(closed[0]);
+    }
+
+    private static String parseWithTokener(String json) {
+        try {
+            return String.valueOf(new JSONTokener(json).nextValue());
+        } catch (JSONException e) {
+            return "JSONException";
+        }
+    }
+
+    private static String parseWithReader(Reader in) throws IOException {
+        try {
+            return String.valueOf(new JSONStreamReader(in).nextValue());
+        } catch (JSONException e) {
+            return "JSONException";
+        }
+    }
+
+    /**
+     * Returns at most one character per read, to exercise buffer refills at
+     * every position.
+     */
+    static class TrickleReader extends StringReader {
+        TrickleReader(String s) {
+            super(s);
+        }
+
+        @Override public int read(char[] buffer, int offset, int count) throws IOException {
+            return super.read(buffer, offset, Math.min(count, 1));
+        }
+    }
+}
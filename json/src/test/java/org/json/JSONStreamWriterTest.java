@@ -0,0 +1,156 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.json;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import junit.framework.TestCase;
+
+public class JSONStreamWriterTest extends TestCase {
+
+    public void testMatchesStringer() throws Exception {
+        JSONStringer stringer = new JSONStringer();
+        StringWriter out = new StringWriter();
+        JSONStreamWriter writer = new JSONStreamWriter(out);
+
+        stringer.object().key("a").array().value(false).value(5.0).value(5L).value("five")
+                .value(null).value(JSONObject.NULL).value(-0.0).endArray()
+                .key("b\"\\/\t\b\n\r\f\u0000\u001f").object().endObject()
+                .key("c").value(new JSONObject("{\"d\":[1,{\"e\":[]}]}"))
+                .endObject();
+        writer.object().key("a").array().value(false).value(5.0).value(5L).value("five")
+                .value(null).value(JSONObject.NULL).value(-0.0).endArray()
+                .key("b\"\\/\t\b\n\r\f\u0000\u001f").object().endObject()
+                .key("c").value(new JSONObject("{\"d\":[1,{\"e\":[]}]}"))
+                .endObject();
+        writer.flush();
+
+        assertEquals(stringer.toString(), out.toString());
+    }
+
+    public void testIndentation() throws Exception {
+        JSONObject object = new JSONObject("{\"a\":[1,[],{}],\"b\":{\"c\":\"d\"},\"e\":{}}");
+        StringWriter out = new StringWriter();
+        JSONStreamWriter writer = new JSONStreamWriter(out, 4);
+        writer.object();
+        writer.key("a").value(object.get("a"));
+        writer.key("b").value(object.get("b"));
+        writer.key("e").value(object.get("e"));
+        writer.endObject();
+        writer.close();
+        assertEquals(object.toString(4), out.toString());
+    }
+
+    public void testNestingProblems() throws Exception {
+        JSONStreamWriter writer = new JSONStreamWriter(new StringWriter());
+        try {
+            writer.value("a");
+            fail();
+        } catch (JSONException expected) {
+        }
+        try {
+            writer.endArray();
+            fail();
+        } catch (JSONException expected) {
+        }
+        writer.object();
+        try {
+            writer.value(5L);
+            fail();
+        } catch (JSONException expected) {
+        }
+        try {
+            writer.endArray();
+            fail();
+        } catch (JSONException expected) {
+        }
+        try {
+            writer.key(null);
+            fail();
+        } catch (JSONException expected) {
+        }
+        writer.key("a");
+        try {
+            writer.key("b");
+            fail();
+        } catch (JSONException expected) {
+        }
+        writer.value(true).endObject();
+        try {
+            writer.array();
+            fail();
+        } catch (JSONException expected) {
+        }
+    }
+
+    public void testNonFiniteNumbers() throws Exception {
+        JSONStreamWriter writer = new JSONStreamWriter(new StringWriter());
+        writer.array();
+        try {
+            writer.value(Double.NaN);
+            fail();
+        } catch (JSONException expected) {
+        }
+        try {
+            writer.value(Double.valueOf(Double.POSITIVE_INFINITY));
+            fail();
+        } catch (JSONException expected) {
+        }
+    }
+
+    public void testOutputIsWrittenIncrementally() throws Exception {
+        StringWriter out = new StringWriter();
+        JSONStreamWriter writer = new JSONStreamWriter(out);
+        writer.array();
+        int count = 0;
+        while (out.getBuffer().length() == 0) {
+            writer.object().key("index").value(count++).key("name").value("name").endObject();
+            assertTrue("output was never passed on", count < 100000);
+        }
+        assertTrue(out.getBuffer().length() < 2 * 8192);
+        writer.endArray();
+        writer.close();
+
+        JSONArray array = new JSONArray(out.toString());
+        assertEquals(count, array.length());
+        assertEquals(count - 1, array.getJSONObject(count - 1).getInt("index"));
+    }
+
+    public void testRoundTripThroughReader() throws Exception {
+        StringWriter out = new StringWriter();
+        JSONStreamWriter writer = new JSONStreamWriter(out);
+        writer.array();
+        for (int i = 0; i < 1000; i++) {
+            writer.object().key("i").value(i).key("s").value("\u2603\"" + i).endObject();
+        }
+        writer.endArray();
+        writer.close();
+
+        JSONStreamReader reader = new JSONStreamReader(new StringReader(out.toString()));
+        reader.beginArray();
+        for (int i = 0; i < 1000; i++) {
+            reader.beginObject();
+            assertEquals("i", reader.nextName());
+            assertEquals(i, reader.nextInt());
+            assertEquals("s", reader.nextName());
+            assertEquals("\u2603\"" + i, reader.nextString());
+            reader.endObject();
+        }
+        reader.endArray();
+        reader.close();
+    }
+}
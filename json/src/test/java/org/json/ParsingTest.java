@@ -22,6 +22,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import junit.framework.TestCase;
 
 public class ParsingTest extends TestCase {
@@ -207,9 +208,86 @@ public class ParsingTest extends TestCase {
         assertParseFail("{0xFF:true}");
     }
 
+    public void testSyntaxProblemForbiddenNumber() {
+        assertParseFail("{\"foo\":NaN}");
+        assertParseFail("{\"foo\":[1],\"bar\":-Infinity}");
+        assertParseFail("{\"foo\":1e400}");
+    }
+
+    public void testLeanParsingNumbers() throws JSONException {
+        String[] literals = {
+            "0", "-0", "00", "-00", "0.0", "-0.0", "0e0", "-0e-0", "1", "-1", "+1",
+            "012", "-012", "09", "0x1F", "1.", ".5", "-.5", "1.5d", "1.5f", "1e", "1e+",
+            "1E5", "1e+5", "1e-5", "05e1", "1.5e22", "1.5e23", "1e-22", "1e-23", "1e999",
+            "123456789012345", "1234567890123456", "123456789012345678",
+            "1234567890123456789", "-123456789012345678", "-1234567890123456789",
+            "2147483647", "2147483648", "-2147483648", "-2147483649",
+            "9223372036854775807", "9223372036854775808", "0.1", "0.2", "0.3",
+            "3.141592653589793", "3.14159265358979", "2.718281828459045e-3",
+            "0.000000000000001", "0.0000000000000001", "17976931348623157e292",
+            "1-2", "1.2.3", "1e2e3", "1e0001", "--1", "-", "Infinity", "NaN",
+        };
+        for (String literal : literals) {
+            assertLeanParseMatches(literal);
+        }
+
+        Random random = new Random(5);
+        for (int i = 0; i < 10000; i++) {
+            StringBuilder literal = new StringBuilder();
+            if (random.nextBoolean()) {
+                literal.append('-');
+            }
+            literal.append(random.nextInt(1000000000));
+            if (random.nextBoolean()) {
+                literal.append('.').append(random.nextInt(10000000));
+            }
+            if (random.nextBoolean()) {
+                literal.append('e').append(random.nextInt(60) - 30);
+            }
+            assertLeanParseMatches(literal.toString());
+            assertLeanParseMatches(Double.toString(random.nextDouble()));
+            assertLeanParseMatches(Long.toString(random.nextLong()));
+        }
+    }
+
+    public void testLeanParsingPoolsNames() throws JSONException {
+        JSONArray array = (JSONArray) new JSONTokener(
+                "[{\"id\": 1, 'name': \"a\"}, {\"id\": 2, \"name\": \"b\"}]", true).nextValue();
+        String first = (String) array.getJSONObject(0).keys().next();
+        String second = (String) array.getJSONObject(1).keys().next();
+        assertEquals("id", first);
+        assertSame(first, second);
+    }
+
+    public void testLeanParsingKeepsOrderAndDuplicates() throws JSONException {
+        String json = "{\"b\": 1, \"a\": [2, {}], \"b\": 3, \"c\\u0064\": null}";
+        JSONObject object = (JSONObject) new JSONTokener(json, true).nextValue();
+        assertEquals(new JSONTokener(json).nextValue().toString(), object.toString());
+        assertEquals("{\"b\":3,\"a\":[2,{}],\"cd\":null}", object.toString());
+    }
+
+    public void testLeanParsingMultipleValues() throws JSONException {
+        JSONTokener tokener = new JSONTokener("[1, [2, [3]]] {\"a\": {\"b\": []}} [4]", true);
+        assertEquals("[1,[2,[3]]]", tokener.nextValue().toString());
+        assertEquals("{\"a\":{\"b\":[]}}", tokener.nextValue().toString());
+        assertEquals("[4]", tokener.nextValue().toString());
+    }
+
+    private void assertLeanParseMatches(String literal) throws JSONException {
+        Object expected = new JSONTokener(literal).nextValue();
+        Object actual = new JSONTokener(literal, true).nextValue();
+        assertEquals("For input \"" + literal + "\"", expected, actual);
+        assertEquals("For input \"" + literal + "\"", expected.getClass(), actual.getClass());
+    }
+
     private void assertParseFail(String malformedJson) {
+        assertParseFail(malformedJson, false);
+        assertParseFail(malformedJson, true);
+    }
+
+    private void assertParseFail(String malformedJson, boolean lean) {
         try {
-            new JSONTokener(malformedJson).nextValue();
+            new JSONTokener(malformedJson, lean).nextValue();
             fail("Successfully parsed: \"" + malformedJson + "\"");
         } catch (JSONException e) {
         } catch (StackOverflowError e) {
@@ -230,10 +308,11 @@ public class ParsingTest extends TestCase {
     }
 
     private void assertParsed(String message, Object expected, String json) throws JSONException {
-        Object actual = new JSONTokener(json).nextValue();
-        actual = canonicalize(actual);
         expected = canonicalize(expected);
+        Object actual = canonicalize(new JSONTokener(json).nextValue());
         assertEquals("For input \"" + json + "\" " + message, expected, actual);
+        Object leanActual = canonicalize(new JSONTokener(json, true).nextValue());
+        assertEquals("For lean input \"" + json + "\" " + message, expected, leanActual);
     }
 
     private void assertParsed(Object expected, String json) throws JSONException {
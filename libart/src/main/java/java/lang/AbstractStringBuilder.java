@@ -109,6 +109,24 @@ abstract class AbstractStringBuilder {
         value[count++] = 'l';
     }
 
+    /*
+     * Grows the builder by length chars and returns the index of the first of them, so that
+     * IntegralToString can write digits straight into getValue(). The caller must fill in
+     * all of them.
+     */
+    final int reserve0(int length) {
+        int start = count;
+        int newCount = count + length;
+        if (newCount > value.length) {
+            enlargeBuffer(newCount);
+        } else if (shared) {
+            value = value.clone();
+            shared = false;
+        }
+        count = newCount;
+        return start;
+    }
+
     final void append0(char[] chars) {
         int newCount = count + chars.length;
         if (newCount > value.length) {
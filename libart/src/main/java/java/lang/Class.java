@@ -62,8 +62,8 @@ import libcore.reflect.AnnotationAccess;
 import libcore.reflect.GenericSignatureParser;
 import libcore.reflect.InternalNames;
 import libcore.reflect.Types;
-import libcore.util.BasicLruCache;
 import libcore.util.CollectionUtils;
+import libcore.util.ConcurrentLruCache;
 import libcore.util.EmptyArray;
 import libcore.util.SneakyThrow;
 
@@ -983,20 +983,17 @@ public final class Class<T> implements Serializable, AnnotatedElement, GenericDe
      * void} then an empty array is returned.
      */
     public Type[] getGenericInterfaces() {
-        Type[] result;
-        synchronized (Caches.genericInterfaces) {
-            result = Caches.genericInterfaces.get(this);
-            if (result == null) {
-                String annotationSignature = AnnotationAccess.getSignature(this);
-                if (annotationSignature == null) {
-                    result = getInterfaces();
-                } else {
-                    GenericSignatureParser parser = new GenericSignatureParser(getClassLoader());
-                    parser.parseForClass(this, annotationSignature);
-                    result = Types.getTypeArray(parser.interfaceTypes, false);
-                }
-                Caches.genericInterfaces.put(this, result);
+        Type[] result = Caches.genericInterfaces.getIfPresent(this);
+        if (result == null) {
+            String annotationSignature = AnnotationAccess.getSignature(this);
+            if (annotationSignature == null) {
+                result = getInterfaces();
+            } else {
+                GenericSignatureParser parser = new GenericSignatureParser(getClassLoader());
+                parser.parseForClass(this, annotationSignature);
+                result = Types.getTypeArray(parser.interfaceTypes, false);
             }
+            Caches.genericInterfaces.put(this, result);
         }
         return (result.length == 0) ? result : result.clone();
     }
@@ -1610,7 +1607,7 @@ public final class Class<T> implements Serializable, AnnotatedElement, GenericDe
          * interfaces (required to avoid time outs). Validated by running reflection heavy code
          * such as applications using Guice-like frameworks.
          */
-        private static final BasicLruCache<Class, Type[]> genericInterfaces
-            = new BasicLruCache<Class, Type[]>(8);
+        private static final ConcurrentLruCache<Class, Type[]> genericInterfaces
+            = new ConcurrentLruCache<Class, Type[]>(8);
     }
 }
@@ -19,7 +19,7 @@ package java.lang;
 import java.io.Serializable;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import libcore.util.BasicLruCache;
+import libcore.util.ConcurrentLruCache;
 import libcore.util.EmptyArray;
 
 /**
@@ -31,8 +31,8 @@ public abstract class Enum<E extends Enum<E>> implements Serializable, Comparabl
 
     private static final long serialVersionUID = -4300926546619394005L;
 
-    private static final BasicLruCache<Class<? extends Enum>, Object[]> sharedConstantsCache
-            = new BasicLruCache<Class<? extends Enum>, Object[]>(64) {
+    private static final ConcurrentLruCache<Class<? extends Enum>, Object[]> sharedConstantsCache
+            = new ConcurrentLruCache<Class<? extends Enum>, Object[]>(64) {
         @Override protected Object[] create(Class<? extends Enum> enumType) {
             if (!enumType.isEnum()) {
                 return null;
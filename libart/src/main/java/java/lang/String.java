@@ -29,6 +29,7 @@ import java.util.Locale;
 import java.util.Objects;
 import java.util.StringJoiner;
 import java.util.regex.Pattern;
+import java.util.regex.PatternCache;
 import libcore.util.CharsetUtils;
 import libcore.util.EmptyArray;
 
@@ -1352,7 +1353,7 @@ public final class String implements Serializable, Comparable<String>, CharSeque
      * @since 1.4
      */
     public String replaceAll(String regularExpression, String replacement) {
-        return Pattern.compile(regularExpression).matcher(this).replaceAll(replacement);
+        return PatternCache.replaceAll(this, regularExpression, replacement);
     }
 
     /**
@@ -1371,7 +1372,7 @@ public final class String implements Serializable, Comparable<String>, CharSeque
      * @since 1.4
      */
     public String replaceFirst(String regularExpression, String replacement) {
-        return Pattern.compile(regularExpression).matcher(this).replaceFirst(replacement);
+        return PatternCache.replaceFirst(this, regularExpression, replacement);
     }
 
     /**
@@ -1410,7 +1411,7 @@ public final class String implements Serializable, Comparable<String>, CharSeque
      */
     public String[] split(String regularExpression, int limit) {
         String[] result = java.util.regex.Splitter.fastSplit(regularExpression, this, limit);
-        return result != null ? result : Pattern.compile(regularExpression).split(this, limit);
+        return result != null ? result : PatternCache.compile(regularExpression).split(this, limit);
     }
 
     /**
@@ -1632,6 +1633,10 @@ public final class String implements Serializable, Comparable<String>, CharSeque
         if (format == null) {
             throw new NullPointerException("format == null");
         }
+        Formatter.Template template = Formatter.Template.getCached(format);
+        if (template != null) {
+            return template.format(locale, args);
+        }
         int bufferSize = format.length() + (args == null ? 0 : args.length * 10);
         Formatter f = new Formatter(new StringBuilder(bufferSize), locale);
         return f.format(format, args).toString();
@@ -277,6 +277,30 @@ public final class Unsafe {
     public native void putOrderedObject(Object obj, long offset,
             Object newValue);
 
+    /**
+     * Ensures that loads before the fence will not be reordered with loads and
+     * stores after the fence.
+     *
+     * @since 1.8
+     */
+    public native void loadFence();
+
+    /**
+     * Ensures that loads and stores before the fence will not be reordered with
+     * stores after the fence.
+     *
+     * @since 1.8
+     */
+    public native void storeFence();
+
+    /**
+     * Ensures that loads and stores before the fence will not be reordered
+     * with loads and stores after the fence.
+     *
+     * @since 1.8
+     */
+    public native void fullFence();
+
     /**
      * Parks the calling thread for the specified amount of time,
      * unless the "permit" for the thread is already available (due to
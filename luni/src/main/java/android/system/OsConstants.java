@@ -176,6 +176,8 @@ public final class OsConstants {
     public static final int EDESTADDRREQ = placeholder();
     public static final int EDOM = placeholder();
     public static final int EDQUOT = placeholder();
+    /** @hide */ public static final int EFD_CLOEXEC = placeholder();
+    /** @hide */ public static final int EFD_NONBLOCK = placeholder();
     public static final int EEXIST = placeholder();
     public static final int EFAULT = placeholder();
     public static final int EFBIG = placeholder();
@@ -224,6 +226,14 @@ public final class OsConstants {
     public static final int EOVERFLOW = placeholder();
     public static final int EPERM = placeholder();
     public static final int EPIPE = placeholder();
+    /** @hide */ public static final int EPOLL_CLOEXEC = placeholder();
+    /** @hide */ public static final int EPOLL_CTL_ADD = placeholder();
+    /** @hide */ public static final int EPOLL_CTL_DEL = placeholder();
+    /** @hide */ public static final int EPOLL_CTL_MOD = placeholder();
+    /** @hide */ public static final int EPOLLERR = placeholder();
+    /** @hide */ public static final int EPOLLHUP = placeholder();
+    /** @hide */ public static final int EPOLLIN = placeholder();
+    /** @hide */ public static final int EPOLLOUT = placeholder();
     public static final int EPROTO = placeholder();
     public static final int EPROTONOSUPPORT = placeholder();
     public static final int EPROTOTYPE = placeholder();
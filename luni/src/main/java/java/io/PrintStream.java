@@ -48,6 +48,9 @@ public class PrintStream extends FilterOutputStream implements Appendable, Close
 
     private Charset encoding;
 
+    /** Scratch space for printing numbers as ASCII. Guarded by this. */
+    private byte[] numberBytes;
+
     /**
      * requireNonNull is explicitly declared here so as not to create an extra
      * dependency on java.util.Objects.requireNonNull. PrintStream is loaded
@@ -531,6 +534,27 @@ public class PrintStream extends FilterOutputStream implements Appendable, Close
         print(System.lineSeparator());
     }
 
+    /**
+     * Returns true if this stream's encoding encodes the results of Integer.toString,
+     * Long.toString, Float.toString and Double.toString as ASCII, so that numbers can be
+     * printed without creating a String. A null encoding means the default charset,
+     * which is always UTF-8 on Android.
+     */
+    private boolean encodesNumbersAsAscii() {
+        if (encoding == null) {
+            return true;
+        }
+        String name = encoding.name();
+        return name.equals("UTF-8") || name.equals("US-ASCII") || name.equals("ISO-8859-1");
+    }
+
+    private byte[] numberBuffer() {
+        if (numberBytes == null) {
+            numberBytes = new byte[32]; // Long enough for any int, long, float or double.
+        }
+        return numberBytes;
+    }
+
     /**
      * Prints the string representation of the character array {@code chars}.
      */
@@ -548,29 +572,49 @@ public class PrintStream extends FilterOutputStream implements Appendable, Close
     /**
      * Prints the string representation of the double {@code d}.
      */
-    public void print(double d) {
-        print(String.valueOf(d));
+    public synchronized void print(double d) {
+        if (encodesNumbersAsAscii()) {
+            byte[] buf = numberBuffer();
+            write(buf, 0, RealToString.getInstance().writeDouble(buf, 0, d));
+        } else {
+            print(String.valueOf(d));
+        }
     }
 
     /**
      * Prints the string representation of the float {@code f}.
      */
-    public void print(float f) {
-        print(String.valueOf(f));
+    public synchronized void print(float f) {
+        if (encodesNumbersAsAscii()) {
+            byte[] buf = numberBuffer();
+            write(buf, 0, RealToString.getInstance().writeFloat(buf, 0, f));
+        } else {
+            print(String.valueOf(f));
+        }
     }
 
     /**
      * Prints the string representation of the int {@code i}.
      */
-    public void print(int i) {
-        print(String.valueOf(i));
+    public synchronized void print(int i) {
+        if (encodesNumbersAsAscii()) {
+            byte[] buf = numberBuffer();
+            write(buf, 0, IntegralToString.writeInt(buf, 0, i));
+        } else {
+            print(String.valueOf(i));
+        }
     }
 
     /**
      * Prints the string representation of the long {@code l}.
      */
-    public void print(long l) {
-        print(String.valueOf(l));
+    public synchronized void print(long l) {
+        if (encodesNumbersAsAscii()) {
+            byte[] buf = numberBuffer();
+            write(buf, 0, IntegralToString.writeLong(buf, 0, l));
+        } else {
+            print(String.valueOf(l));
+        }
     }
 
     /**
@@ -644,29 +688,33 @@ public class PrintStream extends FilterOutputStream implements Appendable, Close
     /**
      * Prints the string representation of the double {@code d} followed by a newline.
      */
-    public void println(double d) {
-        println(String.valueOf(d));
+    public synchronized void println(double d) {
+        print(d);
+        newline();
     }
 
     /**
      * Prints the string representation of the float {@code f} followed by a newline.
      */
-   public void println(float f) {
-        println(String.valueOf(f));
+    public synchronized void println(float f) {
+        print(f);
+        newline();
     }
 
    /**
      * Prints the string representation of the int {@code i} followed by a newline.
      */
-    public void println(int i) {
-        println(String.valueOf(i));
+    public synchronized void println(int i) {
+        print(i);
+        newline();
     }
 
     /**
      * Prints the string representation of the long {@code l} followed by a newline.
      */
-    public void println(long l) {
-        println(String.valueOf(l));
+    public synchronized void println(long l) {
+        print(l);
+        newline();
     }
 
     /**
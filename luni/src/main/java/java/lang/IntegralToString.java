@@ -16,6 +16,9 @@
 
 package java.lang;
 
+import java.util.Arrays;
+import libcore.math.MathUtils;
+
 /**
  * Converts integral types to strings. This class is public but hidden so that it can also be
  * used by java.util.Formatter to speed up %d. This class is in java.lang so that it can take
@@ -27,7 +30,9 @@ package java.lang;
  *
  * The append methods take AbstractStringBuilder rather than Appendable because the latter requires
  * CharSequences, while we only have raw char[]s. Since much of the savings come from not creating
- * any garbage, we can't afford temporary CharSequence instances.
+ * any garbage, we can't afford temporary CharSequence instances. They count the digits first and
+ * then write them straight into the builder's array. writeInt/writeLong do the same for callers
+ * that want ASCII bytes, such as PrintStream.
  *
  * One day the performance advantage of the binary/hex/octal specializations will be small enough
  * that we can lose the duplication, but until then this class offers the full set.
@@ -35,20 +40,6 @@ package java.lang;
  * @hide
  */
 public final class IntegralToString {
-    /**
-     * When appending to an AbstractStringBuilder, this thread-local char[] lets us avoid
-     * allocation of a temporary array. (We can't write straight into the AbstractStringBuilder
-     * because it's almost as expensive to work out the exact length of the result as it is to
-     * do the formatting. We could try being conservative and "delete"-ing the unused space
-     * afterwards, but then we'd need to duplicate convertInt and convertLong rather than share
-     * the code.)
-     */
-    private static final ThreadLocal<char[]> BUFFER = new ThreadLocal<char[]>() {
-        @Override protected char[] initialValue() {
-            return new char[20]; // Maximum length of a base-10 long.
-        }
-    };
-
     /**
      * These tables are used to special-case toString computation for
      * small values.  This serves three purposes: it reduces memory usage;
@@ -61,6 +52,8 @@ public final class IntegralToString {
     private static final String[] SMALL_NONNEGATIVE_VALUES = new String[100];
     private static final String[] SMALL_NEGATIVE_VALUES = new String[100];
 
+    private static final String LONG_MIN_VALUE = "-9223372036854775808";
+
     /** TENS[i] contains the tens digit of the number i, 0 <= i <= 99. */
     private static final char[] TENS = {
         '0', '0', '0', '0', '0', '0', '0', '0', '0', '0',
@@ -163,21 +156,6 @@ public final class IntegralToString {
      * Equivalent to Integer.toString(i).
      */
     public static String intToString(int i) {
-        return convertInt(null, i);
-    }
-
-    /**
-     * Equivalent to sb.append(Integer.toString(i)).
-     */
-    public static void appendInt(AbstractStringBuilder sb, int i) {
-        convertInt(sb, i);
-    }
-
-    /**
-     * Returns the string representation of i and leaves sb alone if sb is null.
-     * Returns null and appends the string representation of i to sb if sb is non-null.
-     */
-    private static String convertInt(AbstractStringBuilder sb, int i) {
         boolean negative = false;
         String quickResult = null;
         if (i < 0) {
@@ -205,15 +183,11 @@ public final class IntegralToString {
             }
         }
         if (quickResult != null) {
-            if (sb != null) {
-                sb.append0(quickResult);
-                return null;
-            }
             return quickResult;
         }
 
         int bufLen = 11; // Max number of chars in result
-        char[] buf = (sb != null) ? BUFFER.get() : new char[bufLen];
+        char[] buf = new char[bufLen];
         int cursor = bufLen;
 
         // Calculate digits two-at-a-time till remaining digits fit in 16 bits
@@ -239,11 +213,62 @@ public final class IntegralToString {
             buf[--cursor] = '-';
         }
 
-        if (sb != null) {
-            sb.append0(buf, cursor, bufLen - cursor);
-            return null;
-        } else {
-            return new String(cursor, bufLen - cursor, buf);
+        return new String(cursor, bufLen - cursor, buf);
+    }
+
+    /**
+     * Equivalent to sb.append(Integer.toString(i)).
+     */
+    public static void appendInt(AbstractStringBuilder sb, int i) {
+        int length = stringSize(i);
+        int end = sb.reserve0(length) + length;
+        getChars(i, end, sb.getValue());
+    }
+
+    /**
+     * Writes the ASCII bytes of Integer.toString(i) to dst starting at offset, and returns the
+     * offset just past them.
+     *
+     * @throws ArrayIndexOutOfBoundsException if dst doesn't have room for the result.
+     */
+    public static int writeInt(byte[] dst, int offset, int i) {
+        int end = offset + stringSize(i);
+        Arrays.checkOffsetAndCount(dst.length, offset, end - offset);
+        int n = (i < 0) ? -i : i; // Integer.MIN_VALUE is fine, because n is treated as unsigned.
+        int cursor = (n == 0) ? end : intIntoByteArray(dst, end, n);
+        if (n == 0) {
+            dst[--cursor] = '0';
+        }
+        if (i < 0) {
+            dst[--cursor] = '-';
+        }
+        return end;
+    }
+
+    /**
+     * Returns the number of chars in Integer.toString(i).
+     */
+    static int stringSize(int i) {
+        // Integer.MIN_VALUE is fine, because the magnitude is treated as unsigned.
+        long n = ((i < 0) ? -i : i) & 0xffffffffL;
+        int digits = 1;
+        while (digits < 10 && n >= MathUtils.LONG_POWERS_OF_TEN[digits]) {
+            digits++;
+        }
+        return (i < 0) ? digits + 1 : digits;
+    }
+
+    /**
+     * Writes Integer.toString(i) into buf so that it ends just before index end.
+     */
+    static void getChars(int i, int end, char[] buf) {
+        int n = (i < 0) ? -i : i; // Integer.MIN_VALUE is fine, because n is treated as unsigned.
+        int cursor = (n == 0) ? end : intIntoCharArray(buf, end, n);
+        if (n == 0) {
+            buf[--cursor] = '0';
+        }
+        if (i < 0) {
+            buf[--cursor] = '-';
         }
     }
 
@@ -296,49 +321,121 @@ public final class IntegralToString {
     /**
      * Equivalent to Long.toString(l).
      */
-    public static String longToString(long l) {
-        return convertLong(null, l);
+    public static String longToString(long n) {
+        int i = (int) n;
+        if (i == n) {
+            return intToString(i);
+        }
+
+        boolean negative = (n < 0);
+        if (negative) {
+            n = -n;
+            if (n < 0) {
+                // If -n is still negative, n is Long.MIN_VALUE
+                return LONG_MIN_VALUE;
+            }
+        }
+
+        int bufLen = 20; // Maximum number of chars in result
+        char[] buf = new char[bufLen];
+        int cursor = longIntoCharArray(buf, bufLen, n);
+        if (negative) {
+            buf[--cursor] = '-';
+        }
+        return new String(cursor, bufLen - cursor, buf);
     }
 
     /**
      * Equivalent to sb.append(Long.toString(l)).
      */
     public static void appendLong(AbstractStringBuilder sb, long l) {
-        convertLong(sb, l);
+        int i = (int) l;
+        if (i == l) {
+            appendInt(sb, i);
+            return;
+        }
+        if (l == Long.MIN_VALUE) {
+            sb.append0(LONG_MIN_VALUE);
+            return;
+        }
+        int length = stringSize(l);
+        int end = sb.reserve0(length) + length;
+        char[] buf = sb.getValue();
+        int cursor = longIntoCharArray(buf, end, (l < 0) ? -l : l);
+        if (l < 0) {
+            buf[--cursor] = '-';
+        }
     }
 
     /**
-     * Returns the string representation of n and leaves sb alone if sb is null.
-     * Returns null and appends the string representation of n to sb if sb is non-null.
+     * Writes the ASCII bytes of Long.toString(l) to dst starting at offset, and returns the
+     * offset just past them.
+     *
+     * @throws ArrayIndexOutOfBoundsException if dst doesn't have room for the result.
      */
-    private static String convertLong(AbstractStringBuilder sb, long n) {
-        int i = (int) n;
-        if (i == n) {
-            return convertInt(sb, i);
+    public static int writeLong(byte[] dst, int offset, long l) {
+        int i = (int) l;
+        if (i == l) {
+            return writeInt(dst, offset, i);
         }
-
-        boolean negative = (n < 0);
-        if (negative) {
-            n = -n;
-            if (n < 0) {
-                // If -n is still negative, n is Long.MIN_VALUE
-                String quickResult = "-9223372036854775808";
-                if (sb != null) {
-                    sb.append0(quickResult);
-                    return null;
-                }
-                return quickResult;
+        int end = offset + stringSize(l);
+        Arrays.checkOffsetAndCount(dst.length, offset, end - offset);
+        if (l == Long.MIN_VALUE) {
+            for (int j = 0; j < LONG_MIN_VALUE.length(); j++) {
+                dst[offset + j] = (byte) LONG_MIN_VALUE.charAt(j);
+            }
+            return end;
+        }
+        long n = (l < 0) ? -l : l;
+        int cursor = end;
+        // Peel off 9 digits at a time until the rest fits in an int.
+        while (n > Integer.MAX_VALUE) {
+            long q = n / 1000000000;
+            int low = (int) (n - q * 1000000000);
+            int lowEnd = cursor;
+            cursor = intIntoByteArray(dst, cursor, low);
+            while (cursor != lowEnd - 9) {
+                dst[--cursor] = '0';
             }
+            n = q;
         }
+        cursor = intIntoByteArray(dst, cursor, (int) n);
+        if (l < 0) {
+            dst[--cursor] = '-';
+        }
+        return end;
+    }
 
-        int bufLen = 20; // Maximum number of chars in result
-        char[] buf = (sb != null) ? BUFFER.get() : new char[bufLen];
+    /**
+     * Returns the number of chars in Long.toString(l).
+     */
+    static int stringSize(long l) {
+        int i = (int) l;
+        if (i == l) {
+            return stringSize(i);
+        }
+        if (l == Long.MIN_VALUE) {
+            return LONG_MIN_VALUE.length();
+        }
+        long n = (l < 0) ? -l : l;
+        int digits = 10; // n doesn't fit in an int.
+        while (digits < 19 && n >= MathUtils.LONG_POWERS_OF_TEN[digits]) {
+            digits++;
+        }
+        return (l < 0) ? digits + 1 : digits;
+    }
 
+    /**
+     * Inserts the decimal digits of n, which must be greater than Integer.MAX_VALUE, into buf
+     * so that they end just before cursor. Returns the index of the first digit.
+     */
+    private static int longIntoCharArray(char[] buf, int cursor, long n) {
         int low = (int) (n % 1000000000); // Extract low-order 9 digits
-        int cursor = intIntoCharArray(buf, bufLen, low);
+        int lowEnd = cursor;
+        cursor = intIntoCharArray(buf, cursor, low);
 
         // Zero-pad Low order part to 9 digits
-        while (cursor != (bufLen - 9)) {
+        while (cursor != (lowEnd - 9)) {
             buf[--cursor] = '0';
         }
 
@@ -378,16 +475,7 @@ public final class IntegralToString {
             int rest = ((int) ((n - midDigit) >>> 1)) * 0xCCCCCCCD;
             cursor = intIntoCharArray(buf, cursor, rest);
         }
-
-        if (negative) {
-            buf[--cursor] = '-';
-        }
-        if (sb != null) {
-            sb.append0(buf, cursor, bufLen - cursor);
-            return null;
-        } else {
-            return new String(cursor, bufLen - cursor, buf);
-        }
+        return cursor;
     }
 
     /**
@@ -425,6 +513,26 @@ public final class IntegralToString {
         return cursor;
     }
 
+    /**
+     * The byte[] counterpart of intIntoCharArray, for writeInt and writeLong.
+     */
+    private static int intIntoByteArray(byte[] buf, int cursor, int n) {
+        while ((n & 0xffff0000) != 0) {
+            int q = (int) ((0x51EB851FL * (n >>> 2)) >>> 35);
+            int r = n - 100*q;
+            buf[--cursor] = (byte) ONES[r];
+            buf[--cursor] = (byte) TENS[r];
+            n = q;
+        }
+        while (n != 0) {
+            int q = (0xCCCD * n) >>> 19;
+            int r = n - 10*q;
+            buf[--cursor] = (byte) DIGITS[r];
+            n = q;
+        }
+        return cursor;
+    }
+
     public static String intToBinaryString(int i) {
         int bufLen = 32;  // Max number of binary digits in an int
         char[] buf = new char[bufLen];
@@ -17,21 +17,38 @@
 
 package java.lang;
 
+import java.util.Arrays;
 import libcore.math.MathUtils;
 
-final class RealToString {
+/**
+ * Converts doubles and floats to strings. Each thread has its own instance, which formats into
+ * its own char[] so that appending to a builder or writing ASCII bytes doesn't allocate. This
+ * class is public but hidden so that PrintStream can use writeDouble and writeFloat.
+ *
+ * @hide
+ */
+public final class RealToString {
     private static final ThreadLocal<RealToString> INSTANCE = new ThreadLocal<RealToString>() {
         @Override protected RealToString initialValue() {
             return new RealToString();
         }
     };
 
-    private static final double invLogOfTenBaseTwo = Math.log(2.0) / Math.log(10.0);
+    // Constants for shortestDouble and shortestFloat. A finite double is c 2^q, where
+    // Q_MIN <= q and c < 2 C_MIN; subnormals have q == Q_MIN and c < C_MIN.
+    private static final int DOUBLE_Q_MIN = -1074;
+    private static final long DOUBLE_C_MIN = 1L << Double.MANTISSA_BITS;
+    private static final int DOUBLE_C_TINY = 3;
+    private static final int FLOAT_Q_MIN = -149;
+    private static final int FLOAT_C_MIN = 1 << Float.MANTISSA_BITS;
+    private static final int FLOAT_C_TINY = 8;
+    private static final long MASK_63 = (1L << 63) - 1;
+    private static final long MASK_32 = (1L << 32) - 1;
 
     private int firstK;
 
     /**
-     * An array of decimal digits, filled by longDigitGenerator or bigIntDigitGenerator.
+     * An array of decimal digits, filled by setDigits.
      */
     private final int[] digits = new int[64];
 
@@ -40,6 +57,17 @@ final class RealToString {
      */
     private int digitCount;
 
+    /**
+     * The result of the last conversion that didn't have a quick result. The longest possible
+     * result is 24 chars, such as "-2.2250738585072014E-308".
+     */
+    private final char[] chars = new char[32];
+
+    /**
+     * Number of valid entries in 'chars'.
+     */
+    private int length;
+
     private RealToString() {
     }
 
@@ -47,23 +75,60 @@ final class RealToString {
         return INSTANCE.get();
     }
 
-    private static String resultOrSideEffect(AbstractStringBuilder sb, String s) {
-        if (sb != null) {
-            sb.append0(s);
-            return null;
+    /**
+     * Returns the result of the last conversion, which is either quickResult or, if that's null,
+     * the contents of 'chars'.
+     */
+    private String resultString(String quickResult) {
+        return (quickResult != null) ? quickResult : new String(0, length, chars);
+    }
+
+    private void appendResult(AbstractStringBuilder sb, String quickResult) {
+        if (quickResult != null) {
+            sb.append0(quickResult);
+        } else {
+            sb.append0(chars, 0, length);
+        }
+    }
+
+    private int writeResult(byte[] dst, int offset, String quickResult) {
+        if (quickResult != null) {
+            Arrays.checkOffsetAndCount(dst.length, offset, quickResult.length());
+            for (int i = 0; i < quickResult.length(); i++) {
+                dst[offset++] = (byte) quickResult.charAt(i);
+            }
+        } else {
+            Arrays.checkOffsetAndCount(dst.length, offset, length);
+            for (int i = 0; i < length; i++) {
+                dst[offset++] = (byte) chars[i];
+            }
         }
-        return s;
+        return offset;
     }
 
     public String doubleToString(double d) {
-        return convertDouble(null, d);
+        return resultString(convertDouble(d));
     }
 
     public void appendDouble(AbstractStringBuilder sb, double d) {
-        convertDouble(sb, d);
+        appendResult(sb, convertDouble(d));
     }
 
-    private String convertDouble(AbstractStringBuilder sb, double inputNumber) {
+    /**
+     * Writes the ASCII bytes of Double.toString(d) to dst starting at offset, and returns the
+     * offset just past them.
+     *
+     * @throws ArrayIndexOutOfBoundsException if dst doesn't have room for the result.
+     */
+    public int writeDouble(byte[] dst, int offset, double d) {
+        return writeResult(dst, offset, convertDouble(d));
+    }
+
+    /**
+     * Returns a constant string for special values. Otherwise returns null and leaves the
+     * result in 'chars'.
+     */
+    private String convertDouble(double inputNumber) {
         long inputNumberBits = Double.doubleToRawLongBits(inputNumber);
         boolean positive = (inputNumberBits & Double.SIGN_MASK) == 0;
         int e = (int) ((inputNumberBits & Double.EXPONENT_MASK) >> Double.MANTISSA_BITS);
@@ -77,60 +142,64 @@ final class RealToString {
             } else {
                 quickResult = "NaN";
             }
-        } else if (e == 0) {
-            if (mantissaIsZero) {
-                quickResult = positive ? "0.0" : "-0.0";
-            } else if (f == 1) {
-                // special case to increase precision even though 2 * Double.MIN_VALUE is 1.0e-323
-                quickResult = positive ? "4.9E-324" : "-4.9E-324";
-            }
+        } else if (e == 0 && mantissaIsZero) {
+            quickResult = positive ? "0.0" : "-0.0";
         }
         if (quickResult != null) {
-            return resultOrSideEffect(sb, quickResult);
+            return quickResult;
         }
 
-        int p = Double.EXPONENT_BIAS + Double.MANTISSA_BITS; // the power offset (precision)
-        int pow;
-        int numBits = Double.MANTISSA_BITS;
         if (e == 0) {
-            pow = 1 - p; // a denormalized number
-            long ff = f;
-            while ((ff & 0x0010000000000000L) == 0) {
-                ff = ff << 1;
-                numBits--;
+            // A subnormal number. Scale tiny ones up so there's room for two digits.
+            if (f < DOUBLE_C_TINY) {
+                shortestDouble(DOUBLE_Q_MIN, 10 * f, -1);
+            } else {
+                shortestDouble(DOUBLE_Q_MIN, f, 0);
             }
         } else {
-            // 0 < e < 2047
-            // a "normalized" number
-            f = f | 0x0010000000000000L;
-            pow = e - p;
-        }
-
-        firstK = digitCount = 0;
-        if (-59 < pow && pow < 6 || (pow == -59 && !mantissaIsZero)) {
-            longDigitGenerator(f, pow, e == 0, mantissaIsZero, numBits);
-        } else {
-            bigIntDigitGenerator(f, pow, e == 0, numBits);
+            // A normal number c 2^q.
+            int q = e - (Double.EXPONENT_BIAS + Double.MANTISSA_BITS);
+            long c = f | DOUBLE_C_MIN;
+            // Integers below 2^53 are exact, so they're their own shortest representation.
+            if (-Double.MANTISSA_BITS - 1 < q && q < 0 && ((c >> -q) << -q) == c) {
+                setDigits(c >> -q, 0);
+            } else {
+                shortestDouble(q, c, 0);
+            }
         }
-        AbstractStringBuilder dst = (sb != null) ? sb : new StringBuilder(26);
+        length = 0;
         if (inputNumber >= 1e7D || inputNumber <= -1e7D
                 || (inputNumber > -1e-3D && inputNumber < 1e-3D)) {
-            freeFormatExponential(dst, positive);
+            freeFormatExponential(positive);
         } else {
-            freeFormat(dst, positive);
+            freeFormat(positive);
         }
-        return (sb != null) ? null : dst.toString();
+        return null;
     }
 
     public String floatToString(float f) {
-        return convertFloat(null, f);
+        return resultString(convertFloat(f));
     }
 
     public void appendFloat(AbstractStringBuilder sb, float f) {
-        convertFloat(sb, f);
+        appendResult(sb, convertFloat(f));
+    }
+
+    /**
+     * Writes the ASCII bytes of Float.toString(f) to dst starting at offset, and returns the
+     * offset just past them.
+     *
+     * @throws ArrayIndexOutOfBoundsException if dst doesn't have room for the result.
+     */
+    public int writeFloat(byte[] dst, int offset, float f) {
+        return writeResult(dst, offset, convertFloat(f));
     }
 
-    public String convertFloat(AbstractStringBuilder sb, float inputNumber) {
+    /**
+     * Returns a constant string for special values. Otherwise returns null and leaves the
+     * result in 'chars'.
+     */
+    private String convertFloat(float inputNumber) {
         int inputNumberBits = Float.floatToRawIntBits(inputNumber);
         boolean positive = (inputNumberBits & Float.SIGN_MASK) == 0;
         int e = (inputNumberBits & Float.EXPONENT_MASK) >> Float.MANTISSA_BITS;
@@ -148,53 +217,44 @@ final class RealToString {
             quickResult = positive ? "0.0" : "-0.0";
         }
         if (quickResult != null) {
-            return resultOrSideEffect(sb, quickResult);
+            return quickResult;
         }
 
-        int p = Float.EXPONENT_BIAS + Float.MANTISSA_BITS; // the power offset (precision)
-        int pow;
-        int numBits = Float.MANTISSA_BITS;
         if (e == 0) {
-            pow = 1 - p; // a denormalized number
-            if (f < 8) { // want more precision with smallest values
-                f = f << 2;
-                pow -= 2;
-            }
-            int ff = f;
-            while ((ff & 0x00800000) == 0) {
-                ff = ff << 1;
-                numBits--;
+            // A subnormal number. Scale tiny ones up so there's room for two digits.
+            if (f < FLOAT_C_TINY) {
+                shortestFloat(FLOAT_Q_MIN, 10 * f, -1);
+            } else {
+                shortestFloat(FLOAT_Q_MIN, f, 0);
             }
         } else {
-            // 0 < e < 255
-            // a "normalized" number
-            f = f | 0x00800000;
-            pow = e - p;
-        }
-
-        firstK = digitCount = 0;
-        if (-59 < pow && pow < 35 || (pow == -59 && !mantissaIsZero)) {
-            longDigitGenerator(f, pow, e == 0, mantissaIsZero, numBits);
-        } else {
-            bigIntDigitGenerator(f, pow, e == 0, numBits);
+            // A normal number c 2^q.
+            int q = e - (Float.EXPONENT_BIAS + Float.MANTISSA_BITS);
+            int c = f | FLOAT_C_MIN;
+            // Integers below 2^24 are exact, so they're their own shortest representation.
+            if (-Float.MANTISSA_BITS - 1 < q && q < 0 && ((c >> -q) << -q) == c) {
+                setDigits(c >> -q, 0);
+            } else {
+                shortestFloat(q, c, 0);
+            }
         }
-        AbstractStringBuilder dst = (sb != null) ? sb : new StringBuilder(26);
+        length = 0;
         if (inputNumber >= 1e7f || inputNumber <= -1e7f
                 || (inputNumber > -1e-3f && inputNumber < 1e-3f)) {
-            freeFormatExponential(dst, positive);
+            freeFormatExponential(positive);
         } else {
-            freeFormat(dst, positive);
+            freeFormat(positive);
         }
-        return (sb != null) ? null : dst.toString();
+        return null;
     }
 
-    private void freeFormatExponential(AbstractStringBuilder sb, boolean positive) {
+    private void freeFormatExponential(boolean positive) {
         int digitIndex = 0;
         if (!positive) {
-            sb.append0('-');
+            chars[length++] = '-';
         }
-        sb.append0((char) ('0' + digits[digitIndex++]));
-        sb.append0('.');
+        chars[length++] = (char) ('0' + digits[digitIndex++]);
+        chars[length++] = '.';
 
         int k = firstK;
         int exponent = k;
@@ -203,118 +263,192 @@ final class RealToString {
             if (digitIndex >= digitCount) {
                 break;
             }
-            sb.append0((char) ('0' + digits[digitIndex++]));
+            chars[length++] = (char) ('0' + digits[digitIndex++]);
         }
 
         if (k == exponent - 1) {
-            sb.append0('0');
+            chars[length++] = '0';
         }
-        sb.append0('E');
-        IntegralToString.appendInt(sb, exponent);
+        chars[length++] = 'E';
+        length += IntegralToString.stringSize(exponent);
+        IntegralToString.getChars(exponent, length, chars);
     }
 
-    private void freeFormat(AbstractStringBuilder sb, boolean positive) {
+    private void freeFormat(boolean positive) {
         int digitIndex = 0;
         if (!positive) {
-            sb.append0('-');
+            chars[length++] = '-';
         }
         int k = firstK;
         if (k < 0) {
-            sb.append0('0');
-            sb.append0('.');
+            chars[length++] = '0';
+            chars[length++] = '.';
             for (int i = k + 1; i < 0; ++i) {
-                sb.append0('0');
+                chars[length++] = '0';
             }
         }
         int U = digits[digitIndex++];
         do {
             if (U != -1) {
-                sb.append0((char) ('0' + U));
+                chars[length++] = (char) ('0' + U);
             } else if (k >= -1) {
-                sb.append0('0');
+                chars[length++] = '0';
             }
             if (k == 0) {
-                sb.append0('.');
+                chars[length++] = '.';
             }
             k--;
             U = digitIndex < digitCount ? digits[digitIndex++] : -1;
         } while (U != -1 || k >= -1);
     }
 
-    private native void bigIntDigitGenerator(long f, int e, boolean isDenormalized, int p);
+    /**
+     * Sets 'digits', 'digitCount' and 'firstK' to represent f 10^e, where f > 0.
+     */
+    private void setDigits(long f, int e) {
+        while (f % 10 == 0) {
+            f /= 10;
+            e++;
+        }
+        int length = 1;
+        while (length < 19 && f >= MathUtils.LONG_POWERS_OF_TEN[length]) {
+            length++;
+        }
+        for (int i = length - 1; i >= 0; i--) {
+            digits[i] = (int) (f % 10);
+            f /= 10;
+        }
+        digitCount = length;
+        firstK = e + length - 1;
+    }
 
-    private void longDigitGenerator(long f, int e, boolean isDenormalized,
-            boolean mantissaIsZero, int p) {
-        long R, S, M;
-        if (e >= 0) {
-            M = 1l << e;
-            if (!mantissaIsZero) {
-                R = f << (e + 1);
-                S = 2;
-            } else {
-                R = f << (e + 2);
-                S = 4;
-            }
+    /**
+     * Finds the shortest decimal that rounds to the double c 2^q, using Raffaello Giulietti's
+     * Schubfach algorithm ("The Schubfach way to render doubles", 2020). Among the shortest
+     * candidates (but considering two digits when one would do), this picks the one closest to
+     * the double, or the one with an even last digit if there's a tie. dk is -1 if c has been
+     * scaled by 10, and 0 otherwise.
+     */
+    private void shortestDouble(int q, long c, int dk) {
+        int out = (int) c & 0x1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        // The rounding interval is asymmetric at powers of two, where the gap below halves.
+        if (c != DOUBLE_C_MIN | q == DOUBLE_Q_MIN) {
+            cbl = cb - 2;
+            k = PowersOfTen.flog10pow2(q);
         } else {
-            M = 1;
-            if (isDenormalized || !mantissaIsZero) {
-                R = f << 1;
-                S = 1l << (1 - e);
-            } else {
-                R = f << 2;
-                S = 1l << (2 - e);
+            cbl = cb - 1;
+            k = PowersOfTen.flog10threeQuartersPow2(q);
+        }
+        int h = q + PowersOfTen.flog2pow10(-k) + 2;
+
+        // g = g1 2^63 + g0 is floor(10^-k 2^(125 - flog2pow10(-k))) + 1, which is the
+        // 128-bit approximation of 10^-k shifted right by two, plus one.
+        long high = PowersOfTen.high(-k);
+        long g = ((high << 62) | (PowersOfTen.low(-k) >>> 2)) + 1;
+        long top = (high >>> 2) + (g == 0 ? 1 : 0);
+        long g1 = (top << 1) | (g >>> 63);
+        long g0 = g & MASK_63;
+
+        long vb = roundToOdd(g1, g0, cb << h);
+        long vbl = roundToOdd(g1, g0, cbl << h);
+        long vbr = roundToOdd(g1, g0, cbr << h);
+
+        long s = vb >> 2;
+        if (s >= 100) {
+            // Try one digit fewer: sp10 = 10 floor(s / 10).
+            long sp10 = 10 * PowersOfTen.multiplyHigh(s, 115292150460684698L << 4);
+            long tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                setDigits(upin ? sp10 : tp10, k);
+                return;
             }
         }
 
-        int k = (int) Math.ceil((e + p - 1) * invLogOfTenBaseTwo - 1e-10);
-
-        if (k > 0) {
-            S = S * MathUtils.LONG_POWERS_OF_TEN[k];
-        } else if (k < 0) {
-            long scale = MathUtils.LONG_POWERS_OF_TEN[-k];
-            R = R * scale;
-            M = M == 1 ? scale : M * scale;
+        long t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            setDigits(uin ? s : t, k + dk);
+            return;
         }
+        // Both s and t are in the rounding interval, so pick the closer.
+        long cmp = vb - (s + t << 1);
+        setDigits(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk);
+    }
+
+    /**
+     * Returns cp g 2^-127 rounded to odd, where g = g1 2^63 + g0.
+     */
+    private static long roundToOdd(long g1, long g0, long cp) {
+        long x1 = PowersOfTen.multiplyHigh(g0, cp);
+        long y0 = g1 * cp;
+        long y1 = PowersOfTen.multiplyHigh(g1, cp);
+        long z = (y0 >>> 1) + x1;
+        long vbp = y1 + (z >>> 63);
+        return vbp | (z & MASK_63) + MASK_63 >>> 63;
+    }
 
-        if (R + M > S) { // was M_plus
-            firstK = k;
+    /**
+     * The float counterpart of shortestDouble, which only needs the high 63 bits of g.
+     */
+    private void shortestFloat(int q, int c, int dk) {
+        int out = c & 0x1;
+        long cb = c << 2;
+        long cbr = cb + 2;
+        long cbl;
+        int k;
+        if (c != FLOAT_C_MIN | q == FLOAT_Q_MIN) {
+            cbl = cb - 2;
+            k = PowersOfTen.flog10pow2(q);
         } else {
-            firstK = k - 1;
-            R = R * 10;
-            M = M * 10;
+            cbl = cb - 1;
+            k = PowersOfTen.flog10threeQuartersPow2(q);
         }
-
-        boolean low, high;
-        int U;
-        while (true) {
-            // Set U to floor(R/S) and R to the remainder, using *unsigned* 64-bit division
-            U = 0;
-            for (int i = 3; i >= 0; i--) {
-                long remainder = R - (S << i);
-                if (remainder >= 0) {
-                    R = remainder;
-                    U += 1 << i;
-                }
+        int h = q + PowersOfTen.flog2pow10(-k) + 33;
+
+        // The high 63 bits of the 128-bit approximation of 10^-k, plus one.
+        long g = (PowersOfTen.high(-k) >>> 1) + 1;
+
+        int vb = roundToOdd(g, cb << h);
+        int vbl = roundToOdd(g, cbl << h);
+        int vbr = roundToOdd(g, cbr << h);
+
+        int s = vb >> 2;
+        if (s >= 100) {
+            // Try one digit fewer: sp10 = 10 floor(s / 10).
+            int sp10 = 10 * (int) (s * 1717986919L >>> 34);
+            int tp10 = sp10 + 10;
+            boolean upin = vbl + out <= sp10 << 2;
+            boolean wpin = (tp10 << 2) + out <= vbr;
+            if (upin != wpin) {
+                setDigits(upin ? sp10 : tp10, k);
+                return;
             }
-
-            low = R < M; // was M_minus
-            high = R + M > S; // was M_plus
-
-            if (low || high) {
-                break;
-            }
-            R = R * 10;
-            M = M * 10;
-            digits[digitCount++] = U;
         }
-        if (low && !high) {
-            digits[digitCount++] = U;
-        } else if (high && !low) {
-            digits[digitCount++] = U + 1;
-        } else if ((R << 1) < S) {
-            digits[digitCount++] = U;
-        } else {
-            digits[digitCount++] = U + 1;
+
+        int t = s + 1;
+        boolean uin = vbl + out <= s << 2;
+        boolean win = (t << 2) + out <= vbr;
+        if (uin != win) {
+            setDigits(uin ? s : t, k + dk);
+            return;
         }
+        int cmp = vb - (s + t << 1);
+        setDigits(cmp < 0 || cmp == 0 && (s & 0x1) == 0 ? s : t, k + dk);
+    }
+
+    /**
+     * Returns cp g 2^-95 rounded to odd.
+     */
+    private static int roundToOdd(long g, long cp) {
+        long x1 = PowersOfTen.multiplyHigh(g, cp);
+        long vbp = x1 >>> 31;
+        return (int) (vbp | (x1 & MASK_32) + MASK_32 >>> 32);
     }
 }
@@ -59,6 +59,154 @@ final class StringToReal {
      */
     private static native float parseFltImpl(String s, int e);
 
+    /** The powers of ten that doubles represent exactly. */
+    private static final double[] DOUBLE_POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+        1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22,
+    };
+
+    /** The powers of ten that floats represent exactly. */
+    private static final float[] FLOAT_POWERS_OF_TEN = {
+        1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f,
+    };
+
+    /**
+     * Returns the unsigned value of the decimal digits s, or 0 if there are more than 19 of
+     * them (more than a long can hold). initialParse never produces leading zeros, so 0 is
+     * only a valid result for "0".
+     */
+    private static long parseDigits(String s) {
+        int length = s.length();
+        if (length > 19) {
+            return 0;
+        }
+        long w = 0;
+        for (int i = 0; i < length; i++) {
+            w = 10 * w + (s.charAt(i) - '0');
+        }
+        return w;
+    }
+
+    /**
+     * Returns the double closest to s 10^e without using native code, or NaN if that isn't
+     * possible. Uses Clinger's exact fast path when s and 10^|e| are both exact doubles, and
+     * otherwise Daniel Lemire's adaptation of Michael Eisel's algorithm ("Number Parsing at a
+     * Gigabyte per Second", 2021), which is exact except in rare cases it detects. Leaves
+     * subnormal and out-of-range results to the native code.
+     */
+    private static double parseDblFast(String s, int e) {
+        long w = parseDigits(s);
+        if (w == 0) {
+            return s.equals("0") ? 0.0 : Double.NaN;
+        }
+        if (0 < w && w <= (1L << 53) && -22 <= e && e <= 22) {
+            return (e >= 0) ? w * DOUBLE_POWERS_OF_TEN[e] : w / DOUBLE_POWERS_OF_TEN[-e];
+        }
+        if (e < PowersOfTen.MIN_EXPONENT || e > PowersOfTen.MAX_EXPONENT) {
+            return Double.NaN;
+        }
+
+        // Normalize w so that its top bit is set, and multiply by the 128-bit 10^e.
+        int lz = Long.numberOfLeadingZeros(w);
+        w <<= lz;
+        long exponent = ((217706L * e) >> 16) + 64 + Double.EXPONENT_BIAS - lz;
+        long xHi = PowersOfTen.unsignedMultiplyHigh(w, PowersOfTen.high(e));
+        long xLo = w * PowersOfTen.high(e);
+
+        // If the low bits of the high word are all ones, the truncated low half of 10^e might
+        // carry into them, so take it into account.
+        if ((xHi & 0x1ff) == 0x1ff && Long.compareUnsigned(xLo + w, w) < 0) {
+            long yHi = PowersOfTen.unsignedMultiplyHigh(w, PowersOfTen.low(e));
+            long yLo = w * PowersOfTen.low(e);
+            long mergedHi = xHi;
+            long mergedLo = xLo + yHi;
+            if (Long.compareUnsigned(mergedLo, xLo) < 0) {
+                mergedHi++;
+            }
+            if ((mergedHi & 0x1ff) == 0x1ff && mergedLo + 1 == 0
+                    && Long.compareUnsigned(yLo + w, w) < 0) {
+                return Double.NaN;
+            }
+            xHi = mergedHi;
+            xLo = mergedLo;
+        }
+
+        // Keep 54 bits, then round to 53, bailing out if we might be exactly halfway.
+        long msb = xHi >>> 63;
+        long mantissa = xHi >>> (msb + 9);
+        exponent -= 1 ^ msb;
+        if (xLo == 0 && (xHi & 0x1ff) == 0 && (mantissa & 3) == 1) {
+            return Double.NaN;
+        }
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if ((mantissa >>> 53) > 0) {
+            mantissa >>>= 1;
+            exponent++;
+        }
+        if (exponent <= 0 || exponent >= 0x7ff) {
+            return Double.NaN;
+        }
+        return Double.longBitsToDouble(exponent << 52 | mantissa & Double.MANTISSA_MASK);
+    }
+
+    /**
+     * The float counterpart of parseDblFast, returning NaN if native code is needed.
+     */
+    private static float parseFltFast(String s, int e) {
+        long w = parseDigits(s);
+        if (w == 0) {
+            return s.equals("0") ? 0.0f : Float.NaN;
+        }
+        if (0 < w && w <= (1L << 24) && -10 <= e && e <= 10) {
+            float f = w;
+            return (e >= 0) ? f * FLOAT_POWERS_OF_TEN[e] : f / FLOAT_POWERS_OF_TEN[-e];
+        }
+        if (e < PowersOfTen.MIN_EXPONENT || e > PowersOfTen.MAX_EXPONENT) {
+            return Float.NaN;
+        }
+
+        int lz = Long.numberOfLeadingZeros(w);
+        w <<= lz;
+        long exponent = ((217706L * e) >> 16) + 64 + Float.EXPONENT_BIAS - lz;
+        long xHi = PowersOfTen.unsignedMultiplyHigh(w, PowersOfTen.high(e));
+        long xLo = w * PowersOfTen.high(e);
+
+        if ((xHi & 0x3fffffffffL) == 0x3fffffffffL && Long.compareUnsigned(xLo + w, w) < 0) {
+            long yHi = PowersOfTen.unsignedMultiplyHigh(w, PowersOfTen.low(e));
+            long yLo = w * PowersOfTen.low(e);
+            long mergedHi = xHi;
+            long mergedLo = xLo + yHi;
+            if (Long.compareUnsigned(mergedLo, xLo) < 0) {
+                mergedHi++;
+            }
+            if ((mergedHi & 0x3fffffffffL) == 0x3fffffffffL && mergedLo + 1 == 0
+                    && Long.compareUnsigned(yLo + w, w) < 0) {
+                return Float.NaN;
+            }
+            xHi = mergedHi;
+            xLo = mergedLo;
+        }
+
+        // Keep 25 bits, then round to 24.
+        long msb = xHi >>> 63;
+        long mantissa = xHi >>> (msb + 38);
+        exponent -= 1 ^ msb;
+        if (xLo == 0 && (xHi & 0x3fffffffffL) == 0 && (mantissa & 3) == 1) {
+            return Float.NaN;
+        }
+        mantissa += mantissa & 1;
+        mantissa >>>= 1;
+        if ((mantissa >>> 24) > 0) {
+            mantissa >>>= 1;
+            exponent++;
+        }
+        if (exponent <= 0 || exponent >= 0xff) {
+            return Float.NaN;
+        }
+        return Float.intBitsToFloat((int) (exponent << 23 | mantissa & Float.MANTISSA_MASK));
+    }
+
     private static NumberFormatException invalidReal(String s, boolean isDouble) {
         throw new NumberFormatException("Invalid " + (isDouble ? "double" : "float") + ": \"" + s + "\"");
     }
@@ -283,9 +431,12 @@ final class StringToReal {
         if (info.infinity || info.zero) {
             return info.specialValue();
         }
-        double result = parseDblImpl(info.s, (int) info.e);
-        if (Double.doubleToRawLongBits(result) == 0xffffffffffffffffL) {
-            throw invalidReal(s, true);
+        double result = parseDblFast(info.s, (int) info.e);
+        if (Double.isNaN(result)) {
+            result = parseDblImpl(info.s, (int) info.e);
+            if (Double.doubleToRawLongBits(result) == 0xffffffffffffffffL) {
+                throw invalidReal(s, true);
+            }
         }
         return info.negative ? -result : result;
     }
@@ -324,9 +475,12 @@ final class StringToReal {
         if (info.infinity || info.zero) {
             return info.specialValue();
         }
-        float result = parseFltImpl(info.s, (int) info.e);
-        if (Float.floatToRawIntBits(result) == 0xffffffff) {
-            throw invalidReal(s, false);
+        float result = parseFltFast(info.s, (int) info.e);
+        if (Float.isNaN(result)) {
+            result = parseFltImpl(info.s, (int) info.e);
+            if (Float.floatToRawIntBits(result) == 0xffffffff) {
+                throw invalidReal(s, false);
+            }
         }
         return info.negative ? -result : result;
     }
@@ -16,29 +16,76 @@
 
 package java.net;
 
-import libcore.util.BasicLruCache;
+import android.system.GaiException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import libcore.util.ConcurrentLruCache;
 
 /**
  * Implements caching for {@code InetAddress}. We use a unified cache for both positive and negative
  * cache entries.
  *
+ * <p>The cache can be tuned with these system properties, read when the cache is created:
+ * <ul>
+ * <li>{@code libcore.net.addresscache.size}: the maximum number of entries (default 16).
+ *     Zero or less disables the cache, as for the other libcore cache sizes.
+ * <li>{@code networkaddress.cache.ttl}: how long, in seconds, successful lookups are
+ *     cached (default 2). Zero disables caching of successful lookups, and a negative
+ *     value caches them forever.
+ * <li>{@code networkaddress.cache.negative.ttl}: the same, for failed lookups.
+ * <li>{@code libcore.net.addresscache.refreshahead}: if "true", a hit on a successful lookup
+ *     in the last quarter of its TTL starts an asynchronous lookup to replace it, so that
+ *     frequently used hostnames don't expire on the caller's thread (default false).
+ * </ul>
+ *
  * TODO: benchmark and optimize InetAddress until we get to the point where we can just rely on
  * the C library level caching. The main thing caching at this level buys us is avoiding repeated
  * conversions from 'struct sockaddr's to InetAddress[].
+ *
+ * @hide visible for testing
  */
-class AddressCache {
+public class AddressCache {
     /**
      * When the cache contains more entries than this, we start dropping the oldest ones.
-     * This should be a power of two to avoid wasted space in our custom map.
      */
-    private static final int MAX_ENTRIES = 16;
+    private static final int DEFAULT_MAX_ENTRIES = 16;
+
+    // The default TTL for the Java-level cache is short, just 2s.
+    private static final long DEFAULT_TTL_SECONDS = 2;
+
+    /**
+     * Performs the lookups for refresh-ahead.
+     */
+    public interface Resolver {
+        InetAddress[] resolve(String hostname, int netId) throws GaiException;
+    }
+
+    private final long positiveTtlNanos;
+    private final long negativeTtlNanos;
+
+    /** The resolver for refresh-ahead, or null if refresh-ahead is disabled. */
+    private final Resolver refreshResolver;
+
+    /** Runs refresh-ahead lookups. Only created if refresh-ahead is enabled. */
+    private final Executor refreshExecutor;
+
+    /**
+     * Guards generation, so that a refresh-ahead lookup that started before a
+     * {@link #clear} doesn't put its result back afterwards.
+     */
+    private final Object generationLock = new Object();
+    private int generation;
 
-    // The TTL for the Java-level cache is short, just 2s.
-    private static final long TTL_NANOS = 2 * 1000000000L;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
 
-    // The actual cache.
-    private final BasicLruCache<AddressCacheKey, AddressCacheEntry> cache
-            = new BasicLruCache<AddressCacheKey, AddressCacheEntry>(MAX_ENTRIES);
+    // The actual cache, or null if caching is disabled.
+    private final ConcurrentLruCache<AddressCacheKey, AddressCacheEntry> cache;
 
     static class AddressCacheKey {
         private final String mHostname;
@@ -74,24 +121,88 @@ class AddressCache {
         final Object value;
 
         /**
-         * The absolute expiry time in nanoseconds. Nanoseconds from System.nanoTime is ideal
-         * because -- unlike System.currentTimeMillis -- it can never go backwards.
-         *
-         * We don't need to worry about overflow with a TTL_NANOS of 2s.
+         * The time this entry was created, in nanoseconds. Nanoseconds from System.nanoTime is
+         * ideal because -- unlike System.currentTimeMillis -- it can never go backwards. We
+         * compare elapsed times rather than storing an absolute expiry time so that large TTLs
+         * can't overflow.
          */
-        final long expiryNanos;
+        final long createdNanos;
 
-        AddressCacheEntry(Object value) {
+        final long ttlNanos;
+
+        /** Set once a refresh-ahead lookup has been started for this entry. */
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        AddressCacheEntry(Object value, long createdNanos, long ttlNanos) {
             this.value = value;
-            this.expiryNanos = System.nanoTime() + TTL_NANOS;
+            this.createdNanos = createdNanos;
+            this.ttlNanos = ttlNanos;
         }
     }
 
+    /**
+     * Creates a cache configured from system properties. Lookups for refresh-ahead, if
+     * enabled, are made with {@code resolver}.
+     */
+    AddressCache(Resolver resolver) {
+        this(Integer.getInteger("libcore.net.addresscache.size", DEFAULT_MAX_ENTRIES),
+                Long.getLong("networkaddress.cache.ttl", DEFAULT_TTL_SECONDS),
+                Long.getLong("networkaddress.cache.negative.ttl", DEFAULT_TTL_SECONDS),
+                Boolean.getBoolean("libcore.net.addresscache.refreshahead") ? resolver : null);
+    }
+
+    /**
+     * Creates a cache holding at most {@code maxEntries} entries, or nothing at all if
+     * {@code maxEntries} is zero or less. A TTL of zero disables caching and a negative
+     * TTL never expires. Refresh-ahead is enabled if {@code refreshResolver} is non-null.
+     */
+    public AddressCache(int maxEntries, long positiveTtlSeconds, long negativeTtlSeconds,
+            Resolver refreshResolver) {
+        this.cache = (maxEntries > 0)
+                ? new ConcurrentLruCache<AddressCacheKey, AddressCacheEntry>(maxEntries)
+                : null;
+        this.positiveTtlNanos = ttlToNanos(positiveTtlSeconds);
+        this.negativeTtlNanos = ttlToNanos(negativeTtlSeconds);
+        this.refreshResolver = refreshResolver;
+        this.refreshExecutor = (refreshResolver != null) ? newRefreshExecutor() : null;
+    }
+
+    /**
+     * Returns the current time for computing the age of entries, in nanoseconds. Tests
+     * override this to control expiry.
+     */
+    protected long nanoTime() {
+        return System.nanoTime();
+    }
+
+    private static long ttlToNanos(long ttlSeconds) {
+        return (ttlSeconds < 0) ? Long.MAX_VALUE : TimeUnit.SECONDS.toNanos(ttlSeconds);
+    }
+
+    private static Executor newRefreshExecutor() {
+        // A single thread that goes away when there's nothing to refresh.
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "AddressCacheRefresh");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     /**
      * Removes all entries from the cache.
      */
     public void clear() {
-        cache.evictAll();
+        synchronized (generationLock) {
+            generation++;
+            if (cache != null) {
+                cache.evictAll();
+            }
+        }
     }
 
     /**
@@ -100,22 +211,59 @@ class AddressCache {
      * UnknownHostException detail message if 'hostname' is known not to exist.
      */
     public Object get(String hostname, int netId) {
-        AddressCacheEntry entry = cache.get(new AddressCacheKey(hostname, netId));
+        AddressCacheKey key = new AddressCacheKey(hostname, netId);
+        AddressCacheEntry entry = (cache != null) ? cache.getIfPresent(key) : null;
         // Do we have a valid cache entry?
-        if (entry != null && entry.expiryNanos >= System.nanoTime()) {
-            return entry.value;
+        if (entry != null) {
+            long age = nanoTime() - entry.createdNanos;
+            if (age < entry.ttlNanos) {
+                hitCount.incrementAndGet();
+                if (refreshResolver != null && entry.value instanceof InetAddress[]
+                        && age >= entry.ttlNanos - entry.ttlNanos / 4) {
+                    refreshAhead(key, entry);
+                }
+                return entry.value;
+            }
         }
         // Either we didn't find anything, or it had expired.
         // No need to remove expired entries: the caller will provide a replacement shortly.
+        missCount.incrementAndGet();
         return null;
     }
 
+    private void refreshAhead(final AddressCacheKey key, AddressCacheEntry entry) {
+        if (!entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        final int startGeneration;
+        synchronized (generationLock) {
+            startGeneration = generation;
+        }
+        refreshExecutor.execute(new Runnable() {
+            @Override public void run() {
+                try {
+                    InetAddress[] addresses = refreshResolver.resolve(key.mHostname, key.mNetId);
+                    synchronized (generationLock) {
+                        if (generation == startGeneration) {
+                            put(key.mHostname, key.mNetId, addresses);
+                        }
+                    }
+                } catch (GaiException e) {
+                    // Let the entry expire; the next caller will see the failure.
+                }
+            }
+        });
+    }
+
     /**
      * Associates the given 'addresses' with 'hostname'. The association will expire after a
      * certain length of time.
      */
     public void put(String hostname, int netId, InetAddress[] addresses) {
-        cache.put(new AddressCacheKey(hostname, netId), new AddressCacheEntry(addresses));
+        if (cache != null && positiveTtlNanos > 0) {
+            cache.put(new AddressCacheKey(hostname, netId),
+                    new AddressCacheEntry(addresses, nanoTime(), positiveTtlNanos));
+        }
     }
 
     /**
@@ -123,6 +271,23 @@ class AddressCache {
      * negative cache entry.)
      */
     public void putUnknownHost(String hostname, int netId, String detailMessage) {
-        cache.put(new AddressCacheKey(hostname, netId), new AddressCacheEntry(detailMessage));
+        if (cache != null && negativeTtlNanos > 0) {
+            cache.put(new AddressCacheKey(hostname, netId),
+                    new AddressCacheEntry(detailMessage, nanoTime(), negativeTtlNanos));
+        }
+    }
+
+    /**
+     * Returns the number of calls to {@link #get} that found a valid entry.
+     */
+    public long hitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of calls to {@link #get} that found no entry, or an expired one.
+     */
+    public long missCount() {
+        return missCount.get();
     }
 }
@@ -117,13 +117,22 @@ import static android.system.OsConstants.*;
  * <p>In Android 4.0 (Ice Cream Sandwich) and earlier, DNS caching was performed both by
  * InetAddress and by the C library, which meant that DNS TTLs could not be honored correctly.
  * In later releases, caching is done solely by the C library and DNS TTLs are honored.
+ * {@code InetAddress} also keeps a small, short-lived cache of recent lookups; its
+ * TTLs can be set in seconds with the {@code networkaddress.cache.ttl} and
+ * {@code networkaddress.cache.negative.ttl} system properties.
  *
  * @see Inet4Address
  * @see Inet6Address
  */
 public class InetAddress implements Serializable {
     /** Our Java-side DNS cache. */
-    private static final AddressCache addressCache = new AddressCache();
+    private static final AddressCache addressCache = new AddressCache(
+            new AddressCache.Resolver() {
+                @Override public InetAddress[] resolve(String hostname, int netId)
+                        throws GaiException {
+                    return getAddrInfo(hostname, netId);
+                }
+            });
 
     private static final long serialVersionUID = 3286316764910316507L;
 
@@ -450,18 +459,7 @@ public class InetAddress implements Serializable {
             }
         }
         try {
-            StructAddrinfo hints = new StructAddrinfo();
-            hints.ai_flags = AI_ADDRCONFIG;
-            hints.ai_family = AF_UNSPEC;
-            // If we don't specify a socket type, every address will appear twice, once
-            // for SOCK_STREAM and one for SOCK_DGRAM. Since we do not return the family
-            // anyway, just pick one.
-            hints.ai_socktype = SOCK_STREAM;
-            InetAddress[] addresses = Libcore.os.android_getaddrinfo(host, hints, netId);
-            // TODO: should getaddrinfo set the hostname of the InetAddresses it returns?
-            for (InetAddress address : addresses) {
-                address.hostName = host;
-            }
+            InetAddress[] addresses = getAddrInfo(host, netId);
             addressCache.put(host, netId, addresses);
             return addresses;
         } catch (GaiException gaiException) {
@@ -480,6 +478,22 @@ public class InetAddress implements Serializable {
         }
     }
 
+    private static InetAddress[] getAddrInfo(String host, int netId) throws GaiException {
+        StructAddrinfo hints = new StructAddrinfo();
+        hints.ai_flags = AI_ADDRCONFIG;
+        hints.ai_family = AF_UNSPEC;
+        // If we don't specify a socket type, every address will appear twice, once
+        // for SOCK_STREAM and one for SOCK_DGRAM. Since we do not return the family
+        // anyway, just pick one.
+        hints.ai_socktype = SOCK_STREAM;
+        InetAddress[] addresses = Libcore.os.android_getaddrinfo(host, hints, netId);
+        // TODO: should getaddrinfo set the hostname of the InetAddresses it returns?
+        for (InetAddress address : addresses) {
+            address.hostName = host;
+        }
+        return addresses;
+    }
+
     /**
      * Removes all entries from the VM's DNS cache. This does not affect the C library's DNS
      * cache, nor any caching DNS servers between you and the canonical server.
@@ -489,6 +503,22 @@ public class InetAddress implements Serializable {
         addressCache.clear();
     }
 
+    /**
+     * Returns the number of lookups answered by the VM's DNS cache.
+     * @hide
+     */
+    public static long getDnsCacheHitCount() {
+        return addressCache.hitCount();
+    }
+
+    /**
+     * Returns the number of lookups that the VM's DNS cache couldn't answer.
+     * @hide
+     */
+    public static long getDnsCacheMissCount() {
+        return addressCache.missCount();
+    }
+
     private static InetAddress getHostByAddrImpl(InetAddress address) throws UnknownHostException {
         BlockGuard.getThreadPolicy().onNetwork();
         try {
@@ -0,0 +1,509 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package java.nio;
+
+import android.system.ErrnoException;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.IllegalSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.spi.AbstractSelectableChannel;
+import java.nio.channels.spi.AbstractSelectionKey;
+import java.nio.channels.spi.AbstractSelector;
+import java.nio.channels.spi.SelectorProvider;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import libcore.io.IoUtils;
+import libcore.io.Libcore;
+
+import static android.system.OsConstants.EEXIST;
+import static android.system.OsConstants.EPOLLERR;
+import static android.system.OsConstants.EPOLLHUP;
+import static android.system.OsConstants.EPOLLIN;
+import static android.system.OsConstants.EPOLLOUT;
+import static android.system.OsConstants.EPOLL_CLOEXEC;
+import static android.system.OsConstants.EPOLL_CTL_ADD;
+import static android.system.OsConstants.EPOLL_CTL_DEL;
+import static android.system.OsConstants.EPOLL_CTL_MOD;
+import static java.nio.channels.SelectionKey.OP_ACCEPT;
+import static java.nio.channels.SelectionKey.OP_CONNECT;
+import static java.nio.channels.SelectionKey.OP_READ;
+import static java.nio.channels.SelectionKey.OP_WRITE;
+
+/**
+ * An epoll(7)-based implementation of java.nio.channels.Selector.
+ *
+ * <p>Unlike {@link SelectorImpl}, which hands every registered fd to poll(2)
+ * on each select, this selector keeps its fds in a kernel epoll set and only
+ * tells the kernel about keys whose interest ops changed since the last select.
+ * The cost of a select is therefore proportional to the number of ready fds
+ * rather than the number of registered fds.
+ *
+ * <p>Set the system property {@code libcore.nio.epoll} to {@code false} to
+ * fall back to the poll(2)-based selector.
+ */
+final class EpollSelectorImpl extends AbstractSelector {
+
+    private static final int INITIAL_EVENT_CAPACITY = 16;
+
+    private static final boolean SUPPORTED = probeEpoll();
+
+    /**
+     * Used to synchronize when a key's interest ops change.
+     */
+    final Object keysLock = new Object();
+
+    private final Set<SelectionKeyImpl> mutableKeys = new HashSet<SelectionKeyImpl>();
+
+    /**
+     * The unmodifiable set of keys as exposed to the user. This object is used
+     * for synchronization.
+     */
+    private final Set<SelectionKey> unmodifiableKeys = Collections
+            .<SelectionKey>unmodifiableSet(mutableKeys);
+
+    private final Set<SelectionKey> mutableSelectedKeys = new HashSet<SelectionKey>();
+
+    /**
+     * The unmodifiable set of selectable keys as seen by the user. This object
+     * is used for synchronization.
+     */
+    private final Set<SelectionKey> selectedKeys
+            = new SelectorImpl.UnaddableSet<SelectionKey>(mutableSelectedKeys);
+
+    /**
+     * Keys whose interest ops changed since the epoll set was last updated.
+     * Guarded by keysLock.
+     */
+    private final Set<SelectionKeyImpl> updatedKeys = new HashSet<SelectionKeyImpl>();
+
+    /**
+     * Maps each fd in the epoll set to the key that registered it.
+     */
+    private final HashMap<Integer, SelectionKeyImpl> fdToKey
+            = new HashMap<Integer, SelectionKeyImpl>();
+
+    private FileDescriptor epollFd;
+
+    /**
+     * Set when epoll reported an fd that no key wants and that couldn't be removed
+     * from the epoll set. See {@link #removeFromEpollSet}.
+     */
+    private boolean epollSetHasStaleFd;
+
+    /**
+     * The fd used to interrupt a select. Each time it is reported ready, it is drained.
+     */
+    private final SelectorWakeup wakeup;
+    private final int wakeupFd;
+
+    /** The fds and events reported by the last epoll_wait. */
+    private int[] readyFds = new int[INITIAL_EVENT_CAPACITY];
+    private int[] readyEvents = new int[INITIAL_EVENT_CAPACITY];
+
+    public EpollSelectorImpl(SelectorProvider selectorProvider) throws IOException {
+        super(selectorProvider);
+
+        wakeup = new SelectorWakeup();
+        wakeupFd = wakeup.getFD().getInt$();
+        try {
+            epollFd = newEpollSet();
+        } catch (IOException e) {
+            wakeup.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a new epoll set containing just the wakeup fd.
+     */
+    private FileDescriptor newEpollSet() throws IOException {
+        try {
+            FileDescriptor fd = Libcore.os.epoll_create1(EPOLL_CLOEXEC);
+            try {
+                Libcore.os.epoll_ctl(fd, EPOLL_CTL_ADD, wakeup.getFD(), EPOLLIN);
+            } catch (ErrnoException errnoException) {
+                IoUtils.closeQuietly(fd);
+                throw errnoException;
+            }
+            return fd;
+        } catch (ErrnoException errnoException) {
+            throw errnoException.rethrowAsIOException();
+        }
+    }
+
+    /**
+     * Replaces the epoll set with a new one holding the current registrations.
+     * This is the only way to drop an fd whose channel was closed while a dup
+     * of its fd kept the file description, and so the registration, alive.
+     */
+    private void rebuildEpollSet() throws IOException {
+        FileDescriptor newEpollFd = newEpollSet();
+        IoUtils.closeQuietly(epollFd);
+        epollFd = newEpollFd;
+        synchronized (keysLock) {
+            for (SelectionKeyImpl key : fdToKey.values()) {
+                key.registeredFd = -1;
+                key.registeredEvents = 0;
+                updatedKeys.add(key);
+            }
+            fdToKey.clear();
+            updateEpollSet();
+        }
+        epollSetHasStaleFd = false;
+    }
+
+    /**
+     * Returns true if epoll is available on this platform and hasn't been
+     * disabled with the {@code libcore.nio.epoll} system property.
+     */
+    static boolean isSupported() {
+        return SUPPORTED;
+    }
+
+    private static boolean probeEpoll() {
+        if (!Boolean.parseBoolean(System.getProperty("libcore.nio.epoll", "true"))) {
+            return false;
+        }
+        try {
+            IoUtils.closeQuietly(Libcore.os.epoll_create1(EPOLL_CLOEXEC));
+            return true;
+        } catch (ErrnoException e) {
+            return false;
+        } catch (UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    @Override protected void implCloseSelector() throws IOException {
+        wakeup();
+        synchronized (this) {
+            synchronized (unmodifiableKeys) {
+                synchronized (selectedKeys) {
+                    wakeup.close();
+                    doCancel();
+                    for (SelectionKey sk : mutableKeys) {
+                        deregister((AbstractSelectionKey) sk);
+                    }
+                    fdToKey.clear();
+                    IoUtils.close(epollFd);
+                }
+            }
+        }
+    }
+
+    @Override protected SelectionKey register(AbstractSelectableChannel channel,
+            int operations, Object attachment) {
+        if (!provider().equals(channel.provider())) {
+            throw new IllegalSelectorException();
+        }
+        synchronized (this) {
+            synchronized (unmodifiableKeys) {
+                SelectionKeyImpl selectionKey = new SelectionKeyImpl(channel, operations,
+                        attachment, this);
+                mutableKeys.add(selectionKey);
+                synchronized (keysLock) {
+                    updatedKeys.add(selectionKey);
+                }
+                return selectionKey;
+            }
+        }
+    }
+
+    /**
+     * Called by SelectionKeyImpl with keysLock held when a key's interest ops change.
+     */
+    void interestOpsChanged(SelectionKeyImpl key) {
+        updatedKeys.add(key);
+    }
+
+    @Override public synchronized Set<SelectionKey> keys() {
+        checkClosed();
+        return unmodifiableKeys;
+    }
+
+    private void checkClosed() {
+        if (!isOpen()) {
+            throw new ClosedSelectorException();
+        }
+    }
+
+    @Override public int select() throws IOException {
+        // Blocks until some fd is ready.
+        return selectInternal(-1);
+    }
+
+    @Override public int select(long timeout) throws IOException {
+        if (timeout < 0) {
+            throw new IllegalArgumentException("timeout < 0: " + timeout);
+        }
+        // Our timeout is interpreted differently to Unix's --- 0 means block. See selectNow.
+        return selectInternal((timeout == 0) ? -1 : timeout);
+    }
+
+    @Override public int selectNow() throws IOException {
+        return selectInternal(0);
+    }
+
+    private int selectInternal(long timeout) throws IOException {
+        checkClosed();
+        synchronized (this) {
+            synchronized (unmodifiableKeys) {
+                synchronized (selectedKeys) {
+                    doCancel();
+                    boolean isBlocking = (timeout != 0);
+                    synchronized (keysLock) {
+                        updateEpollSet();
+                    }
+                    int rc = -1;
+                    try {
+                        if (isBlocking) {
+                            begin();
+                        }
+                        try {
+                            rc = Libcore.os.epoll_wait(epollFd, readyFds, readyEvents,
+                                    (int) timeout);
+                        } catch (ErrnoException errnoException) {
+                            throw errnoException.rethrowAsIOException();
+                        }
+                    } finally {
+                        if (isBlocking) {
+                            end();
+                        }
+                    }
+
+                    int readyCount = (rc > 0) ? processReadyEvents(rc) : 0;
+                    readyCount -= doCancel();
+                    if (epollSetHasStaleFd) {
+                        rebuildEpollSet();
+                    }
+                    if (rc == readyFds.length) {
+                        growReadyArrays();
+                    }
+                    return readyCount;
+                }
+            }
+        }
+    }
+
+    private static int toEpollEvents(int interestOps) {
+        int events = 0;
+        if (((OP_ACCEPT | OP_READ) & interestOps) != 0) {
+            events |= EPOLLIN;
+        }
+        if (((OP_CONNECT | OP_WRITE) & interestOps) != 0) {
+            events |= EPOLLOUT;
+        }
+        return events;
+    }
+
+    /**
+     * Tells the kernel about the keys whose interest ops changed. Keys with no
+     * interest ops are removed from the epoll set entirely so that, as with
+     * poll(2), errors on them aren't reported.
+     */
+    private void updateEpollSet() {
+        for (SelectionKeyImpl key : updatedKeys) {
+            if (!key.isValid()) {
+                continue;
+            }
+            int events = toEpollEvents(key.interestOpsNoCheck());
+            if (events == key.registeredEvents) {
+                continue;
+            }
+            if (events == 0) {
+                unregister(key);
+                continue;
+            }
+            FileDescriptor fd = ((FileDescriptorChannel) key.channel()).getFD();
+            try {
+                if (key.registeredEvents != 0) {
+                    Libcore.os.epoll_ctl(epollFd, EPOLL_CTL_MOD, fd, events);
+                } else {
+                    int fdInt = fd.getInt$();
+                    try {
+                        Libcore.os.epoll_ctl(epollFd, EPOLL_CTL_ADD, fd, events);
+                    } catch (ErrnoException errnoException) {
+                        if (errnoException.errno != EEXIST) {
+                            throw errnoException;
+                        }
+                        // A dup of a previously registered fd; take it over.
+                        Libcore.os.epoll_ctl(epollFd, EPOLL_CTL_MOD, fd, events);
+                    }
+                    key.registeredFd = fdInt;
+                    fdToKey.put(fdInt, key);
+                }
+                key.registeredEvents = events;
+            } catch (ErrnoException ignored) {
+                // The channel was closed underneath us. Its key has been
+                // cancelled and will be removed by the next doCancel.
+            }
+        }
+        updatedKeys.clear();
+    }
+
+    /**
+     * Removes the key's channel from the epoll set, if it's there.
+     */
+    private void unregister(SelectionKeyImpl key) {
+        if (key.registeredEvents == 0) {
+            return;
+        }
+        int fdInt = key.registeredFd;
+        // If another key has taken this fd number over, the registration is now its.
+        if (fdToKey.get(fdInt) == key) {
+            fdToKey.remove(fdInt);
+            // If this fails but the registration survives, epoll will report the fd
+            // with no key, and processReadyEvents arranges for the set to be rebuilt.
+            removeFromEpollSet(fdInt);
+        }
+        key.registeredFd = -1;
+        key.registeredEvents = 0;
+    }
+
+    /**
+     * Removes the fd number {@code fdInt} from the epoll set, returning false if
+     * it couldn't. This uses the number that was registered rather than the
+     * channel's fd, which is -1 once the channel is closed.
+     *
+     * <p>Epoll watches the open file description rather than the fd, so a closed
+     * channel stays in the set for as long as a dup of its fd is open. Once the fd
+     * number is closed, or reused for another file, epoll_ctl fails with EBADF or
+     * ENOENT and can't remove it.
+     */
+    private boolean removeFromEpollSet(int fdInt) {
+        FileDescriptor fd = new FileDescriptor();
+        fd.setInt$(fdInt);
+        try {
+            Libcore.os.epoll_ctl(epollFd, EPOLL_CTL_DEL, fd, 0);
+            return true;
+        } catch (ErrnoException errnoException) {
+            return false;
+        }
+    }
+
+    private void growReadyArrays() {
+        // There might have been more ready fds than we had room for. Grow so
+        // that next time we can report up to one event per registered key.
+        int newLength = Math.min(readyFds.length * 2, mutableKeys.size() + 1);
+        if (newLength > readyFds.length) {
+            readyFds = new int[newLength];
+            readyEvents = new int[newLength];
+        }
+    }
+
+    /**
+     * Updates the key ready ops and selected key set.
+     */
+    private int processReadyEvents(int count) throws IOException {
+        int readyKeyCount = 0;
+        for (int i = 0; i < count; ++i) {
+            int fd = readyFds[i];
+            int revents = readyEvents[i];
+            if (fd == wakeupFd) {
+                wakeup.drain();
+                continue;
+            }
+
+            SelectionKeyImpl key = fdToKey.get(fd);
+            if (key == null) {
+                // Nothing wants this fd any more. The epoll set is level-triggered, so
+                // leaving it there would make every select return immediately.
+                if (!removeFromEpollSet(fd)) {
+                    epollSetHasStaleFd = true;
+                }
+                continue;
+            }
+
+            int ops = key.interestOpsNoCheck();
+            int selectedOps = 0;
+            if ((revents & EPOLLHUP) != 0 || (revents & EPOLLERR) != 0) {
+                // If there was an error condition, we definitely want to wake listeners,
+                // regardless of what they're waiting for. Failure is always interesting.
+                selectedOps |= ops;
+            }
+            if ((revents & EPOLLIN) != 0) {
+                selectedOps |= ops & (OP_ACCEPT | OP_READ);
+            }
+            if ((revents & EPOLLOUT) != 0) {
+                if (key.isConnected()) {
+                    selectedOps |= ops & OP_WRITE;
+                } else {
+                    selectedOps |= ops & OP_CONNECT;
+                }
+            }
+
+            if (selectedOps != 0) {
+                boolean wasSelected = mutableSelectedKeys.contains(key);
+                if (wasSelected && key.readyOps() != selectedOps) {
+                    key.setReadyOps(key.readyOps() | selectedOps);
+                    ++readyKeyCount;
+                } else if (!wasSelected) {
+                    key.setReadyOps(selectedOps);
+                    mutableSelectedKeys.add(key);
+                    ++readyKeyCount;
+                }
+            }
+        }
+
+        return readyKeyCount;
+    }
+
+    @Override public synchronized Set<SelectionKey> selectedKeys() {
+        checkClosed();
+        return selectedKeys;
+    }
+
+    /**
+     * Removes cancelled keys from the key set, selected key set and epoll set,
+     * and unregisters the corresponding channels. Returns the number of keys
+     * removed from the selected key set.
+     */
+    private int doCancel() {
+        int deselected = 0;
+
+        Set<SelectionKey> cancelledKeys = cancelledKeys();
+        synchronized (cancelledKeys) {
+            if (cancelledKeys.size() > 0) {
+                for (SelectionKey currentKey : cancelledKeys) {
+                    SelectionKeyImpl key = (SelectionKeyImpl) currentKey;
+                    mutableKeys.remove(key);
+                    synchronized (keysLock) {
+                        updatedKeys.remove(key);
+                    }
+                    unregister(key);
+                    deregister(key);
+                    if (mutableSelectedKeys.remove(key)) {
+                        deselected++;
+                    }
+                }
+                cancelledKeys.clear();
+            }
+        }
+
+        return deselected;
+    }
+
+    @Override public Selector wakeup() {
+        wakeup.wakeup();
+        return this;
+    }
+}
@@ -23,6 +23,7 @@ import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 import java.nio.channels.spi.AbstractSelectableChannel;
 import java.nio.channels.spi.AbstractSelectionKey;
+import java.nio.channels.spi.AbstractSelector;
 
 /**
  * Default implementation of SelectionKey
@@ -35,13 +36,37 @@ final class SelectionKeyImpl extends AbstractSelectionKey {
 
     private int readyOps;
 
-    private SelectorImpl selector;
+    private AbstractSelector selector;
+
+    /**
+     * The owning selector's lock guarding changes to the interest ops.
+     */
+    private final Object keysLock;
+
+    /**
+     * The fd and epoll events currently registered for this key's channel.
+     * registeredEvents is 0 if the channel isn't in the epoll set. Only used
+     * by EpollSelectorImpl.
+     */
+    int registeredFd = -1;
+    int registeredEvents;
 
     public SelectionKeyImpl(AbstractSelectableChannel channel, int operations,
             Object attachment, SelectorImpl selector) {
+        this(channel, operations, attachment, selector, selector.keysLock);
+    }
+
+    public SelectionKeyImpl(AbstractSelectableChannel channel, int operations,
+            Object attachment, EpollSelectorImpl selector) {
+        this(channel, operations, attachment, selector, selector.keysLock);
+    }
+
+    private SelectionKeyImpl(AbstractSelectableChannel channel, int operations,
+            Object attachment, AbstractSelector selector, Object keysLock) {
         this.channel = channel;
         interestOps = operations;
         this.selector = selector;
+        this.keysLock = keysLock;
         attach(attachment);
     }
 
@@ -53,13 +78,13 @@ final class SelectionKeyImpl extends AbstractSelectionKey {
     @Override
     public int interestOps() {
         checkValid();
-        synchronized (selector.keysLock) {
+        synchronized (keysLock) {
             return interestOps;
         }
     }
 
     int interestOpsNoCheck() {
-        synchronized (selector.keysLock) {
+        synchronized (keysLock) {
             return interestOps;
         }
     }
@@ -70,8 +95,11 @@ final class SelectionKeyImpl extends AbstractSelectionKey {
         if ((operations & ~(channel().validOps())) != 0) {
             throw new IllegalArgumentException();
         }
-        synchronized (selector.keysLock) {
+        synchronized (keysLock) {
             interestOps = operations;
+            if (selector instanceof EpollSelectorImpl) {
+                ((EpollSelectorImpl) selector).interestOpsChanged(this);
+            }
         }
         return this;
     }
@@ -18,7 +18,6 @@ package java.nio;
 import android.system.ErrnoException;
 import android.system.StructPollfd;
 import java.io.FileDescriptor;
-import java.io.InterruptedIOException;
 import java.io.IOException;
 import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.IllegalSelectorException;
@@ -34,8 +33,6 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
 import java.util.UnsafeArrayList;
-import libcore.io.IoBridge;
-import libcore.io.IoUtils;
 import libcore.io.Libcore;
 
 import static android.system.OsConstants.POLLERR;
@@ -76,32 +73,18 @@ final class SelectorImpl extends AbstractSelector {
             = new UnaddableSet<SelectionKey>(mutableSelectedKeys);
 
     /**
-     * The wakeup pipe. To trigger a wakeup, write a byte to wakeupOut. Each
-     * time select returns, wakeupIn is drained.
+     * The fd used to interrupt a select. It is drained whenever poll reports it ready.
      */
-    private final FileDescriptor wakeupIn;
-    private final FileDescriptor wakeupOut;
+    private final SelectorWakeup wakeup;
 
     private final UnsafeArrayList<StructPollfd> pollFds = new UnsafeArrayList<StructPollfd>(StructPollfd.class, 8);
 
     public SelectorImpl(SelectorProvider selectorProvider) throws IOException {
         super(selectorProvider);
 
-        /*
-         * Create a pipe to trigger wakeup. We can't use a NIO pipe because it
-         * would be closed if the selecting thread is interrupted. Also
-         * configure the pipe so we can fully drain it without blocking.
-         */
-        try {
-            FileDescriptor[] pipeFds = Libcore.os.pipe2(0);
-            wakeupIn = pipeFds[0];
-            wakeupOut = pipeFds[1];
-            IoUtils.setBlocking(wakeupIn, false);
-            pollFds.add(new StructPollfd());
-            setPollFd(0, wakeupIn, POLLIN, null);
-        } catch (ErrnoException errnoException) {
-            throw errnoException.rethrowAsIOException();
-        }
+        wakeup = new SelectorWakeup();
+        pollFds.add(new StructPollfd());
+        setPollFd(0, wakeup.getFD(), POLLIN, null);
     }
 
     @Override protected void implCloseSelector() throws IOException {
@@ -109,8 +92,7 @@ final class SelectorImpl extends AbstractSelector {
         synchronized (this) {
             synchronized (unmodifiableKeys) {
                 synchronized (selectedKeys) {
-                    IoUtils.close(wakeupIn);
-                    IoUtils.close(wakeupOut);
+                    wakeup.close();
                     doCancel();
                     for (SelectionKey sk : mutableKeys) {
                         deregister((AbstractSelectionKey) sk);
@@ -206,7 +188,7 @@ final class SelectorImpl extends AbstractSelector {
     }
 
     private void preparePollFds() {
-        int i = 1; // Our wakeup pipe comes before all the user's fds.
+        int i = 1; // Our wakeup fd comes before all the user's fds.
         for (SelectionKeyImpl key : mutableKeys) {
             int interestOps = key.interestOpsNoCheck();
             short eventMask = 0;
@@ -223,7 +205,7 @@ final class SelectorImpl extends AbstractSelector {
     }
 
     private void ensurePollFdsCapacity() {
-        // We need one slot for each element of mutableKeys, plus one for the wakeup pipe.
+        // We need one slot for each element of mutableKeys, plus one for the wakeup fd.
         while (pollFds.size() < mutableKeys.size() + 1) {
             pollFds.add(new StructPollfd());
         }
@@ -234,10 +216,7 @@ final class SelectorImpl extends AbstractSelector {
      */
     private int processPollFds() throws IOException {
         if (pollFds.get(0).revents == POLLIN) {
-            // Read bytes from the wakeup pipe until the pipe is empty.
-            byte[] buffer = new byte[8];
-            while (IoBridge.read(wakeupIn, buffer, 0, 1) > 0) {
-            }
+            wakeup.drain();
         }
 
         int readyKeyCount = 0;
@@ -320,15 +299,11 @@ final class SelectorImpl extends AbstractSelector {
     }
 
     @Override public Selector wakeup() {
-        try {
-            Libcore.os.write(wakeupOut, new byte[] { 1 }, 0, 1);
-        } catch (ErrnoException ignored) {
-        } catch (InterruptedIOException ignored) {
-        }
+        wakeup.wakeup();
         return this;
     }
 
-    private static class UnaddableSet<E> implements Set<E> {
+    static class UnaddableSet<E> implements Set<E> {
 
         private final Set<E> set;
 
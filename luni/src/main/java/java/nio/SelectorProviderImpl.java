@@ -38,6 +38,9 @@ public final class SelectorProviderImpl extends SelectorProvider {
     }
 
     public AbstractSelector openSelector() throws IOException {
+        if (EpollSelectorImpl.isSupported()) {
+            return new EpollSelectorImpl(this);
+        }
         return new SelectorImpl(this);
     }
 
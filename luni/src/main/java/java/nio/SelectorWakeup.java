@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package java.nio;
+
+import android.system.ErrnoException;
+import java.io.FileDescriptor;
+import java.io.InterruptedIOException;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import libcore.io.IoBridge;
+import libcore.io.IoUtils;
+import libcore.io.Libcore;
+import libcore.io.Memory;
+
+import static android.system.OsConstants.EFD_CLOEXEC;
+import static android.system.OsConstants.EFD_NONBLOCK;
+
+/**
+ * The fd a selector watches so that other threads can interrupt a select.
+ *
+ * <p>Where eventfd(2) is available a single eventfd is used; elsewhere we fall
+ * back to a pipe. We can't use a NIO pipe because it would be closed if the
+ * selecting thread is interrupted.
+ *
+ * <p>Wakeups are coalesced: once a wakeup has been signalled, further calls to
+ * {@link #wakeup} don't touch the fd until the selector has drained it.
+ */
+final class SelectorWakeup {
+    /** The eventfd counter increment, in the native byte order eventfd(2) expects. */
+    private static final byte[] EVENTFD_INCREMENT = new byte[8];
+    static {
+        Memory.pokeLong(EVENTFD_INCREMENT, 0, 1L, ByteOrder.nativeOrder());
+    }
+
+    /** The fd to watch for POLLIN/EPOLLIN. */
+    private final FileDescriptor readFd;
+
+    /** The fd to write to. The same as readFd for an eventfd. */
+    private final FileDescriptor writeFd;
+
+    private final boolean isEventFd;
+
+    /** True if a wakeup has been signalled but not yet drained. */
+    private final AtomicBoolean pending = new AtomicBoolean();
+
+    SelectorWakeup() throws IOException {
+        FileDescriptor eventFd = openEventFd();
+        if (eventFd != null) {
+            readFd = writeFd = eventFd;
+            isEventFd = true;
+            return;
+        }
+
+        // Configure the pipe so we can fully drain it without blocking.
+        try {
+            FileDescriptor[] pipeFds = Libcore.os.pipe2(0);
+            readFd = pipeFds[0];
+            writeFd = pipeFds[1];
+            isEventFd = false;
+            IoUtils.setBlocking(readFd, false);
+        } catch (ErrnoException errnoException) {
+            throw errnoException.rethrowAsIOException();
+        }
+    }
+
+    private static FileDescriptor openEventFd() {
+        try {
+            return Libcore.os.eventfd(0, EFD_CLOEXEC | EFD_NONBLOCK);
+        } catch (ErrnoException e) {
+            return null;
+        } catch (UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the fd that becomes readable when a wakeup is pending.
+     */
+    FileDescriptor getFD() {
+        return readFd;
+    }
+
+    /**
+     * Signals a wakeup, unless one is already pending.
+     */
+    void wakeup() {
+        if (!pending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            if (isEventFd) {
+                Libcore.os.write(writeFd, EVENTFD_INCREMENT, 0, EVENTFD_INCREMENT.length);
+            } else {
+                Libcore.os.write(writeFd, new byte[] { 1 }, 0, 1);
+            }
+        } catch (ErrnoException ignored) {
+        } catch (InterruptedIOException ignored) {
+        }
+    }
+
+    /**
+     * Consumes any pending wakeup. Called by the selecting thread when the fd
+     * returned by {@link #getFD} was reported readable.
+     */
+    void drain() throws IOException {
+        if (isEventFd) {
+            // A single read resets the eventfd counter to zero.
+            IoBridge.read(readFd, new byte[8], 0, 8);
+        } else {
+            // Read bytes from the wakeup pipe until the pipe is empty.
+            byte[] buffer = new byte[8];
+            while (IoBridge.read(readFd, buffer, 0, 1) > 0) {
+            }
+        }
+        pending.set(false);
+    }
+
+    void close() throws IOException {
+        IoUtils.close(readFd);
+        if (!isEventFd) {
+            IoUtils.close(writeFd);
+        }
+    }
+}
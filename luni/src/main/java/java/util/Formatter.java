@@ -33,6 +33,7 @@ import java.nio.charset.Charset;
 import libcore.icu.LocaleData;
 import libcore.icu.NativeDecimalFormat;
 import libcore.io.IoUtils;
+import libcore.util.ConcurrentLruCache;
 
 /**
  * Formats arguments according to a format string (like {@code printf} in C).
@@ -543,6 +544,205 @@ public final class Formatter implements Closeable, Flushable {
         DECIMAL_FLOAT
     }
 
+    /**
+     * A format string that has been parsed once, so that it can be applied to many
+     * argument lists without being parsed again. A template formats its arguments
+     * exactly as {@link Formatter#format(Locale, String, Object...)} would format them
+     * with the original format string, except that a format string that can't be
+     * parsed is reported by {@link #compile} rather than when formatting.
+     *
+     * <p>Templates are immutable and may be shared between threads.
+     *
+     * @hide
+     */
+    public static final class Template {
+        private static final int DEFAULT_CACHE_SIZE = 16;
+
+        /**
+         * Recently compiled templates used by {@code String.format}, or null if
+         * caching is disabled. The size can be set with the system property
+         * {@code libcore.formatter.templatecache.size}; zero disables the cache.
+         */
+        private static final ConcurrentLruCache<String, Template> CACHE;
+        static {
+            int size = Integer.getInteger("libcore.formatter.templatecache.size",
+                    DEFAULT_CACHE_SIZE);
+            CACHE = (size > 0) ? new ConcurrentLruCache<String, Template>(size) : null;
+        }
+
+        /**
+         * The hash codes of format strings that recently missed the cache, by their low
+         * bits. A format string is only compiled and cached when it misses a second time,
+         * so one-off format strings aren't compiled or inserted, and can't evict the
+         * templates that are being reused. Races only cost an extra miss or compile.
+         */
+        private static final int[] RECENT_MISSES = new int[64];
+
+        private final String format;
+
+        // The parts of the format string, in order. Part i is the plain text
+        // format[starts[i], ends[i]) if tokens[i] is null, and the format specifier
+        // tokens[i] otherwise, in which case format[starts[i], ends[i]) is its text
+        // after the '%'.
+        private final FormatToken[] tokens;
+        private final int[] starts;
+        private final int[] ends;
+
+        // The locale data for the most recently used locale, to save looking it up by
+        // language tag every time the template is used with the same locale.
+        private volatile LocaleDataEntry lastLocaleData;
+
+        private static final class LocaleDataEntry {
+            final Locale locale;
+            final LocaleData localeData;
+
+            LocaleDataEntry(Locale locale, LocaleData localeData) {
+                this.locale = locale;
+                this.localeData = localeData;
+            }
+        }
+
+        private Template(String format, FormatToken[] tokens, int[] starts, int[] ends) {
+            this.format = format;
+            this.tokens = tokens;
+            this.starts = starts;
+            this.ends = ends;
+        }
+
+        /**
+         * Parses {@code format}, which uses the syntax described in {@link Formatter}.
+         *
+         * @throws IllegalFormatException if {@code format} can't be parsed. Errors that
+         *     depend on the arguments, such as an unknown conversion or a flag that the
+         *     conversion doesn't allow, are reported when formatting.
+         */
+        public static Template compile(String format) {
+            if (format == null) {
+                throw new NullPointerException("format == null");
+            }
+            FormatSpecifierParser fsp = new FormatSpecifierParser(format);
+            ArrayList<FormatToken> tokens = new ArrayList<FormatToken>();
+            ArrayList<Integer> bounds = new ArrayList<Integer>();
+            int length = format.length();
+            int i = 0;
+            while (i < length) {
+                int nextPercent = format.indexOf('%', i);
+                int plainTextEnd = (nextPercent == -1) ? length : nextPercent;
+                if (plainTextEnd > i) {
+                    tokens.add(null);
+                    bounds.add(i);
+                    bounds.add(plainTextEnd);
+                }
+                i = plainTextEnd;
+                if (i < length) {
+                    tokens.add(fsp.parseFormatToken(i + 1));
+                    bounds.add(i + 1);
+                    bounds.add(fsp.i);
+                    i = fsp.i;
+                }
+            }
+
+            int[] starts = new int[tokens.size()];
+            int[] ends = new int[tokens.size()];
+            for (int part = 0; part < starts.length; part++) {
+                starts[part] = bounds.get(2 * part);
+                ends[part] = bounds.get(2 * part + 1);
+            }
+            return new Template(format, tokens.toArray(new FormatToken[tokens.size()]),
+                    starts, ends);
+        }
+
+        /**
+         * Returns a shared template for {@code format} from a small cache of recently
+         * used templates, compiling it if {@code format} was recently seen before.
+         * Returns null if the cache is disabled, if this is the first time
+         * {@code format} has been seen recently, or if {@code format} can't be parsed;
+         * callers should then format with the string so that errors are reported as
+         * usual.
+         */
+        public static Template getCached(String format) {
+            if (CACHE == null) {
+                return null;
+            }
+            Template template = CACHE.getIfPresent(format);
+            if (template != null) {
+                return template;
+            }
+            int hash = format.hashCode();
+            int slot = hash & (RECENT_MISSES.length - 1);
+            if (RECENT_MISSES[slot] != hash) {
+                RECENT_MISSES[slot] = hash;
+                return null;
+            }
+            try {
+                template = compile(format);
+            } catch (IllegalFormatException e) {
+                return null;
+            }
+            CACHE.put(format, template);
+            return template;
+        }
+
+        /**
+         * Returns the format string this template was compiled from.
+         */
+        public String getFormat() {
+            return format;
+        }
+
+        /**
+         * Returns the arguments formatted with this template, localized to the
+         * user's default locale.
+         */
+        public String format(Object... args) {
+            return format(Locale.getDefault(), args);
+        }
+
+        /**
+         * Returns the arguments formatted with this template, localized to
+         * {@code locale}. A null locale means no localization.
+         */
+        public String format(Locale locale, Object... args) {
+            int bufferSize = format.length() + (args == null ? 0 : args.length * 10);
+            StringBuilder result = new StringBuilder(bufferSize);
+            new Formatter(result, locale).format(locale, this, args);
+            return result.toString();
+        }
+
+        /**
+         * Appends the arguments formatted with this template to {@code out}, localized
+         * to {@code locale}. A null locale means no localization.
+         *
+         * @return {@code out}.
+         * @throws IOException if {@code out} throws.
+         */
+        public <A extends Appendable> A formatTo(A out, Locale locale, Object... args)
+                throws IOException {
+            if (out == null) {
+                throw new NullPointerException("out == null");
+            }
+            Formatter formatter = new Formatter(out, locale);
+            formatter.format(locale, this, args);
+            if (formatter.lastIOException != null) {
+                throw formatter.lastIOException;
+            }
+            return out;
+        }
+
+        private LocaleData getLocaleData(Locale locale) {
+            LocaleDataEntry entry = lastLocaleData;
+            if (entry == null || entry.locale != locale) {
+                entry = new LocaleDataEntry(locale, LocaleData.get(locale));
+                lastLocaleData = entry;
+            }
+            return entry.localeData;
+        }
+
+        @Override public String toString() {
+            return format;
+        }
+    }
+
     // User-settable parameters.
     private Appendable out;
     private Locale locale;
@@ -553,6 +753,8 @@ public final class Formatter implements Closeable, Flushable {
     private FormatToken formatToken;
     private IOException lastIOException;
     private LocaleData localeData;
+    // This thread's CachedDecimalFormat, looked up at most once per call to format.
+    private CachedDecimalFormat threadDecimalFormat;
 
     private static class CachedDecimalFormat {
         public NativeDecimalFormat decimalFormat;
@@ -591,7 +793,10 @@ public final class Formatter implements Closeable, Flushable {
      * This means we get to reuse the peer in cases like "x=%.2f y=%.2f".
      */
     private NativeDecimalFormat getDecimalFormat(String pattern) {
-        return cachedDecimalFormat.get().update(localeData, pattern);
+        if (threadDecimalFormat == null) {
+            threadDecimalFormat = cachedDecimalFormat.get();
+        }
+        return threadDecimalFormat.update(localeData, pattern);
     }
 
     /**
@@ -1042,6 +1247,20 @@ public final class Formatter implements Closeable, Flushable {
             doFormat(format, args);
         } finally {
             this.locale = originalLocale;
+            this.threadDecimalFormat = null;
+        }
+        return this;
+    }
+
+    private Formatter format(Locale l, Template template, Object... args) {
+        Locale originalLocale = locale;
+        try {
+            this.locale = (l == null ? Locale.US : l);
+            this.localeData = template.getLocaleData(locale);
+            doFormat(template, args);
+        } finally {
+            this.locale = originalLocale;
+            this.threadDecimalFormat = null;
         }
         return this;
     }
@@ -1073,7 +1292,8 @@ public final class Formatter implements Closeable, Flushable {
                 Object argument = null;
                 if (token.requireArgument()) {
                     int index = token.getArgIndex() == FormatToken.UNSET ? currentObjectIndex++ : token.getArgIndex();
-                    argument = getArgument(args, index, fsp, lastArgument, hasLastArgumentSet);
+                    argument = getArgument(args, index, format, fsp.startIndex, fsp.i,
+                            lastArgument, hasLastArgumentSet);
                     lastArgument = argument;
                     hasLastArgumentSet = true;
                 }
@@ -1088,6 +1308,47 @@ public final class Formatter implements Closeable, Flushable {
         }
     }
 
+    private void doFormat(Template template, Object... args) {
+        checkNotClosed();
+
+        String format = template.format;
+        FormatToken token = null;
+        int currentObjectIndex = 0;
+        Object lastArgument = null;
+        boolean hasLastArgumentSet = false;
+
+        for (int part = 0; part < template.tokens.length; part++) {
+            int start = template.starts[part];
+            int end = template.ends[part];
+            if (template.tokens[part] == null) {
+                outputCharSequence(format, start, end);
+                continue;
+            }
+
+            // transform adjusts the token's width, precision and flags for some
+            // conversions, so work on a copy of the compiled token.
+            if (token == null) {
+                token = new FormatToken();
+            }
+            token.copyFrom(template.tokens[part]);
+
+            Object argument = null;
+            if (token.requireArgument()) {
+                int index = token.getArgIndex() == FormatToken.UNSET ? currentObjectIndex++ : token.getArgIndex();
+                argument = getArgument(args, index, format, start, end,
+                        lastArgument, hasLastArgumentSet);
+                lastArgument = argument;
+                hasLastArgumentSet = true;
+            }
+
+            CharSequence substitution = transform(token, argument);
+            // The substitution is null if we called Formattable.formatTo.
+            if (substitution != null) {
+                outputCharSequence(substitution, 0, substitution.length());
+            }
+        }
+    }
+
     // Fixes http://code.google.com/p/android/issues/detail?id=1767.
     private void outputCharSequence(CharSequence cs, int start, int end) {
         try {
@@ -1097,8 +1358,8 @@ public final class Formatter implements Closeable, Flushable {
         }
     }
 
-    private Object getArgument(Object[] args, int index, FormatSpecifierParser fsp,
-            Object lastArgument, boolean hasLastArgumentSet) {
+    private Object getArgument(Object[] args, int index, String format, int specifierStart,
+            int specifierEnd, Object lastArgument, boolean hasLastArgumentSet) {
         if (index == FormatToken.LAST_ARGUMENT_INDEX && !hasLastArgumentSet) {
             throw new MissingFormatArgumentException("<");
         }
@@ -1108,7 +1369,7 @@ public final class Formatter implements Closeable, Flushable {
         }
 
         if (index >= args.length) {
-            throw new MissingFormatArgumentException(fsp.getFormatSpecifierText());
+            throw new MissingFormatArgumentException(format.substring(specifierStart, specifierEnd));
         }
 
         if (index == FormatToken.LAST_ARGUMENT_INDEX) {
@@ -1153,6 +1414,24 @@ public final class Formatter implements Closeable, Flushable {
 
         private StringBuilder strFlags;
 
+        // Copies everything parsed from a format specifier. strFlags is shared because
+        // it isn't modified after parsing.
+        void copyFrom(FormatToken other) {
+            argIndex = other.argIndex;
+            flagComma = other.flagComma;
+            flagMinus = other.flagMinus;
+            flagParenthesis = other.flagParenthesis;
+            flagPlus = other.flagPlus;
+            flagSharp = other.flagSharp;
+            flagSpace = other.flagSpace;
+            flagZero = other.flagZero;
+            conversionType = other.conversionType;
+            dateSuffix = other.dateSuffix;
+            precision = other.precision;
+            width = other.width;
+            strFlags = other.strFlags;
+        }
+
         // Tests whether there were no flags, no width, and no precision specified.
         boolean isDefault() {
             return !flagComma && !flagMinus && !flagParenthesis && !flagPlus && !flagSharp &&
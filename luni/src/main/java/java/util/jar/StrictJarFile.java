@@ -25,6 +25,8 @@ import java.security.cert.Certificate;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.zip.Inflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -47,6 +49,8 @@ public final class StrictJarFile {
     // NOTE: It's possible to share a file descriptor with the native
     // code, at the cost of some additional complexity.
     private final RandomAccessFile raf;
+    // Keeps raf open while entry streams read from it. See ZipFile.RAFStream.
+    private final ReadWriteLock rafLock = new ReentrantReadWriteLock();
 
     private final Manifest manifest;
     private final JarVerifier verifier;
@@ -181,18 +185,24 @@ public final class StrictJarFile {
             guard.close();
 
             nativeClose(nativeHandle);
-            IoUtils.closeQuietly(raf);
+            rafLock.writeLock().lock();
+            try {
+                IoUtils.closeQuietly(raf);
+            } finally {
+                rafLock.writeLock().unlock();
+            }
             closed = true;
         }
     }
 
     private InputStream getZipInputStream(ZipEntry ze) {
         if (ze.getMethod() == ZipEntry.STORED) {
-            return new ZipFile.RAFStream(raf, ze.getDataOffset(),
+            return new ZipFile.RAFStream(raf, rafLock, ze.getDataOffset(),
                     ze.getDataOffset() + ze.getSize());
         } else {
             final ZipFile.RAFStream wrapped = new ZipFile.RAFStream(
-                    raf, ze.getDataOffset(), ze.getDataOffset() + ze.getCompressedSize());
+                    raf, rafLock, ze.getDataOffset(),
+                    ze.getDataOffset() + ze.getCompressedSize());
 
             int bufSize = Math.max(1024, (int) Math.min(ze.getSize(), 65535L));
             return new ZipFile.ZipInflaterInputStream(wrapped, new Inflater(true), bufSize, ze);
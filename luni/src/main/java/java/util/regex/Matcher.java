@@ -16,6 +16,8 @@
 
 package java.util.regex;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * The result of applying a {@code Pattern} to a given input. See {@link Pattern} for
  * example uses.
@@ -27,6 +29,23 @@ public final class Matcher implements MatchResult {
      */
     private Pattern pattern;
 
+    /**
+     * The native peer. Only null after {@link #release}.
+     */
+    private Peer peer;
+
+    /**
+     * True if this matcher's creator calls {@link #release} when it's done with it.
+     * Otherwise the pattern tracks this matcher so that the peer can be reused once
+     * this matcher is unreachable.
+     */
+    private final boolean releasedByCreator;
+
+    /**
+     * The pattern's reference to this matcher and its peer, or null if untracked.
+     */
+    private Pattern.MatcherPeerRef peerRef;
+
     /**
      * The address of the native peer.
      * Uses of this must be manually synchronized to avoid native crashes.
@@ -86,6 +105,15 @@ public final class Matcher implements MatchResult {
      *            the input to use.
      */
     Matcher(Pattern pattern, CharSequence input) {
+        this(pattern, input, false);
+    }
+
+    /**
+     * Creates a matcher as above. If {@code releasedByCreator} is true, the caller must
+     * call {@link #release} when it's done with the matcher.
+     */
+    Matcher(Pattern pattern, CharSequence input, boolean releasedByCreator) {
+        this.releasedByCreator = releasedByCreator;
         usePattern(pattern);
         reset(input);
     }
@@ -228,14 +256,18 @@ public final class Matcher implements MatchResult {
             throw new IllegalArgumentException("pattern == null");
         }
 
+        Pattern oldPattern = this.pattern;
         this.pattern = pattern;
 
         synchronized (this) {
-            if (address != 0) {
-                closeImpl(address);
-                address = 0; // In case openImpl throws.
+            if (peer != null) {
+                releasePeer(oldPattern); // Clears peer in case openImpl throws.
+            }
+            peer = pattern.acquireMatcherPeer();
+            address = peer.address;
+            if (!releasedByCreator) {
+                peerRef = pattern.trackMatcherPeer(this, peer);
             }
-            address = openImpl(pattern.address);
         }
 
         if (input != null) {
@@ -521,13 +553,60 @@ public final class Matcher implements MatchResult {
         }
     }
 
-    @Override protected void finalize() throws Throwable {
-        try {
-            synchronized (this) {
+    /**
+     * Returns this matcher's native peer to its pattern for reuse by another matcher.
+     * Used by the convenience methods that create a matcher internally; the matcher
+     * must not be used again.
+     */
+    void release() {
+        synchronized (this) {
+            if (peer != null) {
+                releasePeer(pattern);
+            }
+        }
+    }
+
+    /**
+     * Gives the peer back to {@code owner}, the pattern it came from. Must be called
+     * with this matcher's lock held.
+     */
+    private void releasePeer(Pattern owner) {
+        if (peerRef != null) {
+            owner.untrackMatcherPeer(peerRef);
+            peerRef = null;
+        }
+        owner.releaseMatcherPeer(peer);
+        peer = null;
+        address = 0;
+    }
+
+    /**
+     * Owns a native ICU RegexMatcher. Peers are pooled by their pattern (see
+     * {@link Pattern#acquireMatcherPeer}), so this rather than {@code Matcher} has the
+     * finalizer: a short-lived matcher using a pooled peer is an ordinary object.
+     * The finalizer only runs for peers that their pattern isn't holding for reuse.
+     *
+     * <p>Every use of a peer's address is in a block synchronized on its matcher, which
+     * keeps the matcher reachable, and so the peer out of another matcher's hands,
+     * until the native call returns.
+     */
+    static final class Peer {
+        /** The number of native matchers ever opened, for tests. */
+        static final AtomicLong openCount = new AtomicLong();
+
+        final long address;
+
+        Peer(Pattern pattern) {
+            address = openImpl(pattern.address);
+            openCount.incrementAndGet();
+        }
+
+        @Override protected void finalize() throws Throwable {
+            try {
                 closeImpl(address);
+            } finally {
+                super.finalize();
             }
-        } finally {
-            super.finalize();
         }
     }
 
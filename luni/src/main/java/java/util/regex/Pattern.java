@@ -19,6 +19,9 @@ package java.util.regex;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.ReferenceQueue;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Patterns are compiled regular expressions. In many cases, convenience methods such as
@@ -287,6 +290,51 @@ public final class Pattern implements Serializable {
 
     transient long address;
 
+    /** The number of idle native matchers each pattern keeps for reuse. */
+    private static final int MATCHER_PEER_POOL_SIZE = 4;
+
+    /**
+     * Idle native matchers for this pattern. Empty slots are null. Matchers created
+     * by the convenience methods return their peers here when they're done.
+     */
+    private transient AtomicReferenceArray<Matcher.Peer> matcherPeers;
+
+    /**
+     * The most matchers returned by {@link #matcher} that each pattern tracks, and so
+     * the most native matchers it holds onto for reuse once those matchers are
+     * unreachable. Peers of untracked matchers are finalized instead.
+     */
+    private static final int MAX_TRACKED_MATCHERS = 256;
+
+    /**
+     * Receives the tracked matchers that have become unreachable. Their peers are
+     * reused by the next matchers for this pattern.
+     */
+    private transient ReferenceQueue<Matcher> abandonedMatchers;
+
+    /**
+     * The head of the list of tracked matchers, which keeps their references
+     * reachable until they're enqueued. Also guards the list and trackedMatcherCount.
+     */
+    private transient MatcherPeerRef trackedMatchers;
+    private transient int trackedMatcherCount;
+
+    /**
+     * Tracks a matcher returned by {@link #matcher} and the native peer it's using. The
+     * matcher doesn't know when the caller is done with it, so its peer is reused once
+     * the matcher itself is unreachable.
+     */
+    static final class MatcherPeerRef extends PhantomReference<Matcher> {
+        final Matcher.Peer peer;
+        MatcherPeerRef previous;
+        MatcherPeerRef next;
+
+        MatcherPeerRef(Matcher matcher, Matcher.Peer peer, ReferenceQueue<Matcher> queue) {
+            super(matcher, queue);
+            this.peer = peer;
+        }
+    }
+
     /**
      * Returns a {@link Matcher} for this pattern applied to the given {@code input}.
      * The {@code Matcher} can be used to match the {@code Pattern} against the
@@ -409,6 +457,79 @@ public final class Pattern implements Serializable {
         int icuFlags = flags & (CASE_INSENSITIVE | COMMENTS | MULTILINE | DOTALL | UNIX_LINES);
 
         address = compileImpl(icuPattern, icuFlags);
+        matcherPeers = new AtomicReferenceArray<Matcher.Peer>(MATCHER_PEER_POOL_SIZE);
+        abandonedMatchers = new ReferenceQueue<Matcher>();
+        trackedMatchers = new MatcherPeerRef(null, null, null);
+        trackedMatchers.previous = trackedMatchers;
+        trackedMatchers.next = trackedMatchers;
+    }
+
+    /**
+     * Returns an idle native matcher for this pattern, or a new one if there are none.
+     */
+    Matcher.Peer acquireMatcherPeer() {
+        for (int i = 0; i < MATCHER_PEER_POOL_SIZE; ++i) {
+            Matcher.Peer peer = matcherPeers.get(i);
+            if (peer != null && matcherPeers.compareAndSet(i, peer, null)) {
+                return peer;
+            }
+        }
+        MatcherPeerRef abandoned = (MatcherPeerRef) abandonedMatchers.poll();
+        if (abandoned != null) {
+            unlink(abandoned);
+            return abandoned.peer;
+        }
+        return new Matcher.Peer(this);
+    }
+
+    /**
+     * Starts tracking {@code matcher}, which was returned by {@link #matcher} and is
+     * using {@code peer}, so that the peer can be reused once the matcher is unreachable.
+     * Returns null if this pattern is already tracking as many matchers as it may.
+     */
+    MatcherPeerRef trackMatcherPeer(Matcher matcher, Matcher.Peer peer) {
+        synchronized (trackedMatchers) {
+            if (trackedMatcherCount >= MAX_TRACKED_MATCHERS) {
+                return null;
+            }
+            MatcherPeerRef ref = new MatcherPeerRef(matcher, peer, abandonedMatchers);
+            ref.previous = trackedMatchers;
+            ref.next = trackedMatchers.next;
+            ref.next.previous = ref;
+            trackedMatchers.next = ref;
+            trackedMatcherCount++;
+            return ref;
+        }
+    }
+
+    /**
+     * Stops tracking a matcher that is giving its peer back itself.
+     */
+    void untrackMatcherPeer(MatcherPeerRef ref) {
+        ref.clear();
+        unlink(ref);
+    }
+
+    private void unlink(MatcherPeerRef ref) {
+        synchronized (trackedMatchers) {
+            ref.previous.next = ref.next;
+            ref.next.previous = ref.previous;
+            ref.previous = null;
+            ref.next = null;
+            trackedMatcherCount--;
+        }
+    }
+
+    /**
+     * Makes {@code peer}, which must have come from {@link #acquireMatcherPeer}, available
+     * for reuse. If the pool is full, the peer is left to be finalized.
+     */
+    void releaseMatcherPeer(Matcher.Peer peer) {
+        for (int i = 0; i < MATCHER_PEER_POOL_SIZE; ++i) {
+            if (matcherPeers.get(i) == null && matcherPeers.compareAndSet(i, null, peer)) {
+                return;
+            }
+        }
     }
 
     /**
@@ -421,7 +542,12 @@ public final class Pattern implements Serializable {
      * @see Matcher#matches()
      */
     public static boolean matches(String regularExpression, CharSequence input) {
-        return new Matcher(new Pattern(regularExpression, 0), input).matches();
+        Matcher matcher = new Matcher(PatternCache.compile(regularExpression), input, true);
+        try {
+            return matcher.matches();
+        } finally {
+            matcher.release();
+        }
     }
 
     /**
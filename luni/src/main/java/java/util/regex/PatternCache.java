@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package java.util.regex;
+
+import libcore.util.ConcurrentLruCache;
+
+/**
+ * Caches recently compiled patterns for the {@code String} convenience methods
+ * ({@code matches}, {@code replaceAll}, {@code replaceFirst} and {@code split}) and
+ * {@link Pattern#matches}, which would otherwise compile the same regular expression
+ * on every call. Patterns are immutable, so they can be shared freely. The
+ * {@code replaceAll} and {@code replaceFirst} helpers also return their matcher's native
+ * peer to the pattern when they're done with it.
+ *
+ * <p>The number of cached patterns can be set with the system property
+ * {@code libcore.regex.patterncache.size}; zero disables the cache.
+ *
+ * @hide
+ */
+public final class PatternCache {
+    private static final int DEFAULT_SIZE = 32;
+
+    /** The cache, or null if caching is disabled. */
+    private static final ConcurrentLruCache<Key, Pattern> CACHE;
+    static {
+        int size = Integer.getInteger("libcore.regex.patterncache.size", DEFAULT_SIZE);
+        CACHE = (size > 0) ? new ConcurrentLruCache<Key, Pattern>(size) : null;
+    }
+
+    private static final class Key {
+        private final String regularExpression;
+        private final int flags;
+
+        Key(String regularExpression, int flags) {
+            this.regularExpression = regularExpression;
+            this.flags = flags;
+        }
+
+        @Override public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key lhs = (Key) o;
+            return flags == lhs.flags && regularExpression.equals(lhs.regularExpression);
+        }
+
+        @Override public int hashCode() {
+            return 31 * regularExpression.hashCode() + flags;
+        }
+    }
+
+    private PatternCache() {
+    }
+
+    /**
+     * Returns a compiled pattern equivalent to {@code Pattern.compile(regularExpression)},
+     * which may be shared with other callers.
+     */
+    public static Pattern compile(String regularExpression) {
+        return compile(regularExpression, 0);
+    }
+
+    /**
+     * Returns a compiled pattern equivalent to
+     * {@code Pattern.compile(regularExpression, flags)}, which may be shared with other
+     * callers.
+     */
+    public static Pattern compile(String regularExpression, int flags) {
+        if (CACHE == null || regularExpression == null) {
+            return Pattern.compile(regularExpression, flags);
+        }
+        Key key = new Key(regularExpression, flags);
+        Pattern result = CACHE.getIfPresent(key);
+        if (result == null) {
+            result = Pattern.compile(regularExpression, flags);
+            CACHE.put(key, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of native matchers that have been opened, for testing that
+     * they're reused.
+     */
+    public static long matcherPeersOpened() {
+        return Matcher.Peer.openCount.get();
+    }
+
+    /**
+     * Equivalent to {@code input.replaceAll(regularExpression, replacement)}.
+     */
+    public static String replaceAll(String input, String regularExpression, String replacement) {
+        Matcher matcher = new Matcher(compile(regularExpression), input, true);
+        try {
+            return matcher.replaceAll(replacement);
+        } finally {
+            matcher.release();
+        }
+    }
+
+    /**
+     * Equivalent to {@code input.replaceFirst(regularExpression, replacement)}.
+     */
+    public static String replaceFirst(String input, String regularExpression,
+            String replacement) {
+        Matcher matcher = new Matcher(compile(regularExpression), input, true);
+        try {
+            return matcher.replaceFirst(replacement);
+        } finally {
+            matcher.release();
+        }
+    }
+}
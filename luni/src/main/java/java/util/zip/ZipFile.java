@@ -17,22 +17,28 @@
 
 package java.util.zip;
 
+import android.system.ErrnoException;
 import dalvik.system.CloseGuard;
-import java.io.BufferedInputStream;
 import java.io.Closeable;
 import java.io.DataInputStream;
 import java.io.File;
+import java.io.FileDescriptor;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Enumeration;
-import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import libcore.io.BufferIterator;
 import libcore.io.HeapBufferIterator;
 import libcore.io.IoUtils;
+import libcore.io.Libcore;
 import libcore.io.Streams;
 
 /**
@@ -40,6 +46,16 @@ import libcore.io.Streams;
  * the zip file's central directory up front (from the constructor), but if you're using
  * {@link #getEntry} to look up multiple files by name, you get the benefit of this index.
  *
+ * <p>The index is compact: the raw central directory is kept along with a hash table of
+ * entry name bytes to central directory records, and {@code ZipEntry} objects are only
+ * created when requested by {@link #getEntry} or {@link #entries}. Each call returns a
+ * new {@code ZipEntry}.
+ *
+ * <p>A zip file opened with the (hidden) {@code OPEN_MAPPED} flag is memory-mapped: the
+ * central directory is parsed from the mapping, entry streams read from it without system
+ * calls, and the data of STORED entries can be accessed in place with
+ * {@code getStoredEntryBuffer}.
+ *
  * <p>If you only want to iterate through all the files (using {@link #entries()}, you should
  * consider {@link ZipInputStream}, which provides stream-like read access to a zip file and
  * has a lower up-front cost because you don't pay to build an in-memory index.
@@ -95,13 +111,58 @@ public class ZipFile implements Closeable, ZipConstants {
      */
     public static final int OPEN_DELETE = 4;
 
+    /**
+     * Memory-map the zip file. Files too large to be mapped are read normally.
+     *
+     * @hide
+     */
+    public static final int OPEN_MAPPED = 8;
+
     private final String filename;
 
     private File fileToDeleteOnClose;
 
     private RandomAccessFile raf;
 
-    private final LinkedHashMap<String, ZipEntry> entries = new LinkedHashMap<String, ZipEntry>();
+    /**
+     * Held for reading by entry streams while they use {@code raf}'s file descriptor, and for
+     * writing while closing it, so that a stream can't read a file that reused the descriptor.
+     */
+    private final ReadWriteLock rafLock = new ReentrantReadWriteLock();
+
+    /**
+     * A read-only mapping of the whole file if this zip file was opened with
+     * {@code OPEN_MAPPED}, or null. The mapping is released by the GC once it
+     * and all buffers returned by {@link #getStoredEntryBuffer} are unreachable.
+     */
+    private ByteBuffer mappedBuffer;
+
+    /**
+     * The central directory records, little-endian. Either a copy of the central
+     * directory on the heap or, for mapped zip files, a view of the mapping.
+     */
+    private ByteBuffer centralDir;
+
+    /**
+     * True if this is a zip64 archive, in which case entries may have zip64 extended info.
+     */
+    private boolean isZip64;
+
+    /**
+     * The offset in centralDir of each entry's record, in the order they appear in the file.
+     */
+    private int[] entryOffsets;
+
+    /**
+     * The {@link String#hashCode} of each entry's decoded name, parallel to entryOffsets.
+     */
+    private int[] entryHashes;
+
+    /**
+     * An open-addressed hash table, keyed by the hash of each entry's decoded name, whose
+     * non-zero slots hold an index into entryOffsets plus one. Its length is a power of two.
+     */
+    private int[] entryTable;
 
     private String comment;
 
@@ -156,7 +217,7 @@ public class ZipFile implements Closeable, ZipConstants {
      */
     public ZipFile(File file, int mode) throws IOException {
         filename = file.getPath();
-        if (mode != OPEN_READ && mode != (OPEN_READ | OPEN_DELETE)) {
+        if ((mode & ~(OPEN_DELETE | OPEN_MAPPED)) != OPEN_READ) {
             throw new IllegalArgumentException("Bad mode: " + mode);
         }
 
@@ -172,6 +233,12 @@ public class ZipFile implements Closeable, ZipConstants {
         // Make sure to close the RandomAccessFile if reading the central directory fails.
         boolean mustCloseFile = true;
         try {
+            long length = raf.length();
+            if ((mode & OPEN_MAPPED) != 0 && length <= Integer.MAX_VALUE) {
+                mappedBuffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length)
+                        .order(ByteOrder.LITTLE_ENDIAN);
+            }
+
             readCentralDir();
 
             // Read succeeded so do not close the underlying RandomAccessFile.
@@ -211,9 +278,13 @@ public class ZipFile implements Closeable, ZipConstants {
 
         RandomAccessFile localRaf = raf;
         if (localRaf != null) { // Only close initialized instances
-            synchronized (localRaf) {
+            rafLock.writeLock().lock();
+            try {
                 raf = null;
+                mappedBuffer = null;
                 localRaf.close();
+            } finally {
+                rafLock.writeLock().unlock();
             }
             if (fileToDeleteOnClose != null) {
                 fileToDeleteOnClose.delete();
@@ -240,17 +311,21 @@ public class ZipFile implements Closeable, ZipConstants {
      */
     public Enumeration<? extends ZipEntry> entries() {
         checkNotClosed();
-        final Iterator<ZipEntry> iterator = entries.values().iterator();
 
         return new Enumeration<ZipEntry>() {
+            private int index = 0;
+
             public boolean hasMoreElements() {
                 checkNotClosed();
-                return iterator.hasNext();
+                return index < entryOffsets.length;
             }
 
             public ZipEntry nextElement() {
                 checkNotClosed();
-                return iterator.next();
+                if (index >= entryOffsets.length) {
+                    throw new NoSuchElementException();
+                }
+                return entryAt(entryOffsets[index++]);
             }
         };
     }
@@ -278,13 +353,58 @@ public class ZipFile implements Closeable, ZipConstants {
             throw new NullPointerException("entryName == null");
         }
 
-        ZipEntry ze = entries.get(entryName);
+        ZipEntry ze = findEntry(entryName);
         if (ze == null) {
-            ze = entries.get(entryName + "/");
+            ze = findEntry(entryName + "/");
         }
         return ze;
     }
 
+    private ZipEntry findEntry(String entryName) {
+        // Names are compared as the Strings ZipEntry exposes, not as raw bytes, so that
+        // entries whose names aren't valid UTF-8 can still be found by their own name.
+        int hash = entryName.hashCode();
+        int mask = entryTable.length - 1;
+        for (int i = spread(hash) & mask; entryTable[i] != 0; i = (i + 1) & mask) {
+            int index = entryTable[i] - 1;
+            if (entryHashes[index] == hash
+                    && entryName.equals(decodedName(centralDir, entryOffsets[index]))) {
+                return entryAt(entryOffsets[index]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates the ZipEntry for the central directory record at the given offset.
+     */
+    private ZipEntry entryAt(int offset) {
+        ByteBuffer record = centralDir.duplicate();
+        record.position(offset);
+        try {
+            return new ZipEntry(new byte[CENHDR], new ByteBufferStream(record),
+                    StandardCharsets.UTF_8, isZip64);
+        } catch (IOException e) {
+            // Every record was validated when we built the index.
+            throw new AssertionError(e);
+        }
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private static int nameLength(ByteBuffer centralDir, int recordOffset) {
+        return centralDir.getShort(recordOffset + 28) & 0xffff;
+    }
+
+    /**
+     * Returns the name of the record at the given offset, decoded as {@link ZipEntry} does.
+     */
+    private static String decodedName(ByteBuffer centralDir, int recordOffset) {
+        return new String(nameBytes(centralDir, recordOffset), StandardCharsets.UTF_8);
+    }
+
     /**
      * Returns an input stream on the data of the specified {@code ZipEntry}.
      *
@@ -302,47 +422,126 @@ public class ZipFile implements Closeable, ZipConstants {
             return null;
         }
 
-        // Create an InputStream at the right part of the file.
-        RandomAccessFile localRaf = raf;
-        synchronized (localRaf) {
-            // We don't know the entry data's start position. All we have is the
-            // position of the entry's local header.
-            // http://www.pkware.com/documents/casestudies/APPNOTE.TXT
-            RAFStream rafStream = new RAFStream(localRaf, entry.localHeaderRelOffset);
-            DataInputStream is = new DataInputStream(rafStream);
-
-            final int localMagic = Integer.reverseBytes(is.readInt());
-            if (localMagic != LOCSIG) {
-                throwZipException("Local File Header", localMagic);
+        ByteBuffer localMappedBuffer = mappedBuffer;
+        if (localMappedBuffer != null) {
+            ByteBufferStream mappedStream = new ByteBufferStream(mappedEntryData(localMappedBuffer, entry));
+            if (entry.compressionMethod == ZipEntry.STORED) {
+                return mappedStream;
+            } else {
+                int bufSize = Math.max(1024, (int) Math.min(entry.getSize(), 65535L));
+                return new ZipInflaterInputStream(mappedStream, new Inflater(true), bufSize, entry);
             }
+        }
 
-            is.skipBytes(2);
+        // Create an InputStream at the right part of the file. RAFStream uses positional
+        // reads, so streams only need rafLock to keep the shared RandomAccessFile open.
+        // We don't know the entry data's start position. All we have is the
+        // position of the entry's local header.
+        // http://www.pkware.com/documents/casestudies/APPNOTE.TXT
+        RAFStream rafStream = new RAFStream(raf, rafLock, entry.localHeaderRelOffset);
+        DataInputStream is = new DataInputStream(rafStream);
+
+        final int localMagic = Integer.reverseBytes(is.readInt());
+        if (localMagic != LOCSIG) {
+            throwZipException("Local File Header", localMagic);
+        }
 
-            // At position 6 we find the General Purpose Bit Flag.
-            int gpbf = Short.reverseBytes(is.readShort()) & 0xffff;
-            if ((gpbf & ZipFile.GPBF_UNSUPPORTED_MASK) != 0) {
-                throw new ZipException("Invalid General Purpose Bit Flag: " + gpbf);
-            }
+        is.skipBytes(2);
 
-            // Offset 26 has the file name length, and offset 28 has the extra field length.
-            // These lengths can differ from the ones in the central header.
-            is.skipBytes(18);
-            int fileNameLength = Short.reverseBytes(is.readShort()) & 0xffff;
-            int extraFieldLength = Short.reverseBytes(is.readShort()) & 0xffff;
-            is.close();
+        // At position 6 we find the General Purpose Bit Flag.
+        int gpbf = Short.reverseBytes(is.readShort()) & 0xffff;
+        if ((gpbf & ZipFile.GPBF_UNSUPPORTED_MASK) != 0) {
+            throw new ZipException("Invalid General Purpose Bit Flag: " + gpbf);
+        }
 
-            // Skip the variable-size file name and extra field data.
-            rafStream.skip(fileNameLength + extraFieldLength);
+        // Offset 26 has the file name length, and offset 28 has the extra field length.
+        // These lengths can differ from the ones in the central header.
+        is.skipBytes(18);
+        int fileNameLength = Short.reverseBytes(is.readShort()) & 0xffff;
+        int extraFieldLength = Short.reverseBytes(is.readShort()) & 0xffff;
+        is.close();
 
-            if (entry.compressionMethod == ZipEntry.STORED) {
-                rafStream.endOffset = rafStream.offset + entry.size;
-                return rafStream;
-            } else {
-                rafStream.endOffset = rafStream.offset + entry.compressedSize;
-                int bufSize = Math.max(1024, (int) Math.min(entry.getSize(), 65535L));
-                return new ZipInflaterInputStream(rafStream, new Inflater(true), bufSize, entry);
-            }
+        // Skip the variable-size file name and extra field data.
+        rafStream.skip(fileNameLength + extraFieldLength);
+
+        if (entry.compressionMethod == ZipEntry.STORED) {
+            rafStream.endOffset = rafStream.offset + entry.size;
+            return rafStream;
+        } else {
+            rafStream.endOffset = rafStream.offset + entry.compressedSize;
+            int bufSize = Math.max(1024, (int) Math.min(entry.getSize(), 65535L));
+            return new ZipInflaterInputStream(rafStream, new Inflater(true), bufSize, entry);
+        }
+    }
+
+    /**
+     * Returns a read-only buffer containing the data of the given STORED entry, or null if
+     * there is no such entry in this zip file. The buffer is a view of the memory-mapped file,
+     * so no data is copied. It remains valid after this zip file is closed.
+     *
+     * @throws ZipException if the entry isn't STORED or its local header is invalid.
+     * @throws IllegalStateException if this zip file has been closed or wasn't opened
+     *     with {@code OPEN_MAPPED}.
+     * @hide
+     */
+    public ByteBuffer getStoredEntryBuffer(ZipEntry entry) throws IOException {
+        checkNotClosed();
+        ByteBuffer localMappedBuffer = mappedBuffer;
+        if (localMappedBuffer == null) {
+            throw new IllegalStateException("Zip file not memory-mapped: " + filename);
+        }
+        entry = getEntry(entry.getName());
+        if (entry == null) {
+            return null;
+        }
+        if (entry.compressionMethod != ZipEntry.STORED) {
+            throw new ZipException("Entry not STORED: " + entry.getName());
+        }
+        return mappedEntryData(localMappedBuffer, entry);
+    }
+
+    /**
+     * Returns a read-only view of the given entry's (possibly compressed) data in the mapping.
+     */
+    private static ByteBuffer mappedEntryData(ByteBuffer mapped, ZipEntry entry)
+            throws ZipException {
+        // Don't disturb the shared buffer's position and limit.
+        ByteBuffer buffer = mapped.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+
+        // We don't know the entry data's start position. All we have is the
+        // position of the entry's local header.
+        // http://www.pkware.com/documents/casestudies/APPNOTE.TXT
+        long headerOffset = entry.localHeaderRelOffset;
+        if (headerOffset < 0 || headerOffset > buffer.limit() - LOCHDR) {
+            throw new ZipException("Local file header offset out of range: " + headerOffset);
+        }
+        int pos = (int) headerOffset;
+
+        final int localMagic = buffer.getInt(pos);
+        if (localMagic != LOCSIG) {
+            throwZipException("Local File Header", localMagic);
+        }
+
+        // At position 6 we find the General Purpose Bit Flag.
+        int gpbf = buffer.getShort(pos + 6) & 0xffff;
+        if ((gpbf & ZipFile.GPBF_UNSUPPORTED_MASK) != 0) {
+            throw new ZipException("Invalid General Purpose Bit Flag: " + gpbf);
+        }
+
+        // Offset 26 has the file name length, and offset 28 has the extra field length.
+        // These lengths can differ from the ones in the central header.
+        int fileNameLength = buffer.getShort(pos + 26) & 0xffff;
+        int extraFieldLength = buffer.getShort(pos + 28) & 0xffff;
+        long dataOffset = headerOffset + LOCHDR + fileNameLength + extraFieldLength;
+        long dataSize = (entry.compressionMethod == ZipEntry.STORED)
+                ? entry.size : entry.compressedSize;
+        if (dataSize < 0 || dataOffset + dataSize > buffer.limit()) {
+            throw new ZipException("Entry data out of range: " + entry.getName());
         }
+
+        buffer.limit((int) (dataOffset + dataSize));
+        buffer.position((int) dataOffset);
+        return buffer.slice();
     }
 
     /**
@@ -362,7 +561,7 @@ public class ZipFile implements Closeable, ZipConstants {
      */
     public int size() {
         checkNotClosed();
-        return entries.size();
+        return entryOffsets.length;
     }
 
     /**
@@ -434,26 +633,113 @@ public class ZipFile implements Closeable, ZipConstants {
             record = Zip64.parseZip64EocdRecord(raf, zip64EocdRecordOffset, record.commentLength);
         }
 
-        // Seek to the first CDE and read all entries.
-        // We have to do this now (from the constructor) rather than lazily because the
-        // public API doesn't allow us to throw IOException except from the constructor
-        // or from getInputStream.
-        RAFStream rafStream = new RAFStream(raf, record.centralDirOffset);
-        BufferedInputStream bufferedStream = new BufferedInputStream(rafStream, 4096);
-        byte[] hdrBuf = new byte[CENHDR]; // Reuse the same buffer for each entry.
-        for (long i = 0; i < record.numEntries; ++i) {
-            ZipEntry newEntry = new ZipEntry(hdrBuf, bufferedStream, StandardCharsets.UTF_8,
-                    (zip64EocdRecordOffset != -1) /* isZip64 */);
-            if (newEntry.localHeaderRelOffset >= record.centralDirOffset) {
+        // The central directory runs up to the zip64 eocd record if there is one, and
+        // to the eocd record otherwise.
+        isZip64 = (zip64EocdRecordOffset != -1);
+        long centralDirEnd = isZip64 ? zip64EocdRecordOffset : eocdOffset;
+        long centralDirSize = centralDirEnd - record.centralDirOffset;
+        if (record.centralDirOffset < 0 || centralDirSize < 0
+                || centralDirSize > Integer.MAX_VALUE) {
+            throw new ZipException("Invalid central directory offset: " + record.centralDirOffset);
+        }
+        if (mappedBuffer != null) {
+            ByteBuffer cd = mappedBuffer.duplicate();
+            cd.limit((int) centralDirEnd);
+            cd.position((int) record.centralDirOffset);
+            centralDir = cd.slice().order(ByteOrder.LITTLE_ENDIAN);
+        } else {
+            byte[] cdBytes = new byte[(int) centralDirSize];
+            raf.seek(record.centralDirOffset);
+            raf.readFully(cdBytes);
+            centralDir = ByteBuffer.wrap(cdBytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        // Index all the entries. We have to validate them now (from the constructor) rather
+        // than lazily because the public API doesn't allow us to throw IOException except
+        // from the constructor or from getInputStream.
+        buildIndex(record);
+    }
+
+    private void buildIndex(EocdRecord record) throws IOException {
+        final ByteBuffer cd = centralDir;
+        final int cdSize = cd.limit();
+        if (record.numEntries < 0 || record.numEntries > cdSize / CENHDR) {
+            throw new ZipException("Too many entries for central directory: " + record.numEntries);
+        }
+        final int entryCount = (int) record.numEntries;
+        entryOffsets = new int[entryCount];
+        entryHashes = new int[entryCount];
+        // Keep the table at most half full.
+        entryTable = new int[Integer.highestOneBit(Math.max(entryCount, 1) * 2 - 1) * 2];
+        final int mask = entryTable.length - 1;
+
+        int offset = 0;
+        for (int i = 0; i < entryCount; ++i) {
+            if (offset > cdSize - CENHDR) {
+                throw new ZipException("Central directory truncated at entry " + i);
+            }
+            int sig = cd.getInt(offset);
+            if (sig != CENSIG) {
+                throwZipException("Central Directory Entry", sig);
+            }
+            int gpbf = cd.getShort(offset + 8) & 0xffff;
+            if ((gpbf & GPBF_UNSUPPORTED_MASK) != 0) {
+                throw new ZipException("Invalid General Purpose Bit Flag: " + gpbf);
+            }
+            int nameLength = nameLength(cd, offset);
+            int extraLength = cd.getShort(offset + 30) & 0xffff;
+            int commentLength = cd.getShort(offset + 32) & 0xffff;
+            int nameOffset = offset + CENHDR;
+            int nextOffset = nameOffset + nameLength + extraLength + commentLength;
+            if (nextOffset > cdSize) {
+                throw new ZipException("Central directory truncated at entry " + i);
+            }
+            for (int j = nameOffset; j < nameOffset + nameLength; ++j) {
+                if (cd.get(j) == 0) {
+                    throw new ZipException("Filename contains NUL byte: "
+                            + Arrays.toString(nameBytes(cd, offset)));
+                }
+            }
+
+            long localHeaderRelOffset;
+            if (isZip64) {
+                // The real offset may be in the zip64 extended info, and parsing the entry
+                // also validates that.
+                localHeaderRelOffset = entryAt(offset).localHeaderRelOffset;
+            } else {
+                localHeaderRelOffset = ((long) cd.getInt(offset + 42)) & 0xffffffffL;
+            }
+            if (localHeaderRelOffset >= record.centralDirOffset) {
                 throw new ZipException("Local file header offset is after central directory");
             }
-            String entryName = newEntry.getName();
-            if (entries.put(entryName, newEntry) != null) {
-                throw new ZipException("Duplicate entry name: " + entryName);
+
+            // Distinct raw names that decode to the same String are duplicates too.
+            String name = decodedName(cd, offset);
+            int hash = name.hashCode();
+            int slot = spread(hash) & mask;
+            while (entryTable[slot] != 0) {
+                int other = entryTable[slot] - 1;
+                if (entryHashes[other] == hash
+                        && name.equals(decodedName(cd, entryOffsets[other]))) {
+                    throw new ZipException("Duplicate entry name: " + name);
+                }
+                slot = (slot + 1) & mask;
             }
+            entryTable[slot] = i + 1;
+            entryOffsets[i] = offset;
+            entryHashes[i] = hash;
+            offset = nextOffset;
         }
     }
 
+    private static byte[] nameBytes(ByteBuffer centralDir, int recordOffset) {
+        byte[] result = new byte[nameLength(centralDir, recordOffset)];
+        ByteBuffer name = centralDir.duplicate();
+        name.position(recordOffset + CENHDR);
+        name.get(result);
+        return result;
+    }
+
     private static EocdRecord parseEocdRecord(RandomAccessFile raf, long offset, boolean isZip64) throws IOException {
         raf.seek(offset);
 
@@ -500,9 +786,11 @@ public class ZipFile implements Closeable, ZipConstants {
 
     /**
      * Wrap a stream around a RandomAccessFile.  The RandomAccessFile is shared
-     * among all streams returned by getInputStream(), so we have to synchronize
-     * access to it.  (We can optimize this by adding buffering here to reduce
-     * collisions.)
+     * among all streams returned by getInputStream(), so we use positional
+     * reads (pread(2)) rather than seeking its file pointer. This lets streams
+     * on different entries of the same file be read concurrently. Each read holds
+     * the read lock of {@code closeLock}, which the owner of the RandomAccessFile
+     * must hold for writing while closing it, and fails once the file is closed.
      *
      * <p>We could support mark/reset, but we don't currently need them.
      *
@@ -510,18 +798,22 @@ public class ZipFile implements Closeable, ZipConstants {
      */
     public static class RAFStream extends InputStream {
         private final RandomAccessFile sharedRaf;
+        private final ReadWriteLock closeLock;
         private long endOffset;
         private long offset;
 
 
-        public RAFStream(RandomAccessFile raf, long initialOffset, long endOffset) {
+        public RAFStream(RandomAccessFile raf, ReadWriteLock closeLock, long initialOffset,
+                long endOffset) {
             sharedRaf = raf;
+            this.closeLock = closeLock;
             offset = initialOffset;
             this.endOffset = endOffset;
         }
 
-        public RAFStream(RandomAccessFile raf, long initialOffset) throws IOException {
-            this(raf, initialOffset, raf.length());
+        public RAFStream(RandomAccessFile raf, ReadWriteLock closeLock, long initialOffset)
+                throws IOException {
+            this(raf, closeLock, initialOffset, raf.length());
         }
 
         @Override public int available() throws IOException {
@@ -533,19 +825,28 @@ public class ZipFile implements Closeable, ZipConstants {
         }
 
         @Override public int read(byte[] buffer, int byteOffset, int byteCount) throws IOException {
-            synchronized (sharedRaf) {
-                final long length = endOffset - offset;
-                if (byteCount > length) {
-                    byteCount = (int) length;
-                }
-                sharedRaf.seek(offset);
-                int count = sharedRaf.read(buffer, byteOffset, byteCount);
-                if (count > 0) {
-                    offset += count;
-                    return count;
-                } else {
-                    return -1;
-                }
+            Arrays.checkOffsetAndCount(buffer.length, byteOffset, byteCount);
+            final long length = endOffset - offset;
+            if (byteCount > length) {
+                byteCount = (int) length;
+            }
+            if (byteCount == 0) {
+                return -1;
+            }
+            int count;
+            closeLock.readLock().lock();
+            try {
+                count = Libcore.os.pread(openFd(), buffer, byteOffset, byteCount, offset);
+            } catch (ErrnoException errnoException) {
+                throw errnoException.rethrowAsIOException();
+            } finally {
+                closeLock.readLock().unlock();
+            }
+            if (count > 0) {
+                offset += count;
+                return count;
+            } else {
+                return -1;
             }
         }
 
@@ -558,14 +859,69 @@ public class ZipFile implements Closeable, ZipConstants {
         }
 
         public int fill(Inflater inflater, int nativeEndBufSize) throws IOException {
-            synchronized (sharedRaf) {
-                int len = Math.min((int) (endOffset - offset), nativeEndBufSize);
-                int cnt = inflater.setFileInput(sharedRaf.getFD(), offset, nativeEndBufSize);
-                // setFileInput read from the file, so we need to get the OS and RAFStream back
-                // in sync...
-                skip(cnt);
-                return len;
+            int len = Math.min((int) (endOffset - offset), nativeEndBufSize);
+            // setFileInput uses a positional read, so we just need to advance our own offset.
+            int cnt;
+            closeLock.readLock().lock();
+            try {
+                cnt = inflater.setFileInput(openFd(), offset, nativeEndBufSize);
+            } finally {
+                closeLock.readLock().unlock();
+            }
+            skip(cnt);
+            return len;
+        }
+
+        /**
+         * Returns the shared file descriptor, which the caller must keep open by holding
+         * the read lock of {@code closeLock}.
+         */
+        private FileDescriptor openFd() throws IOException {
+            FileDescriptor fd = sharedRaf.getFD();
+            if (!fd.valid()) {
+                throw new IOException("Zip file closed");
+            }
+            return fd;
+        }
+    }
+
+    /**
+     * A stream over a ByteBuffer: part of the memory-mapped zip file, or of the
+     * central directory. Each stream has its own view of the underlying buffer, so
+     * streams need no synchronization.
+     */
+    static class ByteBufferStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override public int available() throws IOException {
+            return buffer.remaining();
+        }
+
+        @Override public int read() throws IOException {
+            return buffer.hasRemaining() ? (buffer.get() & 0xff) : -1;
+        }
+
+        @Override public int read(byte[] b, int byteOffset, int byteCount) throws IOException {
+            Arrays.checkOffsetAndCount(b.length, byteOffset, byteCount);
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            byteCount = Math.min(byteCount, buffer.remaining());
+            buffer.get(b, byteOffset, byteCount);
+            return byteCount;
+        }
+
+        @Override public long skip(long byteCount) throws IOException {
+            if (byteCount <= 0) {
+                return 0;
             }
+            int skipped = (int) Math.min(byteCount, buffer.remaining());
+            buffer.position(buffer.position() + skipped);
+            return skipped;
         }
     }
 
@@ -21,7 +21,7 @@ import com.ibm.icu.util.ULocale;
 
 import java.text.FieldPosition;
 import java.util.TimeZone;
-import libcore.util.BasicLruCache;
+import libcore.util.ConcurrentLruCache;
 
 import static libcore.icu.DateUtilsBridge.FORMAT_UTC;
 
@@ -32,7 +32,8 @@ public final class DateIntervalFormat {
 
   private static final FormatterCache CACHED_FORMATTERS = new FormatterCache();
 
-  static class FormatterCache extends BasicLruCache<String, com.ibm.icu.text.DateIntervalFormat> {
+  static class FormatterCache
+      extends ConcurrentLruCache<String, com.ibm.icu.text.DateIntervalFormat> {
     FormatterCache() {
       super(8);
     }
@@ -90,7 +91,7 @@ public final class DateIntervalFormat {
   private static com.ibm.icu.text.DateIntervalFormat getFormatter(String skeleton, ULocale locale,
       com.ibm.icu.util.TimeZone icuTimeZone) {
     String key = skeleton + "\t" + locale + "\t" + icuTimeZone;
-    com.ibm.icu.text.DateIntervalFormat formatter = CACHED_FORMATTERS.get(key);
+    com.ibm.icu.text.DateIntervalFormat formatter = CACHED_FORMATTERS.getIfPresent(key);
     if (formatter != null) {
       return formatter;
     }
@@ -23,7 +23,7 @@ import com.ibm.icu.text.SimpleDateFormat;
 import com.ibm.icu.util.Calendar;
 import com.ibm.icu.util.ULocale;
 
-import libcore.util.BasicLruCache;
+import libcore.util.ConcurrentLruCache;
 
 /**
  * A formatter that outputs a single date/time.
@@ -31,7 +31,7 @@ import libcore.util.BasicLruCache;
 public class DateTimeFormat {
   private static final FormatterCache CACHED_FORMATTERS = new FormatterCache();
 
-  static class FormatterCache extends BasicLruCache<String, DateFormat> {
+  static class FormatterCache extends ConcurrentLruCache<String, DateFormat> {
     FormatterCache() {
       super(8);
     }
@@ -45,7 +45,7 @@ public class DateTimeFormat {
     String skeleton = DateUtilsBridge.toSkeleton(time, flags);
     String key = skeleton + "\t" + icuLocale + "\t" + time.getTimeZone();
     synchronized(CACHED_FORMATTERS) {
-      DateFormat formatter = CACHED_FORMATTERS.get(key);
+      DateFormat formatter = CACHED_FORMATTERS.getIfPresent(key);
       if (formatter == null) {
         DateTimePatternGenerator generator = DateTimePatternGenerator.getInstance(icuLocale);
         formatter = new SimpleDateFormat(generator.getBestPattern(skeleton), icuLocale);
@@ -23,14 +23,14 @@ import java.util.LinkedHashSet;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import libcore.util.BasicLruCache;
+import libcore.util.ConcurrentLruCache;
 
 /**
  * Makes ICU data accessible to Java.
  */
 public final class ICU {
-  private static final BasicLruCache<String, String> CACHED_PATTERNS =
-      new BasicLruCache<String, String>(8);
+  private static final ConcurrentLruCache<String, String> CACHED_PATTERNS =
+      new ConcurrentLruCache<String, String>(8);
 
   private static Locale[] availableLocalesCache;
 
@@ -276,14 +276,12 @@ public final class ICU {
   public static String getBestDateTimePattern(String skeleton, Locale locale) {
     String languageTag = locale.toLanguageTag();
     String key = skeleton + "\t" + languageTag;
-    synchronized (CACHED_PATTERNS) {
-      String pattern = CACHED_PATTERNS.get(key);
-      if (pattern == null) {
-        pattern = getBestDateTimePatternNative(skeleton, languageTag);
-        CACHED_PATTERNS.put(key, pattern);
-      }
-      return pattern;
+    String pattern = CACHED_PATTERNS.getIfPresent(key);
+    if (pattern == null) {
+      pattern = getBestDateTimePatternNative(skeleton, languageTag);
+      CACHED_PATTERNS.put(key, pattern);
     }
+    return pattern;
   }
 
   private static native String getBestDateTimePatternNative(String skeleton, String languageTag);
@@ -17,7 +17,7 @@
 package libcore.icu;
 
 import java.util.Locale;
-import libcore.util.BasicLruCache;
+import libcore.util.ConcurrentLruCache;
 
 import com.ibm.icu.text.DisplayContext;
 import com.ibm.icu.util.Calendar;
@@ -52,7 +52,7 @@ public final class RelativeDateTimeFormatter {
   private static final FormatterCache CACHED_FORMATTERS = new FormatterCache();
 
   static class FormatterCache
-      extends BasicLruCache<String, com.ibm.icu.text.RelativeDateTimeFormatter> {
+      extends ConcurrentLruCache<String, com.ibm.icu.text.RelativeDateTimeFormatter> {
     FormatterCache() {
       super(8);
     }
@@ -338,7 +338,7 @@ public final class RelativeDateTimeFormatter {
       ULocale locale, com.ibm.icu.text.RelativeDateTimeFormatter.Style style,
       DisplayContext displayContext) {
     String key = locale + "\t" + style + "\t" + displayContext;
-    com.ibm.icu.text.RelativeDateTimeFormatter formatter = CACHED_FORMATTERS.get(key);
+    com.ibm.icu.text.RelativeDateTimeFormatter formatter = CACHED_FORMATTERS.getIfPresent(key);
     if (formatter == null) {
       formatter = com.ibm.icu.text.RelativeDateTimeFormatter.getInstance(
           locale, null, style, displayContext);
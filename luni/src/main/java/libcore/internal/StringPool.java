@@ -37,6 +37,10 @@ public final class StringPool {
         return true;
     }
 
+    private static boolean contentEquals(String s, String chars, int start, int length) {
+        return s.length() == length && s.regionMatches(0, chars, start, length);
+    }
+
     /**
      * Returns a string equal to {@code new String(array, start, length)}.
      */
@@ -47,11 +51,7 @@ public final class StringPool {
             hashCode = (hashCode * 31) + array[i];
         }
 
-        // Pick a bucket using Doug Lea's supplemental secondaryHash function (from HashMap)
-        hashCode ^= (hashCode >>> 20) ^ (hashCode >>> 12);
-        hashCode ^= (hashCode >>> 7) ^ (hashCode >>> 4);
-        int index = hashCode & (pool.length - 1);
-
+        int index = indexFor(hashCode);
         String pooled = pool[index];
         if (pooled != null && contentEquals(pooled, array, start, length)) {
             return pooled;
@@ -61,4 +61,35 @@ public final class StringPool {
         pool[index] = result;
         return result;
     }
+
+    /**
+     * Returns a string equal to {@code s.substring(start, start + length)}.
+     * This is useful to callers whose input is already a string, as it avoids
+     * copying the input to a char array first.
+     */
+    public String get(String s, int start, int length) {
+        // Compute the same hash as get(char[], int, int) does
+        int hashCode = 0;
+        for (int i = start; i < start + length; i++) {
+            hashCode = (hashCode * 31) + s.charAt(i);
+        }
+
+        int index = indexFor(hashCode);
+        String pooled = pool[index];
+        if (pooled != null && contentEquals(pooled, s, start, length)) {
+            return pooled;
+        }
+
+        // substring copies its chars, so the result doesn't retain the whole of s
+        String result = s.substring(start, start + length);
+        pool[index] = result;
+        return result;
+    }
+
+    private int indexFor(int hashCode) {
+        // Pick a bucket using Doug Lea's supplemental secondaryHash function (from HashMap)
+        hashCode ^= (hashCode >>> 20) ^ (hashCode >>> 12);
+        hashCode ^= (hashCode >>> 7) ^ (hashCode >>> 4);
+        return hashCode & (pool.length - 1);
+    }
 }
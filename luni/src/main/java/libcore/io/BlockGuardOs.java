@@ -112,6 +112,14 @@ public class BlockGuardOs extends ForwardingOs {
         os.connect(fd, address, port);
     }
 
+    @Override public int epoll_wait(FileDescriptor epfd, int[] fds, int[] events, int timeoutMs) throws ErrnoException {
+        // As with poll, 0 means "return immediately", which shouldn't be subject to BlockGuard.
+        if (timeoutMs != 0) {
+            BlockGuard.getThreadPolicy().onNetwork();
+        }
+        return os.epoll_wait(epfd, fds, events, timeoutMs);
+    }
+
     @Override public void fchmod(FileDescriptor fd, int mode) throws ErrnoException {
         BlockGuard.getThreadPolicy().onWriteToDisk();
         os.fchmod(fd, mode);
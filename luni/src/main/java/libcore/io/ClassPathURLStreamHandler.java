@@ -28,6 +28,7 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLStreamHandler;
+import java.util.Iterator;
 import java.util.jar.JarFile;
 import java.util.jar.StrictJarFile;
 import java.util.zip.ZipEntry;
@@ -123,6 +124,14 @@ public class ClassPathURLStreamHandler extends JarHandler {
     }
   }
 
+  /**
+   * Returns an iterator over the entries of the jar file's central directory, or {@code null} if
+   * this handler serves a directory.
+   */
+  public Iterator<ZipEntry> entriesOrNull() throws IOException {
+    return (strictJarFile != null) ? strictJarFile.iterator() : null;
+  }
+
   @Override
   protected URLConnection openConnection(URL url) throws IOException {
     return new ClassPathURLConnection(url);
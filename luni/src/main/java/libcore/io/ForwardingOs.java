@@ -63,6 +63,10 @@ public class ForwardingOs implements Os {
     public FileDescriptor dup(FileDescriptor oldFd) throws ErrnoException { return os.dup(oldFd); }
     public FileDescriptor dup2(FileDescriptor oldFd, int newFd) throws ErrnoException { return os.dup2(oldFd, newFd); }
     public String[] environ() { return os.environ(); }
+    public FileDescriptor epoll_create1(int flags) throws ErrnoException { return os.epoll_create1(flags); }
+    public void epoll_ctl(FileDescriptor epfd, int op, FileDescriptor fd, int events) throws ErrnoException { os.epoll_ctl(epfd, op, fd, events); }
+    public int epoll_wait(FileDescriptor epfd, int[] fds, int[] events, int timeoutMs) throws ErrnoException { return os.epoll_wait(epfd, fds, events, timeoutMs); }
+    public FileDescriptor eventfd(int initval, int flags) throws ErrnoException { return os.eventfd(initval, flags); }
     public void execv(String filename, String[] argv) throws ErrnoException { os.execv(filename, argv); }
     public void execve(String filename, String[] argv, String[] envp) throws ErrnoException { os.execve(filename, argv, envp); }
     public void fchmod(FileDescriptor fd, int mode) throws ErrnoException { os.fchmod(fd, mode); }
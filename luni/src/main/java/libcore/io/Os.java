@@ -54,6 +54,11 @@ public interface Os {
     public FileDescriptor dup(FileDescriptor oldFd) throws ErrnoException;
     public FileDescriptor dup2(FileDescriptor oldFd, int newFd) throws ErrnoException;
     public String[] environ();
+    public FileDescriptor epoll_create1(int flags) throws ErrnoException;
+    public void epoll_ctl(FileDescriptor epfd, int op, FileDescriptor fd, int events) throws ErrnoException;
+    /* Fills in the first elements of fds and events with the ready fds and their event masks. */
+    public int epoll_wait(FileDescriptor epfd, int[] fds, int[] events, int timeoutMs) throws ErrnoException;
+    public FileDescriptor eventfd(int initval, int flags) throws ErrnoException;
     public void execv(String filename, String[] argv) throws ErrnoException;
     public void execve(String filename, String[] argv, String[] envp) throws ErrnoException;
     public void fchmod(FileDescriptor fd, int mode) throws ErrnoException;
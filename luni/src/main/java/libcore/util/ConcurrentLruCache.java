@@ -0,0 +1,359 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An approximately least-recently-used cache for libcore, for caches that are read
+ * from many threads at once.
+ *
+ * <p>Cache hits don't take a lock or write to any shared state beyond the entry
+ * itself: each entry has a "referenced" bit that a hit sets. Entries are evicted in
+ * insertion order, except that a referenced entry gets a second chance: its bit is
+ * cleared and it goes back to the end of the queue. Eviction is amortized constant
+ * time.
+ *
+     * <p>{@link #create} is called without holding the cache's lock, but at most once at
+ * a time for any key: threads that miss on a key that is already being created wait
+ * for that value instead of creating their own. If {@code create} itself gets the key
+ * it is creating, that nested call creates a value of its own that isn't cached.
+ */
+public class ConcurrentLruCache<K, V> {
+    private final ConcurrentHashMap<K, Node<K, V>> map;
+    private final int maxSize;
+
+    /** Guards structural changes to map, and queue. */
+    private final Object writeLock = new Object();
+
+    /** The cached entries in insertion order, with second-chance entries moved to the end. */
+    private final ArrayDeque<Node<K, V>> queue = new ArrayDeque<Node<K, V>>();
+
+    /** The creations in progress, so that each key is created once. */
+    private final ConcurrentHashMap<K, Creation<V>> creations =
+            new ConcurrentHashMap<K, Creation<V>>();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    /** Written with writeLock held. */
+    private volatile long evictionCount;
+
+    private static final class Node<K, V> {
+        final K key;
+        /** Written with writeLock held. */
+        volatile V value;
+        volatile boolean referenced;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /** A value being created, and the thread that is creating it. */
+    private static final class Creation<V> extends FutureTask<V> {
+        final Thread creatingThread = Thread.currentThread();
+
+        Creation(Callable<V> callable) {
+            super(callable);
+        }
+    }
+
+    public ConcurrentLruCache(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize <= 0");
+        }
+        this.maxSize = maxSize;
+        this.map = new ConcurrentHashMap<K, Node<K, V>>();
+    }
+
+    /**
+     * Returns the value for {@code key} if it exists in the cache or can be
+     * created by {@code #create}. A cached value is marked as referenced, so
+     * that it survives the next eviction pass. This returns null if a value is
+     * not cached and cannot be created.
+     */
+    public final V get(final K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+
+        Node<K, V> node = map.get(key);
+        if (node != null) {
+            hit(node);
+            hitCount.increment();
+            return node.value;
+        }
+        missCount.increment();
+
+        Creation<V> creation = new Creation<V>(new Callable<V>() {
+            @Override public V call() {
+                return createAndCache(key);
+            }
+        });
+        Creation<V> existing = creations.putIfAbsent(key, creation);
+        if (existing != null) {
+            if (existing.creatingThread == Thread.currentThread()) {
+                // create() asked for its own key, perhaps from a static initializer it
+                // triggered. Waiting would deadlock, so hand back an uncached value.
+                return create(key);
+            }
+            return await(existing);
+        }
+        try {
+            creation.run();
+        } finally {
+            creations.remove(key, creation);
+        }
+        return await(creation);
+    }
+
+    /**
+     * Returns the value for {@code key} if it is cached, counting a hit or miss
+     * like {@link #get}, but never calls {@link #create}. Caches that don't
+     * override {@code create} should use this, because a miss in {@code get}
+     * coordinates with other threads missing on the same key.
+     */
+    public final V getIfPresent(K key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+
+        Node<K, V> node = map.get(key);
+        if (node == null) {
+            missCount.increment();
+            return null;
+        }
+        hit(node);
+        hitCount.increment();
+        return node.value;
+    }
+
+    private static void hit(Node<?, ?> node) {
+        // Only write when the bit changes, so that hot entries stay shared in every cache.
+        if (!node.referenced) {
+            node.referenced = true;
+        }
+    }
+
+    private V createAndCache(K key) {
+        // The previous creation for this key may have finished since our lookup.
+        Node<K, V> node = map.get(key);
+        if (node != null) {
+            return node.value;
+        }
+
+        V created = create(key);
+        if (created == null) {
+            return null;
+        }
+
+        List<Node<K, V>> evicted;
+        synchronized (writeLock) {
+            node = map.get(key);
+            if (node != null) {
+                // Someone put a value while we were creating ours.
+                hit(node);
+                return node.value;
+            }
+            insert(new Node<K, V>(key, created));
+            evicted = trimToSize(maxSize);
+        }
+        dispatchEvicted(evicted);
+        return created;
+    }
+
+    /**
+     * Returns the result of {@code creation}, waiting uninterruptibly for it to finish.
+     */
+    private static <V> V await(FutureTask<V> creation) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return creation.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new AssertionError(cause);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Caches {@code value} for {@code key}. Replacing a value marks the entry as
+     * referenced.
+     *
+     * @return the previous value mapped by {@code key}. Although that entry is
+     *     no longer cached, it has not been passed to {@link #entryEvicted}.
+     */
+    public final V put(K key, V value) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        } else if (value == null) {
+            throw new NullPointerException("value == null");
+        }
+
+        V previous;
+        List<Node<K, V>> evicted;
+        synchronized (writeLock) {
+            Node<K, V> node = map.get(key);
+            if (node != null) {
+                previous = node.value;
+                node.value = value;
+                hit(node);
+                return previous;
+            }
+            insert(new Node<K, V>(key, value));
+            evicted = trimToSize(maxSize);
+        }
+        dispatchEvicted(evicted);
+        return null;
+    }
+
+    /**
+     * Must be called with writeLock held.
+     */
+    private void insert(Node<K, V> node) {
+        map.put(node.key, node);
+        queue.addLast(node);
+    }
+
+    /**
+     * Removes entries until at most {@code maxSize} remain, and returns them so that
+     * {@link #entryEvicted} can be called once the lock is released. Must be called
+     * with writeLock held.
+     */
+    private List<Node<K, V>> trimToSize(int maxSize) {
+        if (queue.size() <= maxSize) {
+            return null;
+        }
+        List<Node<K, V>> evicted = new ArrayList<Node<K, V>>(queue.size() - maxSize);
+        while (queue.size() > maxSize) {
+            Node<K, V> node = queue.removeFirst();
+            if (node.referenced && maxSize > 0) {
+                node.referenced = false;
+                queue.addLast(node);
+            } else {
+                map.remove(node.key);
+                evicted.add(node);
+            }
+        }
+        evictionCount += evicted.size();
+        return evicted;
+    }
+
+    private void dispatchEvicted(List<Node<K, V>> evicted) {
+        if (evicted == null) {
+            return;
+        }
+        for (Node<K, V> node : evicted) {
+            entryEvicted(node.key, node.value);
+        }
+    }
+
+    /**
+     * Called for entries that have reached the head of the eviction queue
+     * and are be removed. The default implementation does nothing.
+     */
+    protected void entryEvicted(K key, V value) {}
+
+    /**
+     * Called after a cache miss to compute a value for the corresponding key.
+     * Returns the computed value or null if no value can be computed. The
+     * default implementation returns null.
+     */
+    protected V create(K key) {
+        return null;
+    }
+
+    /**
+     * Returns a copy of the current contents of the cache, in the order they
+     * would be evicted: unreferenced entries first, then referenced ones.
+     */
+    public final Map<K, V> snapshot() {
+        Map<K, V> result = new LinkedHashMap<K, V>();
+        synchronized (writeLock) {
+            for (Node<K, V> node : queue) {
+                if (!node.referenced) {
+                    result.put(node.key, node.value);
+                }
+            }
+            for (Node<K, V> node : queue) {
+                if (node.referenced) {
+                    result.put(node.key, node.value);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Clear the cache, calling {@link #entryEvicted} on each removed entry.
+     */
+    public final void evictAll() {
+        List<Node<K, V>> evicted;
+        synchronized (writeLock) {
+            evicted = trimToSize(0);
+        }
+        dispatchEvicted(evicted);
+    }
+
+    /**
+     * Returns the number of times {@link #get} returned a cached value.
+     */
+    public final long hitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Returns the number of times {@link #get} didn't find a cached value,
+     * whether or not one was then created.
+     */
+    public final long missCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Returns the number of entries that have been evicted, including by
+     * {@link #evictAll}.
+     */
+    public final long evictionCount() {
+        return evictionCount;
+    }
+}
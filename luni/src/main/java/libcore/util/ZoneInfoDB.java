@@ -104,8 +104,8 @@ public final class ZoneInfoDB {
      * See http://b/8270865 for context.
      */
     private final static int CACHE_SIZE = 1;
-    private final BasicLruCache<String, ZoneInfo> cache =
-        new BasicLruCache<String, ZoneInfo>(CACHE_SIZE) {
+    private final ConcurrentLruCache<String, ZoneInfo> cache =
+        new ConcurrentLruCache<String, ZoneInfo>(CACHE_SIZE) {
       @Override
       protected ZoneInfo create(String id) {
           // Work out where in the big data file this time zone is.
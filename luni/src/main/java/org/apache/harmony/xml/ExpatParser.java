@@ -34,8 +34,8 @@ import org.xml.sax.SAXParseException;
 import org.xml.sax.ext.LexicalHandler;
 
 /**
- * Adapts SAX API to the Expat native XML parser. Not intended for reuse
- * across documents.
+ * Adapts SAX API to the Expat native XML parser. A parser may be used for
+ * another document after it has been {@link #reset}.
  *
  * @see org.apache.harmony.xml.ExpatReader
  */
@@ -52,12 +52,12 @@ class ExpatParser {
 
     private final Locator locator = new ExpatLocator();
 
-    private final ExpatReader xmlReader;
+    private ExpatReader xmlReader;
 
-    private final String publicId;
-    private final String systemId;
+    private String publicId;
+    private String systemId;
 
-    private final String encoding;
+    private String encoding;
 
     private final ExpatAttributes attributes = new CurrentAttributes();
 
@@ -116,6 +116,33 @@ class ExpatParser {
      */
     private native long initialize(String encoding, boolean namespacesEnabled);
 
+    /**
+     * Prepares this parser to parse a new document, reusing its native parser
+     * and the strings it has already interned. Namespace processing stays as
+     * it was when this parser was constructed. Must not be called while a
+     * document is being parsed.
+     */
+    /*package*/ void reset(String encoding, ExpatReader xmlReader,
+            String publicId, String systemId) {
+        this.encoding = encoding == null ? DEFAULT_ENCODING : encoding;
+        this.xmlReader = xmlReader;
+        this.publicId = publicId;
+        this.systemId = systemId;
+        reset(this.pointer, this.encoding);
+    }
+
+    private static native void reset(long pointer, String encoding);
+
+    /**
+     * Drops this parser's references to the last document's reader, so that
+     * an idle parser doesn't keep the reader's handlers reachable.
+     */
+    /*package*/ void detach() {
+        this.xmlReader = null;
+        this.publicId = null;
+        this.systemId = null;
+    }
+
     /**
      * Called at the start of an element.
      *
@@ -48,6 +48,22 @@ public class ExpatReader implements XMLReader {
 
     private boolean processNamespaces = true;
     private boolean processNamespacePrefixes = false;
+    private boolean parserPooling = false;
+
+    /**
+     * Idle parsers that were used by this thread, one without and one with
+     * namespace processing. Parsers are removed while in use, so a handler
+     * that parses another document from a callback gets a parser of its own.
+     */
+    private static final ThreadLocal<ExpatParser[]> idleParsers
+            = new ThreadLocal<ExpatParser[]>() {
+        @Override protected ExpatParser[] initialValue() {
+            return new ExpatParser[2];
+        }
+    };
+
+    /** Idle parsers for the current {@link #parseAll} call, or null. */
+    private ExpatParser[] batchParsers;
 
     private static final String LEXICAL_HANDLER_PROPERTY
             = "http://xml.org/sax/properties/lexical-handler";
@@ -246,6 +262,47 @@ public class ExpatReader implements XMLReader {
         this.processNamespaces = processNamespaces;
     }
 
+    /**
+     * Returns true if this reader reuses native parsers across documents.
+     *
+     * @see #setParserPoolingEnabled(boolean)
+     */
+    public boolean isParserPoolingEnabled() {
+        return parserPooling;
+    }
+
+    /**
+     * Enables or disables parser pooling. Set to false by default. If you
+     * enable pooling, each thread keeps the native Expat parser of the last
+     * document it parsed and resets it for the next document instead of
+     * allocating a new one. This speeds up parsing many small documents, but
+     * the idle parser, and the strings it interned, stay in memory for as long
+     * as the thread lives.
+     *
+     * @see #parseAll(Iterable)
+     */
+    public void setParserPoolingEnabled(boolean parserPooling) {
+        this.parserPooling = parserPooling;
+    }
+
+    /**
+     * Parses each of {@code inputs} as a separate document, reusing a single
+     * native parser for all of them whether or not parser pooling is enabled.
+     * The handlers receive {@code startDocument()} and {@code endDocument()}
+     * for each document. Parsing stops at the first document that fails.
+     */
+    public void parseAll(Iterable<InputSource> inputs) throws IOException, SAXException {
+        ExpatParser[] previous = batchParsers;
+        batchParsers = new ExpatParser[2];
+        try {
+            for (InputSource input : inputs) {
+                parse(input);
+            }
+        } finally {
+            batchParsers = previous;
+        }
+    }
+
     public void parse(InputSource input) throws IOException, SAXException {
         if (processNamespacePrefixes && processNamespaces) {
             /*
@@ -299,21 +356,57 @@ public class ExpatReader implements XMLReader {
 
     private void parse(Reader in, String publicId, String systemId)
             throws IOException, SAXException {
-        ExpatParser parser = new ExpatParser(
-                ExpatParser.CHARACTER_ENCODING,
-                this,
-                processNamespaces,
-                publicId,
-                systemId
-        );
-        parser.parseDocument(in);
+        boolean namespaces = processNamespaces;
+        ExpatParser parser = obtainParser(
+                ExpatParser.CHARACTER_ENCODING, namespaces, publicId, systemId);
+        try {
+            parser.parseDocument(in);
+        } finally {
+            recycleParser(parser, namespaces);
+        }
     }
 
     private void parse(InputStream in, String charsetName, String publicId, String systemId)
             throws IOException, SAXException {
-        ExpatParser parser =
-            new ExpatParser(charsetName, this, processNamespaces, publicId, systemId);
-        parser.parseDocument(in);
+        boolean namespaces = processNamespaces;
+        ExpatParser parser = obtainParser(charsetName, namespaces, publicId, systemId);
+        try {
+            parser.parseDocument(in);
+        } finally {
+            recycleParser(parser, namespaces);
+        }
+    }
+
+    /**
+     * Returns the pool of idle parsers to use, or null to create a new parser
+     * for every document.
+     */
+    private ExpatParser[] parserPool() {
+        if (batchParsers != null) {
+            return batchParsers;
+        }
+        return parserPooling ? idleParsers.get() : null;
+    }
+
+    private ExpatParser obtainParser(String encoding, boolean namespaces,
+            String publicId, String systemId) {
+        ExpatParser[] pool = parserPool();
+        int index = namespaces ? 1 : 0;
+        if (pool != null && pool[index] != null) {
+            ExpatParser parser = pool[index];
+            pool[index] = null;
+            parser.reset(encoding, this, publicId, systemId);
+            return parser;
+        }
+        return new ExpatParser(encoding, this, namespaces, publicId, systemId);
+    }
+
+    private void recycleParser(ExpatParser parser, boolean namespaces) {
+        ExpatParser[] pool = parserPool();
+        if (pool != null) {
+            parser.detach();
+            pool[namespaces ? 1 : 0] = parser;
+        }
     }
 
     public void parse(String systemId) throws IOException, SAXException {
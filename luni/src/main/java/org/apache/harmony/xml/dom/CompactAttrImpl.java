@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.harmony.xml.dom;
+
+import org.apache.harmony.xml.dom.CompactDocumentImpl.Name;
+import org.w3c.dom.Attr;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.w3c.dom.TypeInfo;
+
+/**
+ * A view of an attribute in a {@link CompactDocumentImpl}. Unlike other views,
+ * {@code row} indexes the document's attribute rows. Like {@link AttrImpl},
+ * attributes have no parent, siblings or children.
+ */
+final class CompactAttrImpl extends CompactNodeImpl implements Attr {
+
+    private final int ownerElement;
+
+    CompactAttrImpl(CompactDocumentImpl document, int row, int ownerElement) {
+        super(document, row);
+        this.ownerElement = ownerElement;
+    }
+
+    @Override Name name() {
+        return document.attributeName(row);
+    }
+
+    @Override int treeRow() {
+        return ownerElement;
+    }
+
+    @Override CompactElementImpl getNamespacingElement() {
+        return (CompactElementImpl) getOwnerElement();
+    }
+
+    @Override public short getNodeType() {
+        return ATTRIBUTE_NODE;
+    }
+
+    @Override public String getNodeValue() {
+        return getValue();
+    }
+
+    @Override public String getNamespaceURI() {
+        return name().namespaceURI;
+    }
+
+    @Override public String getPrefix() {
+        return name().prefix;
+    }
+
+    @Override public String getLocalName() {
+        return name().localName;
+    }
+
+    @Override public Node getParentNode() {
+        return null;
+    }
+
+    @Override public NodeList getChildNodes() {
+        return new NodeListImpl();
+    }
+
+    @Override public Node getFirstChild() {
+        return null;
+    }
+
+    @Override public Node getLastChild() {
+        return null;
+    }
+
+    @Override public Node getPreviousSibling() {
+        return null;
+    }
+
+    @Override public Node getNextSibling() {
+        return null;
+    }
+
+    @Override public boolean hasChildNodes() {
+        return false;
+    }
+
+    public String getName() {
+        return name().qualifiedName;
+    }
+
+    public boolean getSpecified() {
+        return true;
+    }
+
+    public String getValue() {
+        return document.attributeValue(row);
+    }
+
+    public void setValue(String value) throws DOMException {
+        throw readOnly();
+    }
+
+    public Element getOwnerElement() {
+        return (Element) document.node(ownerElement);
+    }
+
+    public TypeInfo getSchemaTypeInfo() {
+        return NodeImpl.NULL_TYPE_INFO;
+    }
+
+    public boolean isId() {
+        return false;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.harmony.xml.dom;
+
+import org.w3c.dom.CharacterData;
+import org.w3c.dom.DOMException;
+
+/**
+ * A view of a text node, CDATA section or comment in a
+ * {@link CompactDocumentImpl}.
+ */
+abstract class CompactCharacterDataImpl extends CompactNodeImpl implements CharacterData {
+
+    CompactCharacterDataImpl(CompactDocumentImpl document, int row) {
+        super(document, row);
+    }
+
+    @Override public String getNodeValue() {
+        return getData();
+    }
+
+    @Override public boolean hasChildNodes() {
+        return false;
+    }
+
+    public String getData() throws DOMException {
+        return document.value(row);
+    }
+
+    public int getLength() {
+        return document.valueLength(row);
+    }
+
+    public String substringData(int offset, int count) throws DOMException {
+        int length = getLength();
+        if (offset < 0 || offset > length || count < 0) {
+            throw new DOMException(DOMException.INDEX_SIZE_ERR, null);
+        }
+        return document.substringOfValue(row, offset, Math.min(length, offset + count));
+    }
+
+    public void setData(String data) throws DOMException {
+        throw readOnly();
+    }
+
+    public void appendData(String arg) throws DOMException {
+        throw readOnly();
+    }
+
+    public void insertData(int offset, String arg) throws DOMException {
+        throw readOnly();
+    }
+
+    public void deleteData(int offset, int count) throws DOMException {
+        throw readOnly();
+    }
+
+    public void replaceData(int offset, int count, String arg) throws DOMException {
+        throw readOnly();
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.harmony.xml.dom;
+
+import org.w3c.dom.Comment;
+
+/**
+ * A view of a comment in a {@link CompactDocumentImpl}.
+ */
+final class CompactCommentImpl extends CompactCharacterDataImpl implements Comment {
+
+    CompactCommentImpl(CompactDocumentImpl document, int row) {
+        super(document, row);
+    }
+
+    @Override public String getNodeName() {
+        return "#comment";
+    }
+
+    @Override public short getNodeType() {
+        return COMMENT_NODE;
+    }
+}
@@ -0,0 +1,772 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.harmony.xml.dom;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import libcore.util.Objects;
+import org.w3c.dom.Attr;
+import org.w3c.dom.CDATASection;
+import org.w3c.dom.Comment;
+import org.w3c.dom.DOMConfiguration;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.DOMImplementation;
+import org.w3c.dom.Document;
+import org.w3c.dom.DocumentFragment;
+import org.w3c.dom.DocumentType;
+import org.w3c.dom.Element;
+import org.w3c.dom.EntityReference;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.w3c.dom.ProcessingInstruction;
+import org.w3c.dom.Text;
+
+/**
+ * A read-only document whose nodes are stored in shared arrays rather than as
+ * one object per node. Each node is a row of parallel arrays holding its type,
+ * its parent, first child and next sibling, an index into a table of distinct
+ * names and a range of a single character buffer holding all text. The
+ * {@link Node} objects handed out are lightweight views of these rows that are
+ * created on access; compare them with {@code equals()} or {@code
+ * isSameNode()} rather than {@code ==}.
+ *
+ * <p>Nodes are stored in document order, so the descendants of a node are the
+ * rows that directly follow it. This makes searching and collecting text a
+ * linear scan. Finding a node's previous sibling or last child walks its
+ * siblings.
+ *
+ * <p>Instances are populated by the parser using the {@code append} methods
+ * and become read-only once {@link #finish} is called. Methods that would
+ * change the document, including the factory methods for new nodes, fail with
+ * a {@link DOMException#NO_MODIFICATION_ALLOWED_ERR}. To edit the content,
+ * import it into a regular document.
+ */
+public final class CompactDocumentImpl extends CompactNodeImpl implements Document {
+
+    static final int NONE = -1;
+
+    /*
+     * Node rows. Row 0 is this document. Elements have no value, so they use
+     * valueStarts and valueLengths for the range of their attribute rows.
+     */
+    private int nodeCount = 1;
+    private byte[] types;
+    private int[] parents;
+    private int[] firstChildren;
+    private int[] nextSiblings;
+    private int[] names;
+    private int[] valueStarts;
+    private int[] valueLengths;
+
+    /** The last child of each row. Only needed while the document is built. */
+    private int[] lastChildren;
+
+    /* Attribute rows. */
+    private int attributeCount;
+    private int[] attributeNames;
+    private int[] attributeValueStarts;
+    private int[] attributeValueLengths;
+
+    /** Distinct names, indexed by names and attributeNames. */
+    private Name[] nameTable = new Name[32];
+    private int nameCount;
+
+    /** Indexes into nameTable. Only needed while the document is built. */
+    private Map<Name, Integer> nameIndexes = new HashMap<Name, Integer>();
+
+    /** The characters of all node and attribute values. */
+    private char[] chars = new char[1024];
+    private int charCount;
+
+    private final String inputEncoding;
+    private final String documentURI;
+    private String publicId;
+    private String systemId;
+    private boolean strictErrorChecking = true;
+    private boolean finished;
+    private DOMConfiguration domConfiguration;
+    private Map<CompactNodeImpl, Map<String, Object>> nodeToUserData;
+
+    public CompactDocumentImpl(String inputEncoding, String documentURI) {
+        super(null, 0);
+        this.inputEncoding = inputEncoding;
+        this.documentURI = documentURI;
+
+        int capacity = 64;
+        types = new byte[capacity];
+        parents = new int[capacity];
+        firstChildren = new int[capacity];
+        nextSiblings = new int[capacity];
+        names = new int[capacity];
+        valueStarts = new int[capacity];
+        valueLengths = new int[capacity];
+        lastChildren = new int[capacity];
+        types[0] = DOCUMENT_NODE;
+        parents[0] = NONE;
+        firstChildren[0] = NONE;
+        nextSiblings[0] = NONE;
+        names[0] = NONE;
+        lastChildren[0] = NONE;
+
+        attributeNames = new int[capacity];
+        attributeValueStarts = new int[capacity];
+        attributeValueLengths = new int[capacity];
+    }
+
+    /**
+     * Appends a namespace-aware element to {@code parent} and returns its row.
+     * Its attributes must be added before anything else is appended.
+     */
+    public int appendElement(int parent, String namespaceURI, String prefix, String localName) {
+        String qualifiedName = prefix != null ? prefix + ":" + localName : localName;
+        return appendElement(parent, intern(namespaceURI, prefix, localName, qualifiedName));
+    }
+
+    /**
+     * Appends an element that isn't namespace-aware to {@code parent} and
+     * returns its row. Its attributes must be added before anything else is
+     * appended.
+     */
+    public int appendElement(int parent, String name) {
+        return appendElement(parent, intern(null, null, null, name));
+    }
+
+    private int appendElement(int parent, int name) {
+        if (parent == 0 && findChild(0, ELEMENT_NODE) != NONE) {
+            throw new DOMException(DOMException.HIERARCHY_REQUEST_ERR,
+                    "Only one root element allowed");
+        }
+        int element = append(parent, ELEMENT_NODE, name);
+        valueStarts[element] = attributeCount;
+        valueLengths[element] = 0;
+        return element;
+    }
+
+    /**
+     * Adds a namespace-aware attribute to {@code element}, which must be the
+     * most recently appended node.
+     */
+    public void addAttribute(int element, String namespaceURI, String prefix,
+            String localName, String value) {
+        String qualifiedName = prefix != null ? prefix + ":" + localName : localName;
+        addAttribute(element, intern(namespaceURI, prefix, localName, qualifiedName), value);
+    }
+
+    /**
+     * Adds an attribute that isn't namespace-aware to {@code element}, which
+     * must be the most recently appended node.
+     */
+    public void addAttribute(int element, String name, String value) {
+        addAttribute(element, intern(null, null, null, name), value);
+    }
+
+    private void addAttribute(int element, int name, String value) {
+        checkNotFinished();
+        if (element != nodeCount - 1 || types[element] != ELEMENT_NODE) {
+            throw new IllegalStateException("Attributes must directly follow their element");
+        }
+        if (attributeCount == attributeNames.length) {
+            int capacity = attributeCount * 2;
+            attributeNames = Arrays.copyOf(attributeNames, capacity);
+            attributeValueStarts = Arrays.copyOf(attributeValueStarts, capacity);
+            attributeValueLengths = Arrays.copyOf(attributeValueLengths, capacity);
+        }
+        attributeNames[attributeCount] = name;
+        attributeValueStarts[attributeCount] = charCount;
+        attributeValueLengths[attributeCount] = value.length();
+        appendChars(value);
+        attributeCount++;
+        valueLengths[element]++;
+    }
+
+    /**
+     * Appends {@code text} to {@code parent}.
+     *
+     * @param cdata true to create a CDATA section rather than a text node.
+     * @param merge true to extend the parent's last child instead if that is a
+     *     text node.
+     */
+    public void appendText(int parent, String text, boolean cdata, boolean merge) {
+        checkNotFinished();
+        if (text.isEmpty()) {
+            return;
+        }
+        int last = lastChildren[parent];
+        if (merge && last != NONE && types[last] == TEXT_NODE) {
+            if (valueStarts[last] + valueLengths[last] != charCount) {
+                // Move the existing text to the end of the buffer so we can extend it
+                int start = valueStarts[last];
+                valueStarts[last] = charCount;
+                ensureCharCapacity(valueLengths[last]);
+                System.arraycopy(chars, start, chars, charCount, valueLengths[last]);
+                charCount += valueLengths[last];
+            }
+            valueLengths[last] += text.length();
+            appendChars(text);
+            return;
+        }
+        appendValue(parent, cdata ? CDATA_SECTION_NODE : TEXT_NODE, NONE, text);
+    }
+
+    public void appendComment(int parent, String data) {
+        appendValue(parent, COMMENT_NODE, NONE, data);
+    }
+
+    public void appendProcessingInstruction(int parent, String target, String data) {
+        appendValue(parent, PROCESSING_INSTRUCTION_NODE, intern(null, null, null, target), data);
+    }
+
+    public void appendEntityReference(int parent, String name) {
+        append(parent, ENTITY_REFERENCE_NODE, intern(null, null, null, name));
+    }
+
+    public void appendDoctype(String name, String publicId, String systemId) {
+        if (findChild(0, DOCUMENT_TYPE_NODE) != NONE) {
+            throw new DOMException(DOMException.HIERARCHY_REQUEST_ERR,
+                    "Only one DOCTYPE element allowed");
+        }
+        append(0, DOCUMENT_TYPE_NODE, intern(null, null, null, name));
+        this.publicId = publicId;
+        this.systemId = systemId;
+    }
+
+    /**
+     * Releases the memory only needed while building and makes this document
+     * read-only.
+     */
+    public void finish() {
+        checkNotFinished();
+        finished = true;
+        types = Arrays.copyOf(types, nodeCount);
+        parents = Arrays.copyOf(parents, nodeCount);
+        firstChildren = Arrays.copyOf(firstChildren, nodeCount);
+        nextSiblings = Arrays.copyOf(nextSiblings, nodeCount);
+        names = Arrays.copyOf(names, nodeCount);
+        valueStarts = Arrays.copyOf(valueStarts, nodeCount);
+        valueLengths = Arrays.copyOf(valueLengths, nodeCount);
+        attributeNames = Arrays.copyOf(attributeNames, attributeCount);
+        attributeValueStarts = Arrays.copyOf(attributeValueStarts, attributeCount);
+        attributeValueLengths = Arrays.copyOf(attributeValueLengths, attributeCount);
+        nameTable = Arrays.copyOf(nameTable, nameCount);
+        chars = Arrays.copyOf(chars, charCount);
+        lastChildren = null;
+        nameIndexes = null;
+    }
+
+    private void checkNotFinished() {
+        if (finished) {
+            throw readOnly();
+        }
+    }
+
+    private int appendValue(int parent, short type, int name, String value) {
+        int node = append(parent, type, name);
+        valueStarts[node] = charCount;
+        valueLengths[node] = value.length();
+        appendChars(value);
+        return node;
+    }
+
+    private int append(int parent, short type, int name) {
+        checkNotFinished();
+        if (parent < 0 || parent >= nodeCount
+                || (types[parent] != ELEMENT_NODE && types[parent] != DOCUMENT_NODE)) {
+            throw new IllegalArgumentException("Not an element or document: " + parent);
+        }
+        if (nodeCount == types.length) {
+            int capacity = nodeCount * 2;
+            types = Arrays.copyOf(types, capacity);
+            parents = Arrays.copyOf(parents, capacity);
+            firstChildren = Arrays.copyOf(firstChildren, capacity);
+            nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+            names = Arrays.copyOf(names, capacity);
+            valueStarts = Arrays.copyOf(valueStarts, capacity);
+            valueLengths = Arrays.copyOf(valueLengths, capacity);
+            lastChildren = Arrays.copyOf(lastChildren, capacity);
+        }
+
+        int node = nodeCount++;
+        types[node] = (byte) type;
+        parents[node] = parent;
+        firstChildren[node] = NONE;
+        nextSiblings[node] = NONE;
+        names[node] = name;
+        lastChildren[node] = NONE;
+
+        int previous = lastChildren[parent];
+        if (previous == NONE) {
+            firstChildren[parent] = node;
+        } else {
+            nextSiblings[previous] = node;
+        }
+        lastChildren[parent] = node;
+        return node;
+    }
+
+    private void appendChars(String s) {
+        ensureCharCapacity(s.length());
+        s.getChars(0, s.length(), chars, charCount);
+        charCount += s.length();
+    }
+
+    private void ensureCharCapacity(int count) {
+        if (chars.length - charCount < count) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, charCount + count));
+        }
+    }
+
+    private int intern(String namespaceURI, String prefix, String localName, String qualifiedName) {
+        Name name = new Name(namespaceURI, prefix, localName, qualifiedName);
+        Integer index = nameIndexes.get(name);
+        if (index != null) {
+            return index;
+        }
+        if (nameCount == nameTable.length) {
+            nameTable = Arrays.copyOf(nameTable, nameCount * 2);
+        }
+        nameTable[nameCount] = name;
+        nameIndexes.put(name, nameCount);
+        return nameCount++;
+    }
+
+    /*
+     * Row accessors used by the node views.
+     */
+
+    /**
+     * Returns a view of the node in {@code row}, or null if row is
+     * {@link #NONE}.
+     */
+    CompactNodeImpl node(int row) {
+        switch (row == NONE ? NONE : types[row]) {
+            case NONE:
+                return null;
+            case DOCUMENT_NODE:
+                return this;
+            case ELEMENT_NODE:
+                return new CompactElementImpl(this, row);
+            case TEXT_NODE:
+                return new CompactTextImpl(this, row);
+            case CDATA_SECTION_NODE:
+                return new CompactCDATASectionImpl(this, row);
+            case COMMENT_NODE:
+                return new CompactCommentImpl(this, row);
+            case PROCESSING_INSTRUCTION_NODE:
+                return new CompactProcessingInstructionImpl(this, row);
+            case ENTITY_REFERENCE_NODE:
+                return new CompactEntityReferenceImpl(this, row);
+            case DOCUMENT_TYPE_NODE:
+                return new CompactDocumentTypeImpl(this, row);
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    short type(int row) {
+        return types[row];
+    }
+
+    int parent(int row) {
+        return parents[row];
+    }
+
+    int firstChild(int row) {
+        return firstChildren[row];
+    }
+
+    int nextSibling(int row) {
+        return nextSiblings[row];
+    }
+
+    int previousSibling(int row) {
+        int parent = parents[row];
+        if (parent == NONE) {
+            return NONE;
+        }
+        int previous = NONE;
+        for (int n = firstChildren[parent]; n != row; n = nextSiblings[n]) {
+            previous = n;
+        }
+        return previous;
+    }
+
+    int lastChild(int row) {
+        int last = NONE;
+        for (int n = firstChildren[row]; n != NONE; n = nextSiblings[n]) {
+            last = n;
+        }
+        return last;
+    }
+
+    /**
+     * Returns the first row after the subtree rooted at {@code row}.
+     */
+    int subtreeEnd(int row) {
+        for (int n = row; n != NONE; n = parents[n]) {
+            if (nextSiblings[n] != NONE) {
+                return nextSiblings[n];
+            }
+        }
+        return nodeCount;
+    }
+
+    private int findChild(int row, short type) {
+        for (int n = firstChildren[row]; n != NONE; n = nextSiblings[n]) {
+            if (types[n] == type) {
+                return n;
+            }
+        }
+        return NONE;
+    }
+
+    Name name(int row) {
+        return names[row] != NONE ? nameTable[names[row]] : null;
+    }
+
+    String value(int row) {
+        return new String(chars, valueStarts[row], valueLengths[row]);
+    }
+
+    int valueLength(int row) {
+        return valueLengths[row];
+    }
+
+    String substringOfValue(int row, int start, int end) {
+        return new String(chars, valueStarts[row] + start, end - start);
+    }
+
+    void appendValue(int row, StringBuilder out) {
+        out.append(chars, valueStarts[row], valueLengths[row]);
+    }
+
+    /**
+     * Appends the text of the text and CDATA nodes below {@code row} to
+     * {@code out}.
+     */
+    void appendTextContent(int row, StringBuilder out) {
+        for (int n = row + 1, end = subtreeEnd(row); n < end; n++) {
+            if (types[n] == TEXT_NODE || types[n] == CDATA_SECTION_NODE) {
+                out.append(chars, valueStarts[n], valueLengths[n]);
+            }
+        }
+    }
+
+    int firstAttribute(int element) {
+        return valueStarts[element];
+    }
+
+    int attributeCount(int element) {
+        return valueLengths[element];
+    }
+
+    Name attributeName(int attribute) {
+        return nameTable[attributeNames[attribute]];
+    }
+
+    String attributeValue(int attribute) {
+        return new String(chars, attributeValueStarts[attribute], attributeValueLengths[attribute]);
+    }
+
+    boolean attributeValueEquals(int attribute, String value) {
+        int length = attributeValueLengths[attribute];
+        if (length != value.length()) {
+            return false;
+        }
+        for (int i = 0, start = attributeValueStarts[attribute]; i < length; i++) {
+            if (chars[start + i] != value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the rows of elements below {@code row}, in document order, whose
+     * names satisfy {@code matches}, which is indexed like the name table.
+     */
+    NodeList getElementsByName(int row, boolean[] matches) {
+        int[] result = new int[8];
+        int count = 0;
+        for (int n = row + 1, end = subtreeEnd(row); n < end; n++) {
+            if (types[n] == ELEMENT_NODE && matches[names[n]]) {
+                if (count == result.length) {
+                    result = Arrays.copyOf(result, count * 2);
+                }
+                result[count++] = n;
+            }
+        }
+        return new RowList(result, count);
+    }
+
+    NodeList getElementsByTagName(int row, String name) {
+        boolean[] matches = new boolean[nameCount];
+        for (int i = 0; i < nameCount; i++) {
+            matches[i] = matchesNameOrWildcard(name, nameTable[i].qualifiedName);
+        }
+        return getElementsByName(row, matches);
+    }
+
+    NodeList getElementsByTagNameNS(int row, String namespaceURI, String localName) {
+        boolean[] matches = new boolean[nameCount];
+        for (int i = 0; i < nameCount; i++) {
+            matches[i] = matchesNameOrWildcard(namespaceURI, nameTable[i].namespaceURI)
+                    && matchesNameOrWildcard(localName, nameTable[i].localName);
+        }
+        return getElementsByName(row, matches);
+    }
+
+    /**
+     * Returns true if {@code pattern} equals either "*" or {@code s}. Pattern
+     * may be {@code null}.
+     */
+    private static boolean matchesNameOrWildcard(String pattern, String s) {
+        return "*".equals(pattern) || Objects.equal(pattern, s);
+    }
+
+    Map<String, Object> getUserDataMap(CompactNodeImpl node, boolean create) {
+        if (nodeToUserData == null) {
+            if (!create) {
+                return null;
+            }
+            nodeToUserData = new HashMap<CompactNodeImpl, Map<String, Object>>();
+        }
+        Map<String, Object> userDataMap = nodeToUserData.get(node);
+        if (userDataMap == null && create) {
+            userDataMap = new HashMap<String, Object>();
+            nodeToUserData.put(node, userDataMap);
+        }
+        return userDataMap;
+    }
+
+    /*
+     * Document.
+     */
+
+    @Override public String getNodeName() {
+        return "#document";
+    }
+
+    @Override public short getNodeType() {
+        return DOCUMENT_NODE;
+    }
+
+    @Override public String getTextContent() {
+        return null;
+    }
+
+    public DocumentType getDoctype() {
+        return (DocumentType) node(findChild(0, DOCUMENT_TYPE_NODE));
+    }
+
+    public DOMImplementation getImplementation() {
+        return DOMImplementationImpl.getInstance();
+    }
+
+    public Element getDocumentElement() {
+        return (Element) node(findChild(0, ELEMENT_NODE));
+    }
+
+    public Element getElementById(String elementId) {
+        // Like DocumentImpl, treat attributes named "id" as IDs
+        for (int n = 1; n < nodeCount; n++) {
+            if (types[n] != ELEMENT_NODE) {
+                continue;
+            }
+            for (int a = valueStarts[n], end = a + valueLengths[n]; a < end; a++) {
+                if ("id".equals(nameTable[attributeNames[a]].qualifiedName)
+                        && attributeValueEquals(a, elementId)) {
+                    return (Element) node(n);
+                }
+            }
+        }
+        return null;
+    }
+
+    public NodeList getElementsByTagName(String tagname) {
+        return getElementsByTagName(0, tagname);
+    }
+
+    public NodeList getElementsByTagNameNS(String namespaceURI, String localName) {
+        return getElementsByTagNameNS(0, namespaceURI, localName);
+    }
+
+    public String getInputEncoding() {
+        return inputEncoding;
+    }
+
+    public String getXmlEncoding() {
+        return null;
+    }
+
+    public boolean getXmlStandalone() {
+        return false;
+    }
+
+    public void setXmlStandalone(boolean xmlStandalone) {
+        throw readOnly();
+    }
+
+    public String getXmlVersion() {
+        return "1.0";
+    }
+
+    public void setXmlVersion(String xmlVersion) {
+        throw readOnly();
+    }
+
+    public boolean getStrictErrorChecking() {
+        return strictErrorChecking;
+    }
+
+    public void setStrictErrorChecking(boolean strictErrorChecking) {
+        this.strictErrorChecking = strictErrorChecking;
+    }
+
+    public String getDocumentURI() {
+        return documentURI;
+    }
+
+    public void setDocumentURI(String documentURI) {
+        throw readOnly();
+    }
+
+    String getPublicId() {
+        return publicId;
+    }
+
+    String getSystemId() {
+        return systemId;
+    }
+
+    public DOMConfiguration getDomConfig() {
+        if (domConfiguration == null) {
+            domConfiguration = new DOMConfigurationImpl();
+        }
+        return domConfiguration;
+    }
+
+    public void normalizeDocument() {
+        throw readOnly();
+    }
+
+    public Node renameNode(Node n, String namespaceURI, String qualifiedName) {
+        throw readOnly();
+    }
+
+    public Node importNode(Node importedNode, boolean deep) {
+        throw readOnly();
+    }
+
+    public Node adoptNode(Node source) {
+        throw readOnly();
+    }
+
+    public Element createElement(String tagName) {
+        throw readOnly();
+    }
+
+    public Element createElementNS(String namespaceURI, String qualifiedName) {
+        throw readOnly();
+    }
+
+    public DocumentFragment createDocumentFragment() {
+        throw readOnly();
+    }
+
+    public Text createTextNode(String data) {
+        throw readOnly();
+    }
+
+    public Comment createComment(String data) {
+        throw readOnly();
+    }
+
+    public CDATASection createCDATASection(String data) {
+        throw readOnly();
+    }
+
+    public ProcessingInstruction createProcessingInstruction(String target, String data) {
+        throw readOnly();
+    }
+
+    public Attr createAttribute(String name) {
+        throw readOnly();
+    }
+
+    public Attr createAttributeNS(String namespaceURI, String qualifiedName) {
+        throw readOnly();
+    }
+
+    public EntityReference createEntityReference(String name) {
+        throw readOnly();
+    }
+
+    /**
+     * The names of elements, attributes, processing instruction targets,
+     * entity references and the doctype. Nodes that aren't namespace-aware
+     * have only a qualified name.
+     */
+    static final class Name {
+        final String namespaceURI;
+        final String prefix;
+        final String localName;
+        final String qualifiedName;
+
+        Name(String namespaceURI, String prefix, String localName, String qualifiedName) {
+            this.namespaceURI = namespaceURI;
+            this.prefix = prefix;
+            this.localName = localName;
+            this.qualifiedName = qualifiedName;
+        }
+
+        @Override public boolean equals(Object o) {
+            if (!(o instanceof Name)) {
+                return false;
+            }
+            Name other = (Name) o;
+            return qualifiedName.equals(other.qualifiedName)
+                    && Objects.equal(namespaceURI, other.namespaceURI)
+                    && Objects.equal(localName, other.localName);
+        }
+
+        @Override public int hashCode() {
+            return qualifiedName.hashCode() * 31 + Objects.hashCode(namespaceURI);
+        }
+    }
+
+    /**
+     * A list of rows, such as the result of a search.
+     */
+    final class RowList implements NodeList {
+        private final int[] rows;
+        private final int length;
+
+        RowList(int[] rows, int length) {
+            this.rows = rows;
+            this.length = length;
+        }
+
+        public Node item(int index) {
+            return index >= 0 && index < length ? node(rows[index]) : null;
+        }
+
+        public int getLength() {
+            return length;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.harmony.xml.dom;
+
+import org.w3c.dom.DocumentType;
+import org.w3c.dom.NamedNodeMap;
+
+/**
+ * A view of the doctype of a {@link CompactDocumentImpl}. Like
+ * {@link DocumentTypeImpl}, this doesn't offer entities or notations.
+ */
+final class CompactDocumentTypeImpl extends CompactNodeImpl implements DocumentType {
+
+    CompactDocumentTypeImpl(CompactDocumentImpl document, int row) {
+        super(document, row);
+    }
+
+    @Override public short getNodeType() {
+        return DOCUMENT_TYPE_NODE;
+    }
+
+    public String getName() {
+        return getNodeName();
+    }
+
+    public NamedNodeMap getEntities() {
+        return null;
+    }
+
+    public NamedNodeMap getNotations() {
+        return null;
+    }
+
+    public String getPublicId() {
+        return document.getPublicId();
+    }
+
+    public String getSystemId() {
+        return document.getSystemId();
+    }
+
+    public String getInternalSubset() {
+        return null;
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.harmony.xml.dom;
+
+import libcore.util.Objects;
+import org.apache.harmony.xml.dom.CompactDocumentImpl.Name;
+import org.w3c.dom.Attr;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.w3c.dom.TypeInfo;
+
+/**
+ * A view of an element in a {@link CompactDocumentImpl}.
+ */
+final class CompactElementImpl extends CompactNodeImpl implements Element {
+
+    CompactElementImpl(CompactDocumentImpl document, int row) {
+        super(document, row);
+    }
+
+    private int indexOfAttribute(String name) {
+        for (int a = document.firstAttribute(row), end = a + document.attributeCount(row);
+                a < end; a++) {
+            if (Objects.equal(name, document.attributeName(a).qualifiedName)) {
+                return a;
+            }
+        }
+        return CompactDocumentImpl.NONE;
+    }
+
+    private int indexOfAttributeNS(String namespaceURI, String localName) {
+        for (int a = document.firstAttribute(row), end = a + document.attributeCount(row);
+                a < end; a++) {
+            Name name = document.attributeName(a);
+            if (Objects.equal(namespaceURI, name.namespaceURI)
+                    && Objects.equal(localName, name.localName)) {
+                return a;
+            }
+        }
+        return CompactDocumentImpl.NONE;
+    }
+
+    private Attr attributeNode(int attribute) {
+        return attribute != CompactDocumentImpl.NONE
+                ? new CompactAttrImpl(document, attribute, row)
+                : null;
+    }
+
+    @Override public short getNodeType() {
+        return ELEMENT_NODE;
+    }
+
+    @Override public String getNamespaceURI() {
+        return name().namespaceURI;
+    }
+
+    @Override public String getPrefix() {
+        return name().prefix;
+    }
+
+    @Override public String getLocalName() {
+        return name().localName;
+    }
+
+    @Override public String getTextContent() {
+        StringBuilder result = new StringBuilder();
+        document.appendTextContent(row, result);
+        return result.toString();
+    }
+
+    public String getTagName() {
+        return name().qualifiedName;
+    }
+
+    public String getAttribute(String name) {
+        int a = indexOfAttribute(name);
+        return a != CompactDocumentImpl.NONE ? document.attributeValue(a) : "";
+    }
+
+    public String getAttributeNS(String namespaceURI, String localName) {
+        int a = indexOfAttributeNS(namespaceURI, localName);
+        return a != CompactDocumentImpl.NONE ? document.attributeValue(a) : "";
+    }
+
+    public Attr getAttributeNode(String name) {
+        return attributeNode(indexOfAttribute(name));
+    }
+
+    public Attr getAttributeNodeNS(String namespaceURI, String localName) {
+        return attributeNode(indexOfAttributeNS(namespaceURI, localName));
+    }
+
+    public boolean hasAttribute(String name) {
+        return indexOfAttribute(name) != CompactDocumentImpl.NONE;
+    }
+
+    public boolean hasAttributeNS(String namespaceURI, String localName) {
+        return indexOfAttributeNS(namespaceURI, localName) != CompactDocumentImpl.NONE;
+    }
+
+    @Override public boolean hasAttributes() {
+        return document.attributeCount(row) > 0;
+    }
+
+    @Override public NamedNodeMap getAttributes() {
+        return new Attributes();
+    }
+
+    public NodeList getElementsByTagName(String name) {
+        return document.getElementsByTagName(row, name);
+    }
+
+    public NodeList getElementsByTagNameNS(String namespaceURI, String localName) {
+        return document.getElementsByTagNameNS(row, namespaceURI, localName);
+    }
+
+    public TypeInfo getSchemaTypeInfo() {
+        return NodeImpl.NULL_TYPE_INFO;
+    }
+
+    public void setAttribute(String name, String value) throws DOMException {
+        throw readOnly();
+    }
+
+    public void setAttributeNS(String namespaceURI, String qualifiedName, String value)
+            throws DOMException {
+        throw readOnly();
+    }
+
+    public Attr setAttributeNode(Attr newAttr) throws DOMException {
+        throw readOnly();
+    }
+
+    public Attr setAttributeNodeNS(Attr newAttr) throws DOMException {
+        throw readOnly();
+    }
+
+    public void removeAttribute(String name) throws DOMException {
+        throw readOnly();
+    }
+
+    public void removeAttributeNS(String namespaceURI, String localName) throws DOMException {
+        throw readOnly();
+    }
+
+    public Attr removeAttributeNode(Attr oldAttr) throws DOMException {
+        throw readOnly();
+    }
+
+    public void setIdAttribute(String name, boolean isId) throws DOMException {
+        throw readOnly();
+    }
+
+    public void setIdAttributeNS(String namespaceURI, String localName, boolean isId)
+            throws DOMException {
+        throw readOnly();
+    }
+
+    public void setIdAttributeNode(Attr idAttr, boolean isId) throws DOMException {
+        throw readOnly();
+    }
+
+    final class Attributes implements NamedNodeMap {
+        public int getLength() {
+            return document.attributeCount(row);
+        }
+
+        public Node item(int index) {
+            return index >= 0 && index < getLength()
+                    ? attributeNode(document.firstAttribute(row) + index)
+                    : null;
+        }
+
+        public Node getNamedItem(String name) {
+            return getAttributeNode(name);
+        }
+
+        public Node getNamedItemNS(String namespaceURI, String localName) {
+            return getAttributeNodeNS(namespaceURI, localName);
+        }
+
+        public Node setNamedItem(Node arg) throws DOMException {
+            throw readOnly();
+        }
+
+        public Node setNamedItemNS(Node arg) throws DOMException {
+            throw readOnly();
+        }
+
+        public Node removeNamedItem(String name) throws DOMException {
+            throw readOnly();
+        }
+
+        public Node removeNamedItemNS(String namespaceURI, String localName) throws DOMException {
+            throw readOnly();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.harmony.xml.dom;
+
+import org.w3c.dom.EntityReference;
+
+/**
+ * A view of an unresolved entity reference in a {@link CompactDocumentImpl}.
+ */
+final class CompactEntityReferenceImpl extends CompactNodeImpl implements EntityReference {
+
+    CompactEntityReferenceImpl(CompactDocumentImpl document, int row) {
+        super(document, row);
+    }
+
+    @Override public short getNodeType() {
+        return ENTITY_REFERENCE_NODE;
+    }
+}
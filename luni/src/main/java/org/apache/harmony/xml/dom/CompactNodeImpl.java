@@ -0,0 +1,527 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.harmony.xml.dom;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Map;
+import libcore.util.Objects;
+import org.apache.harmony.xml.dom.CompactDocumentImpl.Name;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
+import org.w3c.dom.DocumentType;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.w3c.dom.UserDataHandler;
+
+/**
+ * A view of a single row of a {@link CompactDocumentImpl}. Views hold no state
+ * of their own, so two views are equal if they show the same row.
+ *
+ * <p>The namespace lookups, base URI and equality checks were adapted from
+ * {@link NodeImpl}.
+ */
+abstract class CompactNodeImpl implements Node {
+
+    final CompactDocumentImpl document;
+    final int row;
+
+    /**
+     * @param document the owning document, or null if this is the document.
+     */
+    CompactNodeImpl(CompactDocumentImpl document, int row) {
+        this.document = document != null ? document : (CompactDocumentImpl) this;
+        this.row = row;
+    }
+
+    static DOMException readOnly() {
+        return new DOMException(DOMException.NO_MODIFICATION_ALLOWED_ERR,
+                "Compact documents are read-only");
+    }
+
+    Name name() {
+        return document.name(row);
+    }
+
+    public String getNodeName() {
+        return name().qualifiedName;
+    }
+
+    public String getNodeValue() throws DOMException {
+        return null;
+    }
+
+    public final void setNodeValue(String nodeValue) throws DOMException {
+        throw readOnly();
+    }
+
+    public Node getParentNode() {
+        return document.node(document.parent(row));
+    }
+
+    public NodeList getChildNodes() {
+        return new ChildList();
+    }
+
+    public Node getFirstChild() {
+        return document.node(document.firstChild(row));
+    }
+
+    public Node getLastChild() {
+        return document.node(document.lastChild(row));
+    }
+
+    public Node getPreviousSibling() {
+        return document.node(document.previousSibling(row));
+    }
+
+    public Node getNextSibling() {
+        return document.node(document.nextSibling(row));
+    }
+
+    public NamedNodeMap getAttributes() {
+        return null;
+    }
+
+    public final Document getOwnerDocument() {
+        return document == this ? null : document;
+    }
+
+    public final Node insertBefore(Node newChild, Node refChild) throws DOMException {
+        throw readOnly();
+    }
+
+    public final Node replaceChild(Node newChild, Node oldChild) throws DOMException {
+        throw readOnly();
+    }
+
+    public final Node removeChild(Node oldChild) throws DOMException {
+        throw readOnly();
+    }
+
+    public final Node appendChild(Node newChild) throws DOMException {
+        throw readOnly();
+    }
+
+    public boolean hasChildNodes() {
+        return document.firstChild(row) != CompactDocumentImpl.NONE;
+    }
+
+    public final Node cloneNode(boolean deep) {
+        throw readOnly();
+    }
+
+    public final void normalize() {
+        // The parser never creates empty or adjacent text nodes
+    }
+
+    public final boolean isSupported(String feature, String version) {
+        return DOMImplementationImpl.getInstance().hasFeature(feature, version);
+    }
+
+    public String getNamespaceURI() {
+        return null;
+    }
+
+    public String getPrefix() {
+        return null;
+    }
+
+    public final void setPrefix(String prefix) throws DOMException {
+        throw readOnly();
+    }
+
+    public String getLocalName() {
+        return null;
+    }
+
+    public boolean hasAttributes() {
+        return false;
+    }
+
+    public final String getBaseURI() {
+        switch (getNodeType()) {
+            case DOCUMENT_NODE:
+                return sanitizeUri(((Document) this).getDocumentURI());
+
+            case ELEMENT_NODE:
+                String uri = ((Element) this).getAttributeNS(
+                        "http://www.w3.org/XML/1998/namespace", "base"); // or "xml:base"
+
+                try {
+                    // if this node has no base URI, return the parent's.
+                    if (uri == null || uri.isEmpty()) {
+                        return getParentBaseUri();
+                    }
+
+                    // if this node's URI is absolute, return it
+                    if (new URI(uri).isAbsolute()) {
+                        return uri;
+                    }
+
+                    // this node has a relative URI. Try to resolve it against the
+                    // parent, but if that doesn't work just give up and return null.
+                    String parentUri = getParentBaseUri();
+                    if (parentUri == null) {
+                        return null;
+                    }
+
+                    return new URI(parentUri).resolve(uri).toString();
+                } catch (URISyntaxException e) {
+                    return null;
+                }
+
+            case PROCESSING_INSTRUCTION_NODE:
+                return getParentBaseUri();
+
+            default:
+                return null;
+        }
+    }
+
+    private String getParentBaseUri() {
+        Node parentNode = getParentNode();
+        return parentNode != null ? parentNode.getBaseURI() : null;
+    }
+
+    /**
+     * Returns the sanitized input if it is a URI, or {@code null} otherwise.
+     */
+    private static String sanitizeUri(String uri) {
+        if (uri == null || uri.length() == 0) {
+            return null;
+        }
+        try {
+            return new URI(uri).toString();
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Compares positions using row numbers, since rows are in document order and
+     * a node's descendants are the rows up to its {@link CompactDocumentImpl#subtreeEnd}.
+     * As in other DOMs, an attribute is positioned just after its owner element,
+     * which contains it, and ahead of the element's children.
+     */
+    public short compareDocumentPosition(Node other) throws DOMException {
+        if (equals(other)) {
+            return 0;
+        }
+        Object otherDocument = other instanceof CompactNodeImpl
+                ? ((CompactNodeImpl) other).document
+                : other.getOwnerDocument() != null ? other.getOwnerDocument() : other;
+        if (otherDocument != document) {
+            // Pick an arbitrary but consistent order, as the spec requires. Views come
+            // and go, so order by document.
+            boolean otherFirst =
+                    System.identityHashCode(otherDocument) < System.identityHashCode(document);
+            return (short) (DOCUMENT_POSITION_DISCONNECTED
+                    | DOCUMENT_POSITION_IMPLEMENTATION_SPECIFIC
+                    | (otherFirst ? DOCUMENT_POSITION_PRECEDING : DOCUMENT_POSITION_FOLLOWING));
+        }
+
+        CompactNodeImpl that = (CompactNodeImpl) other;
+        int thisRow = treeRow();
+        int thatRow = that.treeRow();
+        boolean thisIsAttr = getNodeType() == ATTRIBUTE_NODE;
+        boolean thatIsAttr = that.getNodeType() == ATTRIBUTE_NODE;
+
+        if (thisRow == thatRow) {
+            if (thisIsAttr && thatIsAttr) {
+                // Attributes of the same element; their order is up to us.
+                return (short) (DOCUMENT_POSITION_IMPLEMENTATION_SPECIFIC
+                        | (that.row < row ? DOCUMENT_POSITION_PRECEDING : DOCUMENT_POSITION_FOLLOWING));
+            }
+            return (short) (thatIsAttr
+                    ? DOCUMENT_POSITION_CONTAINED_BY | DOCUMENT_POSITION_FOLLOWING
+                    : DOCUMENT_POSITION_CONTAINS | DOCUMENT_POSITION_PRECEDING);
+        }
+        if (thatRow > thisRow) {
+            return (short) (!thisIsAttr && thatRow < document.subtreeEnd(thisRow)
+                    ? DOCUMENT_POSITION_CONTAINED_BY | DOCUMENT_POSITION_FOLLOWING
+                    : DOCUMENT_POSITION_FOLLOWING);
+        } else {
+            return (short) (!thatIsAttr && thisRow < document.subtreeEnd(thatRow)
+                    ? DOCUMENT_POSITION_CONTAINS | DOCUMENT_POSITION_PRECEDING
+                    : DOCUMENT_POSITION_PRECEDING);
+        }
+    }
+
+    /**
+     * Returns the node row that positions this node in the document: its own row,
+     * or for an attribute, its owner element's row.
+     */
+    int treeRow() {
+        return row;
+    }
+
+    public String getTextContent() throws DOMException {
+        return getNodeValue();
+    }
+
+    public final void setTextContent(String textContent) throws DOMException {
+        throw readOnly();
+    }
+
+    public final boolean isSameNode(Node other) {
+        return equals(other);
+    }
+
+    /**
+     * Returns the element whose namespace definitions apply to this node.
+     */
+    CompactElementImpl getNamespacingElement() {
+        switch (getNodeType()) {
+            case ELEMENT_NODE:
+                return (CompactElementImpl) this;
+            case DOCUMENT_NODE:
+                return (CompactElementImpl) document.getDocumentElement();
+            case DOCUMENT_TYPE_NODE:
+                return null;
+            default:
+                return getContainingElement();
+        }
+    }
+
+    /**
+     * Returns the nearest ancestor element that contains this node.
+     */
+    final CompactElementImpl getContainingElement() {
+        for (int p = document.parent(row); p != CompactDocumentImpl.NONE; p = document.parent(p)) {
+            if (document.type(p) == ELEMENT_NODE) {
+                return (CompactElementImpl) document.node(p);
+            }
+        }
+        return null;
+    }
+
+    public final String lookupPrefix(String namespaceURI) {
+        if (namespaceURI == null) {
+            return null;
+        }
+
+        CompactElementImpl target = getNamespacingElement();
+        for (CompactElementImpl node = target; node != null; node = node.getContainingElement()) {
+            // check this element's namespace first
+            if (namespaceURI.equals(node.getNamespaceURI())
+                    && target.isPrefixMappedToUri(node.getPrefix(), namespaceURI)) {
+                return node.getPrefix();
+            }
+
+            // search this element for an attribute of this form:
+            //   xmlns:foo="http://namespaceURI"
+            NamedNodeMap attributes = node.getAttributes();
+            for (int i = 0, length = attributes.getLength(); i < length; i++) {
+                Node attr = attributes.item(i);
+                if (!"http://www.w3.org/2000/xmlns/".equals(attr.getNamespaceURI())
+                        || !"xmlns".equals(attr.getPrefix())
+                        || !namespaceURI.equals(attr.getNodeValue())) {
+                    continue;
+                }
+                if (target.isPrefixMappedToUri(attr.getLocalName(), namespaceURI)) {
+                    return attr.getLocalName();
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns true if the given prefix is mapped to the given URI on this
+     * element.
+     *
+     * @param prefix the prefix to find. Nullable.
+     * @param uri the URI to match. Non-null.
+     */
+    final boolean isPrefixMappedToUri(String prefix, String uri) {
+        return prefix != null && uri.equals(lookupNamespaceURI(prefix));
+    }
+
+    public final boolean isDefaultNamespace(String namespaceURI) {
+        String actual = lookupNamespaceURI(null); // null yields the default namespace
+        return namespaceURI == null
+                ? actual == null
+                : namespaceURI.equals(actual);
+    }
+
+    public final String lookupNamespaceURI(String prefix) {
+        CompactElementImpl target = getNamespacingElement();
+        for (CompactElementImpl node = target; node != null; node = node.getContainingElement()) {
+            // check this element's namespace first
+            String nodePrefix = node.getPrefix();
+            if (node.getNamespaceURI() != null) {
+                if (prefix == null // null => default prefix
+                        ? nodePrefix == null
+                        : prefix.equals(nodePrefix)) {
+                    return node.getNamespaceURI();
+                }
+            }
+
+            // search this element for an attribute of the appropriate form.
+            //    default namespace: xmlns="http://resultUri"
+            //          non default: xmlns:specifiedPrefix="http://resultUri"
+            NamedNodeMap attributes = node.getAttributes();
+            for (int i = 0, length = attributes.getLength(); i < length; i++) {
+                Node attr = attributes.item(i);
+                if (!"http://www.w3.org/2000/xmlns/".equals(attr.getNamespaceURI())) {
+                    continue;
+                }
+                if (prefix == null // null => default prefix
+                        ? "xmlns".equals(attr.getNodeName())
+                        : "xmlns".equals(attr.getPrefix()) && prefix.equals(attr.getLocalName())) {
+                    String value = attr.getNodeValue();
+                    return value.length() > 0 ? value : null;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    public final boolean isEqualNode(Node arg) {
+        if (equals(arg)) {
+            return true;
+        }
+        if (arg == null
+                || getNodeType() != arg.getNodeType()
+                || !Objects.equal(getNodeName(), arg.getNodeName())
+                || !Objects.equal(getLocalName(), arg.getLocalName())
+                || !Objects.equal(getNamespaceURI(), arg.getNamespaceURI())
+                || !Objects.equal(getPrefix(), arg.getPrefix())
+                || !Objects.equal(getNodeValue(), arg.getNodeValue())) {
+            return false;
+        }
+
+        Node a = getFirstChild();
+        Node b = arg.getFirstChild();
+        for (; a != null && b != null; a = a.getNextSibling(), b = b.getNextSibling()) {
+            if (!a.isEqualNode(b)) {
+                return false;
+            }
+        }
+        if (a != null || b != null) {
+            return false;
+        }
+
+        switch (getNodeType()) {
+            case DOCUMENT_TYPE_NODE:
+                DocumentType doctype = (DocumentType) this;
+                DocumentType other = (DocumentType) arg;
+                return Objects.equal(doctype.getPublicId(), other.getPublicId())
+                        && Objects.equal(doctype.getSystemId(), other.getSystemId())
+                        && Objects.equal(doctype.getInternalSubset(), other.getInternalSubset());
+
+            case ELEMENT_NODE:
+                return namedNodeMapsEqual(getAttributes(), arg.getAttributes());
+
+            default:
+                return true;
+        }
+    }
+
+    private static boolean namedNodeMapsEqual(NamedNodeMap a, NamedNodeMap b) {
+        if (a.getLength() != b.getLength()) {
+            return false;
+        }
+        for (int i = 0; i < a.getLength(); i++) {
+            Node aNode = a.item(i);
+            Node bNode = aNode.getLocalName() == null
+                    ? b.getNamedItem(aNode.getNodeName())
+                    : b.getNamedItemNS(aNode.getNamespaceURI(), aNode.getLocalName());
+            if (bNode == null || !aNode.isEqualNode(bNode)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public final Object getFeature(String feature, String version) {
+        return isSupported(feature, version) ? this : null;
+    }
+
+    /**
+     * Attaches {@code data} to this node. User data doesn't change the
+     * document, so it is permitted; {@code handler} is never called because
+     * these nodes can't be cloned, renamed or adopted.
+     */
+    public final Object setUserData(String key, Object data, UserDataHandler handler) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+        Map<String, Object> map = document.getUserDataMap(this, true);
+        return data == null ? map.remove(key) : map.put(key, data);
+    }
+
+    public final Object getUserData(String key) {
+        if (key == null) {
+            throw new NullPointerException("key == null");
+        }
+        Map<String, Object> map = document.getUserDataMap(this, false);
+        return map != null ? map.get(key) : null;
+    }
+
+    @Override public boolean equals(Object o) {
+        return o != null
+                && o.getClass() == getClass()
+                && ((CompactNodeImpl) o).document == document
+                && ((CompactNodeImpl) o).row == row;
+    }
+
+    @Override public int hashCode() {
+        return row * 31 + getNodeType();
+    }
+
+    /**
+     * The children of this node. Items are found by walking from the most
+     * recently returned child, so iterating in order is linear.
+     */
+    final class ChildList implements NodeList {
+        private int cursorIndex = -1;
+        private int cursorRow = CompactDocumentImpl.NONE;
+        private int length = -1;
+
+        public Node item(int index) {
+            if (index < 0) {
+                return null;
+            }
+            if (cursorRow == CompactDocumentImpl.NONE || index < cursorIndex) {
+                cursorIndex = 0;
+                cursorRow = document.firstChild(row);
+            }
+            while (cursorIndex < index && cursorRow != CompactDocumentImpl.NONE) {
+                cursorRow = document.nextSibling(cursorRow);
+                cursorIndex++;
+            }
+            return document.node(cursorRow);
+        }
+
+        public int getLength() {
+            if (length == -1) {
+                length = 0;
+                for (int n = document.firstChild(row); n != CompactDocumentImpl.NONE;
+                        n = document.nextSibling(n)) {
+                    length++;
+                }
+            }
+            return length;
+        }
+    }
+}
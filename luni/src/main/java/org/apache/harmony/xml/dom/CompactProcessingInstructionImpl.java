@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.harmony.xml.dom;
+
+import org.w3c.dom.DOMException;
+import org.w3c.dom.ProcessingInstruction;
+
+/**
+ * A view of a processing instruction in a {@link CompactDocumentImpl}.
+ */
+final class CompactProcessingInstructionImpl extends CompactNodeImpl
+        implements ProcessingInstruction {
+
+    CompactProcessingInstructionImpl(CompactDocumentImpl document, int row) {
+        super(document, row);
+    }
+
+    @Override public short getNodeType() {
+        return PROCESSING_INSTRUCTION_NODE;
+    }
+
+    @Override public String getNodeValue() {
+        return getData();
+    }
+
+    @Override public boolean hasChildNodes() {
+        return false;
+    }
+
+    public String getTarget() {
+        return getNodeName();
+    }
+
+    public String getData() {
+        return document.value(row);
+    }
+
+    public void setData(String data) throws DOMException {
+        throw readOnly();
+    }
+}
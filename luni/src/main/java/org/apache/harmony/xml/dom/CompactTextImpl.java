@@ -0,0 +1,68 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.harmony.xml.dom;
+
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Text;
+
+/**
+ * A view of a text node in a {@link CompactDocumentImpl}.
+ */
+class CompactTextImpl extends CompactCharacterDataImpl implements Text {
+
+    CompactTextImpl(CompactDocumentImpl document, int row) {
+        super(document, row);
+    }
+
+    @Override public String getNodeName() {
+        return "#text";
+    }
+
+    @Override public short getNodeType() {
+        return TEXT_NODE;
+    }
+
+    public final boolean isElementContentWhitespace() {
+        // Undefined because we don't validate, same as TextImpl.
+        return false;
+    }
+
+    public final String getWholeText() {
+        int first = row;
+        for (int n = document.previousSibling(row); isText(n); n = document.previousSibling(n)) {
+            first = n;
+        }
+        StringBuilder result = new StringBuilder();
+        for (int n = first; isText(n); n = document.nextSibling(n)) {
+            document.appendValue(n, result);
+        }
+        return result.toString();
+    }
+
+    private boolean isText(int row) {
+        return row != CompactDocumentImpl.NONE
+                && (document.type(row) == TEXT_NODE || document.type(row) == CDATA_SECTION_NODE);
+    }
+
+    public final Text splitText(int offset) throws DOMException {
+        throw readOnly();
+    }
+
+    public final Text replaceWholeText(String content) throws DOMException {
+        throw readOnly();
+    }
+}
@@ -20,6 +20,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.WeakHashMap;
+import org.w3c.dom.Attr;
 import org.w3c.dom.CharacterData;
 import org.w3c.dom.Comment;
 import org.w3c.dom.DOMConfiguration;
@@ -73,6 +74,12 @@ public final class DocumentImpl extends InnerNodeImpl implements Document {
      */
     private WeakHashMap<NodeImpl, Map<String, UserData>> nodeToUserData;
 
+    /**
+     * A lazily initialized index of this document's elements by name and by
+     * ID. Documents that are never searched don't pay for it.
+     */
+    private ElementIndex elementIndex;
+
     public DocumentImpl(DOMImplementationImpl impl, String namespaceURI,
             String qualifiedName, DocumentType doctype, String inputEncoding) {
         super(null);
@@ -129,9 +136,9 @@ public final class DocumentImpl extends InnerNodeImpl implements Document {
     private NodeImpl shallowCopy(short operation, Node node) {
         switch (node.getNodeType()) {
         case Node.ATTRIBUTE_NODE:
-            AttrImpl attr = (AttrImpl) node;
+            Attr attr = (Attr) node;
             AttrImpl attrCopy;
-            if (attr.namespaceAware) {
+            if (attr.getLocalName() != null) {
                 attrCopy = createAttributeNS(attr.getNamespaceURI(), attr.getLocalName());
                 attrCopy.setPrefix(attr.getPrefix());
             } else {
@@ -155,9 +162,9 @@ public final class DocumentImpl extends InnerNodeImpl implements Document {
                     "Cannot copy node of type " + node.getNodeType());
 
         case Node.ELEMENT_NODE:
-            ElementImpl element = (ElementImpl) node;
+            Element element = (Element) node;
             ElementImpl elementCopy;
-            if (element.namespaceAware) {
+            if (element.getLocalName() != null) {
                 elementCopy = createElementNS(element.getNamespaceURI(), element.getLocalName());
                 elementCopy.setPrefix(element.getPrefix());
             } else {
@@ -166,10 +173,10 @@ public final class DocumentImpl extends InnerNodeImpl implements Document {
 
             NamedNodeMap attributes = element.getAttributes();
             for (int i = 0; i < attributes.getLength(); i++) {
-                AttrImpl elementAttr = (AttrImpl) attributes.item(i);
+                Attr elementAttr = (Attr) attributes.item(i);
                 AttrImpl elementAttrCopy = (AttrImpl) shallowCopy(operation, elementAttr);
                 notifyUserDataHandlers(operation, elementAttr, elementAttrCopy);
-                if (elementAttr.namespaceAware) {
+                if (elementAttr.getLocalName() != null) {
                     elementCopy.setAttributeNodeNS(elementAttrCopy);
                 } else {
                     elementCopy.setAttributeNode(elementAttrCopy);
@@ -316,6 +323,7 @@ public final class DocumentImpl extends InnerNodeImpl implements Document {
         }
 
         setNameNS((NodeImpl) node, namespaceURI, qualifiedName);
+        namesChanged();
         notifyUserDataHandlers(UserDataHandler.NODE_RENAMED, node, null);
         return node;
     }
@@ -383,19 +391,55 @@ public final class DocumentImpl extends InnerNodeImpl implements Document {
     public Element getElementById(String elementId) {
         ElementImpl root = (ElementImpl) getDocumentElement();
 
-        return (root == null ? null : root.getElementById(elementId));
+        return (root == null ? null : getElementIndex().getElementById(root, elementId));
     }
 
     public NodeList getElementsByTagName(String name) {
-        NodeListImpl result = new NodeListImpl();
-        getElementsByTagName(result, name);
-        return result;
+        return getElementIndex().getElementsByTagName(this, name);
     }
 
     public NodeList getElementsByTagNameNS(String namespaceURI, String localName) {
-        NodeListImpl result = new NodeListImpl();
-        getElementsByTagNameNS(result, namespaceURI, localName);
-        return result;
+        return getElementIndex().getElementsByTagNameNS(this, namespaceURI, localName);
+    }
+
+    private synchronized ElementIndex getElementIndex() {
+        if (elementIndex == null) {
+            elementIndex = new ElementIndex();
+        }
+        return elementIndex;
+    }
+
+    /**
+     * Updates the element index after the subtree rooted at {@code node} has
+     * been inserted into or removed from this document.
+     */
+    void subtreeChanged(NodeImpl node) {
+        ElementIndex index = elementIndex;
+        if (index != null) {
+            index.subtreeChanged(node);
+        }
+    }
+
+    /**
+     * Updates the element index after an element or attribute was renamed.
+     */
+    void namesChanged() {
+        ElementIndex index = elementIndex;
+        if (index != null) {
+            index.namesChanged();
+            index.idsChanged();
+        }
+    }
+
+    /**
+     * Updates the element index after an attribute was added, removed or
+     * changed.
+     */
+    void attributesChanged() {
+        ElementIndex index = elementIndex;
+        if (index != null) {
+            index.idsChanged();
+        }
     }
 
     public DOMImplementation getImplementation() {
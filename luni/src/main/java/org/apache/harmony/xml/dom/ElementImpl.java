@@ -44,7 +44,8 @@ public class ElementImpl extends InnerNodeImpl implements Element {
     String prefix;
     String localName;
 
-    private List<AttrImpl> attributes = new ArrayList<AttrImpl>();
+    // Maintained by ElementImpl, read by ElementIndex.
+    List<AttrImpl> attributes = new ArrayList<AttrImpl>();
 
     ElementImpl(DocumentImpl document, String namespaceURI, String qualifiedName) {
         super(document);
@@ -218,6 +219,7 @@ public class ElementImpl extends InnerNodeImpl implements Element {
 
         if (i != -1) {
             attributes.remove(i);
+            document.attributesChanged();
         }
     }
 
@@ -227,6 +229,7 @@ public class ElementImpl extends InnerNodeImpl implements Element {
 
         if (i != -1) {
             attributes.remove(i);
+            document.attributesChanged();
         }
     }
 
@@ -239,6 +242,7 @@ public class ElementImpl extends InnerNodeImpl implements Element {
 
         attributes.remove(oldAttrImpl);
         oldAttrImpl.ownerElement = null;
+        document.attributesChanged();
 
         return oldAttrImpl;
     }
@@ -287,6 +291,7 @@ public class ElementImpl extends InnerNodeImpl implements Element {
 
         attributes.add(newAttrImpl);
         newAttrImpl.ownerElement = this;
+        document.attributesChanged();
 
         return oldAttrImpl;
     }
@@ -312,6 +317,7 @@ public class ElementImpl extends InnerNodeImpl implements Element {
 
         attributes.add(newAttrImpl);
         newAttrImpl.ownerElement = this;
+        document.attributesChanged();
 
         return oldAttrImpl;
     }
@@ -319,6 +325,7 @@ public class ElementImpl extends InnerNodeImpl implements Element {
     @Override
     public void setPrefix(String prefix) {
         this.prefix = validatePrefix(prefix, namespaceAware, namespaceURI);
+        document.namesChanged();
     }
 
     public class ElementAttrNamedNodeMapImpl implements NamedNodeMap {
@@ -354,6 +361,7 @@ public class ElementImpl extends InnerNodeImpl implements Element {
                 throw new DOMException(DOMException.NOT_FOUND_ERR, null);
             }
 
+            document.attributesChanged();
             return ElementImpl.this.attributes.remove(i);
         }
 
@@ -365,6 +373,7 @@ public class ElementImpl extends InnerNodeImpl implements Element {
                 throw new DOMException(DOMException.NOT_FOUND_ERR, null);
             }
 
+            document.attributesChanged();
             return ElementImpl.this.attributes.remove(i);
         }
 
@@ -397,6 +406,7 @@ public class ElementImpl extends InnerNodeImpl implements Element {
                     "No such attribute: " + name);
         }
         attr.isId = isId;
+        document.attributesChanged();
     }
 
     public void setIdAttributeNS(String namespaceURI, String localName,
@@ -407,9 +417,11 @@ public class ElementImpl extends InnerNodeImpl implements Element {
                     "No such attribute: " + namespaceURI +  " " + localName);
         }
         attr.isId = isId;
+        document.attributesChanged();
     }
 
     public void setIdAttributeNode(Attr idAttr, boolean isId) throws DOMException {
         ((AttrImpl) idAttr).isId = isId;
+        document.attributesChanged();
     }
 }
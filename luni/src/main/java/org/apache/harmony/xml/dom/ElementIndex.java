@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.harmony.xml.dom;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import libcore.util.Objects;
+import org.w3c.dom.Node;
+
+/**
+ * Remembers the results of a document's {@code getElementsByTagName()},
+ * {@code getElementsByTagNameNS()} and {@code getElementById()} calls so that
+ * repeated lookups don't walk the whole tree. Each entry is computed on first
+ * use.
+ *
+ * <p>When a subtree is inserted or removed, only the entries that one of its
+ * elements could appear in are discarded. Renaming nodes and changing
+ * attributes are rarer, and discard all name or all ID entries respectively.
+ *
+ * <p>Lists handed out by this index are never modified, so like the lists
+ * that were built on every call before, they are snapshots of the document
+ * at the time of the lookup. Instances are synchronized so that concurrent
+ * readers of an unchanging document remain safe.
+ */
+final class ElementIndex {
+
+    private final Map<String, NodeListImpl> byName = new HashMap<String, NodeListImpl>();
+    private final Map<NameNS, NodeListImpl> byNameNS = new HashMap<NameNS, NodeListImpl>();
+
+    /** Values are null for IDs that no element has. */
+    private final Map<String, ElementImpl> byId = new HashMap<String, ElementImpl>();
+
+    synchronized NodeListImpl getElementsByTagName(DocumentImpl document, String name) {
+        NodeListImpl result = byName.get(name);
+        if (result == null) {
+            result = new NodeListImpl();
+            document.getElementsByTagName(result, name);
+            byName.put(name, result);
+        }
+        return result;
+    }
+
+    synchronized NodeListImpl getElementsByTagNameNS(
+            DocumentImpl document, String namespaceURI, String localName) {
+        NameNS key = new NameNS(namespaceURI, localName);
+        NodeListImpl result = byNameNS.get(key);
+        if (result == null) {
+            result = new NodeListImpl();
+            document.getElementsByTagNameNS(result, namespaceURI, localName);
+            byNameNS.put(key, result);
+        }
+        return result;
+    }
+
+    synchronized ElementImpl getElementById(ElementImpl root, String elementId) {
+        ElementImpl result = byId.get(elementId);
+        if (result == null && !byId.containsKey(elementId)) {
+            result = (ElementImpl) root.getElementById(elementId);
+            byId.put(elementId, result);
+        }
+        return result;
+    }
+
+    /**
+     * Discards the entries that elements in the subtree rooted at {@code node}
+     * match. Call this when inserting or removing that subtree.
+     */
+    synchronized void subtreeChanged(NodeImpl node) {
+        if (byName.isEmpty() && byNameNS.isEmpty() && byId.isEmpty()) {
+            return;
+        }
+        discard(node);
+    }
+
+    private void discard(NodeImpl node) {
+        if (node.getNodeType() != Node.ELEMENT_NODE) {
+            return;
+        }
+
+        ElementImpl element = (ElementImpl) node;
+        byName.remove("*");
+        byName.remove(element.getNodeName());
+
+        for (Iterator<NameNS> i = byNameNS.keySet().iterator(); i.hasNext(); ) {
+            if (i.next().matches(element)) {
+                i.remove();
+            }
+        }
+
+        for (AttrImpl attr : element.attributes) {
+            if (attr.isId() || "id".equals(attr.getNodeName())) {
+                byId.remove(attr.getValue());
+            }
+        }
+
+        for (NodeImpl child : element.children) {
+            discard(child);
+        }
+    }
+
+    /**
+     * Discards all name entries. Call this after renaming an element.
+     */
+    synchronized void namesChanged() {
+        byName.clear();
+        byNameNS.clear();
+    }
+
+    /**
+     * Discards all ID entries. Call this after adding, removing or changing
+     * an attribute.
+     */
+    synchronized void idsChanged() {
+        byId.clear();
+    }
+
+    private static final class NameNS {
+        final String namespaceURI;
+        final String localName;
+
+        NameNS(String namespaceURI, String localName) {
+            this.namespaceURI = namespaceURI;
+            this.localName = localName;
+        }
+
+        /**
+         * Returns true if {@code element} would be in the result of looking
+         * up this name. This mirrors {@link InnerNodeImpl#getElementsByTagNameNS}.
+         */
+        boolean matches(ElementImpl element) {
+            return ("*".equals(namespaceURI) || Objects.equal(namespaceURI, element.getNamespaceURI()))
+                    && ("*".equals(localName) || Objects.equal(localName, element.getLocalName()));
+        }
+
+        @Override public boolean equals(Object o) {
+            return o instanceof NameNS
+                    && Objects.equal(namespaceURI, ((NameNS) o).namespaceURI)
+                    && Objects.equal(localName, ((NameNS) o).localName);
+        }
+
+        @Override public int hashCode() {
+            return Objects.hashCode(namespaceURI) * 31 + Objects.hashCode(localName);
+        }
+    }
+}
@@ -130,6 +130,9 @@ public abstract class InnerNodeImpl extends LeafNodeImpl {
         children.add(index, toInsert);
         toInsert.parent = this;
         refreshIndices(index);
+        if (document != null) {
+            document.subtreeChanged(toInsert);
+        }
 
         return newChild;
     }
@@ -185,6 +188,9 @@ public abstract class InnerNodeImpl extends LeafNodeImpl {
         children.remove(index);
         oldChildImpl.parent = null;
         refreshIndices(index);
+        if (document != null) {
+            document.subtreeChanged(oldChildImpl);
+        }
 
         return oldChild;
     }
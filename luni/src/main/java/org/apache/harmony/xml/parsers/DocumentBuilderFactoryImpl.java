@@ -34,6 +34,15 @@ public class DocumentBuilderFactoryImpl extends DocumentBuilderFactory {
     private static final String VALIDATION =
             "http://xml.org/sax/features/validation";
 
+    /**
+     * Builds documents that can't be modified but whose nodes are stored in
+     * shared arrays, for large documents that are only read.
+     */
+    private static final String COMPACT_READ_ONLY =
+            "http://android.com/xml/features/compact-read-only-dom";
+
+    private boolean compactReadOnly;
+
     @Override
     public Object getAttribute(String name) throws IllegalArgumentException {
         throw new IllegalArgumentException(name);
@@ -49,6 +58,8 @@ public class DocumentBuilderFactoryImpl extends DocumentBuilderFactory {
             return isNamespaceAware();
         } else if (VALIDATION.equals(name)) {
             return isValidating();
+        } else if (COMPACT_READ_ONLY.equals(name)) {
+            return compactReadOnly;
         } else {
             throw new ParserConfigurationException(name);
         }
@@ -71,6 +82,7 @@ public class DocumentBuilderFactoryImpl extends DocumentBuilderFactory {
          */
         DocumentBuilderImpl builder = new DocumentBuilderImpl();
         builder.setCoalescing(isCoalescing());
+        builder.setCompactReadOnly(compactReadOnly);
         builder.setIgnoreComments(isIgnoringComments());
         builder.setIgnoreElementContentWhitespace(isIgnoringElementContentWhitespace());
         builder.setNamespaceAware(isNamespaceAware());
@@ -97,6 +109,8 @@ public class DocumentBuilderFactoryImpl extends DocumentBuilderFactory {
             setNamespaceAware(value);
         } else if (VALIDATION.equals(name)) {
             setValidating(value);
+        } else if (COMPACT_READ_ONLY.equals(name)) {
+            compactReadOnly = value;
         } else {
             throw new ParserConfigurationException(name);
         }
@@ -22,6 +22,7 @@ import java.net.URLConnection;
 import javax.xml.parsers.DocumentBuilder;
 import libcore.io.IoUtils;
 import org.apache.harmony.xml.dom.CDATASectionImpl;
+import org.apache.harmony.xml.dom.CompactDocumentImpl;
 import org.apache.harmony.xml.dom.DOMImplementationImpl;
 import org.apache.harmony.xml.dom.DocumentImpl;
 import org.apache.harmony.xml.dom.DocumentTypeImpl;
@@ -51,6 +52,7 @@ class DocumentBuilderImpl extends DocumentBuilder {
     private static DOMImplementationImpl dom = DOMImplementationImpl.getInstance();
 
     private boolean coalescing;
+    private boolean compactReadOnly;
     private EntityResolver entityResolver;
     private ErrorHandler errorHandler;
     private boolean ignoreComments;
@@ -60,6 +62,7 @@ class DocumentBuilderImpl extends DocumentBuilder {
 
     @Override public void reset() {
         coalescing = false;
+        compactReadOnly = false;
         entityResolver = null;
         errorHandler = null;
         ignoreComments = false;
@@ -98,9 +101,15 @@ class DocumentBuilderImpl extends DocumentBuilder {
         DocumentType doctype = null;
         String inputEncoding = source.getEncoding();
         String systemId = source.getSystemId();
-        DocumentImpl document = new DocumentImpl(
-                dom, namespaceURI, qualifiedName, doctype, inputEncoding);
-        document.setDocumentURI(systemId);
+        DocumentImpl document = null;
+        CompactDocumentImpl compactDocument = null;
+        if (compactReadOnly) {
+            compactDocument = new CompactDocumentImpl(inputEncoding, systemId);
+        } else {
+            document = new DocumentImpl(
+                    dom, namespaceURI, qualifiedName, doctype, inputEncoding);
+            document.setDocumentURI(systemId);
+        }
 
         KXmlParser parser = new KXmlParser();
         try {
@@ -125,7 +134,12 @@ class DocumentBuilderImpl extends DocumentBuilder {
                 throw new SAXParseException("Unexpected end of document", null);
             }
 
-            parse(parser, document, document, XmlPullParser.END_DOCUMENT);
+            if (compactDocument != null) {
+                parseCompact(parser, compactDocument, 0, XmlPullParser.END_DOCUMENT);
+                compactDocument.finish();
+            } else {
+                parse(parser, document, document, XmlPullParser.END_DOCUMENT);
+            }
 
             parser.require(XmlPullParser.END_DOCUMENT, null, null);
         } catch (XmlPullParserException ex) {
@@ -154,7 +168,7 @@ class DocumentBuilderImpl extends DocumentBuilder {
             IoUtils.closeQuietly(parser);
         }
 
-        return document;
+        return compactDocument != null ? compactDocument : document;
     }
 
     /**
@@ -329,6 +343,92 @@ class DocumentBuilderImpl extends DocumentBuilder {
         }
     }
 
+    /**
+     * Like {@link #parse(KXmlParser, DocumentImpl, Node, int)}, but appends
+     * the nodes to the rows of a compact document rather than creating node
+     * objects.
+     *
+     * @param node the row we're currently on (initially the document itself).
+     */
+    private void parseCompact(KXmlParser parser, CompactDocumentImpl document, int node,
+            int endToken) throws XmlPullParserException, IOException {
+
+        int token = parser.getEventType();
+
+        while (token != endToken && token != XmlPullParser.END_DOCUMENT) {
+            if (token == XmlPullParser.PROCESSING_INSTRUCTION) {
+                String text = parser.getText();
+
+                int dot = text.indexOf(' ');
+
+                String target = (dot != -1 ? text.substring(0, dot) : text);
+                String data = (dot != -1 ? text.substring(dot + 1) : "");
+
+                document.appendProcessingInstruction(node, target, data);
+            } else if (token == XmlPullParser.DOCDECL) {
+                document.appendDoctype(parser.getRootElementName(),
+                        parser.getPublicId(), parser.getSystemId());
+
+            } else if (token == XmlPullParser.COMMENT) {
+                if (!ignoreComments) {
+                    document.appendComment(node, parser.getText());
+                }
+            } else if (token == XmlPullParser.IGNORABLE_WHITESPACE) {
+                if (!ignoreElementContentWhitespace && node != 0) {
+                    document.appendText(node, parser.getText(), false, true);
+                }
+            } else if (token == XmlPullParser.TEXT || token == XmlPullParser.CDSECT) {
+                boolean cdata = token == XmlPullParser.CDSECT;
+                document.appendText(node, parser.getText(), cdata, coalescing || !cdata);
+            } else if (token == XmlPullParser.ENTITY_REF) {
+                String entity = parser.getName();
+                String resolved = resolvePredefinedOrCharacterEntity(entity);
+                if (resolved != null) {
+                    document.appendText(node, resolved, false, true);
+                } else {
+                    document.appendEntityReference(node, entity);
+                }
+            } else if (token == XmlPullParser.START_TAG) {
+                if (namespaceAware) {
+                    String namespace = parser.getNamespace();
+                    String name = parser.getName();
+
+                    int element = document.appendElement(node,
+                            "".equals(namespace) ? null : namespace, parser.getPrefix(), name);
+
+                    for (int i = 0; i < parser.getAttributeCount(); i++) {
+                        String attrNamespace = parser.getAttributeNamespace(i);
+                        document.addAttribute(element,
+                                "".equals(attrNamespace) ? null : attrNamespace,
+                                parser.getAttributePrefix(i),
+                                parser.getAttributeName(i),
+                                parser.getAttributeValue(i));
+                    }
+
+                    token = parser.nextToken();
+                    parseCompact(parser, document, element, XmlPullParser.END_TAG);
+                    parser.require(XmlPullParser.END_TAG, namespace, name);
+
+                } else {
+                    String name = parser.getName();
+
+                    int element = document.appendElement(node, name);
+
+                    for (int i = 0; i < parser.getAttributeCount(); i++) {
+                        document.addAttribute(element,
+                                parser.getAttributeName(i), parser.getAttributeValue(i));
+                    }
+
+                    token = parser.nextToken();
+                    parseCompact(parser, document, element, XmlPullParser.END_TAG);
+                    parser.require(XmlPullParser.END_TAG, "", name);
+                }
+            }
+
+            token = parser.nextToken();
+        }
+    }
+
     /**
      * @param token the XML pull parser token type, such as XmlPullParser.CDSECT
      *      or XmlPullParser.ENTITY_REF.
@@ -374,6 +474,14 @@ class DocumentBuilderImpl extends DocumentBuilder {
         coalescing = value;
     }
 
+    /**
+     * Controls whether this DocumentBuilder returns compact, read-only
+     * documents. These need much less memory per node than regular documents.
+     */
+    public void setCompactReadOnly(boolean value) {
+        compactReadOnly = value;
+    }
+
     /**
      * Controls whether this DocumentBuilder ignores element content whitespace.
      */
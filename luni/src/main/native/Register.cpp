@@ -47,7 +47,6 @@ jint JNI_OnLoad(JavaVM* vm, void*) {
     REGISTER(register_java_lang_Float);
     REGISTER(register_java_lang_Math);
     REGISTER(register_java_lang_ProcessManager);
-    REGISTER(register_java_lang_RealToString);
     REGISTER(register_java_lang_StrictMath);
     REGISTER(register_java_lang_StringToReal);
     REGISTER(register_java_lang_System);
@@ -32,6 +32,8 @@
 #include <sys/ioctl.h>
 #include <sys/mman.h>
 #ifndef MOE
+#include <sys/epoll.h>
+#include <sys/eventfd.h>
 #include <sys/prctl.h>
 #endif
 #include <sys/socket.h>
@@ -163,6 +165,10 @@ static void OsConstants_initConstants(JNIEnv* env, jclass c) {
     initConstant(env, c, "EDESTADDRREQ", EDESTADDRREQ);
     initConstant(env, c, "EDOM", EDOM);
     initConstant(env, c, "EDQUOT", EDQUOT);
+#if defined(EFD_CLOEXEC)
+    initConstant(env, c, "EFD_CLOEXEC", EFD_CLOEXEC);
+    initConstant(env, c, "EFD_NONBLOCK", EFD_NONBLOCK);
+#endif
     initConstant(env, c, "EEXIST", EEXIST);
     initConstant(env, c, "EFAULT", EFAULT);
     initConstant(env, c, "EFBIG", EFBIG);
@@ -213,6 +219,16 @@ static void OsConstants_initConstants(JNIEnv* env, jclass c) {
     initConstant(env, c, "EOVERFLOW", EOVERFLOW);
     initConstant(env, c, "EPERM", EPERM);
     initConstant(env, c, "EPIPE", EPIPE);
+#if defined(EPOLLIN)
+    initConstant(env, c, "EPOLL_CLOEXEC", EPOLL_CLOEXEC);
+    initConstant(env, c, "EPOLL_CTL_ADD", EPOLL_CTL_ADD);
+    initConstant(env, c, "EPOLL_CTL_DEL", EPOLL_CTL_DEL);
+    initConstant(env, c, "EPOLL_CTL_MOD", EPOLL_CTL_MOD);
+    initConstant(env, c, "EPOLLERR", EPOLLERR);
+    initConstant(env, c, "EPOLLHUP", EPOLLHUP);
+    initConstant(env, c, "EPOLLIN", EPOLLIN);
+    initConstant(env, c, "EPOLLOUT", EPOLLOUT);
+#endif
     initConstant(env, c, "EPROTO", EPROTO);
     initConstant(env, c, "EPROTONOSUPPORT", EPROTONOSUPPORT);
     initConstant(env, c, "EPROTOTYPE", EPROTOTYPE);
@@ -19,6 +19,7 @@
 
 #include "JniConstants.h"
 #include "JniException.h"
+#include "Portability.h"
 #include "ScopedPrimitiveArray.h"
 #include "ZipUtilities.h"
 #include "zutil.h" // For DEF_WBITS and DEF_MEM_LEVEL.
@@ -66,19 +67,17 @@ static jint Inflater_setFileInputImpl(JNIEnv* env, jobject, jobject javaFileDesc
 
     // As an Android-specific optimization, we read directly onto the native heap.
     // The original code used Java to read onto the Java heap and then called setInput(byte[]).
+    // We use positional reads so that streams sharing one fd don't need to agree on
+    // the file offset.
     // TODO: benchmark.
     int fd = jniGetFDFromFileDescriptor(env, javaFileDescriptor);
-    int rc = TEMP_FAILURE_RETRY(lseek(fd, off, SEEK_SET));
-    if (rc == -1) {
-        jniThrowIOException(env, errno);
-        return 0;
-    }
     jint totalByteCount = 0;
     Bytef* dst = reinterpret_cast<Bytef*>(&stream->input[0]);
     ssize_t byteCount;
-    while ((byteCount = TEMP_FAILURE_RETRY(read(fd, dst, len))) > 0) {
+    while ((byteCount = TEMP_FAILURE_RETRY(pread64(fd, dst, len, off))) > 0) {
         dst += byteCount;
         len -= byteCount;
+        off += byteCount;
         totalByteCount += byteCount;
     }
     if (byteCount == -1) {
@@ -51,6 +51,8 @@
 #include <sys/ioctl.h>
 #include <sys/mman.h>
 #ifndef MOE
+#include <sys/epoll.h>
+#include <sys/eventfd.h>
 #include <sys/prctl.h>
 #endif
 #include <sys/socket.h>
@@ -68,6 +70,7 @@
 #include <sys/xattr.h>
 #include <termios.h>
 #include <unistd.h>
+#include <algorithm>
 #include <memory>
 
 #ifdef MOE
@@ -916,6 +919,108 @@ static jobjectArray Posix_environ(JNIEnv* env, jobject) {
     return toStringArray(env, environ);
 }
 
+static jobject Posix_epoll_create1(JNIEnv* env, jobject, jint flags __unused) {
+#ifdef MOE
+    jniThrowException(env, "java/lang/UnsupportedOperationException", "epoll doesn't exist on a Mac");
+    return NULL;
+#else
+    int fd = throwIfMinusOne(env, "epoll_create1", TEMP_FAILURE_RETRY(epoll_create1(flags)));
+    return fd != -1 ? jniCreateFileDescriptor(env, fd) : NULL;
+#endif
+}
+
+static void Posix_epoll_ctl(JNIEnv* env, jobject, jobject javaEpfd __unused, jint op __unused,
+                            jobject javaFd __unused, jint events __unused) {
+#ifdef MOE
+    jniThrowException(env, "java/lang/UnsupportedOperationException", "epoll doesn't exist on a Mac");
+#else
+    int epfd = jniGetFDFromFileDescriptor(env, javaEpfd);
+    int fd = jniGetFDFromFileDescriptor(env, javaFd);
+    epoll_event event;
+    memset(&event, 0, sizeof(event));
+    event.events = events;
+    event.data.fd = fd;
+    throwIfMinusOne(env, "epoll_ctl", TEMP_FAILURE_RETRY(epoll_ctl(epfd, op, fd, &event)));
+#endif
+}
+
+static jint Posix_epoll_wait(JNIEnv* env, jobject, jobject javaEpfd __unused, jintArray javaFds __unused,
+                             jintArray javaEvents __unused, jint timeoutMs __unused) {
+#ifdef MOE
+    jniThrowException(env, "java/lang/UnsupportedOperationException", "epoll doesn't exist on a Mac");
+    return -1;
+#else
+    int epfd = jniGetFDFromFileDescriptor(env, javaEpfd);
+    size_t maxEvents = std::min(env->GetArrayLength(javaFds), env->GetArrayLength(javaEvents));
+    if (maxEvents == 0) {
+        jniThrowException(env, "java/lang/IllegalArgumentException", "no room for events");
+        return -1;
+    }
+    std::unique_ptr<epoll_event[]> events(new epoll_event[maxEvents]);
+
+    int rc;
+    {
+        AsynchronousCloseMonitor monitor(epfd);
+        while (true) {
+            timespec before;
+            clock_gettime(CLOCK_MONOTONIC, &before);
+
+            rc = epoll_wait(epfd, events.get(), maxEvents, timeoutMs);
+            if (rc >= 0 || errno != EINTR) {
+                break;
+            }
+
+            // We got EINTR. Work out how much of the original timeout is still left.
+            if (timeoutMs > 0) {
+                timespec now;
+                clock_gettime(CLOCK_MONOTONIC, &now);
+
+                timespec diff;
+                diff.tv_sec = now.tv_sec - before.tv_sec;
+                diff.tv_nsec = now.tv_nsec - before.tv_nsec;
+                if (diff.tv_nsec < 0) {
+                    --diff.tv_sec;
+                    diff.tv_nsec += 1000000000;
+                }
+
+                jint diffMs = diff.tv_sec * 1000 + diff.tv_nsec / 1000000;
+                if (diffMs >= timeoutMs) {
+                    rc = 0; // We have less than 1ms left anyway, so just time out.
+                    break;
+                }
+
+                timeoutMs -= diffMs;
+            }
+        }
+    }
+    if (rc == -1) {
+        throwErrnoException(env, "epoll_wait");
+        return -1;
+    }
+
+    ScopedIntArrayRW fds(env, javaFds);
+    ScopedIntArrayRW readyEvents(env, javaEvents);
+    if (fds.get() == NULL || readyEvents.get() == NULL) {
+        return -1;
+    }
+    for (int i = 0; i < rc; ++i) {
+        fds[i] = events[i].data.fd;
+        readyEvents[i] = events[i].events;
+    }
+    return rc;
+#endif
+}
+
+static jobject Posix_eventfd(JNIEnv* env, jobject, jint initval __unused, jint flags __unused) {
+#ifdef MOE
+    jniThrowException(env, "java/lang/UnsupportedOperationException", "eventfd doesn't exist on a Mac");
+    return NULL;
+#else
+    int fd = throwIfMinusOne(env, "eventfd", TEMP_FAILURE_RETRY(eventfd(initval, flags)));
+    return fd != -1 ? jniCreateFileDescriptor(env, fd) : NULL;
+#endif
+}
+
 static void Posix_execve(JNIEnv* env, jobject, jstring javaFilename, jobjectArray javaArgv, jobjectArray javaEnvp) {
 #if defined(MOE) && TARGET_OS_IPHONE
     errno = EPERM;
@@ -2280,6 +2385,10 @@ static JNINativeMethod gMethods[] = {
     NATIVE_METHOD(Posix, dup, "(Ljava/io/FileDescriptor;)Ljava/io/FileDescriptor;"),
     NATIVE_METHOD(Posix, dup2, "(Ljava/io/FileDescriptor;I)Ljava/io/FileDescriptor;"),
     NATIVE_METHOD(Posix, environ, "()[Ljava/lang/String;"),
+    NATIVE_METHOD(Posix, epoll_create1, "(I)Ljava/io/FileDescriptor;"),
+    NATIVE_METHOD(Posix, epoll_ctl, "(Ljava/io/FileDescriptor;ILjava/io/FileDescriptor;I)V"),
+    NATIVE_METHOD(Posix, epoll_wait, "(Ljava/io/FileDescriptor;[I[II)I"),
+    NATIVE_METHOD(Posix, eventfd, "(II)Ljava/io/FileDescriptor;"),
     NATIVE_METHOD(Posix, execv, "(Ljava/lang/String;[Ljava/lang/String;)V"),
     NATIVE_METHOD(Posix, execve, "(Ljava/lang/String;[Ljava/lang/String;[Ljava/lang/String;)V"),
     NATIVE_METHOD(Posix, fchmod, "(Ljava/io/FileDescriptor;I)V"),
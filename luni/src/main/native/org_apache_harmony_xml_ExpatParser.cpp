@@ -90,6 +90,10 @@ public:
         return (size == 0) ? NULL : array[--size];
     }
 
+    void clear() {
+        size = 0;
+    }
+
 private:
     enum { DEFAULT_CAPACITY = 10 };
 
@@ -952,6 +956,27 @@ static void notationDecl(void* data, const char* name, const char* /*base*/, con
     env->CallVoidMethod(javaParser, notationDeclMethod, javaName.get(), javaPublicId.get(), javaSystemId.get());
 }
 
+/**
+ * Registers our handlers and parsing context with a new or reset parser.
+ */
+static void installHandlers(XML_Parser parser, ParsingContext* context) {
+    if (context->processNamespaces) {
+        XML_SetNamespaceDeclHandler(parser, startNamespace, endNamespace);
+        XML_SetReturnNSTriplet(parser, 1);
+    }
+
+    XML_SetCdataSectionHandler(parser, startCdata, endCdata);
+    XML_SetCharacterDataHandler(parser, text);
+    XML_SetCommentHandler(parser, comment);
+    XML_SetDoctypeDeclHandler(parser, startDtd, endDtd);
+    XML_SetElementHandler(parser, startElement, endElement);
+    XML_SetExternalEntityRefHandler(parser, handleExternalEntity);
+    XML_SetNotationDeclHandler(parser, notationDecl);
+    XML_SetProcessingInstructionHandler(parser, processingInstruction);
+    XML_SetUnparsedEntityDeclHandler(parser, unparsedEntityDecl);
+    XML_SetUserData(parser, context);
+}
+
 /**
  * Creates a new Expat parser. Called from the Java ExpatParser constructor.
  *
@@ -985,21 +1010,7 @@ static jlong ExpatParser_initialize(JNIEnv* env, jobject object, jstring javaEnc
     }
 
     if (parser != NULL) {
-        if (processNamespaces) {
-            XML_SetNamespaceDeclHandler(parser, startNamespace, endNamespace);
-            XML_SetReturnNSTriplet(parser, 1);
-        }
-
-        XML_SetCdataSectionHandler(parser, startCdata, endCdata);
-        XML_SetCharacterDataHandler(parser, text);
-        XML_SetCommentHandler(parser, comment);
-        XML_SetDoctypeDeclHandler(parser, startDtd, endDtd);
-        XML_SetElementHandler(parser, startElement, endElement);
-        XML_SetExternalEntityRefHandler(parser, handleExternalEntity);
-        XML_SetNotationDeclHandler(parser, notationDecl);
-        XML_SetProcessingInstructionHandler(parser, processingInstruction);
-        XML_SetUnparsedEntityDeclHandler(parser, unparsedEntityDecl);
-        XML_SetUserData(parser, context.release());
+        installHandlers(parser, context.release());
     } else {
         jniThrowOutOfMemoryError(env, NULL);
         return 0;
@@ -1062,6 +1073,30 @@ static void ExpatParser_appendString(JNIEnv* env, jobject object, jlong pointer,
     append(env, object, pointer, bytes, 0, byteCount, isFinal);
 }
 
+/**
+ * Prepares a parser for a new document. Expat clears the handlers when it
+ * resets a parser, so we register them again. The parsing context, including
+ * its cache of interned strings, is kept.
+ *
+ * @param javaEncoding the character encoding name of the next document
+ */
+static void ExpatParser_reset(JNIEnv* env, jobject, jlong address, jstring javaEncoding) {
+    XML_Parser parser = toXMLParser(address);
+    ParsingContext* context = toParsingContext(parser);
+
+    ScopedUtfChars encoding(env, javaEncoding);
+    if (encoding.c_str() == NULL) {
+        return;
+    }
+    if (!XML_ParserReset(parser, encoding.c_str())) {
+        jniThrowException(env, "java/lang/IllegalStateException", "Cannot reset parser");
+        return;
+    }
+
+    context->stringStack.clear();
+    installHandlers(parser, context);
+}
+
 /**
  * Releases parser only.
  */
@@ -1362,6 +1397,7 @@ static JNINativeMethod parserMethods[] = {
     NATIVE_METHOD(ExpatParser, line, "(J)I"),
     NATIVE_METHOD(ExpatParser, release, "(J)V"),
     NATIVE_METHOD(ExpatParser, releaseParser, "(J)V"),
+    NATIVE_METHOD(ExpatParser, reset, "(JLjava/lang/String;)V"),
     NATIVE_METHOD(ExpatParser, staticInitialize, "(Ljava/lang/String;)V"),
 };
 
@@ -23,6 +23,8 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
+import java.util.Collections;
 import libcore.io.Streams;
 import junit.framework.TestCase;
 
@@ -291,6 +293,57 @@ public class DexClassLoaderTest extends TestCase {
         createLoaderAndCallMethod("test.TestMethods", "test_diff_getInstanceVariable", jar1, jar2);
     }
 
+    // MANY_ELEMENTS, enough for DexPathList to index them
+
+    private ClassLoader createManyElementLoader() {
+        File empty = new File(srcDir, "empty");
+        assertTrue(empty.mkdir());
+        return createLoader(empty, srcDir, jar2, jar1);
+    }
+
+    public void test_manyElements_loadClass() throws Exception {
+        ClassLoader cl = createManyElementLoader();
+        Class c = cl.loadClass("test.TestMethods");
+        c.getMethod("test_diff_constructor").invoke(null);
+        assertSame("blort", cl.loadClass("test.Test1").getMethod("test").invoke(null));
+        try {
+            cl.loadClass("test.DoesNotExist");
+            fail();
+        } catch (ClassNotFoundException expected) {
+        }
+        try {
+            cl.loadClass("nonexistent.Test1");
+            fail();
+        } catch (ClassNotFoundException expected) {
+        }
+    }
+
+    public void test_manyElements_getResource() throws Exception {
+        ClassLoader cl = createManyElementLoader();
+        assertNotNull(cl.getResource("test/Resource1.txt"));
+        assertNotNull(cl.getResource("test2/Resource2.txt"));
+        assertNull(cl.getResource("test/DoesNotExist.txt"));
+        // Directory elements can't be indexed, but are still searched in order.
+        URL url = cl.getResource("loading-test.jar");
+        assertEquals(new File(srcDir, "loading-test.jar").toURI().toURL(), url);
+        assertEquals(1, Collections.list(cl.getResources("test2/Resource2.txt")).size());
+    }
+
+    public void test_manyElements_openConcurrently() throws Exception {
+        String sequential = createManyElementLoader().toString();
+        assertTrue(new File(srcDir, "empty").delete());
+        System.setProperty("libcore.dexpathlist.threads", "4");
+        try {
+            ClassLoader cl = createManyElementLoader();
+            // The same elements, in the same order.
+            assertEquals(sequential, cl.toString());
+            assertSame("blort", cl.loadClass("test.Test1").getMethod("test").invoke(null));
+            assertNotNull(cl.getResource("test2/Resource2.txt"));
+        } finally {
+            System.clearProperty("libcore.dexpathlist.threads");
+        }
+    }
+
     // TWO_DEX
 
     public void test_twoDex_init() throws Exception {
@@ -35,6 +35,7 @@ import java.net.InetSocketAddress;
 import java.net.NetworkInterface;
 import java.net.ServerSocket;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.Locale;
@@ -165,6 +166,51 @@ public class OsTest extends TestCase {
     checkNoName((UnixSocketAddress) Libcore.os.getsockname(fd));
   }
 
+  public void test_epoll() throws Exception {
+    FileDescriptor epfd = Libcore.os.epoll_create1(EPOLL_CLOEXEC);
+    FileDescriptor[] pipe = Libcore.os.pipe2(0);
+    try {
+      Libcore.os.epoll_ctl(epfd, EPOLL_CTL_ADD, pipe[0], EPOLLIN);
+      int[] fds = new int[4];
+      int[] events = new int[4];
+      assertEquals(0, Libcore.os.epoll_wait(epfd, fds, events, 0));
+
+      Libcore.os.write(pipe[1], new byte[] { 1 }, 0, 1);
+      assertEquals(1, Libcore.os.epoll_wait(epfd, fds, events, 0));
+      assertEquals(pipe[0].getInt$(), fds[0]);
+      assertEquals(EPOLLIN, events[0]);
+
+      Libcore.os.epoll_ctl(epfd, EPOLL_CTL_DEL, pipe[0], 0);
+      assertEquals(0, Libcore.os.epoll_wait(epfd, fds, events, 0));
+    } finally {
+      IoUtils.closeQuietly(pipe[0]);
+      IoUtils.closeQuietly(pipe[1]);
+      IoUtils.closeQuietly(epfd);
+    }
+  }
+
+  public void test_eventfd() throws Exception {
+    FileDescriptor fd = Libcore.os.eventfd(0, EFD_CLOEXEC | EFD_NONBLOCK);
+    try {
+      byte[] buffer = new byte[8];
+      try {
+        Libcore.os.read(fd, buffer, 0, buffer.length);
+        fail();
+      } catch (ErrnoException expected) {
+        assertEquals(EAGAIN, expected.errno);
+      }
+
+      // Writes add to the counter; a read returns and resets it.
+      Memory.pokeLong(buffer, 0, 3L, ByteOrder.nativeOrder());
+      Libcore.os.write(fd, buffer, 0, buffer.length);
+      Libcore.os.write(fd, buffer, 0, buffer.length);
+      assertEquals(8, Libcore.os.read(fd, buffer, 0, buffer.length));
+      assertEquals(6L, Memory.peekLong(buffer, 0, ByteOrder.nativeOrder()));
+    } finally {
+      IoUtils.closeQuietly(fd);
+    }
+  }
+
   public void test_strsignal() throws Exception {
     assertEquals("Killed", Libcore.os.strsignal(9));
     assertEquals("Unknown signal -1", Libcore.os.strsignal(-1));
@@ -16,6 +16,7 @@
 
 package libcore.java.lang;
 
+import java.util.Random;
 import junit.framework.TestCase;
 
 public class DoubleTest extends TestCase {
@@ -30,6 +31,69 @@ public class DoubleTest extends TestCase {
         assertEquals("0.010206713752229896", Double.toString(0.010206713752229896));
     }
 
+    public void testToStringShortest() throws Exception {
+        assertEquals("4.9E-324", Double.toString(Double.MIN_VALUE));
+        // At least two digits are always produced, even when one would round-trip.
+        assertEquals("9.9E-324", Double.toString(2 * Double.MIN_VALUE));
+        assertEquals("1.0E23", Double.toString(1e23));
+        assertEquals("0.002", Double.toString(0.002));
+        assertEquals("9.007199254740992E15", Double.toString(9007199254740992.0));
+        assertEquals("1.0000000000000002", Double.toString(Math.nextUp(1.0)));
+        assertEquals("1.7976931348623157E308", Double.toString(Double.MAX_VALUE));
+        assertEquals("1.4E-45", Float.toString(Float.MIN_VALUE));
+        assertEquals("0.1", Float.toString(0.1f));
+        assertEquals("3.4028235E38", Float.toString(Float.MAX_VALUE));
+        assertEquals("1.6777216E7", Float.toString(16777216.0f));
+    }
+
+    public void testToStringRoundTrip() throws Exception {
+        Random random = new Random(0);
+        for (int i = 0; i < 10000; i++) {
+            double d = Double.longBitsToDouble(random.nextLong());
+            if (!Double.isNaN(d)) {
+                assertEquals(d, Double.parseDouble(Double.toString(d)));
+            }
+            float f = Float.intBitsToFloat(random.nextInt());
+            if (!Float.isNaN(f)) {
+                assertEquals(f, Float.parseFloat(Float.toString(f)));
+            }
+        }
+    }
+
+    public void testParseCorrectlyRounded() throws Exception {
+        assertEquals(1e23, Double.parseDouble("1e23"));
+        assertEquals(9007199254740992.0, Double.parseDouble("9007199254740993"));
+        assertEquals(9007199254740996.0, Double.parseDouble("9007199254740995"));
+        assertEquals(1.8446744073709552E19, Double.parseDouble("18446744073709551615"));
+        assertEquals(0.1, Double.parseDouble("0.1000000000000000055511151231257827"));
+        assertEquals(Double.MAX_VALUE, Double.parseDouble("1.7976931348623158E308"));
+        assertEquals(Double.POSITIVE_INFINITY, Double.parseDouble("1.7976931348623159E308"));
+        assertEquals(Double.MIN_VALUE, Double.parseDouble("3e-324"));
+        assertEquals(0.0, Double.parseDouble("2e-324"));
+        assertEquals(1.0f, Float.parseFloat("1.00000005960464477539062499"));
+        assertEquals(1.0000001f, Float.parseFloat("1.000000059604644775390625001"));
+        assertEquals(Float.MIN_VALUE, Float.parseFloat("1e-45"));
+        assertEquals(Float.POSITIVE_INFINITY, Float.parseFloat("3.4028236E38"));
+    }
+
+    public void testWriteDoubleAndFloat() throws Exception {
+        double[] values = { 0.0, -0.0, 1.5, -0.008366, 1234567.0, 1.0e7, -4.9E-324,
+                Double.MAX_VALUE, Double.NaN, Double.NEGATIVE_INFINITY };
+        byte[] bytes = new byte[32];
+        for (double d : values) {
+            int end = RealToString.getInstance().writeDouble(bytes, 1, d);
+            assertEquals(Double.toString(d), new String(bytes, 1, end - 1, "US-ASCII"));
+            float f = (float) d;
+            end = RealToString.getInstance().writeFloat(bytes, 1, f);
+            assertEquals(Float.toString(f), new String(bytes, 1, end - 1, "US-ASCII"));
+        }
+        try {
+            RealToString.getInstance().writeDouble(new byte[4], 0, 1.125);
+            fail();
+        } catch (ArrayIndexOutOfBoundsException expected) {
+        }
+    }
+
     public void testNamedDoubles() throws Exception {
         assertEquals(Double.NaN, Double.parseDouble("NaN"));
         assertEquals(Double.NaN, Double.parseDouble("-NaN"));
@@ -16,6 +16,7 @@
 
 package libcore.java.lang;
 
+import java.nio.charset.StandardCharsets;
 import junit.framework.TestCase;
 
 public final class IntegralToStringTest extends TestCase {
@@ -32,6 +33,48 @@ public final class IntegralToStringTest extends TestCase {
         assertEquals("ffffffff", IntegralToString.intToHexString(-1, false, 0));
     }
 
+    private static final long[] INTERESTING_LONGS = {
+        0, 1, -1, 9, 10, -10, 99, 100, 999999999, 1000000000, -1000000000,
+        Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MAX_VALUE + 1L, Integer.MIN_VALUE - 1L,
+        4294967295L, 4294967296L, 999999999999999999L, 1000000000000000000L,
+        Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1,
+    };
+
+    public void test_appendIntAndLong() {
+        for (long l : INTERESTING_LONGS) {
+            // Start from a full builder so that every append has to grow it.
+            StringBuilder sb = new StringBuilder(1).append('x');
+            assertEquals("x" + Long.toString(l), sb.append(l).toString());
+            int i = (int) l;
+            sb = new StringBuilder(1).append('x');
+            assertEquals("x" + Integer.toString(i), sb.append(i).toString());
+        }
+    }
+
+    public void test_writeIntAndLong() {
+        byte[] bytes = new byte[24];
+        for (long l : INTERESTING_LONGS) {
+            int end = IntegralToString.writeLong(bytes, 2, l);
+            assertEquals(Long.toString(l), new String(bytes, 2, end - 2, StandardCharsets.US_ASCII));
+            int i = (int) l;
+            end = IntegralToString.writeInt(bytes, 2, i);
+            assertEquals(Integer.toString(i), new String(bytes, 2, end - 2, StandardCharsets.US_ASCII));
+        }
+    }
+
+    public void test_writeIntAndLong_tooSmall() {
+        try {
+            IntegralToString.writeInt(new byte[4], 2, 123);
+            fail();
+        } catch (ArrayIndexOutOfBoundsException expected) {
+        }
+        try {
+            IntegralToString.writeLong(new byte[19], 0, Long.MIN_VALUE);
+            fail();
+        } catch (ArrayIndexOutOfBoundsException expected) {
+        }
+    }
+
     public void testBytesToHexString() {
         assertEquals("abcdef", IntegralToString.bytesToHexString(
                 new byte[] { (byte) 0xab, (byte) 0xcd, (byte) 0xef }, false));
@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.java.net;
+
+import java.net.AddressCache;
+import java.net.InetAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+
+public final class AddressCacheTest extends TestCase {
+
+    private static final int NETID_UNSET = 0;
+
+    private InetAddress[] addresses;
+
+    @Override protected void setUp() throws Exception {
+        addresses = new InetAddress[] { InetAddress.getByAddress(new byte[] { 127, 0, 0, 1 }) };
+    }
+
+    /**
+     * An AddressCache whose clock only moves when told to.
+     */
+    private static class TestAddressCache extends AddressCache {
+        volatile long now = 1000;
+
+        TestAddressCache(int maxEntries, long positiveTtlSeconds, long negativeTtlSeconds,
+                Resolver refreshResolver) {
+            super(maxEntries, positiveTtlSeconds, negativeTtlSeconds, refreshResolver);
+        }
+
+        @Override protected long nanoTime() {
+            return now;
+        }
+
+        void advanceSeconds(long seconds) {
+            now += TimeUnit.SECONDS.toNanos(seconds);
+        }
+    }
+
+    public void testEntriesExpire() {
+        TestAddressCache cache = new TestAddressCache(16, 2, 2, null);
+        cache.put("host", NETID_UNSET, addresses);
+        assertSame(addresses, cache.get("host", NETID_UNSET));
+        cache.advanceSeconds(1);
+        assertSame(addresses, cache.get("host", NETID_UNSET));
+        cache.advanceSeconds(1);
+        assertNull(cache.get("host", NETID_UNSET));
+    }
+
+    public void testEvictionAtMaxEntries() {
+        TestAddressCache cache = new TestAddressCache(2, 2, 2, null);
+        cache.put("a", NETID_UNSET, addresses);
+        cache.put("b", NETID_UNSET, addresses);
+        cache.put("c", NETID_UNSET, addresses);
+        assertNull(cache.get("a", NETID_UNSET));
+        assertSame(addresses, cache.get("b", NETID_UNSET));
+        assertSame(addresses, cache.get("c", NETID_UNSET));
+    }
+
+    public void testNetIdsAreSeparate() {
+        TestAddressCache cache = new TestAddressCache(16, 2, 2, null);
+        cache.put("host", 1, addresses);
+        assertSame(addresses, cache.get("host", 1));
+        assertNull(cache.get("host", 2));
+    }
+
+    public void testZeroMaxEntriesDisablesCaching() {
+        TestAddressCache cache = new TestAddressCache(0, 2, 2, null);
+        cache.put("host", NETID_UNSET, addresses);
+        cache.putUnknownHost("unknown", NETID_UNSET, "detail");
+        assertNull(cache.get("host", NETID_UNSET));
+        assertNull(cache.get("unknown", NETID_UNSET));
+        cache.clear();
+    }
+
+    public void testZeroTtlDisablesCaching() {
+        TestAddressCache cache = new TestAddressCache(16, 0, 0, null);
+        cache.put("host", NETID_UNSET, addresses);
+        cache.putUnknownHost("unknown", NETID_UNSET, "detail");
+        assertNull(cache.get("host", NETID_UNSET));
+        assertNull(cache.get("unknown", NETID_UNSET));
+    }
+
+    public void testNegativeTtlNeverExpires() {
+        TestAddressCache cache = new TestAddressCache(16, -1, -1, null);
+        cache.put("host", NETID_UNSET, addresses);
+        cache.putUnknownHost("unknown", NETID_UNSET, "detail");
+        cache.advanceSeconds(100L * 365 * 24 * 60 * 60);
+        assertSame(addresses, cache.get("host", NETID_UNSET));
+        assertEquals("detail", cache.get("unknown", NETID_UNSET));
+    }
+
+    public void testNegativeEntriesHaveTheirOwnTtl() {
+        TestAddressCache cache = new TestAddressCache(16, 10, 1, null);
+        cache.put("host", NETID_UNSET, addresses);
+        cache.putUnknownHost("unknown", NETID_UNSET, "detail");
+        assertEquals("detail", cache.get("unknown", NETID_UNSET));
+        cache.advanceSeconds(1);
+        assertNull(cache.get("unknown", NETID_UNSET));
+        assertSame(addresses, cache.get("host", NETID_UNSET));
+
+        cache = new TestAddressCache(16, 0, 10, null);
+        cache.put("host", NETID_UNSET, addresses);
+        cache.putUnknownHost("unknown", NETID_UNSET, "detail");
+        assertNull(cache.get("host", NETID_UNSET));
+        assertEquals("detail", cache.get("unknown", NETID_UNSET));
+    }
+
+    public void testHitAndMissCounts() {
+        TestAddressCache cache = new TestAddressCache(16, 2, 2, null);
+        assertNull(cache.get("host", NETID_UNSET));
+        cache.put("host", NETID_UNSET, addresses);
+        cache.get("host", NETID_UNSET);
+        cache.get("host", NETID_UNSET);
+        cache.advanceSeconds(2);
+        // An expired entry is a miss.
+        assertNull(cache.get("host", NETID_UNSET));
+        assertEquals(2, cache.hitCount());
+        assertEquals(2, cache.missCount());
+    }
+
+    public void testRefreshAheadResolvesOnce() throws Exception {
+        final InetAddress[] refreshed = new InetAddress[] {
+                InetAddress.getByAddress(new byte[] { 127, 0, 0, 2 }) };
+        final AtomicInteger resolveCount = new AtomicInteger();
+        final CountDownLatch resolving = new CountDownLatch(1);
+        final CountDownLatch resolved = new CountDownLatch(1);
+        TestAddressCache cache = new TestAddressCache(16, 4, 4, new AddressCache.Resolver() {
+            @Override public InetAddress[] resolve(String hostname, int netId) {
+                resolveCount.incrementAndGet();
+                try {
+                    resolving.await();
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                return refreshed;
+            }
+        }) {
+            @Override public void put(String hostname, int netId, InetAddress[] addresses) {
+                super.put(hostname, netId, addresses);
+                if (addresses == refreshed) {
+                    resolved.countDown();
+                }
+            }
+        };
+        cache.put("host", NETID_UNSET, addresses);
+
+        // Hits early in the TTL don't refresh.
+        cache.advanceSeconds(2);
+        assertSame(addresses, cache.get("host", NETID_UNSET));
+        assertEquals(0, resolveCount.get());
+
+        // Hits in the last quarter of the TTL start one refresh between them.
+        cache.advanceSeconds(1);
+        for (int i = 0; i < 10; ++i) {
+            assertSame(addresses, cache.get("host", NETID_UNSET));
+        }
+        resolving.countDown();
+        assertTrue(resolved.await(10, TimeUnit.SECONDS));
+        assertEquals(1, resolveCount.get());
+
+        // The refreshed entry starts a new TTL.
+        cache.advanceSeconds(2);
+        assertSame(refreshed, cache.get("host", NETID_UNSET));
+        assertEquals(1, resolveCount.get());
+    }
+
+    public void testRefreshAheadDoesNotOutliveClear() throws Exception {
+        final InetAddress[] refreshed = new InetAddress[] {
+                InetAddress.getByAddress(new byte[] { 127, 0, 0, 2 }) };
+        final CountDownLatch resolving = new CountDownLatch(1);
+        final CountDownLatch otherRefreshed = new CountDownLatch(1);
+        TestAddressCache cache = new TestAddressCache(16, 4, 4, new AddressCache.Resolver() {
+            @Override public InetAddress[] resolve(String hostname, int netId) {
+                if (hostname.equals("host")) {
+                    try {
+                        resolving.await();
+                    } catch (InterruptedException e) {
+                        throw new AssertionError(e);
+                    }
+                }
+                return refreshed;
+            }
+        }) {
+            @Override public void put(String hostname, int netId, InetAddress[] addresses) {
+                super.put(hostname, netId, addresses);
+                if (addresses == refreshed && hostname.equals("other")) {
+                    otherRefreshed.countDown();
+                }
+            }
+        };
+        cache.put("host", NETID_UNSET, addresses);
+        cache.advanceSeconds(3);
+        // Starts a refresh of "host" that blocks until the cache has been cleared.
+        assertSame(addresses, cache.get("host", NETID_UNSET));
+        cache.clear();
+
+        // Refreshes run one at a time, so once "other" is refreshed "host" has finished too.
+        cache.put("other", NETID_UNSET, addresses);
+        cache.advanceSeconds(3);
+        assertSame(addresses, cache.get("other", NETID_UNSET));
+        resolving.countDown();
+        assertTrue(otherRefreshed.await(10, TimeUnit.SECONDS));
+
+        assertNull(cache.get("host", NETID_UNSET));
+        assertSame(refreshed, cache.get("other", NETID_UNSET));
+    }
+}
@@ -15,6 +15,8 @@
  */
 package libcore.java.nio.channels;
 
+import android.system.Os;
+import java.io.FileDescriptor;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
@@ -113,6 +115,22 @@ public class SelectorTest extends TestCase {
         }
     }
 
+    public void testWakeupAfterPreviousWakeupWasConsumed() throws Exception {
+        Selector selector = Selector.open();
+        try {
+            // Each wakeup that follows a completed select must be honored, even
+            // though redundant wakeups in between are coalesced.
+            for (int i = 0; i < 3; ++i) {
+                selector.wakeup();
+                selector.wakeup();
+                assertEquals(0, selector.select());
+            }
+            assertEquals(0, selector.selectNow());
+        } finally {
+            selector.close();
+        }
+    }
+
     // We previously leaked a file descriptor for each selector instance created.
     //
     // http://code.google.com/p/android/issues/detail?id=5993
@@ -155,6 +173,147 @@ public class SelectorTest extends TestCase {
         }
     }
 
+    public void testInterestOpsChangeTakesEffect() throws Exception {
+        Selector selector = Selector.open();
+        ServerSocketChannel ssc = ServerSocketChannel.open();
+        try {
+            ssc.socket().bind(null);
+            SocketChannel sc = SocketChannel.open(ssc.socket().getLocalSocketAddress());
+            sc.configureBlocking(false);
+            SocketChannel server = ssc.accept();
+
+            // Nothing to read yet.
+            SelectionKey key = sc.register(selector, SelectionKey.OP_READ);
+            assertEquals(0, selector.selectNow());
+
+            // But we can write straight away.
+            key.interestOps(SelectionKey.OP_WRITE);
+            assertEquals(1, selector.selectNow());
+            assertEquals(SelectionKey.OP_WRITE, key.readyOps());
+            selector.selectedKeys().clear();
+
+            // With no interest ops, nothing is selected even once data arrives.
+            key.interestOps(0);
+            server.write(ByteBuffer.allocate(16));
+            assertEquals(0, selector.selectNow());
+
+            key.interestOps(SelectionKey.OP_READ);
+            assertEquals(1, selector.select());
+            assertEquals(SelectionKey.OP_READ, key.readyOps());
+            server.close();
+        } finally {
+            selector.close();
+            ssc.close();
+        }
+    }
+
+    public void testCancelAndReregister() throws Exception {
+        Selector selector = Selector.open();
+        ServerSocketChannel ssc = ServerSocketChannel.open();
+        try {
+            ssc.socket().bind(null);
+            SocketChannel sc = SocketChannel.open(ssc.socket().getLocalSocketAddress());
+            sc.configureBlocking(false);
+            SocketChannel server = ssc.accept();
+
+            SelectionKey key = sc.register(selector, SelectionKey.OP_WRITE);
+            assertEquals(1, selector.selectNow());
+            key.cancel();
+            assertEquals(0, selector.selectNow());
+            assertTrue(selector.keys().isEmpty());
+            assertTrue(selector.selectedKeys().isEmpty());
+
+            key = sc.register(selector, SelectionKey.OP_WRITE);
+            assertEquals(1, selector.selectNow());
+            assertEquals(SelectionKey.OP_WRITE, key.readyOps());
+
+            // Closing the channel cancels its key.
+            sc.close();
+            assertEquals(0, selector.selectNow());
+            assertTrue(selector.keys().isEmpty());
+            server.close();
+        } finally {
+            selector.close();
+            ssc.close();
+        }
+    }
+
+    public void testClosingChannelWithDupedFdDoesNotSpinSelect() throws Exception {
+        Selector selector = Selector.open();
+        ServerSocketChannel ssc = ServerSocketChannel.open();
+        FileDescriptor dup = null;
+        try {
+            ssc.socket().bind(null);
+            SocketChannel sc = SocketChannel.open(ssc.socket().getLocalSocketAddress());
+            sc.configureBlocking(false);
+            SocketChannel server = ssc.accept();
+
+            SelectionKey key = sc.register(selector, SelectionKey.OP_WRITE);
+            assertEquals(1, selector.selectNow());
+            selector.selectedKeys().clear();
+
+            // The dup keeps the socket open, and still writable, after the channel closes.
+            dup = Os.dup(sc.socket().getFileDescriptor$());
+            sc.close();
+            assertFalse(key.isValid());
+            assertEquals(0, selector.selectNow());
+            assertTrue(selector.keys().isEmpty());
+
+            // With nothing registered, a select should wait out its timeout.
+            long start = System.nanoTime();
+            assertEquals(0, selector.select(200));
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+            server.close();
+        } finally {
+            if (dup != null) {
+                Os.close(dup);
+            }
+            selector.close();
+            ssc.close();
+        }
+    }
+
+    public void testManyChannels() throws Exception {
+        Selector selector = Selector.open();
+        ServerSocketChannel ssc = ServerSocketChannel.open();
+        SocketChannel[] clients = new SocketChannel[64];
+        SocketChannel[] servers = new SocketChannel[clients.length];
+        try {
+            ssc.socket().bind(null);
+            for (int i = 0; i < clients.length; ++i) {
+                clients[i] = SocketChannel.open(ssc.socket().getLocalSocketAddress());
+                clients[i].configureBlocking(false);
+                clients[i].register(selector, SelectionKey.OP_READ, i);
+                servers[i] = ssc.accept();
+            }
+            assertEquals(0, selector.selectNow());
+
+            // Only the channels that have data should be selected.
+            for (int i = 0; i < clients.length; i += 2) {
+                servers[i].write(ByteBuffer.allocate(1));
+            }
+            int selected = 0;
+            while (selected < clients.length / 2) {
+                selected += selector.select();
+            }
+            assertEquals(clients.length / 2, selector.selectedKeys().size());
+            for (SelectionKey key : selector.selectedKeys()) {
+                assertEquals(0, ((Integer) key.attachment()) % 2);
+            }
+        } finally {
+            for (int i = 0; i < clients.length; ++i) {
+                if (clients[i] != null) {
+                    clients[i].close();
+                }
+                if (servers[i] != null) {
+                    servers[i].close();
+                }
+            }
+            selector.close();
+            ssc.close();
+        }
+    }
+
     // http://code.google.com/p/android/issues/detail?id=80785
     public void test_80785() throws Exception {
         Selector selector = Selector.open();
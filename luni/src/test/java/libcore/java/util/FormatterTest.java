@@ -18,9 +18,14 @@ package libcore.java.util;
 
 import java.math.BigDecimal;
 import java.util.Calendar;
+import java.util.DuplicateFormatFlagsException;
+import java.util.Formatter;
 import java.util.GregorianCalendar;
+import java.util.IllegalFormatConversionException;
 import java.util.Locale;
+import java.util.MissingFormatArgumentException;
 import java.util.TimeZone;
+import java.util.UnknownFormatConversionException;
 
 public class FormatterTest extends junit.framework.TestCase {
     public void test_numberLocalization() throws Exception {
@@ -162,6 +167,70 @@ public class FormatterTest extends junit.framework.TestCase {
       checkFormat("12", "l", 24);
     }
 
+    public void test_template() throws Exception {
+        Formatter.Template template = Formatter.Template.compile("%s: %08.3f %(,d%n%%");
+        String expected = String.format(Locale.US, "%s: %08.3f %(,d%n%%", "x", -1.5, -1234);
+        // Using a template twice mustn't change it, even though some conversions adjust
+        // the precision and flags as they go.
+        assertEquals(expected, template.format(Locale.US, "x", -1.5, -1234));
+        assertEquals(expected, template.format(Locale.US, "x", -1.5, -1234));
+
+        StringBuilder sb = new StringBuilder(">");
+        assertSame(sb, template.formatTo(sb, Locale.US, "x", -1.5, -1234));
+        assertEquals(">" + expected, sb.toString());
+
+        Locale arabic = new Locale("ar");
+        assertEquals(String.format(arabic, "%d %.2f", 12, 1.5),
+                Formatter.Template.compile("%d %.2f").format(arabic, 12, 1.5));
+        assertEquals("%2$s %1$s", Formatter.Template.compile("%2$s %1$s").getFormat());
+        assertEquals("b a", Formatter.Template.compile("%2$s %1$s").format("a", "b"));
+    }
+
+    public void test_templateErrors() throws Exception {
+        try {
+            Formatter.Template.compile("%.f");
+            fail();
+        } catch (UnknownFormatConversionException expected) {
+        }
+        try {
+            Formatter.Template.compile("%--s");
+            fail();
+        } catch (DuplicateFormatFlagsException expected) {
+        }
+        // Errors that depend on the arguments are reported when formatting.
+        Formatter.Template template = Formatter.Template.compile("%s %d");
+        try {
+            template.format("a");
+            fail();
+        } catch (MissingFormatArgumentException expected) {
+        }
+        try {
+            template.format("a", "b");
+            fail();
+        } catch (IllegalFormatConversionException expected) {
+        }
+    }
+
+    public void test_templateCache() throws Exception {
+        // Format strings are only compiled once they have been seen before.
+        String format = "cached " + System.nanoTime() + " %d";
+        assertNull(Formatter.Template.getCached(format));
+        Formatter.Template template = Formatter.Template.getCached(format);
+        assertNotNull(template);
+        assertSame(template, Formatter.Template.getCached(format));
+        assertEquals(String.format(format, 42), template.format(42));
+        assertNull(Formatter.Template.getCached("%.f"));
+        assertNull(Formatter.Template.getCached("%.f"));
+
+        // String.format reports unparseable format strings as usual.
+        try {
+            String.format("%.f", 1.0);
+            fail();
+        } catch (UnknownFormatConversionException expected) {
+        }
+        assertEquals("cached 12", String.format("cached %d", 12));
+    }
+
     private static void checkFormat(String expected, String pattern, int hour) {
       TimeZone utc = TimeZone.getTimeZone("UTC");
 
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.java.util.regex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternCache;
+import java.util.regex.PatternSyntaxException;
+import junit.framework.TestCase;
+import libcore.java.lang.ref.FinalizationTester;
+
+public class PatternCacheTest extends TestCase {
+    public void testCompileReturnsEquivalentPattern() {
+        Pattern pattern = PatternCache.compile("a+b", Pattern.CASE_INSENSITIVE);
+        assertEquals("a+b", pattern.pattern());
+        assertEquals(Pattern.CASE_INSENSITIVE, pattern.flags());
+        assertTrue(pattern.matcher("AAb").matches());
+    }
+
+    public void testFlagsAreCachedSeparately() {
+        assertFalse(PatternCache.compile("abc", 0).matcher("ABC").matches());
+        assertTrue(PatternCache.compile("abc", Pattern.CASE_INSENSITIVE).matcher("ABC").matches());
+        assertFalse(PatternCache.compile("abc", 0).matcher("ABC").matches());
+    }
+
+    public void testInvalidPatternThrowsEveryTime() {
+        for (int i = 0; i < 2; ++i) {
+            try {
+                PatternCache.compile("(");
+                fail();
+            } catch (PatternSyntaxException expected) {
+            }
+        }
+    }
+
+    public void testStringMethods() {
+        for (int i = 0; i < 2; ++i) {
+            assertTrue("a1b22".matches("[a-z0-9]+"));
+            assertEquals("a#b#", "a1b22".replaceAll("[0-9]+", "#"));
+            assertEquals("a#b22", "a1b22".replaceFirst("[0-9]+", "#"));
+            assertEquals(Arrays.asList("a", "b"), Arrays.asList("a1b22".split("[0-9]+")));
+        }
+    }
+
+    // The convenience methods hand their native matchers back to the pattern for reuse.
+    // Make sure a reused matcher doesn't carry over state, even across threads.
+    public void testConcurrentStringMethods() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Void>> results = new ArrayList<Future<Void>>();
+            for (int thread = 0; thread < 8; ++thread) {
+                final String input = "x" + thread + "y" + thread + thread;
+                results.add(executor.submit(new Callable<Void>() {
+                    @Override public Void call() {
+                        for (int i = 0; i < 1000; ++i) {
+                            assertTrue(input.matches("[a-z0-9]+"));
+                            assertFalse(input.matches("[a-z]+"));
+                            assertEquals("x#y#", input.replaceAll("[0-9]+", "#"));
+                            assertEquals(3, input.split("[a-z]").length);
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    public void testMatcherWithSharedPattern() {
+        Pattern pattern = PatternCache.compile("[0-9]+");
+        assertEquals("a#", "a1".replaceAll("[0-9]+", "#"));
+        Matcher matcher = pattern.matcher("b22");
+        assertTrue(matcher.find());
+        assertEquals("22", matcher.group());
+        matcher.usePattern(Pattern.compile("b"));
+        matcher.reset();
+        assertTrue(matcher.find());
+        assertEquals(0, matcher.start());
+        assertEquals("c#", "c333".replaceAll("[0-9]+", "#"));
+    }
+
+    // Matchers from Pattern.matcher() are never released by their callers, so their
+    // native peers are reused once the matchers are unreachable.
+    public void testAbandonedMatchersReuseNativePeers() {
+        Pattern pattern = Pattern.compile("[0-9]+");
+        long before = PatternCache.matcherPeersOpened();
+        for (int round = 0; round < 10; ++round) {
+            matchAndAbandon(pattern, 100);
+            FinalizationTester.induceFinalization();
+        }
+        long opened = PatternCache.matcherPeersOpened() - before;
+        // The first round has to open a peer per matcher; later rounds reuse them.
+        assertTrue("opened " + opened, opened < 500);
+    }
+
+    private static void matchAndAbandon(Pattern pattern, int count) {
+        for (int i = 0; i < count; ++i) {
+            Matcher matcher = pattern.matcher("a" + i);
+            assertTrue(matcher.find());
+            assertEquals(Integer.toString(i), matcher.group());
+        }
+    }
+}
@@ -24,10 +24,19 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
@@ -35,6 +44,7 @@ import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 import junit.framework.TestCase;
+import libcore.io.Streams;
 
 import tests.support.resource.Support_Resources;
 
@@ -124,6 +134,60 @@ public abstract class AbstractZipFileTest extends TestCase {
         }
     }
 
+    /**
+     * Entries whose names aren't valid UTF-8 (CP437 names written by older tools, say)
+     * must still be found by the name ZipEntry reports for them.
+     */
+    public void testNonUtf8EntryName() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ZipOutputStream out = createZipOutputStream(baos);
+        out.putNextEntry(new ZipEntry("caf@.txt"));
+        out.write("hello".getBytes("UTF-8"));
+        out.closeEntry();
+        out.close();
+
+        // 0x82 is CP437 for e-acute, and a lone continuation byte in UTF-8.
+        byte[] buffer = baos.toByteArray();
+        replaceBytes(buffer, "caf@".getBytes("US-ASCII"), new byte[] { 'c', 'a', 'f', (byte) 0x82 });
+        File f = createTemporaryZipFile();
+        writeBytes(f, buffer);
+
+        ZipFile zipFile = new ZipFile(f);
+        ZipEntry entry = zipFile.entries().nextElement();
+        assertEquals("caf\ufffd.txt", entry.getName());
+        assertNotNull(zipFile.getEntry(entry.getName()));
+        InputStream in = zipFile.getInputStream(entry);
+        assertNotNull(in);
+        assertEquals("hello", new String(Streams.readFully(in), "UTF-8"));
+        zipFile.close();
+    }
+
+    /**
+     * Distinct raw names that decode to the same String are duplicates.
+     */
+    public void testDuplicateEntriesAfterDecoding() throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ZipOutputStream out = createZipOutputStream(baos);
+        out.putNextEntry(new ZipEntry("name@1"));
+        out.closeEntry();
+        out.putNextEntry(new ZipEntry("name@2"));
+        out.closeEntry();
+        out.close();
+
+        // Both names decode to "name\ufffd".
+        byte[] buffer = baos.toByteArray();
+        replaceBytes(buffer, "@1".getBytes("US-ASCII"), new byte[] { (byte) 0x80, (byte) 0x80 });
+        replaceBytes(buffer, "@2".getBytes("US-ASCII"), new byte[] { (byte) 0xff, (byte) 0xff });
+        File badZip = createTemporaryZipFile();
+        writeBytes(badZip, buffer);
+
+        try {
+            new ZipFile(badZip);
+            fail();
+        } catch (ZipException expected) {
+        }
+    }
+
     /**
      * Make sure the size used for stored zip entires is the uncompressed size.
      * b/10227498
@@ -196,6 +260,36 @@ public abstract class AbstractZipFileTest extends TestCase {
         zipFile.close();
     }
 
+    public void testGetEntryWithLotsOfEntries() throws IOException {
+        int expectedEntryCount = 4096;
+        final File f = createTemporaryZipFile();
+        ZipOutputStream out = createZipOutputStream(f);
+        out.putNextEntry(new ZipEntry("dir/"));
+        out.closeEntry();
+        writeEntries(out, expectedEntryCount, 0, false /* setEntrySize */);
+        ZipFile zipFile = new ZipFile(f);
+        assertEquals(expectedEntryCount + 1, zipFile.size());
+        for (int i = 0; i < expectedEntryCount; ++i) {
+            String name = Integer.toHexString(i);
+            ZipEntry entry = zipFile.getEntry(name);
+            assertNotNull(name, entry);
+            assertEquals(name, entry.getName());
+        }
+        assertNull(zipFile.getEntry(Integer.toHexString(expectedEntryCount)));
+        assertNull(zipFile.getEntry(""));
+        assertEquals("dir/", zipFile.getEntry("dir").getName());
+        assertEquals("dir/", zipFile.getEntry("dir/").getName());
+
+        // Entries are enumerated in central directory order.
+        Enumeration<? extends ZipEntry> e = zipFile.entries();
+        assertEquals("dir/", e.nextElement().getName());
+        for (int i = 0; i < expectedEntryCount; ++i) {
+            assertEquals(Integer.toHexString(i), e.nextElement().getName());
+        }
+        assertFalse(e.hasMoreElements());
+        zipFile.close();
+    }
+
     // http://code.google.com/p/android/issues/detail?id=36187
     public void testZipFileLargerThan2GiB() throws IOException {
         if (false) { // TODO: this test requires too much time and too much disk space!
@@ -212,6 +306,120 @@ public abstract class AbstractZipFileTest extends TestCase {
         }
     }
 
+    // Entry streams from one ZipFile share its file descriptor, so they must
+    // not interfere with each other when read concurrently.
+    public void testConcurrentEntryReads() throws Exception {
+        final File f = createTemporaryZipFile();
+        writeEntries(createZipOutputStream(f), 16, 256 * 1024, false /* setEntrySize */);
+        final ZipFile zipFile = new ZipFile(f);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Void>> results = new ArrayList<Future<Void>>();
+            for (int i = 0; i < 64; ++i) {
+                final ZipEntry entry = zipFile.getEntry(Integer.toHexString(i % 16));
+                results.add(executor.submit(new Callable<Void>() {
+                    @Override public Void call() throws Exception {
+                        CRC32 crc = new CRC32();
+                        byte[] buffer = new byte[1024];
+                        InputStream is = zipFile.getInputStream(entry);
+                        int count;
+                        while ((count = is.read(buffer)) != -1) {
+                            crc.update(buffer, 0, count);
+                        }
+                        is.close();
+                        assertEquals(entry.getCrc(), crc.getValue());
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+            zipFile.close();
+        }
+    }
+
+    // Closing a ZipFile closes the file descriptor its entry streams share. The streams
+    // must then fail, rather than read whichever file is given the same descriptor number.
+    public void testEntryStreamFailsAfterClose() throws Exception {
+        final File f = createTemporaryZipFile();
+        writeEntries(createZipOutputStream(f), 1, 256 * 1024, false /* setEntrySize */);
+        ZipFile zipFile = new ZipFile(f);
+        InputStream is = zipFile.getInputStream(zipFile.getEntry("0"));
+        byte[] buffer = new byte[1024];
+        assertTrue(is.read(buffer) > 0);
+        zipFile.close();
+
+        File other = createTemporaryZipFile();
+        writeBytes(other, new byte[256 * 1024]);
+        RandomAccessFile otherRaf = new RandomAccessFile(other, "r");
+        try {
+            while (is.read(buffer) != -1) {
+            }
+            fail();
+        } catch (IOException expected) {
+        } finally {
+            otherRaf.close();
+        }
+    }
+
+    public void testMappedZipFile() throws Exception {
+        byte[] storedData = "hello, mapped world".getBytes("UTF-8");
+        byte[] deflatedData = new byte[64 * 1024];
+        new Random().nextBytes(deflatedData);
+
+        File f = createTemporaryZipFile();
+        ZipOutputStream out = createZipOutputStream(f);
+        CRC32 crc = new CRC32();
+        crc.update(storedData);
+        ZipEntry stored = new ZipEntry("stored");
+        stored.setMethod(ZipEntry.STORED);
+        stored.setSize(storedData.length);
+        stored.setCompressedSize(storedData.length);
+        stored.setCrc(crc.getValue());
+        out.putNextEntry(stored);
+        out.write(storedData);
+        out.closeEntry();
+        out.putNextEntry(new ZipEntry("deflated"));
+        out.write(deflatedData);
+        out.closeEntry();
+        out.close();
+
+        ZipFile zipFile = new ZipFile(f, ZipFile.OPEN_READ | ZipFile.OPEN_MAPPED);
+        try {
+            assertEquals(2, zipFile.size());
+
+            ByteBuffer buffer = zipFile.getStoredEntryBuffer(zipFile.getEntry("stored"));
+            assertTrue(buffer.isReadOnly());
+            assertEquals(ByteBuffer.wrap(storedData), buffer);
+
+            assertTrue(Arrays.equals(storedData,
+                    Streams.readFully(zipFile.getInputStream(zipFile.getEntry("stored")))));
+            assertTrue(Arrays.equals(deflatedData,
+                    Streams.readFully(zipFile.getInputStream(zipFile.getEntry("deflated")))));
+
+            try {
+                zipFile.getStoredEntryBuffer(zipFile.getEntry("deflated"));
+                fail();
+            } catch (ZipException expected) {
+            }
+            assertNull(zipFile.getStoredEntryBuffer(new ZipEntry("missing")));
+        } finally {
+            zipFile.close();
+        }
+
+        ZipFile unmapped = new ZipFile(f);
+        try {
+            unmapped.getStoredEntryBuffer(unmapped.getEntry("stored"));
+            fail();
+        } catch (IllegalStateException expected) {
+        } finally {
+            unmapped.close();
+        }
+    }
+
     /**
      * Compresses the given number of files, each of the given size, into a .zip archive.
      */
@@ -16,6 +16,17 @@
 
 package libcore.javax.xml.parsers;
 
+import java.io.StringReader;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.w3c.dom.Attr;
+import org.w3c.dom.DOMException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.w3c.dom.Text;
+import org.xml.sax.InputSource;
+
 import static tests.support.Support_Xml.*;
 
 public class DocumentBuilderTest extends junit.framework.TestCase {
@@ -61,4 +72,164 @@ public class DocumentBuilderTest extends junit.framework.TestCase {
             // Expected.
         }
     }
+
+    private static final String COMPACT_READ_ONLY =
+            "http://android.com/xml/features/compact-read-only-dom";
+
+    private static final String MENU = "<?xml version=\"1.0\"?>"
+            + "<menu xmlns=\"http://food\" xmlns:a=\"http://addons\">\n"
+            + "  <name id=\"w\" a:standard=\"strawberry\">Waffles</name>\n"
+            + "  <description>Belgian<![CDATA[ waffles & strawberries ]]>&lt;5g</description>\n"
+            + "  <a:option>Whipped Cream</a:option>\n"
+            + "  <?wafflemaker square shape?>\n"
+            + "  <a:vitamins xmlns:a=\"http://usda\"><!-- more? --><a:vitaminc>60%</a:vitaminc></a:vitamins>\n"
+            + "</menu>";
+
+    private static Document parse(String xml, boolean namespaceAware, boolean compact)
+            throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(namespaceAware);
+        factory.setFeature(COMPACT_READ_ONLY, compact);
+        return factory.newDocumentBuilder().parse(new InputSource(new StringReader(xml)));
+    }
+
+    public void test_compactReadOnlyMatchesRegularDocument() throws Exception {
+        for (boolean namespaceAware : new boolean[] { true, false }) {
+            Element regular = parse(MENU, namespaceAware, false).getDocumentElement();
+            Element compact = parse(MENU, namespaceAware, true).getDocumentElement();
+            assertTrue(regular.isEqualNode(compact));
+            assertTrue(compact.isEqualNode(regular));
+
+            Document copy = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+            Node imported = copy.importNode(compact, true);
+            assertTrue(imported.isEqualNode(regular));
+        }
+    }
+
+    public void test_compactReadOnlyNavigation() throws Exception {
+        Document document = parse(MENU, true, true);
+        Element menu = document.getDocumentElement();
+        assertEquals(menu, document.getFirstChild());
+        assertTrue(menu.isSameNode(document.getLastChild()));
+        assertEquals(document, menu.getParentNode());
+        assertEquals(document, menu.getOwnerDocument());
+
+        NodeList children = menu.getChildNodes();
+        assertEquals(11, children.getLength());
+        Element name = (Element) children.item(1);
+        Element description = (Element) children.item(3);
+        assertEquals("name", name.getLocalName());
+        assertEquals("http://food", name.getNamespaceURI());
+        assertEquals(name, description.getPreviousSibling().getPreviousSibling());
+        assertEquals(description, name.getNextSibling().getNextSibling());
+        assertEquals(Node.PROCESSING_INSTRUCTION_NODE, children.item(7).getNodeType());
+        assertEquals("square shape", children.item(7).getNodeValue());
+        assertEquals(menu.getLastChild(), children.item(10));
+        assertNull(children.item(11));
+
+        Attr standard = name.getAttributeNodeNS("http://addons", "standard");
+        assertEquals("a:standard", standard.getName());
+        assertEquals("strawberry", standard.getValue());
+        assertEquals(name, standard.getOwnerElement());
+        assertNull(standard.getParentNode());
+        assertEquals("", name.getAttribute("missing"));
+        assertEquals(2, name.getAttributes().getLength());
+
+        assertEquals(3, description.getChildNodes().getLength());
+        Text text = (Text) description.getFirstChild();
+        assertEquals("Belgian", text.getData());
+        assertEquals(Node.CDATA_SECTION_NODE, text.getNextSibling().getNodeType());
+        assertEquals("Belgian waffles & strawberries <5g", text.getWholeText());
+        assertEquals("Belgian waffles & strawberries <5g", description.getTextContent());
+        assertEquals("waffles", text.getNextSibling().getTextContent().substring(1, 8));
+
+        assertEquals(name, document.getElementById("w"));
+        assertNull(document.getElementById("x"));
+        NodeList options = document.getElementsByTagNameNS("http://addons", "*");
+        assertEquals(1, options.getLength());
+        assertEquals("Whipped Cream", options.item(0).getTextContent());
+        assertEquals(6, document.getElementsByTagName("*").getLength());
+
+        Element vitaminc = (Element) document.getElementsByTagName("a:vitaminc").item(0);
+        assertEquals("http://usda", vitaminc.lookupNamespaceURI("a"));
+        assertEquals("http://food", vitaminc.lookupNamespaceURI(null));
+        assertEquals("a", menu.lookupPrefix("http://addons"));
+    }
+
+    public void test_compactReadOnlyRejectsChanges() throws Exception {
+        Document document = parse(MENU, true, true);
+        Element menu = document.getDocumentElement();
+        Text waffles = (Text) menu.getElementsByTagName("name").item(0).getFirstChild();
+        try {
+            menu.appendChild(menu.getFirstChild());
+            fail();
+        } catch (DOMException expected) {
+            assertEquals(DOMException.NO_MODIFICATION_ALLOWED_ERR, expected.code);
+        }
+        try {
+            menu.setAttribute("a", "b");
+            fail();
+        } catch (DOMException expected) {
+            assertEquals(DOMException.NO_MODIFICATION_ALLOWED_ERR, expected.code);
+        }
+        try {
+            waffles.setData("Pancakes");
+            fail();
+        } catch (DOMException expected) {
+            assertEquals(DOMException.NO_MODIFICATION_ALLOWED_ERR, expected.code);
+        }
+        try {
+            document.createElement("c");
+            fail();
+        } catch (DOMException expected) {
+            assertEquals(DOMException.NO_MODIFICATION_ALLOWED_ERR, expected.code);
+        }
+        assertEquals("Waffles", waffles.getData());
+    }
+
+    public void test_compactReadOnlyCompareDocumentPosition() throws Exception {
+        Document document = parse(MENU, true, true);
+        Element menu = document.getDocumentElement();
+        Element name = (Element) menu.getElementsByTagName("name").item(0);
+        Node waffles = name.getFirstChild();
+        Attr id = name.getAttributeNode("id");
+        Attr standard = name.getAttributeNodeNS("http://addons", "standard");
+        Element vitaminc = (Element) document.getElementsByTagName("a:vitaminc").item(0);
+
+        assertEquals(0, name.compareDocumentPosition(name));
+        assertEquals(0, name.compareDocumentPosition(menu.getChildNodes().item(1)));
+
+        assertEquals(Node.DOCUMENT_POSITION_CONTAINED_BY | Node.DOCUMENT_POSITION_FOLLOWING,
+                document.compareDocumentPosition(vitaminc));
+        assertEquals(Node.DOCUMENT_POSITION_CONTAINS | Node.DOCUMENT_POSITION_PRECEDING,
+                vitaminc.compareDocumentPosition(menu));
+        assertEquals(Node.DOCUMENT_POSITION_FOLLOWING, name.compareDocumentPosition(vitaminc));
+        assertEquals(Node.DOCUMENT_POSITION_PRECEDING, vitaminc.compareDocumentPosition(waffles));
+
+        // An attribute is contained by its owner element and precedes the element's children.
+        assertEquals(Node.DOCUMENT_POSITION_CONTAINED_BY | Node.DOCUMENT_POSITION_FOLLOWING,
+                name.compareDocumentPosition(id));
+        assertEquals(Node.DOCUMENT_POSITION_CONTAINS | Node.DOCUMENT_POSITION_PRECEDING,
+                id.compareDocumentPosition(menu));
+        assertEquals(Node.DOCUMENT_POSITION_FOLLOWING, id.compareDocumentPosition(waffles));
+        assertEquals(Node.DOCUMENT_POSITION_PRECEDING, waffles.compareDocumentPosition(id));
+        assertEquals(Node.DOCUMENT_POSITION_PRECEDING, vitaminc.compareDocumentPosition(id));
+
+        // The order of attributes of the same element is implementation specific but consistent.
+        int idToStandard = id.compareDocumentPosition(standard);
+        int standardToId = standard.compareDocumentPosition(id);
+        assertTrue((idToStandard & Node.DOCUMENT_POSITION_IMPLEMENTATION_SPECIFIC) != 0);
+        assertEquals(Node.DOCUMENT_POSITION_FOLLOWING | Node.DOCUMENT_POSITION_PRECEDING,
+                (idToStandard | standardToId)
+                        & (Node.DOCUMENT_POSITION_FOLLOWING | Node.DOCUMENT_POSITION_PRECEDING));
+
+        Element other = parse(MENU, true, true).getDocumentElement();
+        int toOther = menu.compareDocumentPosition(other);
+        int fromOther = other.compareDocumentPosition(menu);
+        assertTrue((toOther & Node.DOCUMENT_POSITION_DISCONNECTED) != 0);
+        assertTrue((toOther & Node.DOCUMENT_POSITION_IMPLEMENTATION_SPECIFIC) != 0);
+        assertEquals(Node.DOCUMENT_POSITION_FOLLOWING | Node.DOCUMENT_POSITION_PRECEDING,
+                (toOther | fromOther)
+                        & (Node.DOCUMENT_POSITION_FOLLOWING | Node.DOCUMENT_POSITION_PRECEDING));
+    }
 }
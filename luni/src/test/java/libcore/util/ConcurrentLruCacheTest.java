@@ -0,0 +1,301 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package libcore.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.TestCase;
+
+public final class ConcurrentLruCacheTest extends TestCase {
+
+    public void testCreateOnCacheMiss() {
+        ConcurrentLruCache<String, String> cache = newCreatingCache();
+        assertEquals("created-aa", cache.get("aa"));
+        assertEquals(0, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    public void testNoCreateOnCacheHit() {
+        ConcurrentLruCache<String, String> cache = newCreatingCache();
+        cache.put("aa", "put-aa");
+        assertEquals("put-aa", cache.get("aa"));
+        assertEquals(1, cache.hitCount());
+        assertEquals(0, cache.missCount());
+    }
+
+    public void testMissWithoutCreate() {
+        ConcurrentLruCache<String, String> cache = newCreatingCache();
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.missCount());
+        assertSnapshot(cache);
+    }
+
+    public void testGetIfPresentDoesNotCreate() {
+        ConcurrentLruCache<String, String> cache = newCreatingCache();
+        assertNull(cache.getIfPresent("aa"));
+        cache.put("aa", "put-aa");
+        assertEquals("put-aa", cache.getIfPresent("aa"));
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertSnapshot(cache, "aa", "put-aa");
+    }
+
+    public void testConstructorDoesNotAllowZeroCacheSize() {
+        try {
+            new ConcurrentLruCache<String, String>(0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    public void testCannotPutNullKey() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(3);
+        try {
+            cache.put(null, "A");
+            fail();
+        } catch (NullPointerException expected) {
+        }
+    }
+
+    public void testCannotPutNullValue() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(3);
+        try {
+            cache.put("a", null);
+            fail();
+        } catch (NullPointerException expected) {
+        }
+    }
+
+    public void testEvictionWithSingletonCache() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(1);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        assertSnapshot(cache, "b", "B");
+        assertEquals(1, cache.evictionCount());
+    }
+
+    public void testEntryEvictedWhenFull() {
+        List<String> expectedEvictionLog = new ArrayList<String>();
+        final List<String> evictionLog = new ArrayList<String>();
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(3) {
+            @Override protected void entryEvicted(String key, String value) {
+                evictionLog.add(key + "=" + value);
+            }
+        };
+
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        assertEquals(expectedEvictionLog, evictionLog);
+
+        cache.put("d", "D");
+        expectedEvictionLog.add("a=A");
+        assertEquals(expectedEvictionLog, evictionLog);
+    }
+
+    public void testGetGivesEntryASecondChance() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(3);
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        cache.get("a");
+        assertSnapshot(cache, "b", "B", "c", "C", "a", "A");
+        cache.put("d", "D");
+        // "a" was referenced, so "b" goes instead, and "a" must be referenced again to survive.
+        assertSnapshot(cache, "c", "C", "d", "D", "a", "A");
+        cache.put("e", "E");
+        assertSnapshot(cache, "d", "D", "a", "A", "e", "E");
+    }
+
+    /**
+     * Replacing the value for a key doesn't cause an eviction but it does mark
+     * the replaced entry as referenced.
+     */
+    public void testPutDoesNotCauseEviction() {
+        final List<String> evictionLog = new ArrayList<String>();
+        List<String> expectedEvictionLog = new ArrayList<String>();
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(3) {
+            @Override protected void entryEvicted(String key, String value) {
+                evictionLog.add(key + "=" + value);
+            }
+        };
+
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        assertEquals("B", cache.put("b", "B2"));
+        assertEquals(expectedEvictionLog, evictionLog);
+        assertSnapshot(cache, "a", "A", "c", "C", "b", "B2");
+    }
+
+    public void testEvictAll() {
+        final List<String> evictionLog = new ArrayList<String>();
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(10) {
+            @Override protected void entryEvicted(String key, String value) {
+                evictionLog.add(key + "=" + value);
+            }
+        };
+
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        cache.evictAll();
+        assertSnapshot(cache);
+        assertEquals(Arrays.asList("a=A", "b=B", "c=C"), evictionLog);
+        assertEquals(3, cache.evictionCount());
+    }
+
+    public void testConcurrentMissesCreateOnce() throws Exception {
+        final AtomicInteger[] createCounts = new AtomicInteger[32];
+        for (int i = 0; i < createCounts.length; ++i) {
+            createCounts[i] = new AtomicInteger();
+        }
+        final ConcurrentLruCache<Integer, String> cache =
+                new ConcurrentLruCache<Integer, String>(createCounts.length) {
+            @Override protected String create(Integer key) {
+                createCounts[key].incrementAndGet();
+                try {
+                    // Give the other threads time to miss on the same key.
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                return "created-" + key;
+            }
+        };
+        runConcurrently(cache, createCounts.length, 100);
+        for (int i = 0; i < createCounts.length; ++i) {
+            assertEquals("key " + i, 1, createCounts[i].get());
+        }
+        assertEquals(0, cache.evictionCount());
+    }
+
+    public void testConcurrentGetsWithEviction() throws Exception {
+        final AtomicInteger createCount = new AtomicInteger();
+        final ConcurrentLruCache<Integer, String> cache =
+                new ConcurrentLruCache<Integer, String>(16) {
+            @Override protected String create(Integer key) {
+                createCount.incrementAndGet();
+                return "created-" + key;
+            }
+        };
+        runConcurrently(cache, 32, 10000);
+        Map<Integer, String> snapshot = cache.snapshot();
+        assertTrue(snapshot.size() <= 16);
+        for (Map.Entry<Integer, String> entry : snapshot.entrySet()) {
+            assertEquals("created-" + entry.getKey(), entry.getValue());
+        }
+        assertEquals(8 * 10000, cache.hitCount() + cache.missCount());
+        // Every created value was cached exactly once, and is either still cached or evicted.
+        assertEquals(createCount.get(), cache.evictionCount() + snapshot.size());
+    }
+
+    public void testCreateFailureIsRethrown() {
+        ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(3) {
+            @Override protected String create(String key) {
+                throw new IllegalStateException(key);
+            }
+        };
+        try {
+            cache.get("a");
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+        assertSnapshot(cache);
+    }
+
+    public void testCreateThatGetsItsOwnKeyDoesNotDeadlock() throws Exception {
+        final AtomicInteger createCount = new AtomicInteger();
+        final ConcurrentLruCache<String, String> cache = new ConcurrentLruCache<String, String>(3) {
+            @Override protected String create(String key) {
+                if (createCount.incrementAndGet() == 1) {
+                    assertEquals("nested-" + key, get(key));
+                    return "outer-" + key;
+                }
+                return "nested-" + key;
+            }
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<String> result = executor.submit(new Callable<String>() {
+                @Override public String call() {
+                    return cache.get("a");
+                }
+            });
+            assertEquals("outer-a", result.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(2, createCount.get());
+        assertSnapshot(cache, "a", "outer-a");
+    }
+
+    /**
+     * Calls {@code cache.get} from 8 threads, {@code iterations} times each, on keys from 0
+     * to {@code keyCount - 1}, checking the values it returns.
+     */
+    private static void runConcurrently(final ConcurrentLruCache<Integer, String> cache,
+            final int keyCount, final int iterations) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Void>> results = new ArrayList<Future<Void>>();
+            for (int thread = 0; thread < 8; ++thread) {
+                results.add(executor.submit(new Callable<Void>() {
+                    @Override public Void call() {
+                        for (int i = 0; i < iterations; ++i) {
+                            int key = i % keyCount;
+                            assertEquals("created-" + key, cache.get(key));
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private ConcurrentLruCache<String, String> newCreatingCache() {
+        return new ConcurrentLruCache<String, String>(3) {
+            @Override protected String create(String key) {
+                return (key.length() > 1) ? ("created-" + key) : null;
+            }
+        };
+    }
+
+    private <T> void assertSnapshot(ConcurrentLruCache<T, T> cache, T... keysAndValues) {
+        List<T> actualKeysAndValues = new ArrayList<T>();
+        for (Map.Entry<T, T> entry : cache.snapshot().entrySet()) {
+            actualKeysAndValues.add(entry.getKey());
+            actualKeysAndValues.add(entry.getValue());
+        }
+
+        // assert using lists because order is important for LRUs
+        assertEquals(Arrays.asList(keysAndValues), actualKeysAndValues);
+    }
+}
@@ -1469,6 +1469,58 @@ public class DomTest extends TestCase {
         assertEquals(2, elements.getLength());
     }
 
+    public void testDocumentGetElementsByTagNameAfterChanges() {
+        assertEquals(2, document.getElementsByTagName("a:option").getLength());
+        assertEquals(2, document.getElementsByTagNameNS("http://addons", "option").getLength());
+        assertEquals(2, document.getElementsByTagNameNS("*", "option").getLength());
+        int elementCount = document.getElementsByTagName("*").getLength();
+
+        Element option3 = (Element) option1.cloneNode(true);
+        item.insertBefore(option3, option1);
+        NodeList options = document.getElementsByTagName("a:option");
+        assertEquals(3, options.getLength());
+        assertSame(option3, options.item(0));
+        assertEquals(3, document.getElementsByTagNameNS("http://addons", "option").getLength());
+        assertEquals(3, document.getElementsByTagNameNS("*", "option").getLength());
+        assertEquals(elementCount + 1, document.getElementsByTagName("*").getLength());
+
+        item.removeChild(option1);
+        item.removeChild(option2);
+        assertEquals(1, document.getElementsByTagName("a:option").getLength());
+        assertEquals(1, document.getElementsByTagNameNS("http://addons", "option").getLength());
+        assertEquals(3, options.getLength()); // earlier results are snapshots
+
+        document.renameNode(option3, "http://addons", "a:choice");
+        assertEquals(0, document.getElementsByTagName("a:option").getLength());
+        assertEquals(1, document.getElementsByTagName("a:choice").getLength());
+
+        menu.removeChild(item);
+        assertEquals(0, document.getElementsByTagName("a:choice").getLength());
+        assertEquals(0, document.getElementsByTagName("nutrition").getLength());
+    }
+
+    public void testDocumentGetElementByIdAfterChanges() {
+        vitaminc.setAttribute("name", "c");
+        vitaminc.setIdAttribute("name", true);
+        assertSame(vitaminc, document.getElementById("c"));
+
+        vitaminc.getAttributeNode("name").setValue("d");
+        assertNull(document.getElementById("c"));
+        assertSame(vitaminc, document.getElementById("d"));
+
+        Element copy = (Element) vitaminc.cloneNode(true);
+        copy.setIdAttribute("name", true);
+        copy.setAttribute("name", "e");
+        assertNull(document.getElementById("e"));
+        vitamins.appendChild(copy);
+        assertSame(copy, document.getElementById("e"));
+
+        vitamins.removeChild(vitaminc);
+        assertNull(document.getElementById("d"));
+        vitamins.removeChild(copy);
+        assertNull(document.getElementById("e"));
+    }
+
     public void testGetElementsByTagNameWithNamespacePrefix() {
         NodeList elements = item.getElementsByTagName("a:option");
         assertEquals(option1, elements.item(0));
@@ -519,6 +519,126 @@ public class ExpatSaxParserTest extends TestCase {
         }
     }
 
+    public void testParserPooling() throws Exception {
+        ExpatReader reader = new ExpatReader();
+        reader.setParserPoolingEnabled(true);
+        assertTrue(reader.isParserPoolingEnabled());
+        EventHandler handler = new EventHandler();
+        reader.setContentHandler(handler);
+
+        reader.parse(new InputSource(new StringReader("<a x=\"1\">b</a>")));
+        assertEquals(Arrays.asList("startDocument", "<a x=1>", "b", "</a>", "endDocument"),
+                handler.events);
+
+        // A failed document must not affect the next one
+        handler.events.clear();
+        try {
+            reader.parse(new InputSource(new StringReader("<a><b></a>")));
+            fail();
+        } catch (SAXException expected) {
+        }
+
+        handler.events.clear();
+        InputSource latin1 = new InputSource(
+                new ByteArrayInputStream("<c>\u00e9t\u00e9</c>".getBytes("ISO-8859-1")));
+        latin1.setEncoding("ISO-8859-1");
+        reader.parse(latin1);
+        assertEquals(Arrays.asList("startDocument", "<c>", "\u00e9t\u00e9", "</c>", "endDocument"),
+                handler.events);
+
+        handler.events.clear();
+        reader.setNamespaceProcessingEnabled(false);
+        reader.parse(new InputSource(new StringReader("<n:d xmlns:n=\"http://n\"/>")));
+        assertEquals(Arrays.asList("startDocument", "<n:d xmlns:n=http://n>", "</n:d>",
+                "endDocument"), handler.events);
+
+        handler.events.clear();
+        reader.setNamespaceProcessingEnabled(true);
+        reader.parse(new InputSource(new StringReader("<n:d xmlns:n=\"http://n\"/>")));
+        assertEquals(Arrays.asList("startDocument", "<http://n d>", "</http://n d>",
+                "endDocument"), handler.events);
+    }
+
+    public void testParserPoolingWithNestedParse() throws Exception {
+        final ExpatReader inner = new ExpatReader();
+        inner.setParserPoolingEnabled(true);
+        final EventHandler innerHandler = new EventHandler();
+        inner.setContentHandler(innerHandler);
+
+        ExpatReader outer = new ExpatReader();
+        outer.setParserPoolingEnabled(true);
+        EventHandler outerHandler = new EventHandler() {
+            @Override public void startElement(String uri, String localName, String qName,
+                    Attributes attributes) throws SAXException {
+                super.startElement(uri, localName, qName, attributes);
+                try {
+                    inner.parse(new InputSource(new StringReader("<inner/>")));
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            }
+        };
+        outer.setContentHandler(outerHandler);
+        outer.parse(new InputSource(new StringReader("<a><b/></a>")));
+
+        assertEquals(Arrays.asList("startDocument", "<a>", "<b>", "</b>", "</a>", "endDocument"),
+                outerHandler.events);
+        assertEquals(Arrays.asList("startDocument", "<inner>", "</inner>", "endDocument",
+                "startDocument", "<inner>", "</inner>", "endDocument"), innerHandler.events);
+    }
+
+    public void testParseAll() throws Exception {
+        ExpatReader reader = new ExpatReader();
+        EventHandler handler = new EventHandler();
+        reader.setContentHandler(handler);
+
+        List<InputSource> inputs = new ArrayList<InputSource>();
+        inputs.add(new InputSource(new StringReader("<a>1</a>")));
+        inputs.add(new InputSource(new ByteArrayInputStream("<b>2</b>".getBytes("UTF-8"))));
+        inputs.add(new InputSource(new StringReader("<c/>")));
+        reader.parseAll(inputs);
+
+        assertFalse(reader.isParserPoolingEnabled());
+        assertEquals(Arrays.asList(
+                "startDocument", "<a>", "1", "</a>", "endDocument",
+                "startDocument", "<b>", "2", "</b>", "endDocument",
+                "startDocument", "<c>", "</c>", "endDocument"), handler.events);
+    }
+
+    /**
+     * Records content events as strings.
+     */
+    static class EventHandler extends DefaultHandler {
+        final List<String> events = new ArrayList<String>();
+
+        @Override public void startDocument() {
+            events.add("startDocument");
+        }
+
+        @Override public void endDocument() {
+            events.add("endDocument");
+        }
+
+        @Override public void startElement(String uri, String localName, String qName,
+                Attributes attributes) throws SAXException {
+            StringBuilder event = new StringBuilder("<");
+            event.append(uri.isEmpty() ? qName : uri + " " + localName);
+            for (int i = 0; i < attributes.getLength(); i++) {
+                event.append(' ').append(attributes.getQName(i))
+                        .append('=').append(attributes.getValue(i));
+            }
+            events.add(event.append('>').toString());
+        }
+
+        @Override public void endElement(String uri, String localName, String qName) {
+            events.add("</" + (uri.isEmpty() ? qName : uri + " " + localName) + ">");
+        }
+
+        @Override public void characters(char[] ch, int start, int length) {
+            events.add(new String(ch, start, length));
+        }
+    }
+
     public void testExternalEntity() throws IOException, SAXException {
         class Handler extends DefaultHandler {
 
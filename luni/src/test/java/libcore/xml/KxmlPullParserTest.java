@@ -16,6 +16,8 @@
 
 package libcore.xml;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import org.kxml2.io.KXmlParser;
 import org.xmlpull.v1.XmlPullParser;
 
@@ -24,4 +26,52 @@ public class KxmlPullParserTest extends PullParserTest {
     @Override XmlPullParser newPullParser() {
         return new KXmlParser();
     }
+
+    public void testUtf8ByteInput() throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 4000; i++) {
+            text.append("a\u00e9\u20ac\ud83d\ude00 ");
+        }
+        String xml = "<?xml version='1.0' encoding='UTF-8'?><doc a='\u00fc\ud83d\ude00'>"
+                + text + "</doc>";
+        byte[] bytes = xml.getBytes("UTF-8");
+        assertUtf8Parse(new ByteArrayInputStream(bytes), "\u00fc\ud83d\ude00", text.toString());
+        assertUtf8Parse(new TrickleInputStream(bytes), "\u00fc\ud83d\ude00", text.toString());
+    }
+
+    public void testUtf8ByteInputMalformed() throws Exception {
+        byte[] bytes = { '<', 'a', '>', (byte) 0xc3, 'x', (byte) 0xff, (byte) 0xe2, (byte) 0x82,
+                '<', '/', 'a', '>' };
+        XmlPullParser parser = newPullParser();
+        parser.setInput(new ByteArrayInputStream(bytes), "UTF-8");
+        assertEquals(XmlPullParser.START_TAG, parser.next());
+        assertEquals(XmlPullParser.TEXT, parser.next());
+        assertEquals("\ufffdx\ufffd\ufffd", parser.getText());
+        assertEquals(XmlPullParser.END_TAG, parser.next());
+    }
+
+    private void assertUtf8Parse(InputStream in, String attributeValue, String text)
+            throws Exception {
+        XmlPullParser parser = newPullParser();
+        parser.setInput(in, null);
+        assertEquals(XmlPullParser.START_TAG, parser.next());
+        assertEquals(attributeValue, parser.getAttributeValue(0));
+        assertEquals(XmlPullParser.TEXT, parser.next());
+        assertEquals(text, parser.getText());
+        assertEquals(XmlPullParser.END_TAG, parser.next());
+        assertEquals("UTF-8", parser.getInputEncoding());
+    }
+
+    /**
+     * Returns one byte per read to split multibyte sequences across reads.
+     */
+    private static class TrickleInputStream extends ByteArrayInputStream {
+        TrickleInputStream(byte[] bytes) {
+            super(bytes);
+        }
+
+        @Override public synchronized int read(byte[] buffer, int offset, int count) {
+            return super.read(buffer, offset, Math.min(count, 1));
+        }
+    }
 }
@@ -18,7 +18,11 @@ package libcore.xml;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
 import junit.framework.TestCase;
 import org.kxml2.io.KXmlSerializer;
 import org.w3c.dom.Document;
@@ -76,6 +80,38 @@ public final class KxmlSerializerTest extends TestCase {
         assertXmlEquals("<foo>5'8\", 5 &lt; 6 &amp; 7 &gt; 3!</foo>", stringWriter.toString());
     }
 
+    public void testUtf8OutputStreamMatchesOutputStreamWriter() throws Exception {
+        // shift the comment's surrogate pair across the 8 KiB buffer boundary
+        for (int padding = 8110; padding < 8140; padding++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < padding; i++) {
+                text.append(i % 3 == 0 ? 'x' : i % 3 == 1 ? '\u00e9' : '\u20ac');
+            }
+            ByteArrayOutputStream direct = new ByteArrayOutputStream();
+            writeMixedDocument(direct, null, text.toString());
+            ByteArrayOutputStream viaWriter = new ByteArrayOutputStream();
+            writeMixedDocument(null, new OutputStreamWriter(viaWriter, "UTF-8"), text.toString());
+            assertTrue(Arrays.equals(viaWriter.toByteArray(), direct.toByteArray()));
+        }
+    }
+
+    private void writeMixedDocument(OutputStream out, Writer writer, String text)
+            throws IOException {
+        XmlSerializer serializer = new KXmlSerializer();
+        if (out != null) {
+            serializer.setOutput(out, "UTF-8");
+        } else {
+            serializer.setOutput(writer);
+        }
+        serializer.startDocument("UTF-8", null);
+        serializer.startTag(NAMESPACE, "a");
+        serializer.attribute(NAMESPACE, "b", "\u00fc\ud83d\ude4a");
+        serializer.text(text);
+        serializer.comment("\ud83d\ude4a \ud83d lone");
+        serializer.endTag(NAMESPACE, "a");
+        serializer.endDocument();
+    }
+
     private void assertXmlEquals(String expectedXml, String actualXml) throws Exception {
         String declaration = "<?xml version='1.0' encoding='UTF-8' ?>";
         assertEquals(declaration + expectedXml, actualXml);
@@ -1734,7 +1734,9 @@ public class KXmlParser implements XmlPullParser, Closeable {
             }
 
             int savedLimit = limit;
-            setInput(new InputStreamReader(is, charset));
+            setInput("UTF-8".equalsIgnoreCase(charset)
+                    ? new Utf8Reader(is)
+                    : new InputStreamReader(is, charset));
             encoding = charset;
             limit = savedLimit;
 
@@ -35,6 +35,15 @@ public class KXmlSerializer implements XmlSerializer {
 
     private Writer writer;
 
+    // BEGIN android-added: encode UTF-8 without an OutputStreamWriter
+    /**
+     * The destination when output is encoded directly to UTF-8, in which case
+     * {@link #writer} is null.
+     */
+    private OutputStream utf8Out;
+    private byte[] utf8Bytes;
+    // END android-added
+
     private boolean pending;
     private int auto;
     private int depth;
@@ -77,12 +86,68 @@ public class KXmlSerializer implements XmlSerializer {
 
     private final void flushBuffer() throws IOException {
         if(mPos > 0) {
+            // BEGIN android-changed
+            if (utf8Out != null) {
+                writeUtf8();
+                return;
+            }
+            // END android-changed
             writer.write(mText, 0, mPos);
             writer.flush();
             mPos = 0;
         }
     }
 
+    // BEGIN android-added
+    /**
+     * Encodes the buffered characters as UTF-8 and writes them to {@link
+     * #utf8Out}, replacing unpaired surrogates with '?' like an
+     * OutputStreamWriter would. A trailing high surrogate stays in the buffer
+     * until its low surrogate has been appended.
+     */
+    private void writeUtf8() throws IOException {
+        if (utf8Bytes == null) {
+            utf8Bytes = new byte[BUFFER_LEN];
+        }
+        byte[] bytes = utf8Bytes;
+        int count = 0;
+        int end = Character.isHighSurrogate(mText[mPos - 1]) ? mPos - 1 : mPos;
+        for (int i = 0; i < end; i++) {
+            if (count > bytes.length - 4) {
+                utf8Out.write(bytes, 0, count);
+                count = 0;
+            }
+            char c = mText[i];
+            if (c < 0x80) {
+                bytes[count++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[count++] = (byte) (0xc0 | (c >> 6));
+                bytes[count++] = (byte) (0x80 | (c & 0x3f));
+            } else if (!Character.isSurrogate(c)) {
+                bytes[count++] = (byte) (0xe0 | (c >> 12));
+                bytes[count++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                bytes[count++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end
+                    && Character.isLowSurrogate(mText[i + 1])) {
+                int codePoint = Character.toCodePoint(c, mText[++i]);
+                bytes[count++] = (byte) (0xf0 | (codePoint >> 18));
+                bytes[count++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+                bytes[count++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+                bytes[count++] = (byte) (0x80 | (codePoint & 0x3f));
+            } else {
+                bytes[count++] = '?';
+            }
+        }
+        utf8Out.write(bytes, 0, count);
+        utf8Out.flush();
+
+        if (end < mPos) {
+            mText[0] = mText[end];
+        }
+        mPos -= end;
+    }
+    // END android-added
+
     private final void check(boolean close) throws IOException {
         if (!pending)
             return;
@@ -336,6 +401,7 @@ public class KXmlSerializer implements XmlSerializer {
 
     public void setOutput(Writer writer) {
         this.writer = writer;
+        this.utf8Out = null; // android-added
 
         // elementStack = new String[12]; //nsp/prefix/name
         //nspCounts = new int[4];
@@ -359,10 +425,17 @@ public class KXmlSerializer implements XmlSerializer {
         throws IOException {
         if (os == null)
             throw new IllegalArgumentException("os == null");
-        setOutput(
-            encoding == null
-                ? new OutputStreamWriter(os)
-                : new OutputStreamWriter(os, encoding));
+        // BEGIN android-changed: encode UTF-8 directly into a reusable byte buffer
+        if ("UTF-8".equalsIgnoreCase(encoding)) {
+            setOutput((Writer) null);
+            utf8Out = os;
+        } else {
+            setOutput(
+                encoding == null
+                    ? new OutputStreamWriter(os)
+                    : new OutputStreamWriter(os, encoding));
+        }
+        // END android-changed
         this.encoding = encoding;
         if (encoding != null && encoding.toLowerCase(Locale.US).startsWith("utf")) {
             unicode = true;
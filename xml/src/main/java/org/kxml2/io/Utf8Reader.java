@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.kxml2.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+/**
+ * Decodes a UTF-8 byte stream directly into the caller's char buffer. Unlike
+ * an {@link java.io.InputStreamReader} this doesn't go through a
+ * {@link java.nio.charset.CharsetDecoder}: runs of ASCII bytes, which make up
+ * most XML markup, are copied with a simple widening loop. Malformed input is
+ * replaced with U+FFFD.
+ */
+final class Utf8Reader extends Reader {
+
+    private static final char REPLACEMENT = '\ufffd';
+
+    private final InputStream in;
+    private final byte[] bytes = new byte[8192];
+    private int position;
+    private int limit;
+
+    /**
+     * The low surrogate of a supplementary character whose high surrogate was
+     * returned at the end of the previous read, or 0 if there is none.
+     */
+    private char pendingLowSurrogate;
+
+    Utf8Reader(InputStream in) {
+        this.in = in;
+    }
+
+    @Override public int read(char[] chars, int offset, int count) throws IOException {
+        if (count == 0) {
+            return 0;
+        }
+
+        int start = offset;
+        int end = offset + count;
+        if (pendingLowSurrogate != 0) {
+            chars[offset++] = pendingLowSurrogate;
+            pendingLowSurrogate = 0;
+        }
+
+        while (offset < end) {
+            // Return what we have rather than blocking for more input
+            if (position == limit && (offset > start || !fillBytes(1))) {
+                break;
+            }
+
+            // ASCII fast path
+            int asciiEnd = Math.min(limit, position + end - offset);
+            while (position < asciiEnd && bytes[position] >= 0) {
+                chars[offset++] = (char) bytes[position++];
+            }
+            if (position == asciiEnd) {
+                continue;
+            }
+
+            int lead = bytes[position] & 0xff;
+            int length;
+            int codePoint;
+            int minimum;
+            if (lead >= 0xc2 && lead <= 0xdf) {
+                length = 2;
+                codePoint = lead & 0x1f;
+                minimum = 0x80;
+            } else if (lead >= 0xe0 && lead <= 0xef) {
+                length = 3;
+                codePoint = lead & 0x0f;
+                minimum = 0x800;
+            } else if (lead >= 0xf0 && lead <= 0xf4) {
+                length = 4;
+                codePoint = lead & 0x07;
+                minimum = 0x10000;
+            } else {
+                chars[offset++] = REPLACEMENT;
+                position++;
+                continue;
+            }
+
+            if (limit - position < length) {
+                if (offset > start) {
+                    break;
+                }
+                fillBytes(length); // at the end of the stream this yields a truncated sequence
+            }
+
+            int i = 1;
+            for (; i < length && position + i < limit; i++) {
+                int b = bytes[position + i];
+                if ((b & 0xc0) != 0x80) {
+                    break;
+                }
+                codePoint = (codePoint << 6) | (b & 0x3f);
+            }
+            position += i;
+
+            if (i < length
+                    || codePoint < minimum
+                    || codePoint > Character.MAX_CODE_POINT
+                    || (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)) {
+                chars[offset++] = REPLACEMENT;
+            } else if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                chars[offset++] = (char) codePoint;
+            } else {
+                chars[offset++] = Character.highSurrogate(codePoint);
+                char low = Character.lowSurrogate(codePoint);
+                if (offset < end) {
+                    chars[offset++] = low;
+                } else {
+                    pendingLowSurrogate = low;
+                }
+            }
+        }
+
+        return offset == start ? -1 : offset - start;
+    }
+
+    /**
+     * Returns true once {@code limit - position >= minimum}. If the stream is
+     * exhausted before that many bytes are available, this returns false.
+     */
+    private boolean fillBytes(int minimum) throws IOException {
+        if (limit != position) {
+            limit -= position;
+            System.arraycopy(bytes, position, bytes, 0, limit);
+        } else {
+            limit = 0;
+        }
+
+        position = 0;
+        int total;
+        while ((total = in.read(bytes, limit, bytes.length - limit)) != -1) {
+            limit += total;
+            if (limit >= minimum) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override public void close() throws IOException {
+        in.close();
+    }
+}